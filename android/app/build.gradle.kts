@@ -3,6 +3,7 @@ plugins {
     id("com.google.dagger.hilt.android")
     id("org.jetbrains.kotlin.plugin.compose")
     id("com.google.devtools.ksp")
+    id("androidx.baselineprofile")
 }
 
 android {
@@ -36,6 +37,13 @@ android {
         debug {
             isMinifyEnabled = false
         }
+        // Release-like build for :macrobenchmark (profileable, adds the replay activity)
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            isDebuggable = false
+        }
     }
 
     compileOptions {
@@ -53,6 +61,21 @@ android {
             excludes += "/META-INF/{AL2.0,LGPL2.1}"
         }
     }
+
+    sourceSets {
+        // Golden binary signaling frames, shared with the server codec tests
+        getByName("test").resources.srcDir("../../src/server/test/fixtures")
+    }
+}
+
+// Profiles come from :macrobenchmark BaselineProfileGenerator and land in
+// src/release/generated/baselineProfiles (saveInSrc), to be checked in. Until one is,
+// src/main/baseline-prof.txt is a hand-written seed. Generate with:
+//   ./gradlew :app:generateReleaseBaselineProfile
+baselineProfile {
+    saveInSrc = true
+    automaticGenerationDuringBuild = false
+    dexLayoutOptimization = true
 }
 
 dependencies {
@@ -98,10 +121,20 @@ dependencies {
     implementation("androidx.room:room-runtime:2.8.4")
     implementation("androidx.room:room-ktx:2.8.4")
     ksp("androidx.room:room-compiler:2.8.4")
+    implementation("androidx.room:room-paging:2.8.4")
+
+    // Paging (transmission history)
+    implementation("androidx.paging:paging-runtime-ktx:3.3.5")
+    implementation("androidx.paging:paging-compose:3.3.5")
 
     // Coroutines
     implementation("org.jetbrains.kotlinx:kotlinx-coroutines-android:1.10.1")
 
+    // Startup: baseline profile install + trace sections
+    implementation("androidx.profileinstaller:profileinstaller:1.4.1")
+    implementation("androidx.tracing:tracing-ktx:1.2.0")
+    baselineProfile(project(":macrobenchmark"))
+
     // Media3 (for Bluetooth button interception)
     implementation("androidx.media3:media3-session:1.5.1")
     implementation("androidx.media3:media3-exoplayer:1.5.1")
@@ -0,0 +1,168 @@
+package com.voiceping.android.benchmark
+
+import android.os.Bundle
+import androidx.activity.ComponentActivity
+import androidx.activity.compose.setContent
+import androidx.compose.foundation.layout.Column
+import androidx.compose.foundation.layout.fillMaxSize
+import androidx.compose.material3.MaterialTheme
+import androidx.compose.material3.Surface
+import androidx.compose.material3.Text
+import androidx.compose.runtime.collectAsState
+import androidx.compose.runtime.getValue
+import androidx.compose.ui.ExperimentalComposeUiApi
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.testTag
+import androidx.compose.ui.semantics.semantics
+import androidx.compose.ui.semantics.testTagsAsResourceId
+import androidx.lifecycle.lifecycleScope
+import com.voiceping.android.data.ptt.PttState
+import com.voiceping.android.data.repository.ChannelStateStore
+import com.voiceping.android.domain.model.Channel
+import com.voiceping.android.domain.model.ChannelMonitoringState
+import com.voiceping.android.domain.model.ConnectionState
+import com.voiceping.android.domain.model.NetworkType
+import com.voiceping.android.domain.model.User
+import com.voiceping.android.presentation.channels.ChannelListInputs
+import com.voiceping.android.presentation.channels.ChannelListUiState
+import com.voiceping.android.presentation.channels.components.ChannelSections
+import com.voiceping.android.presentation.channels.toChannelListUiState
+import com.voiceping.android.presentation.theme.VoicePingTheme
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.stateIn
+import kotlinx.coroutines.launch
+import kotlin.random.Random
+
+/**
+ * Channel list under synthetic traffic, for the :macrobenchmark jank journey.
+ *
+ * Feeds a ChannelStateStore with a fixed-seed replay of speaker changes on [JOINED_CHANNELS]
+ * monitored channels (out of [TOTAL_CHANNELS] listed) at [CHANGES_PER_MINUTE], through the
+ * same frame-paced reducer and ChannelSections list as ChannelListScreen. No server needed.
+ *
+ * Extras: [EXTRA_DURATION_MS] replay length. Shows "Replay done" when finished.
+ */
+class SpeakerChangeReplayActivity : ComponentActivity() {
+
+    private val store = ChannelStateStore()
+    private val replayDone = MutableStateFlow(false)
+
+    @OptIn(ExperimentalComposeUiApi::class)
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+
+        val durationMs = intent.getLongExtra(EXTRA_DURATION_MS, DEFAULT_DURATION_MS)
+        val channels = (0 until TOTAL_CHANNELS).map { index ->
+            Channel(
+                id = "channel-$index",
+                name = "Channel $index",
+                teamId = "team-${index / CHANNELS_PER_TEAM}",
+                teamName = "Team ${index / CHANNELS_PER_TEAM}"
+            )
+        }
+        channels.take(JOINED_CHANNELS).forEachIndexed { index, channel ->
+            store.add(
+                ChannelMonitoringState(
+                    channelId = channel.id,
+                    channelName = channel.name,
+                    teamName = channel.teamName,
+                    isPrimary = index == 0,
+                    userCount = 8
+                )
+            )
+        }
+
+        val uiState = store.states
+            .map { monitored ->
+                ChannelListInputs(
+                    channels = channels,
+                    monitored = monitored,
+                    primaryChannelId = channels.first().id,
+                    scanModeEnabled = true,
+                    scanModeLocked = false,
+                    manuallySelectedChannelId = null,
+                    pttState = PttState.Idle,
+                    connectionState = ConnectionState.CONNECTED,
+                    latency = 42L,
+                    networkType = NetworkType.WIFI
+                )
+            }
+            .toChannelListUiState()
+            .stateIn(lifecycleScope, SharingStarted.Eagerly, ChannelListUiState())
+
+        lifecycleScope.launch(Dispatchers.Default) {
+            replay(channels.take(JOINED_CHANNELS).map { it.id }, durationMs)
+            replayDone.value = true
+        }
+
+        setContent {
+            VoicePingTheme {
+                Surface(
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .semantics { testTagsAsResourceId = true },
+                    color = MaterialTheme.colorScheme.background
+                ) {
+                    val state by uiState.collectAsState()
+                    val done by replayDone.collectAsState()
+                    Column {
+                        Text(if (done) "Replay done" else "Replaying")
+                        ChannelSections(
+                            sections = state.sections,
+                            onToggle = {},
+                            onLongPress = {},
+                            onSettingsClick = {},
+                            modifier = Modifier.testTag("channel_list")
+                        )
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Alternate speaker start/stop per channel at a fixed total event rate, with occasional
+     * user-count changes, like a busy multi-channel shift.
+     */
+    private suspend fun replay(channelIds: List<String>, durationMs: Long) {
+        val random = Random(REPLAY_SEED)
+        val speakers = (0 until SPEAKER_POOL).map { User("user-$it", "Speaker $it") }
+        val intervalMs = 60_000L / CHANGES_PER_MINUTE
+        val endAt = System.currentTimeMillis() + durationMs
+
+        while (System.currentTimeMillis() < endAt) {
+            val channelId = channelIds[random.nextInt(channelIds.size)]
+            val speaker = speakers[random.nextInt(speakers.size)]
+            store.update(channelId) { state ->
+                if (state.currentSpeaker == null) {
+                    state.copy(currentSpeaker = speaker, speakerStartTime = System.currentTimeMillis())
+                } else {
+                    state.copy(currentSpeaker = null, lastSpeaker = state.currentSpeaker)
+                }
+            }
+            if (random.nextInt(10) == 0) {
+                val delta = if (random.nextBoolean()) 1 else -1
+                store.update(channelId) { state ->
+                    state.copy(userCount = (state.userCount + delta).coerceAtLeast(1))
+                }
+            }
+            delay(intervalMs)
+        }
+    }
+
+    companion object {
+        const val EXTRA_DURATION_MS = "durationMs"
+        private const val DEFAULT_DURATION_MS = 30_000L
+
+        private const val TOTAL_CHANNELS = 40
+        private const val CHANNELS_PER_TEAM = 8
+        private const val JOINED_CHANNELS = 5
+        private const val CHANGES_PER_MINUTE = 200
+        private const val SPEAKER_POOL = 24
+        private const val REPLAY_SEED = 12L
+    }
+}
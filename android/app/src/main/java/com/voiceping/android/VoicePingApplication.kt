@@ -1,22 +1,24 @@
 package com.voiceping.android
 
 import android.app.Application
-import android.util.Log
+import androidx.tracing.trace
+import com.voiceping.android.data.startup.AppInitializer
 import dagger.hilt.android.HiltAndroidApp
-import io.github.crow_misia.mediasoup.MediasoupClient
-import io.github.crow_misia.webrtc.log.DefaultLogHandler
+import javax.inject.Inject
 
 @HiltAndroidApp
 class VoicePingApplication : Application() {
-    override fun onCreate() {
-        super.onCreate()
-        // Initialize mediasoup native library (loads libmediasoupclient_so.so + WebRTC init)
-        // Required before creating any Device or PeerConnection objects
-        MediasoupClient.initialize(this, DefaultLogHandler)
-        Log.d(TAG, "mediasoup + WebRTC subsystem initialized")
-    }
 
-    companion object {
-        private const val TAG = "VoicePingApp"
+    @Inject
+    lateinit var appInitializer: AppInitializer
+
+    override fun onCreate() {
+        // Startup trace sections are prefixed "VP:" (see :macrobenchmark StartupBenchmark)
+        trace("VP:Application.onCreate") {
+            super.onCreate()
+            // mediasoup/WebRTC native init, secure storage, Room and the channel runtime
+            // all run on background dispatchers (see AppInitializer)
+            appInitializer.start()
+        }
     }
 }
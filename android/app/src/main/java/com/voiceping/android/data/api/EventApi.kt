@@ -2,7 +2,9 @@ package com.voiceping.android.data.api
 
 import com.voiceping.android.data.network.dto.ChannelResponse
 import com.voiceping.android.data.network.dto.EventResponse
+import retrofit2.Response
 import retrofit2.http.GET
+import retrofit2.http.Header
 import retrofit2.http.Path
 
 interface EventApi {
@@ -10,8 +12,13 @@ interface EventApi {
     @GET("api/events")
     suspend fun getEvents(): List<EventResponse>
 
+    /**
+     * Channels of an event. With [ifNoneMatch] set to the ETag of the cached list,
+     * an unchanged list comes back as 304 with no body.
+     */
     @GET("api/events/{eventId}/channels")
     suspend fun getChannels(
-        @Path("eventId") eventId: String
-    ): List<ChannelResponse>
+        @Path("eventId") eventId: String,
+        @Header("If-None-Match") ifNoneMatch: String? = null
+    ): Response<List<ChannelResponse>>
 }
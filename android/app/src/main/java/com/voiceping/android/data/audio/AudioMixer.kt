@@ -0,0 +1,219 @@
+package com.voiceping.android.data.audio
+
+import com.voiceping.android.domain.model.AudioMixMode
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.math.abs
+import kotlin.math.exp
+
+/**
+ * Gain stage for monitored channels: per-channel gain ramps and side-chain ducking.
+ *
+ * Each monitored channel owns one of [MAX_CHANNELS] slots. Its target gain is
+ * volume x mode factor x duck factor x bus gain:
+ * - PRIMARY_PRIORITY: secondaries sit at [PRIORITY_GAIN] and duck further to [DUCKED_GAIN]
+ *   while the primary channel has an active speaker (side-chain). EQUAL_VOLUME never ducks.
+ * - Muted channels target 0.
+ * - Bus gain scales all channels down when the summed gain of active channels exceeds
+ *   [BUS_HEADROOM], so several loud channels at once do not pile up.
+ *
+ * Gains follow their targets at control rate, one step per 20 ms frame ([tick]): fast
+ * ([ATTACK_MS]) when falling, slow ([RELEASE_MS]) when rising, so ducking bites before the
+ * primary's first syllable and secondaries come back without a jump.
+ *
+ * Remote audio is mixed by WebRTC, whose Java API exposes no PCM hook, so ChannelRepository
+ * drives [tick] and applies [gain] to each consumer's track volume.
+ */
+@Singleton
+class AudioMixer @Inject constructor() {
+
+    private val lock = Any()
+
+    private val channelIds = arrayOfNulls<String>(MAX_CHANNELS)
+    private val volumes = FloatArray(MAX_CHANNELS)
+    private val primary = BooleanArray(MAX_CHANNELS)
+    private val muted = BooleanArray(MAX_CHANNELS)
+    private val active = BooleanArray(MAX_CHANNELS)
+    private val targets = FloatArray(MAX_CHANNELS)
+    private val gains = FloatArray(MAX_CHANNELS)
+
+    private var mode = AudioMixMode.EQUAL_VOLUME
+
+    /**
+     * Start mixing a channel. Its gain starts at the target (no fade-in on join).
+     *
+     * @return false if the channel is already mixed or all slots are taken
+     */
+    fun addChannel(channelId: String, volume: Float, isPrimary: Boolean, isMuted: Boolean): Boolean {
+        synchronized(lock) {
+            if (slotOf(channelId) >= 0) return false
+            val slot = channelIds.indexOf(null)
+            if (slot < 0) return false
+
+            channelIds[slot] = channelId
+            volumes[slot] = volume.coerceIn(0f, 1f)
+            muted[slot] = isMuted
+            active[slot] = false
+            if (isPrimary) setPrimaryLocked(slot) else primary[slot] = false
+            updateTargets()
+            gains[slot] = targets[slot]
+            return true
+        }
+    }
+
+    fun removeChannel(channelId: String) {
+        synchronized(lock) {
+            val slot = slotOf(channelId)
+            if (slot < 0) return
+            channelIds[slot] = null
+            primary[slot] = false
+            active[slot] = false
+            gains[slot] = 0f
+            updateTargets()
+        }
+    }
+
+    fun clear() {
+        synchronized(lock) {
+            channelIds.fill(null)
+            primary.fill(false)
+            active.fill(false)
+            targets.fill(0f)
+            gains.fill(0f)
+        }
+    }
+
+    fun setVolume(channelId: String, volume: Float) = update(channelId) { volumes[it] = volume.coerceIn(0f, 1f) }
+
+    fun setMuted(channelId: String, isMuted: Boolean) = update(channelId) { muted[it] = isMuted }
+
+    /** Channel has an active (incoming) speaker. On the primary this is the ducking side-chain. */
+    fun setActive(channelId: String, isActive: Boolean) = update(channelId) { active[it] = isActive }
+
+    /** Make [channelId] the only primary channel (null: no primary). */
+    fun setPrimary(channelId: String?) {
+        synchronized(lock) {
+            val slot = channelId?.let { slotOf(it) } ?: -1
+            if (slot >= 0) setPrimaryLocked(slot) else primary.fill(false)
+            updateTargets()
+        }
+    }
+
+    fun setMode(audioMixMode: AudioMixMode) {
+        synchronized(lock) {
+            mode = audioMixMode
+            updateTargets()
+        }
+    }
+
+    /** Current (ramped) gain of a channel, 0 if not mixed. */
+    fun gain(channelId: String): Float = synchronized(lock) {
+        val slot = slotOf(channelId)
+        if (slot >= 0) gains[slot] else 0f
+    }
+
+    /** Gain a channel is ramping towards, 0 if not mixed. */
+    fun targetGain(channelId: String): Float = synchronized(lock) {
+        val slot = slotOf(channelId)
+        if (slot >= 0) targets[slot] else 0f
+    }
+
+    private fun slotOf(channelId: String): Int {
+        for (slot in 0 until MAX_CHANNELS) {
+            if (channelIds[slot] == channelId) return slot
+        }
+        return -1
+    }
+
+    /** True when every channel's gain has reached its target. */
+    val isSettled: Boolean
+        get() {
+            synchronized(lock) {
+                for (slot in 0 until MAX_CHANNELS) {
+                    if (gains[slot] != targets[slot]) return false
+                }
+                return true
+            }
+        }
+
+    /**
+     * Advance gain ramps by one frame.
+     *
+     * @return true if any channel's gain changed
+     */
+    fun tick(): Boolean = synchronized(lock) { advance() }
+
+    private inline fun update(channelId: String, change: (Int) -> Unit) {
+        synchronized(lock) {
+            val slot = slotOf(channelId)
+            if (slot < 0) return
+            change(slot)
+            updateTargets()
+        }
+    }
+
+    private fun setPrimaryLocked(slot: Int) {
+        primary.fill(false)
+        primary[slot] = true
+    }
+
+    private fun updateTargets() {
+        var primaryActive = false
+        for (slot in 0 until MAX_CHANNELS) {
+            if (channelIds[slot] != null && primary[slot] && active[slot] && !muted[slot]) primaryActive = true
+        }
+
+        var activeSum = 0f
+        for (slot in 0 until MAX_CHANNELS) {
+            if (channelIds[slot] == null || muted[slot]) {
+                targets[slot] = 0f
+                continue
+            }
+            val modeGain = when {
+                mode == AudioMixMode.EQUAL_VOLUME || primary[slot] -> 1f
+                primaryActive -> DUCKED_GAIN
+                else -> PRIORITY_GAIN
+            }
+            targets[slot] = volumes[slot] * modeGain
+            if (active[slot]) activeSum += targets[slot]
+        }
+
+        if (activeSum > BUS_HEADROOM) {
+            val busGain = BUS_HEADROOM / activeSum
+            for (slot in 0 until MAX_CHANNELS) targets[slot] *= busGain
+        }
+    }
+
+    private fun advance(): Boolean {
+        var changed = false
+        for (slot in 0 until MAX_CHANNELS) {
+            val current = gains[slot]
+            val target = targets[slot]
+            if (current == target) continue
+
+            val coeff = if (target < current) ATTACK_COEFF else RELEASE_COEFF
+            var next = current + (target - current) * coeff
+            if (abs(target - next) < SETTLE_EPSILON) next = target
+            gains[slot] = next
+            changed = true
+        }
+        return changed
+    }
+
+    companion object {
+        const val FRAME_MS = 20
+        const val MAX_CHANNELS = 5 // Matches the monitoring limit in ChannelRepository
+
+        const val PRIORITY_GAIN = 0.5f   // Secondaries in PRIMARY_PRIORITY (-6 dB)
+        const val DUCKED_GAIN = 0.125f   // Secondaries while the primary talks (-18 dB)
+        const val BUS_HEADROOM = 1.5f    // Max summed gain of active channels
+        const val ATTACK_MS = 30f
+        const val RELEASE_MS = 250f
+
+        private const val SETTLE_EPSILON = 0.001f
+
+        // One-pole coefficients per frame
+        private val ATTACK_COEFF = 1f - exp(-FRAME_MS / ATTACK_MS)
+        private val RELEASE_COEFF = 1f - exp(-FRAME_MS / RELEASE_MS)
+    }
+}
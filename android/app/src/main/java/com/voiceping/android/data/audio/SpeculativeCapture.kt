@@ -0,0 +1,176 @@
+package com.voiceping.android.data.audio
+
+import android.util.Log
+import java.nio.ByteBuffer
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.math.abs
+
+/**
+ * Speculative PTT capture: records microphone audio from button press until the
+ * server grants PTT, then plays it out ahead of live audio.
+ *
+ * Hooked into WebRTC's record path via JavaAudioDeviceModule.AudioRecordDataCallback,
+ * which hands over each 10ms PCM chunk before it reaches the encoder. The buffer
+ * therefore holds PCM chunks (the Opus encoder lives inside WebRTC and cannot be fed
+ * pre-encoded frames), and playout works as a delay line:
+ *
+ * - CAPTURING: every chunk is copied into the ring (producer is still paused)
+ * - FLUSHING: the live chunk is queued and the oldest queued chunk is written into
+ *   WebRTC's buffer in its place, so the pre-grant audio goes out first. Live chunks
+ *   that are near-silent are dropped instead of queued, so the backlog shrinks during
+ *   speech pauses and latency converges back to live.
+ * - PASS_THROUGH: nothing is touched (also the state after [discard] and once drained)
+ *
+ * Memory: one slab of [MAX_FRAMES] x [MAX_FRAME_BYTES] plus one scratch chunk, allocated
+ * once. [process] runs on the WebRTC audio thread and never allocates. On overflow while
+ * capturing, the oldest chunk is overwritten (hard bound of [MAX_BUFFER_MS]).
+ *
+ * Requires the microphone to be recording at press time, i.e. a pre-warmed (paused)
+ * producer — see MediasoupClient.prewarmSendPath.
+ */
+@Singleton
+class SpeculativeCapture @Inject constructor() {
+
+    private val slab = ByteArray(MAX_FRAMES * MAX_FRAME_BYTES)
+    private val scratch = ByteArray(MAX_FRAME_BYTES)
+
+    // Ring state: only touched on the audio thread, except reset under [lock]
+    private val lock = Any()
+    private var head = 0 // Index of oldest chunk
+    private var count = 0
+    private var frameBytes = 0 // Chunk size of the current session (all chunks are equal size)
+
+    @Volatile
+    private var mode = MODE_PASS_THROUGH
+
+    /** True between [begin] and [flush]/[discard] (request in flight). */
+    val isCapturing: Boolean
+        get() = mode == MODE_CAPTURING
+
+    /** True while queued pre-grant audio is still being played out. */
+    val isFlushing: Boolean
+        get() = mode == MODE_FLUSHING
+
+    /**
+     * Start buffering at PTT press. Discards anything left from a previous session.
+     */
+    fun begin() {
+        synchronized(lock) {
+            head = 0
+            count = 0
+            frameBytes = 0
+            mode = MODE_CAPTURING
+        }
+        Log.d(TAG, "Speculative capture started")
+    }
+
+    /**
+     * PTT granted: play buffered audio ahead of live audio.
+     * Call BEFORE resuming the producer so the first sent chunk is the oldest buffered one.
+     */
+    fun flush() {
+        synchronized(lock) {
+            if (mode != MODE_CAPTURING) return
+            mode = if (count > 0) MODE_FLUSHING else MODE_PASS_THROUGH
+            Log.d(TAG, "Speculative capture flushing ${count * 10}ms of buffered audio")
+        }
+    }
+
+    /**
+     * PTT denied or cancelled: drop buffered audio.
+     */
+    fun discard() {
+        synchronized(lock) {
+            mode = MODE_PASS_THROUGH
+            head = 0
+            count = 0
+        }
+    }
+
+    /**
+     * WebRTC record callback (audio thread). [audioBuffer] is 16-bit PCM, position..limit.
+     */
+    fun process(audioBuffer: ByteBuffer) {
+        if (mode == MODE_PASS_THROUGH) return
+
+        synchronized(lock) {
+            val length = audioBuffer.remaining()
+            if (length == 0 || length > MAX_FRAME_BYTES || (frameBytes != 0 && length != frameBytes)) {
+                // Unexpected chunk size (e.g. route change restarted recording): give up safely
+                Log.w(TAG, "Unexpected record chunk of $length bytes, abandoning speculative buffer")
+                mode = MODE_PASS_THROUGH
+                count = 0
+                return
+            }
+            frameBytes = length
+
+            when (mode) {
+                MODE_CAPTURING -> {
+                    val position = audioBuffer.position()
+                    audioBuffer.get(slab, slotOffset(push()), length)
+                    audioBuffer.position(position)
+                }
+                MODE_FLUSHING -> {
+                    // Keep the live chunk aside, replace it in place with the oldest queued chunk
+                    val position = audioBuffer.position()
+                    audioBuffer.get(scratch, 0, length)
+                    audioBuffer.position(position)
+                    audioBuffer.put(slab, slotOffset(head), length)
+                    audioBuffer.position(position)
+                    head = (head + 1) % MAX_FRAMES
+                    count--
+
+                    if (!isSilent(scratch, length)) {
+                        System.arraycopy(scratch, 0, slab, slotOffset(push()), length)
+                    }
+                    if (count == 0) {
+                        mode = MODE_PASS_THROUGH
+                        Log.d(TAG, "Speculative buffer drained, back to live audio")
+                    }
+                }
+            }
+        }
+    }
+
+    /** Reserve the slot after the newest chunk, overwriting the oldest when full. */
+    private fun push(): Int {
+        val slot = (head + count) % MAX_FRAMES
+        if (count == MAX_FRAMES) {
+            head = (head + 1) % MAX_FRAMES
+        } else {
+            count++
+        }
+        return slot
+    }
+
+    private fun slotOffset(slot: Int) = slot * MAX_FRAME_BYTES
+
+    /** Mean absolute amplitude of little-endian PCM16 below [SILENCE_THRESHOLD]. */
+    private fun isSilent(pcm: ByteArray, length: Int): Boolean {
+        var sum = 0L
+        var i = 0
+        while (i + 1 < length) {
+            val sample = (pcm[i].toInt() and 0xff) or (pcm[i + 1].toInt() shl 8)
+            sum += abs(sample)
+            i += 2
+        }
+        val samples = length / 2
+        return samples == 0 || sum / samples < SILENCE_THRESHOLD
+    }
+
+    companion object {
+        private const val TAG = "SpeculativeCapture"
+
+        const val MAX_BUFFER_MS = 600
+        private const val MAX_FRAMES = MAX_BUFFER_MS / 10 // WebRTC records in 10ms chunks
+        private const val MAX_FRAME_BYTES = 48_000 / 100 * 2 * 2 // 10ms, 48kHz, stereo, 16-bit
+
+        // ~-50 dBFS mean amplitude: background noise, safe to drop while catching up
+        private const val SILENCE_THRESHOLD = 100L
+
+        private const val MODE_PASS_THROUGH = 0
+        private const val MODE_CAPTURING = 1
+        private const val MODE_FLUSHING = 2
+    }
+}
@@ -0,0 +1,113 @@
+package com.voiceping.android.data.audio
+
+import kotlin.math.PI
+import kotlin.math.cos
+import kotlin.math.min
+import kotlin.math.roundToInt
+import kotlin.math.sin
+
+/**
+ * One segment of a tone cue: the sum of two sine waves ([lowHz] + [highHz]), or silence
+ * when both are 0.
+ */
+class ToneSegment(val lowHz: Int, val highHz: Int, val durationMs: Int)
+
+/**
+ * Feedback cues played by [TonePlayer]. Frequencies match the DTMF / supervisory tones the
+ * app used with ToneGenerator, so the cues sound the same.
+ */
+enum class ToneCue(vararg val segments: ToneSegment) {
+    PTT_START(ToneSegment(697, 1209, 100)),               // DTMF 1
+    ROGER_BEEP(ToneSegment(941, 1336, 150)),              // DTMF 0
+    RX_SQUELCH_OPEN(ToneSegment(200, 400, 80)),
+    RX_SQUELCH_CLOSE(ToneSegment(200, 400, 60)),
+    ERROR(                                                // Two short beeps
+        ToneSegment(400, 800, 100),
+        ToneSegment(0, 0, 60),
+        ToneSegment(400, 800, 100)
+    ),
+    CALL_INTERRUPTION(                                    // DTMF A, twice
+        ToneSegment(697, 1633, 100),
+        ToneSegment(0, 0, 100),
+        ToneSegment(697, 1633, 100)
+    ),
+    CONNECTED(ToneSegment(852, 1477, 120)),               // DTMF 9
+    DISCONNECTED(ToneSegment(852, 1209, 150))             // DTMF 7
+}
+
+/**
+ * Every [ToneCue] synthesized once into a single 16-bit mono PCM buffer.
+ *
+ * Layout: cue, guard silence, cue, guard silence, ... [startFrame]/[endFrame] give each
+ * cue's frame range. The guard means a late stop after a cue only plays silence.
+ *
+ * Each segment gets a short raised-cosine fade in/out so cues start and stop without clicks.
+ */
+class ToneBank(val sampleRate: Int) {
+
+    private val starts = IntArray(ToneCue.entries.size)
+    private val ends = IntArray(ToneCue.entries.size)
+
+    val pcm: ShortArray
+
+    init {
+        val guardFrames = framesFor(GUARD_MS)
+        var total = 0
+        for (cue in ToneCue.entries) {
+            starts[cue.ordinal] = total
+            total += cue.segments.sumOf { framesFor(it.durationMs) }
+            ends[cue.ordinal] = total
+            total += guardFrames
+        }
+
+        pcm = ShortArray(total)
+        for (cue in ToneCue.entries) {
+            var offset = starts[cue.ordinal]
+            for (segment in cue.segments) {
+                offset = render(segment, offset)
+            }
+        }
+    }
+
+    fun startFrame(cue: ToneCue): Int = starts[cue.ordinal]
+
+    fun endFrame(cue: ToneCue): Int = ends[cue.ordinal]
+
+    fun frameCount(cue: ToneCue): Int = ends[cue.ordinal] - starts[cue.ordinal]
+
+    /**
+     * Marker position that ends [cue] when it starts at playback head [headPosition].
+     *
+     * The head and marker of a static track count frames played since the last stop, not the
+     * buffer offset, so after the first cue the marker must be relative to the current head.
+     */
+    fun markerPosition(cue: ToneCue, headPosition: Int): Int = headPosition + frameCount(cue)
+
+    private fun framesFor(durationMs: Int): Int = sampleRate * durationMs / 1000
+
+    private fun render(segment: ToneSegment, offset: Int): Int {
+        val frames = framesFor(segment.durationMs)
+        if (segment.lowHz == 0 && segment.highHz == 0) return offset + frames // Already zero
+
+        val rampFrames = min(framesFor(RAMP_MS), frames / 2)
+        val lowStep = 2.0 * PI * segment.lowHz / sampleRate
+        val highStep = 2.0 * PI * segment.highHz / sampleRate
+        for (i in 0 until frames) {
+            val envelope = when {
+                i < rampFrames -> 0.5 - 0.5 * cos(PI * i / rampFrames)
+                i >= frames - rampFrames -> 0.5 - 0.5 * cos(PI * (frames - 1 - i) / rampFrames)
+                else -> 1.0
+            }
+            // Two equal-level tones, each at half the peak so the sum never clips
+            val sample = (sin(lowStep * i) + sin(highStep * i)) * 0.5 * AMPLITUDE * envelope
+            pcm[offset + i] = (sample * Short.MAX_VALUE).roundToInt().toShort()
+        }
+        return offset + frames
+    }
+
+    companion object {
+        private const val GUARD_MS = 50
+        private const val RAMP_MS = 5
+        private const val AMPLITUDE = 0.5 // About the loudness of ToneGenerator at volume 50
+    }
+}
@@ -1,14 +1,20 @@
 package com.voiceping.android.data.audio
 
-import android.media.ToneGenerator
+import android.content.Context
+import android.media.AudioAttributes
+import android.media.AudioFormat
 import android.media.AudioManager
+import android.media.AudioTrack
+import android.os.Handler
+import android.os.HandlerThread
 import android.util.Log
 import com.voiceping.android.data.storage.SettingsRepository
+import dagger.hilt.android.qualifiers.ApplicationContext
 import javax.inject.Inject
 import javax.inject.Singleton
 
 /**
- * Audio tone feedback for PTT events using ToneGenerator.
+ * Audio tone feedback for PTT events from a pre-rendered tone bank.
  *
  * Generates distinct tones for:
  * - PTT start chirp (configurable)
@@ -20,22 +26,91 @@ import javax.inject.Singleton
  * All tones check SettingsRepository for user preferences before playing.
  * Designed for radio-style audio feedback familiar to field workers.
  *
- * Volume: 50% (balanced - audible but not jarring)
- * Stream: STREAM_VOICE_CALL (matches voice audio, respects call volume)
+ * Playback: every cue is synthesized once into [ToneBank] (16-bit PCM at the device's
+ * native output rate) and loaded into one static-mode, low-latency AudioTrack. Playing a
+ * cue only moves the playback head to the cue and starts the track. There is no allocation
+ * and no synthesis per cue, so the PTT start chirp starts within a few ms on every device
+ * (ToneGenerator start latency varied widely by OEM). A position marker one cue length
+ * past the playback head pauses the track again.
+ *
+ * Usage: voice communication (matches voice audio, respects call volume)
  */
 @Singleton
 class TonePlayer @Inject constructor(
+    @ApplicationContext private val context: Context,
     private val settingsRepository: SettingsRepository
 ) {
-    private var toneGenerator: ToneGenerator? = null
+    private val lock = Any()
+    private var toneBank: ToneBank? = null
+    private var track: AudioTrack? = null
+
+    // Head position at which the cue currently playing ends (marker callback only pauses past it)
+    private var playingEndFrame = 0
+
+    private val markerThread = HandlerThread("TonePlayer").apply { start() }
 
     init {
         try {
-            // Initialize ToneGenerator with 50% volume on voice call stream
-            toneGenerator = ToneGenerator(AudioManager.STREAM_VOICE_CALL, 50)
-            Log.d(TAG, "ToneGenerator initialized")
+            val bank = ToneBank(nativeOutputSampleRate())
+            val audioTrack = AudioTrack.Builder()
+                .setAudioAttributes(
+                    AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_VOICE_COMMUNICATION)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                        .build()
+                )
+                .setAudioFormat(
+                    AudioFormat.Builder()
+                        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                        .setSampleRate(bank.sampleRate)
+                        .setChannelMask(AudioFormat.CHANNEL_OUT_MONO)
+                        .build()
+                )
+                .setTransferMode(AudioTrack.MODE_STATIC)
+                .setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY)
+                .setBufferSizeInBytes(bank.pcm.size * 2)
+                .build()
+
+            audioTrack.write(bank.pcm, 0, bank.pcm.size)
+            audioTrack.setPlaybackPositionUpdateListener(object : AudioTrack.OnPlaybackPositionUpdateListener {
+                override fun onMarkerReached(track: AudioTrack) {
+                    synchronized(lock) {
+                        // A newer cue may have started since the marker was set
+                        if (track.playbackHeadPosition >= playingEndFrame) {
+                            track.pause()
+                        }
+                    }
+                }
+
+                override fun onPeriodicNotification(track: AudioTrack) = Unit
+            }, Handler(markerThread.looper))
+
+            toneBank = bank
+            track = audioTrack
+            Log.d(TAG, "Tone bank loaded: ${ToneCue.entries.size} cues, ${bank.pcm.size} frames @ ${bank.sampleRate} Hz")
         } catch (e: Exception) {
-            Log.e(TAG, "Failed to initialize ToneGenerator", e)
+            Log.e(TAG, "Failed to initialize tone track", e)
+        }
+    }
+
+    private fun nativeOutputSampleRate(): Int {
+        val audioManager = context.getSystemService(Context.AUDIO_SERVICE) as? AudioManager
+        return audioManager?.getProperty(AudioManager.PROPERTY_OUTPUT_SAMPLE_RATE)?.toIntOrNull()
+            ?: DEFAULT_SAMPLE_RATE
+    }
+
+    /**
+     * Play one cue from the bank, cutting off any cue still playing.
+     */
+    private fun play(cue: ToneCue) {
+        val audioTrack = track ?: return
+        val bank = toneBank ?: return
+        synchronized(lock) {
+            audioTrack.pause()
+            audioTrack.setPlaybackHeadPosition(bank.startFrame(cue))
+            playingEndFrame = bank.markerPosition(cue, audioTrack.playbackHeadPosition)
+            audioTrack.setNotificationMarkerPosition(playingEndFrame)
+            audioTrack.play()
         }
     }
 
@@ -49,7 +124,7 @@ class TonePlayer @Inject constructor(
     fun playPttStartTone() {
         try {
             if (settingsRepository.getCachedPttStartToneEnabled()) {
-                toneGenerator?.startTone(ToneGenerator.TONE_DTMF_1, 100)
+                play(ToneCue.PTT_START)
                 Log.d(TAG, "Playing PTT start tone")
             }
         } catch (e: Exception) {
@@ -67,7 +142,7 @@ class TonePlayer @Inject constructor(
     fun playRogerBeep() {
         try {
             if (settingsRepository.getCachedRogerBeepEnabled()) {
-                toneGenerator?.startTone(ToneGenerator.TONE_DTMF_0, 150)
+                play(ToneCue.ROGER_BEEP)
                 Log.d(TAG, "Playing roger beep")
             }
         } catch (e: Exception) {
@@ -85,7 +160,7 @@ class TonePlayer @Inject constructor(
     fun playRxSquelchOpen() {
         try {
             if (settingsRepository.getCachedRxSquelchEnabled()) {
-                toneGenerator?.startTone(ToneGenerator.TONE_PROP_NACK, 80)
+                play(ToneCue.RX_SQUELCH_OPEN)
                 Log.d(TAG, "Playing RX squelch open")
             }
         } catch (e: Exception) {
@@ -103,7 +178,7 @@ class TonePlayer @Inject constructor(
     fun playRxSquelchClose() {
         try {
             if (settingsRepository.getCachedRxSquelchEnabled()) {
-                toneGenerator?.startTone(ToneGenerator.TONE_PROP_NACK, 60)
+                play(ToneCue.RX_SQUELCH_CLOSE)
                 Log.d(TAG, "Playing RX squelch close")
             }
         } catch (e: Exception) {
@@ -121,7 +196,7 @@ class TonePlayer @Inject constructor(
     fun playErrorTone() {
         try {
             // Always play error tone (no toggle) - user needs to know PTT was denied
-            toneGenerator?.startTone(ToneGenerator.TONE_PROP_BEEP2, 200)
+            play(ToneCue.ERROR)
             Log.d(TAG, "Playing error tone")
         } catch (e: Exception) {
             Log.e(TAG, "Error playing error tone", e)
@@ -140,12 +215,8 @@ class TonePlayer @Inject constructor(
     fun playCallInterruptionBeep() {
         try {
             // Always play (no toggle) - signals call interruption to other users
-            // First beep
-            toneGenerator?.startTone(ToneGenerator.TONE_DTMF_A, 100)
-            // Schedule second beep after pause
-            // Note: ToneGenerator.startTone is async, so we use Thread.sleep for timing
-            Thread.sleep(200) // 100ms tone + 100ms pause
-            toneGenerator?.startTone(ToneGenerator.TONE_DTMF_A, 100)
+            // Both beeps and the pause are one pre-rendered cue (no sleeping on the caller)
+            play(ToneCue.CALL_INTERRUPTION)
             Log.d(TAG, "Playing call interruption double beep")
         } catch (e: Exception) {
             Log.e(TAG, "Error playing call interruption beep", e)
@@ -160,7 +231,7 @@ class TonePlayer @Inject constructor(
     fun playConnectionTone() {
         try {
             if (settingsRepository.getCachedPttStartToneEnabled()) {
-                toneGenerator?.startTone(ToneGenerator.TONE_DTMF_9, 120)
+                play(ToneCue.CONNECTED)
                 Log.d(TAG, "Playing connection tone")
             }
         } catch (e: Exception) {
@@ -176,7 +247,7 @@ class TonePlayer @Inject constructor(
     fun playDisconnectionTone() {
         try {
             if (settingsRepository.getCachedPttStartToneEnabled()) {
-                toneGenerator?.startTone(ToneGenerator.TONE_DTMF_7, 150)
+                play(ToneCue.DISCONNECTED)
                 Log.d(TAG, "Playing disconnection tone")
             }
         } catch (e: Exception) {
@@ -185,20 +256,25 @@ class TonePlayer @Inject constructor(
     }
 
     /**
-     * Cleanup ToneGenerator resources.
+     * Release the tone track.
      * Call when TonePlayer is no longer needed.
      */
     fun cleanup() {
         try {
-            toneGenerator?.release()
-            toneGenerator = null
-            Log.d(TAG, "ToneGenerator released")
+            synchronized(lock) {
+                track?.release()
+                track = null
+                toneBank = null
+            }
+            markerThread.quitSafely()
+            Log.d(TAG, "Tone track released")
         } catch (e: Exception) {
-            Log.e(TAG, "Error releasing ToneGenerator", e)
+            Log.e(TAG, "Error releasing tone track", e)
         }
     }
 
     companion object {
         private const val TAG = "TonePlayer"
+        private const val DEFAULT_SAMPLE_RATE = 48_000
     }
 }
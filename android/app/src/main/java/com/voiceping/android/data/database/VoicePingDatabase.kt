@@ -4,16 +4,26 @@ import androidx.room.Database
 import androidx.room.RoomDatabase
 import com.voiceping.android.data.database.dao.ChannelDao
 import com.voiceping.android.data.database.dao.EventDao
+import com.voiceping.android.data.database.dao.TransmissionHistoryDao
 import com.voiceping.android.data.database.entities.ChannelEntity
+import com.voiceping.android.data.database.entities.ChannelSyncEntity
 import com.voiceping.android.data.database.entities.EventEntity
 import com.voiceping.android.data.database.entities.TeamEntity
+import com.voiceping.android.data.database.entities.TransmissionHistoryEntity
 
 @Database(
-    entities = [EventEntity::class, TeamEntity::class, ChannelEntity::class],
-    version = 1,
+    entities = [
+        EventEntity::class,
+        TeamEntity::class,
+        ChannelEntity::class,
+        ChannelSyncEntity::class,
+        TransmissionHistoryEntity::class
+    ],
+    version = 3,
     exportSchema = false
 )
 abstract class VoicePingDatabase : RoomDatabase() {
     abstract fun eventDao(): EventDao
     abstract fun channelDao(): ChannelDao
+    abstract fun transmissionHistoryDao(): TransmissionHistoryDao
 }
@@ -4,7 +4,10 @@ import androidx.room.Dao
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
 import androidx.room.Query
+import androidx.room.Transaction
+import androidx.room.Upsert
 import com.voiceping.android.data.database.entities.ChannelEntity
+import com.voiceping.android.data.database.entities.ChannelSyncEntity
 import kotlinx.coroutines.flow.Flow
 
 @Dao
@@ -18,6 +21,44 @@ interface ChannelDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertAll(channels: List<ChannelEntity>)
 
+    @Upsert
+    suspend fun upsertAll(channels: List<ChannelEntity>)
+
     @Query("DELETE FROM channels WHERE eventId = :eventId")
     suspend fun deleteByEvent(eventId: String)
+
+    @Query("DELETE FROM channels WHERE id IN (:ids)")
+    suspend fun deleteByIds(ids: List<String>)
+
+    @Query("SELECT etag FROM channel_sync WHERE eventId = :eventId")
+    suspend fun getSyncEtag(eventId: String): String?
+
+    @Upsert
+    suspend fun upsertSync(sync: ChannelSyncEntity)
+
+    /**
+     * Bring the cached channels of an event in line with [channels] from the server.
+     *
+     * Only rows that were added, changed or removed are written, all in one transaction,
+     * so observers of [getChannelsFlow] see a single emission (none if nothing changed).
+     *
+     * @return Number of rows written or deleted
+     */
+    @Transaction
+    suspend fun syncEvent(eventId: String, channels: List<ChannelEntity>, etag: String?): Int {
+        val cached = getChannels(eventId).associateBy { it.id }
+        val incomingIds = channels.mapTo(HashSet()) { it.id }
+
+        val changed = channels.filter { channel ->
+            val existing = cached[channel.id]
+            existing == null || existing.copy(lastUpdated = channel.lastUpdated) != channel
+        }
+        val removed = cached.keys.filterNot { it in incomingIds }
+
+        if (changed.isNotEmpty()) upsertAll(changed)
+        if (removed.isNotEmpty()) deleteByIds(removed)
+        upsertSync(ChannelSyncEntity(eventId = eventId, etag = etag))
+
+        return changed.size + removed.size
+    }
 }
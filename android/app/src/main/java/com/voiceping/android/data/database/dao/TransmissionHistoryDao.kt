@@ -0,0 +1,41 @@
+package com.voiceping.android.data.database.dao
+
+import androidx.paging.PagingSource
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.Query
+import com.voiceping.android.data.database.entities.TransmissionHistoryEntity
+
+@Dao
+interface TransmissionHistoryDao {
+    @Query("SELECT * FROM transmission_history WHERE channelId = :channelId ORDER BY timestamp DESC")
+    fun pagingSource(channelId: String): PagingSource<Int, TransmissionHistoryEntity>
+
+    @Insert
+    suspend fun insertAll(entries: List<TransmissionHistoryEntity>)
+
+    @Query("DELETE FROM transmission_history WHERE timestamp < :cutoff")
+    suspend fun deleteOlderThan(cutoff: Long): Int
+
+    @Query("SELECT DISTINCT channelId FROM transmission_history")
+    suspend fun getChannelIds(): List<String>
+
+    /**
+     * Keep only the newest [keep] rows of a channel. Both lookups use the (channelId, timestamp) index.
+     */
+    @Query(
+        """
+        DELETE FROM transmission_history
+        WHERE channelId = :channelId AND timestamp <= (
+            SELECT timestamp FROM transmission_history
+            WHERE channelId = :channelId
+            ORDER BY timestamp DESC
+            LIMIT 1 OFFSET :keep
+        )
+        """
+    )
+    suspend fun trimChannel(channelId: String, keep: Int): Int
+
+    @Query("DELETE FROM transmission_history")
+    suspend fun deleteAll()
+}
@@ -0,0 +1,15 @@
+package com.voiceping.android.data.database.entities
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * Validator of the cached channel list of an event, sent as If-None-Match on refresh.
+ * Written in the same transaction as the channel rows it describes.
+ */
+@Entity(tableName = "channel_sync")
+data class ChannelSyncEntity(
+    @PrimaryKey val eventId: String,
+    val etag: String?,
+    val lastSynced: Long = System.currentTimeMillis()
+)
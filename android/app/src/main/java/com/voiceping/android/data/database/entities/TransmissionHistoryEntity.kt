@@ -0,0 +1,42 @@
+package com.voiceping.android.data.database.entities
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+import com.voiceping.android.domain.model.TransmissionHistoryEntry
+
+@Entity(
+    tableName = "transmission_history",
+    indices = [Index(value = ["channelId", "timestamp"])]
+)
+data class TransmissionHistoryEntity(
+    @PrimaryKey(autoGenerate = true) val id: Long = 0,
+    val channelId: String,
+    val timestamp: Long,
+    val speakerName: String,
+    val durationSeconds: Int,
+    val isOwnTransmission: Boolean
+) {
+    fun toDomain(): TransmissionHistoryEntry {
+        return TransmissionHistoryEntry(
+            id = id,
+            speakerName = speakerName,
+            timestamp = timestamp,
+            durationSeconds = durationSeconds,
+            channelId = channelId,
+            isOwnTransmission = isOwnTransmission
+        )
+    }
+
+    companion object {
+        fun fromDomain(entry: TransmissionHistoryEntry): TransmissionHistoryEntity {
+            return TransmissionHistoryEntity(
+                channelId = entry.channelId,
+                timestamp = entry.timestamp,
+                speakerName = entry.speakerName,
+                durationSeconds = entry.durationSeconds,
+                isOwnTransmission = entry.isOwnTransmission
+            )
+        }
+    }
+}
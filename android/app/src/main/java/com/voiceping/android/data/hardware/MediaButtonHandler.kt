@@ -2,12 +2,18 @@ package com.voiceping.android.data.hardware
 
 import android.content.Context
 import android.content.Intent
+import android.os.Handler
+import android.os.HandlerThread
+import android.os.Looper
 import android.util.Log
 import android.view.KeyEvent
 import androidx.media3.common.Player
 import androidx.media3.exoplayer.ExoPlayer
 import androidx.media3.session.MediaSession
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -31,19 +37,40 @@ import javax.inject.Singleton
  *
  * CRITICAL: Only active when service is running to avoid interfering with music apps
  * (research pitfall #5: MediaSession must be released when not in use)
+ *
+ * Threading: ExoPlayer and MediaSession live on a dedicated looper thread, so building them
+ * (100+ ms on slow devices) never blocks the main thread during the first channel join.
+ * PTT callbacks are delivered on the main thread, same as hardware key events.
  */
 @Singleton
 class MediaButtonHandler @Inject constructor(
     @ApplicationContext private val context: Context
 ) {
+    // Session thread only
     private var mediaSession: MediaSession? = null
     private var player: ExoPlayer? = null
+
+    @Volatile
     private var isActive: Boolean = false
+    @Volatile
     private var isDetectionMode: Boolean = false
 
     // Configured button keycode (set by user via press-to-detect or settings)
+    @Volatile
     private var configuredKeyCode: Int = KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE
 
+    // Player application looper; started on first use, not at injection
+    private val sessionHandler by lazy {
+        val thread = HandlerThread("MediaButtonSession").apply { start() }
+        Handler(thread.looper)
+    }
+    private val mainHandler = Handler(Looper.getMainLooper())
+
+    private val _isSessionReady = MutableStateFlow(false)
+
+    /** True while the MediaSession is built and intercepting media buttons. */
+    val isSessionReady: StateFlow<Boolean> = _isSessionReady.asStateFlow()
+
     // Callbacks for PTT actions and button detection
     var onPttPress: (() -> Unit)? = null
     var onPttRelease: (() -> Unit)? = null
@@ -56,8 +83,14 @@ class MediaButtonHandler @Inject constructor(
      * media button events. The ExoPlayer is required by Media3 API but never used for playback.
      *
      * CRITICAL: Only called when service is active or detection mode is active.
+     *
+     * Returns immediately; the session is built on the session thread ([isSessionReady]).
      */
     fun initialize() {
+        sessionHandler.post { createSession() }
+    }
+
+    private fun createSession() {
         if (mediaSession != null) {
             Log.d(TAG, "MediaSession already initialized")
             return
@@ -65,11 +98,14 @@ class MediaButtonHandler @Inject constructor(
 
         Log.d(TAG, "Initializing MediaSession for Bluetooth button interception")
 
-        // Create minimal ExoPlayer (required by Media3 MediaSession API)
-        player = ExoPlayer.Builder(context).build()
+        // Create minimal ExoPlayer (required by Media3 MediaSession API) on this thread's looper
+        val sessionPlayer = ExoPlayer.Builder(context)
+            .setLooper(Looper.myLooper()!!)
+            .build()
+        player = sessionPlayer
 
         // Create MediaSession with callback that intercepts media button events
-        mediaSession = MediaSession.Builder(context, player!!)
+        mediaSession = MediaSession.Builder(context, sessionPlayer)
             .setCallback(object : MediaSession.Callback {
                 override fun onMediaButtonEvent(
                     session: MediaSession,
@@ -85,6 +121,7 @@ class MediaButtonHandler @Inject constructor(
             })
             .build()
 
+        _isSessionReady.value = true
         Log.d(TAG, "MediaSession initialized successfully")
     }
 
@@ -104,7 +141,7 @@ class MediaButtonHandler @Inject constructor(
         if (isDetectionMode) {
             if (event.action == KeyEvent.ACTION_DOWN && event.repeatCount == 0) {
                 Log.d(TAG, "Detection mode: button detected - keyCode=${event.keyCode}")
-                onButtonDetected?.invoke(event.keyCode)
+                onMain { onButtonDetected?.invoke(event.keyCode) }
             }
             return true // Consume all events in detection mode
         }
@@ -116,12 +153,12 @@ class MediaButtonHandler @Inject constructor(
                     if (event.repeatCount == 0) {
                         // First press only (ignore repeats)
                         Log.d(TAG, "Configured button pressed (keyCode=${event.keyCode})")
-                        onPttPress?.invoke()
+                        onMain { onPttPress?.invoke() }
                     }
                 }
                 KeyEvent.ACTION_UP -> {
                     Log.d(TAG, "Configured button released (keyCode=${event.keyCode})")
-                    onPttRelease?.invoke()
+                    onMain { onPttRelease?.invoke() }
                 }
             }
             return true // Consume event
@@ -206,12 +243,23 @@ class MediaButtonHandler @Inject constructor(
      * Releases resources and allows other apps to receive media button events.
      */
     fun release() {
-        Log.d(TAG, "Releasing MediaSession and ExoPlayer")
-        mediaSession?.release()
-        mediaSession = null
-        player?.release()
-        player = null
         isActive = false
+        sessionHandler.post {
+            Log.d(TAG, "Releasing MediaSession and ExoPlayer")
+            _isSessionReady.value = false
+            mediaSession?.release()
+            mediaSession = null
+            player?.release()
+            player = null
+        }
+    }
+
+    private inline fun onMain(crossinline action: () -> Unit) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action()
+        } else {
+            mainHandler.post { action() }
+        }
     }
 
     companion object {
@@ -0,0 +1,339 @@
+package com.voiceping.android.data.network
+
+import com.google.gson.JsonArray
+import com.google.gson.JsonElement
+import com.google.gson.JsonNull
+import com.google.gson.JsonObject
+import com.google.gson.JsonPrimitive
+import com.voiceping.android.data.network.dto.ChannelStateEvent
+import com.voiceping.android.data.network.dto.SignalingEvent
+import com.voiceping.android.data.network.dto.SignalingMessage
+import com.voiceping.android.data.network.dto.SignalingType
+import com.voiceping.android.data.network.dto.SpeakerChangedEvent
+import okio.Buffer
+import okio.ByteString
+
+/**
+ * Binary signaling wire format matching src/shared/binaryCodec.ts
+ *
+ * Used only when the server selects [SUBPROTOCOL] during the WebSocket handshake;
+ * otherwise the connection stays on JSON text.
+ *
+ * Frame layout: type code byte, flags byte, then id / data / error as MessagePack values.
+ * Canonical lowercase UUID strings travel as fixext16 (ext type 1) and decode back to
+ * the identical string. Integers decode as Long and floats as Double, so mediasoup
+ * parameters keep the same number types as the JSON path.
+ */
+class BinarySignalingCodec {
+
+    fun encode(message: SignalingMessage): ByteString {
+        val buffer = Buffer()
+        buffer.writeByte(typeCodes[message.type] ?: error("No binary type code for ${message.type}"))
+
+        var flags = 0
+        if (message.id != null) flags = flags or FLAG_ID
+        if (message.data != null) flags = flags or FLAG_DATA
+        if (message.error != null) flags = flags or FLAG_ERROR
+        buffer.writeByte(flags)
+
+        message.id?.let { writeString(buffer, it) }
+        message.data?.let { writeValue(buffer, it) }
+        message.error?.let { writeString(buffer, it) }
+        return buffer.readByteString()
+    }
+
+    fun decode(bytes: ByteString): SignalingMessage {
+        val buffer = Buffer().write(bytes)
+        val type = readType(buffer)
+        val flags = buffer.readByte().toInt() and 0xff
+
+        val id = if (flags and FLAG_ID != 0) readValue(buffer).asString else null
+        val data = if (flags and FLAG_DATA != 0) readValue(buffer) as? JsonObject
+            ?: throw IllegalArgumentException("Binary frame data is not a map") else null
+        val error = if (flags and FLAG_ERROR != 0) readValue(buffer).asString else null
+
+        require(buffer.exhausted()) { "Binary frame has ${buffer.size} trailing bytes" }
+        return SignalingMessage(type, id, data, error)
+    }
+
+    /**
+     * Hot path equivalent of [SignalingFrameDecoder.decode] for binary frames.
+     *
+     * Reads only the fields observers use straight off the frame; returns null for
+     * anything that is not a plain SPEAKER_CHANGED / CHANNEL_STATE broadcast.
+     */
+    fun decodeEvent(bytes: ByteString): SignalingEvent? {
+        if (bytes.size < 2) return null
+        val type = codeTypes.getOrNull(bytes[0].toInt() and 0xff)
+        if (type != SignalingType.SPEAKER_CHANGED && type != SignalingType.CHANNEL_STATE) return null
+        // Responses carry an id and errors an error string: both take the full path
+        if (bytes[1].toInt() and 0xff != FLAG_DATA) return null
+
+        return try {
+            val buffer = Buffer().write(bytes)
+            buffer.skip(2)
+            if (type == SignalingType.SPEAKER_CHANGED) readSpeakerChanged(buffer) else readChannelState(buffer)
+        } catch (e: Exception) {
+            null
+        }
+    }
+
+    private fun readSpeakerChanged(buffer: Buffer): SpeakerChangedEvent? {
+        var channelId: String? = null
+        var currentSpeaker: String? = null
+        var speakerName: String? = null
+        var producerId: String? = null
+
+        repeat(readMapHeader(buffer)) {
+            when (readValue(buffer).asString) {
+                "channelId" -> channelId = readStringOrNull(buffer)
+                "currentSpeaker" -> currentSpeaker = readStringOrNull(buffer)
+                "speakerName" -> speakerName = readStringOrNull(buffer)
+                "producerId" -> producerId = readStringOrNull(buffer)
+                else -> skipValue(buffer)
+            }
+        }
+        return channelId?.let { SpeakerChangedEvent(it, currentSpeaker, speakerName, producerId) }
+    }
+
+    private fun readChannelState(buffer: Buffer): ChannelStateEvent? {
+        var channelId: String? = null
+        var userCount: Int? = null
+        var action: String? = null
+        var userId: String? = null
+        var userName: String? = null
+
+        repeat(readMapHeader(buffer)) {
+            when (readValue(buffer).asString) {
+                "channelId" -> channelId = readStringOrNull(buffer)
+                "userCount" -> userCount = readValue(buffer).let { if (it.isJsonNull) null else it.asInt }
+                "action" -> action = readStringOrNull(buffer)
+                "userId" -> userId = readStringOrNull(buffer)
+                "userName" -> userName = readStringOrNull(buffer)
+                else -> skipValue(buffer)
+            }
+        }
+        return channelId?.let { ChannelStateEvent(it, userCount, action, userId, userName) }
+    }
+
+    private fun readType(buffer: Buffer): SignalingType {
+        val code = buffer.readByte().toInt() and 0xff
+        return codeTypes.getOrNull(code) ?: throw IllegalArgumentException("Unknown binary type code $code")
+    }
+
+    // --- MessagePack writer ---
+
+    private fun writeValue(buffer: Buffer, value: JsonElement) {
+        when {
+            value.isJsonNull -> buffer.writeByte(0xc0)
+            value is JsonObject -> {
+                writeHeader(buffer, value.size(), 0x80, 0xde, 0xdf)
+                for ((key, item) in value.entrySet()) {
+                    writeString(buffer, key)
+                    writeValue(buffer, item)
+                }
+            }
+            value is JsonArray -> {
+                writeHeader(buffer, value.size(), 0x90, 0xdc, 0xdd)
+                for (item in value) writeValue(buffer, item)
+            }
+            value is JsonPrimitive && value.isBoolean -> buffer.writeByte(if (value.asBoolean) 0xc3 else 0xc2)
+            value is JsonPrimitive && value.isNumber -> {
+                // Integral numbers (Long/Int or an integral LazilyParsedNumber) keep int encoding
+                val asLong = value.asString.toLongOrNull()
+                if (asLong != null) {
+                    writeInt(buffer, asLong)
+                } else {
+                    buffer.writeByte(0xcb)
+                    buffer.writeLong(value.asDouble.toRawBits())
+                }
+            }
+            else -> writeString(buffer, value.asString)
+        }
+    }
+
+    private fun writeHeader(buffer: Buffer, size: Int, fixBase: Int, code16: Int, code32: Int) {
+        when {
+            size < 16 -> buffer.writeByte(fixBase or size)
+            size <= 0xffff -> { buffer.writeByte(code16); buffer.writeShort(size) }
+            else -> { buffer.writeByte(code32); buffer.writeInt(size) }
+        }
+    }
+
+    private fun writeInt(buffer: Buffer, n: Long) {
+        when {
+            n >= 0 -> when {
+                n <= 0x7f -> buffer.writeByte(n.toInt())
+                n <= 0xff -> { buffer.writeByte(0xcc); buffer.writeByte(n.toInt()) }
+                n <= 0xffff -> { buffer.writeByte(0xcd); buffer.writeShort(n.toInt()) }
+                n <= 0xffffffffL -> { buffer.writeByte(0xce); buffer.writeInt(n.toInt()) }
+                else -> { buffer.writeByte(0xcf); buffer.writeLong(n) }
+            }
+            n >= -32 -> buffer.writeByte(n.toInt())
+            n >= Byte.MIN_VALUE -> { buffer.writeByte(0xd0); buffer.writeByte(n.toInt()) }
+            n >= Short.MIN_VALUE -> { buffer.writeByte(0xd1); buffer.writeShort(n.toInt()) }
+            n >= Int.MIN_VALUE -> { buffer.writeByte(0xd2); buffer.writeInt(n.toInt()) }
+            else -> { buffer.writeByte(0xd3); buffer.writeLong(n) }
+        }
+    }
+
+    private fun writeString(buffer: Buffer, value: String) {
+        if (UUID_PATTERN.matches(value)) {
+            buffer.writeByte(0xd8)
+            buffer.writeByte(UUID_EXT_TYPE)
+            val hex = value.replace("-", "")
+            for (i in 0 until 32 step 2) {
+                buffer.writeByte(hex.substring(i, i + 2).toInt(16))
+            }
+            return
+        }
+
+        val encoded = value.encodeToByteArray()
+        val len = encoded.size
+        when {
+            len < 32 -> buffer.writeByte(0xa0 or len)
+            len <= 0xff -> { buffer.writeByte(0xd9); buffer.writeByte(len) }
+            len <= 0xffff -> { buffer.writeByte(0xda); buffer.writeShort(len) }
+            else -> { buffer.writeByte(0xdb); buffer.writeInt(len) }
+        }
+        buffer.write(encoded)
+    }
+
+    // --- MessagePack reader ---
+
+    private fun readValue(buffer: Buffer): JsonElement {
+        val b = buffer.readByte().toInt() and 0xff
+        return when {
+            b <= 0x7f -> JsonPrimitive(b.toLong())
+            b <= 0x8f -> readMap(buffer, b and 0x0f)
+            b <= 0x9f -> readArray(buffer, b and 0x0f)
+            b <= 0xbf -> JsonPrimitive(readUtf8(buffer, (b and 0x1f).toLong()))
+            b >= 0xe0 -> JsonPrimitive((b - 0x100).toLong())
+            else -> when (b) {
+                0xc0 -> JsonNull.INSTANCE
+                0xc2 -> JsonPrimitive(false)
+                0xc3 -> JsonPrimitive(true)
+                0xca -> JsonPrimitive(Float.fromBits(buffer.readInt()).toDouble())
+                0xcb -> JsonPrimitive(Double.fromBits(buffer.readLong()))
+                0xcc -> JsonPrimitive((buffer.readByte().toInt() and 0xff).toLong())
+                0xcd -> JsonPrimitive((buffer.readShort().toInt() and 0xffff).toLong())
+                0xce -> JsonPrimitive(buffer.readInt().toLong() and 0xffffffffL)
+                0xcf, 0xd3 -> JsonPrimitive(buffer.readLong()) // Server only sends safe integers
+                0xd0 -> JsonPrimitive(buffer.readByte().toLong())
+                0xd1 -> JsonPrimitive(buffer.readShort().toLong())
+                0xd2 -> JsonPrimitive(buffer.readInt().toLong())
+                0xd8 -> JsonPrimitive(readUuid(buffer))
+                0xd9 -> JsonPrimitive(readUtf8(buffer, (buffer.readByte().toInt() and 0xff).toLong()))
+                0xda -> JsonPrimitive(readUtf8(buffer, (buffer.readShort().toInt() and 0xffff).toLong()))
+                0xdb -> JsonPrimitive(readUtf8(buffer, buffer.readInt().toLong() and 0xffffffffL))
+                0xdc -> readArray(buffer, buffer.readShort().toInt() and 0xffff)
+                0xdd -> readArray(buffer, buffer.readInt())
+                0xde -> readMap(buffer, buffer.readShort().toInt() and 0xffff)
+                0xdf -> readMap(buffer, buffer.readInt())
+                else -> throw IllegalArgumentException("Unsupported MessagePack byte 0x${b.toString(16)}")
+            }
+        }
+    }
+
+    private fun readMapHeader(buffer: Buffer): Int {
+        val b = buffer.readByte().toInt() and 0xff
+        return when {
+            b in 0x80..0x8f -> b and 0x0f
+            b == 0xde -> buffer.readShort().toInt() and 0xffff
+            b == 0xdf -> buffer.readInt()
+            else -> throw IllegalArgumentException("Binary frame data is not a map")
+        }
+    }
+
+    private fun readMap(buffer: Buffer, size: Int): JsonObject {
+        // Every entry takes at least two bytes; reject sizes the frame cannot hold
+        require(size >= 0 && size.toLong() * 2 <= buffer.size) { "Truncated binary frame" }
+        val result = JsonObject()
+        repeat(size) {
+            val key = readValue(buffer)
+            require(key is JsonPrimitive && key.isString) { "Binary frame map key is not a string" }
+            result.add(key.asString, readValue(buffer))
+        }
+        return result
+    }
+
+    private fun readArray(buffer: Buffer, size: Int): JsonArray {
+        require(size >= 0 && size.toLong() <= buffer.size) { "Truncated binary frame" }
+        val result = JsonArray(size)
+        repeat(size) { result.add(readValue(buffer)) }
+        return result
+    }
+
+    private fun readUtf8(buffer: Buffer, length: Long): String {
+        require(length <= buffer.size) { "Truncated binary frame" }
+        return buffer.readUtf8(length)
+    }
+
+    private fun readUuid(buffer: Buffer): String {
+        val extType = buffer.readByte().toInt()
+        require(extType == UUID_EXT_TYPE) { "Unsupported ext type $extType in binary frame" }
+        val hex = buffer.readByteString(16).hex()
+        return "${hex.substring(0, 8)}-${hex.substring(8, 12)}-${hex.substring(12, 16)}-" +
+            "${hex.substring(16, 20)}-${hex.substring(20)}"
+    }
+
+    private fun readStringOrNull(buffer: Buffer): String? {
+        val value = readValue(buffer)
+        return if (value is JsonPrimitive) value.asString else null
+    }
+
+    private fun skipValue(buffer: Buffer) {
+        readValue(buffer)
+    }
+
+    companion object {
+        /** Offered after the JWT token; older servers never select it and stay on JSON */
+        const val SUBPROTOCOL = "voiceping.bin"
+
+        private const val FLAG_ID = 0x01
+        private const val FLAG_DATA = 0x02
+        private const val FLAG_ERROR = 0x04
+        private const val UUID_EXT_TYPE = 0x01
+
+        private val UUID_PATTERN =
+            Regex("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$")
+
+        /**
+         * Wire codes in SIGNALING_TYPE_CODES order (src/shared/protocol.ts). Append-only.
+         * Listed explicitly rather than using ordinals so reordering the enum cannot
+         * silently change the wire format.
+         */
+        private val codeTypes = listOf(
+            SignalingType.JOIN_CHANNEL,
+            SignalingType.LEAVE_CHANNEL,
+            SignalingType.GET_ROUTER_CAPABILITIES,
+            SignalingType.CREATE_TRANSPORT,
+            SignalingType.CONNECT_TRANSPORT,
+            SignalingType.PRODUCE,
+            SignalingType.CONSUME,
+            SignalingType.PTT_START,
+            SignalingType.PTT_STOP,
+            SignalingType.PTT_DENIED,
+            SignalingType.SPEAKER_CHANGED,
+            SignalingType.CHANNEL_STATE,
+            SignalingType.ERROR,
+            SignalingType.PING,
+            SignalingType.PONG,
+            SignalingType.PERMISSION_UPDATE,
+            SignalingType.CHANNEL_LIST,
+            SignalingType.FORCE_DISCONNECT,
+            SignalingType.PRIORITY_PTT_START,
+            SignalingType.PRIORITY_PTT_STOP,
+            SignalingType.EMERGENCY_BROADCAST_START,
+            SignalingType.EMERGENCY_BROADCAST_STOP,
+            SignalingType.PTT_INTERRUPTED,
+            SignalingType.ROLE_INFO,
+            SignalingType.BAN_USER,
+            SignalingType.UNBAN_USER,
+            SignalingType.REJOIN
+        )
+
+        private val typeCodes: Map<SignalingType, Int> =
+            codeTypes.withIndex().associate { (code, type) -> type to code }
+    }
+}
@@ -0,0 +1,111 @@
+package com.voiceping.android.data.network
+
+/**
+ * Receive consumers kept warm between transmissions, keyed by producerId.
+ *
+ * A consumer is *active* while its producer's speaker is on air and *idle* (paused locally)
+ * between overs. Idle consumers are ordered least recently used first; when the cache holds
+ * more than [budget] consumers, the oldest idle ones are handed back for closing. Active
+ * consumers are never evicted, so the budget can be exceeded while many channels talk at once.
+ *
+ * Bookkeeping only: [MediasoupClient] owns the native consumers and closes what this returns.
+ */
+class ConsumerCache(private val budget: Int) {
+
+    class Entry(
+        val producerId: String,
+        val consumerId: String,
+        val channelId: String
+    ) {
+        var active = true
+    }
+
+    private val lock = Any()
+
+    // Access order: iteration starts at the least recently used entry
+    private val entries = LinkedHashMap<String, Entry>(budget * 2, 0.75f, true)
+
+    val size: Int
+        get() = synchronized(lock) { entries.size }
+
+    /**
+     * Warm consumer for [producerId] on [channelId], marked active and most recently used.
+     * Null if there is none (a consumer of the same producer on another channel does not count).
+     */
+    fun activate(producerId: String, channelId: String): Entry? = synchronized(lock) {
+        val entry = entries[producerId]?.takeIf { it.channelId == channelId } ?: return null
+        entry.active = true
+        entry
+    }
+
+    /**
+     * Track a newly created (active) consumer.
+     *
+     * @return Entries evicted to stay within budget (caller closes them)
+     */
+    fun put(entry: Entry): List<Entry> = synchronized(lock) {
+        val replaced = entries.put(entry.producerId, entry)
+        val evicted = evictOverBudget()
+        if (replaced != null && replaced.consumerId != entry.consumerId) evicted + replaced else evicted
+    }
+
+    /**
+     * Mark a consumer idle (its speaker stopped).
+     *
+     * @return Entries evicted to stay within budget (caller closes them)
+     */
+    fun deactivate(consumerId: String): List<Entry> = synchronized(lock) {
+        entries.values.firstOrNull { it.consumerId == consumerId }?.active = false
+        evictOverBudget()
+    }
+
+    fun remove(consumerId: String): Entry? = synchronized(lock) {
+        val iterator = entries.values.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            if (entry.consumerId == consumerId) {
+                iterator.remove()
+                return entry
+            }
+        }
+        null
+    }
+
+    /** Drop every consumer of a channel (active or idle) and return them for closing. */
+    fun removeChannel(channelId: String): List<Entry> = synchronized(lock) {
+        val removed = entries.values.filter { it.channelId == channelId }
+        removed.forEach { entries.remove(it.producerId) }
+        removed
+    }
+
+    fun clear() = synchronized(lock) {
+        entries.clear()
+    }
+
+    private fun evictOverBudget(): List<Entry> {
+        if (entries.size <= budget) return emptyList()
+        val evicted = ArrayList<Entry>()
+        val iterator = entries.values.iterator()
+        while (entries.size > budget && iterator.hasNext()) {
+            val entry = iterator.next()
+            if (!entry.active) {
+                iterator.remove()
+                evicted.add(entry)
+            }
+        }
+        return evicted
+    }
+
+    companion object {
+        // Warm consumers kept across overs (5 channels, a few regular speakers each)
+        const val CONSUMER_BUDGET = 12
+        const val LOW_RAM_CONSUMER_BUDGET = 5
+
+        /**
+         * Budget for the device: fewer warm consumers on low-RAM devices, where each native
+         * consumer's jitter buffer and decoder weigh more.
+         */
+        fun budgetFor(isLowRamDevice: Boolean): Int =
+            if (isLowRamDevice) LOW_RAM_CONSUMER_BUDGET else CONSUMER_BUDGET
+    }
+}
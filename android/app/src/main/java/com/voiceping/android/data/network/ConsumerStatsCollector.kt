@@ -0,0 +1,202 @@
+package com.voiceping.android.data.network
+
+import android.util.Log
+import androidx.annotation.VisibleForTesting
+import com.voiceping.android.domain.model.ConsumerNetworkStats
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Cumulative inbound-rtp counters for one consumer, as reported by WebRTC.
+ *
+ * @param packetsReceived Total RTP packets received
+ * @param packetsLost Total RTP packets lost
+ * @param jitter Current inter-arrival jitter in seconds
+ * @param concealedSamples Total samples synthesized by packet loss concealment
+ * @param totalSamplesReceived Total samples played out (received + concealed)
+ * @param jitterBufferDelay Total seconds samples spent in the jitter buffer
+ * @param jitterBufferEmittedCount Total samples emitted from the jitter buffer
+ */
+data class InboundRtpStats(
+    val packetsReceived: Long,
+    val packetsLost: Long,
+    val jitter: Double,
+    val concealedSamples: Long,
+    val totalSamplesReceived: Long,
+    val jitterBufferDelay: Double,
+    val jitterBufferEmittedCount: Long
+)
+
+/**
+ * Network quality pipeline for receive-side audio.
+ *
+ * All tracked consumers are sampled in ONE batched tick (every [SAMPLE_INTERVAL_MS]),
+ * instead of a polling coroutine per channel. The tick only runs while at least one
+ * consumer is tracked, so an idle app takes no wakeups for stats.
+ *
+ * Each consumer keeps a fixed-size ring of cumulative counters in primitive arrays;
+ * metrics are the delta between the newest and oldest sample (a sliding window of
+ * [WINDOW_SAMPLES] ticks), so a single lost burst ages out instead of sticking forever.
+ * Results for every consumer are published together in [stats], keyed by the real consumer id
+ * (see [networkQualityByChannel] to map them to channels).
+ */
+@Singleton
+class ConsumerStatsCollector internal constructor(
+    private val sampleConsumer: (consumerId: String) -> InboundRtpStats?
+) {
+    @Inject constructor(mediasoupClient: MediasoupClient) : this(mediasoupClient::getConsumerStats)
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    private val _stats = MutableStateFlow<Map<String, ConsumerNetworkStats>>(emptyMap())
+
+    /** Smoothed metrics per consumerId (only consumers with at least two samples). */
+    val stats: StateFlow<Map<String, ConsumerNetworkStats>> = _stats.asStateFlow()
+
+    // Touched only under [lock] (tracking changes) and by the tick
+    private val lock = Any()
+    private val windows = HashMap<String, StatsWindow>()
+    private var tickJob: Job? = null
+
+    /**
+     * Fixed-capacity ring of cumulative counters for one consumer.
+     */
+    private class StatsWindow {
+        private val packetsReceived = LongArray(WINDOW_SAMPLES)
+        private val packetsLost = LongArray(WINDOW_SAMPLES)
+        private val jitter = DoubleArray(WINDOW_SAMPLES)
+        private val concealedSamples = LongArray(WINDOW_SAMPLES)
+        private val totalSamples = LongArray(WINDOW_SAMPLES)
+        private val jitterBufferDelay = DoubleArray(WINDOW_SAMPLES)
+        private val emittedCount = LongArray(WINDOW_SAMPLES)
+        private var head = 0 // Index of oldest sample
+        private var count = 0
+
+        fun add(sample: InboundRtpStats) {
+            // Counters went backwards (consumer re-created under the same id): start over
+            if (count > 0 && sample.packetsReceived < packetsReceived[newest()]) {
+                count = 0
+            }
+
+            val slot = (head + count) % WINDOW_SAMPLES
+            packetsReceived[slot] = sample.packetsReceived
+            packetsLost[slot] = sample.packetsLost
+            jitter[slot] = sample.jitter
+            concealedSamples[slot] = sample.concealedSamples
+            totalSamples[slot] = sample.totalSamplesReceived
+            jitterBufferDelay[slot] = sample.jitterBufferDelay
+            emittedCount[slot] = sample.jitterBufferEmittedCount
+
+            if (count == WINDOW_SAMPLES) {
+                head = (head + 1) % WINDOW_SAMPLES
+            } else {
+                count++
+            }
+        }
+
+        /** Window metrics, or null until two samples exist. */
+        fun snapshot(): ConsumerNetworkStats? {
+            if (count < 2) return null
+            val old = head
+            val new = newest()
+
+            val received = packetsReceived[new] - packetsReceived[old]
+            val lost = (packetsLost[new] - packetsLost[old]).coerceAtLeast(0)
+            val samples = totalSamples[new] - totalSamples[old]
+            val concealed = concealedSamples[new] - concealedSamples[old]
+            val emitted = emittedCount[new] - emittedCount[old]
+
+            var jitterSum = 0.0
+            for (i in 0 until count) {
+                jitterSum += jitter[(head + i) % WINDOW_SAMPLES]
+            }
+            val meanJitter = jitterSum / count
+
+            val stats = ConsumerNetworkStats(
+                packetsLost = lost,
+                jitter = meanJitter,
+                packetsReceived = received,
+                concealmentPercentage = if (samples > 0) concealed * 100.0 / samples else 0.0,
+                jitterBufferDelayMs = if (emitted > 0) {
+                    ((jitterBufferDelay[new] - jitterBufferDelay[old]) * 1000 / emitted).toInt()
+                } else 0
+            )
+            return stats.copy(indicator = ConsumerNetworkStats.calculateIndicator(lost, stats.jitterMs))
+        }
+
+        private fun newest() = (head + count - 1) % WINDOW_SAMPLES
+    }
+
+    /**
+     * Set the consumers to sample. Windows of consumers no longer in the set are dropped;
+     * an empty set stops the tick entirely.
+     */
+    fun track(consumerIds: Set<String>) {
+        synchronized(lock) {
+            windows.keys.retainAll(consumerIds)
+            consumerIds.forEach { windows.getOrPut(it) { StatsWindow() } }
+
+            if (windows.isEmpty()) {
+                tickJob?.cancel()
+                tickJob = null
+                _stats.value = emptyMap()
+            } else {
+                _stats.value = _stats.value.filterKeys { it in consumerIds }
+                if (tickJob?.isActive != true) {
+                    tickJob = scope.launch {
+                        while (isActive) {
+                            delay(SAMPLE_INTERVAL_MS)
+                            try {
+                                tick()
+                            } catch (e: Exception) {
+                                Log.w(TAG, "Consumer stats tick failed", e)
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @VisibleForTesting
+    internal fun tick() {
+        val snapshot = HashMap<String, ConsumerNetworkStats>()
+        synchronized(lock) {
+            for ((consumerId, window) in windows) {
+                sampleConsumer(consumerId)?.let { window.add(it) }
+                window.snapshot()?.let { snapshot[consumerId] = it }
+            }
+            _stats.value = snapshot
+        }
+    }
+
+    companion object {
+        private const val TAG = "ConsumerStatsCollector"
+        private const val SAMPLE_INTERVAL_MS = 2_000L
+        private const val WINDOW_SAMPLES = 5 // 8s sliding window at 2s ticks
+    }
+}
+
+/**
+ * Network quality per channel from the consumers each channel is playing.
+ *
+ * @param activeConsumers channelId -> consumer ids (mediasoup consumer ids, not producer ids)
+ * @param statsByConsumer [ConsumerStatsCollector.stats]
+ */
+fun networkQualityByChannel(
+    activeConsumers: Map<String, Set<String>>,
+    statsByConsumer: Map<String, ConsumerNetworkStats>
+): Map<String, ConsumerNetworkStats> =
+    activeConsumers.mapNotNull { (channelId, consumerIds) ->
+        consumerIds.firstNotNullOfOrNull { statsByConsumer[it] }?.let { channelId to it }
+    }.toMap()
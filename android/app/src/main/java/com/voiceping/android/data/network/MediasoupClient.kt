@@ -1,13 +1,15 @@
 package com.voiceping.android.data.network
 
+import android.app.ActivityManager
 import android.content.Context
 import android.util.Log
+import androidx.tracing.trace
 import com.google.gson.JsonElement
 import com.google.gson.JsonObject
 import com.google.gson.JsonParser
 import com.voiceping.android.data.audio.AudioRouter
+import com.voiceping.android.data.audio.SpeculativeCapture
 import com.voiceping.android.data.network.dto.SignalingType
-import com.voiceping.android.domain.model.ConsumerNetworkStats
 import dagger.hilt.android.qualifiers.ApplicationContext
 import io.github.crow_misia.mediasoup.Consumer
 import io.github.crow_misia.mediasoup.Device
@@ -16,20 +18,24 @@ import io.github.crow_misia.mediasoup.RecvTransport
 import io.github.crow_misia.mediasoup.SendTransport
 import io.github.crow_misia.mediasoup.Transport
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
-import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.sync.Mutex
 import kotlinx.coroutines.sync.withLock
 import kotlinx.coroutines.withContext
+import kotlinx.coroutines.withTimeoutOrNull
 import org.webrtc.AudioSource
 import org.webrtc.AudioTrack
 import org.webrtc.MediaConstraints
 import org.webrtc.PeerConnection
 import org.webrtc.PeerConnectionFactory
 import org.webrtc.audio.JavaAudioDeviceModule
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -44,9 +50,14 @@ private fun JsonElement?.asStringOrNull(): String? =
  * - Device creation and RTP capabilities loading
  * - Receive transport creation and audio consumption (multi-channel monitoring)
  * - Send transport creation and audio production (PTT transmission)
+ * - Optional pre-warmed send path: paused producer kept on the primary channel so a
+ *   PTT grant only resumes it (see [prewarmSendPath])
+ * - Warm receive consumers: paused between overs and resumed locally when the same producer
+ *   speaks again, so a busy channel skips the CONSUME round-trip (see [pauseConsumer])
  *
  * Audio flow:
- * - Receive: RecvTransport per channel -> Consumer per producer -> AudioTrack playback
+ * - Receive: one shared RecvTransport for all channels (one per channel on servers without
+ *   shared transports) -> Consumer per producer -> AudioTrack playback
  * - Send: AudioSource captures mic -> AudioTrack -> Producer encodes Opus -> SendTransport -> server
  *
  * Key pattern: Device -> load capabilities -> create transports -> produce/consume
@@ -54,7 +65,9 @@ private fun JsonElement?.asStringOrNull(): String? =
 @Singleton
 class MediasoupClient @Inject constructor(
     private val signalingClient: SignalingClient,
+    private val transportSignaling: TransportSignalingBridge,
     private val audioRouter: AudioRouter,
+    private val speculativeCapture: SpeculativeCapture,
     @ApplicationContext private val context: Context
 ) {
     // WebRTC factory and audio module
@@ -65,10 +78,19 @@ class MediasoupClient @Inject constructor(
     private lateinit var device: Device
 
     // Transport and producer/consumer placeholders (typed in Phase 12/13)
-    private val recvTransports = mutableMapOf<String, RecvTransport>()
+    // channelId -> recv transport; every monitored channel maps to the one shared transport
+    // (server pipes each channel's producers into this connection's receive router);
+    // on servers that reject shared transports each channel has its own
+    private val recvTransports = ConcurrentHashMap<String, RecvTransport>()
+    @Volatile
+    private var sharedRecvTransport: RecvTransport? = null
+    // False once the server rejected a shared recv transport: each channel gets its own
+    @Volatile
+    private var sharedRecvSupported = true
     private var sendTransport: SendTransport? = null
     private var sendTransportChannelId: String? = null
-    private val consumers = mutableMapOf<String, Consumer>()
+    private val consumers = ConcurrentHashMap<String, Consumer>()
+    private val warmConsumers = ConsumerCache(consumerBudget())
     private var audioProducer: Producer? = null
     private var audioSource: AudioSource? = null
     private var pttAudioTrack: org.webrtc.AudioTrack? = null
@@ -79,6 +101,13 @@ class MediasoupClient @Inject constructor(
     @Volatile
     private var producingRequested = false
 
+    // Channel the current (paused or live) producer was pre-warmed for, null for a cold producer
+    @Volatile
+    private var prewarmedChannelId: String? = null
+
+    // outbound-rtp packetsSent when the producer was (re)started; first RTP = counter moves past it
+    private var packetsSentAtStart = 0L
+
     // Mutex for transport lifecycle protection (prevents concurrent creation/destruction)
     private val transportMutex = Mutex()
 
@@ -102,55 +131,63 @@ class MediasoupClient @Inject constructor(
      * because WebRTC's AudioDeviceModule now owns that responsibility.
      */
     fun initializeWebRTC() {
-        // Dispose previous Device to prevent native memory leak on re-initialization
-        if (::device.isInitialized) {
-            try { device.dispose() } catch (e: Exception) { Log.w(TAG, "Error disposing old device", e) }
-        }
+        trace("VP:MediasoupClient.initializeWebRTC") {
+            // Dispose previous Device to prevent native memory leak on re-initialization
+            if (::device.isInitialized) {
+                try { device.dispose() } catch (e: Exception) { Log.w(TAG, "Error disposing old device", e) }
+            }
 
-        audioDeviceModule = JavaAudioDeviceModule.builder(context)
-            .setUseHardwareAcousticEchoCanceler(true)
-            .setUseHardwareNoiseSuppressor(true)
-            .setAudioRecordErrorCallback(object : JavaAudioDeviceModule.AudioRecordErrorCallback {
-                override fun onWebRtcAudioRecordInitError(errorMessage: String) {
-                    Log.e(TAG, "AudioRecord init error: $errorMessage")
-                }
-                override fun onWebRtcAudioRecordStartError(
-                    errorCode: JavaAudioDeviceModule.AudioRecordStartErrorCode,
-                    errorMessage: String
-                ) {
-                    Log.e(TAG, "AudioRecord start error: $errorCode - $errorMessage")
-                }
-                override fun onWebRtcAudioRecordError(errorMessage: String) {
-                    Log.e(TAG, "AudioRecord error: $errorMessage")
-                }
-            })
-            .setAudioTrackErrorCallback(object : JavaAudioDeviceModule.AudioTrackErrorCallback {
-                override fun onWebRtcAudioTrackInitError(errorMessage: String) {
-                    Log.e(TAG, "AudioTrack init error: $errorMessage")
-                }
-                override fun onWebRtcAudioTrackStartError(
-                    errorCode: JavaAudioDeviceModule.AudioTrackStartErrorCode,
-                    errorMessage: String
-                ) {
-                    Log.e(TAG, "AudioTrack start error: $errorCode - $errorMessage")
-                }
-                override fun onWebRtcAudioTrackError(errorMessage: String) {
-                    Log.e(TAG, "AudioTrack error: $errorMessage")
+            audioDeviceModule = JavaAudioDeviceModule.builder(context)
+                .setUseHardwareAcousticEchoCanceler(true)
+                .setUseHardwareNoiseSuppressor(true)
+                .setAudioRecordErrorCallback(object : JavaAudioDeviceModule.AudioRecordErrorCallback {
+                    override fun onWebRtcAudioRecordInitError(errorMessage: String) {
+                        Log.e(TAG, "AudioRecord init error: $errorMessage")
+                    }
+                    override fun onWebRtcAudioRecordStartError(
+                        errorCode: JavaAudioDeviceModule.AudioRecordStartErrorCode,
+                        errorMessage: String
+                    ) {
+                        Log.e(TAG, "AudioRecord start error: $errorCode - $errorMessage")
+                    }
+                    override fun onWebRtcAudioRecordError(errorMessage: String) {
+                        Log.e(TAG, "AudioRecord error: $errorMessage")
+                    }
+                })
+                // Speculative PTT: buffer pre-grant audio and play it out ahead of live audio
+                .setAudioRecordDataCallback { _, _, _, audioBuffer ->
+                    speculativeCapture.process(audioBuffer)
                 }
-            })
-            .createAudioDeviceModule()
+                .setAudioTrackErrorCallback(object : JavaAudioDeviceModule.AudioTrackErrorCallback {
+                    override fun onWebRtcAudioTrackInitError(errorMessage: String) {
+                        Log.e(TAG, "AudioTrack init error: $errorMessage")
+                    }
+                    override fun onWebRtcAudioTrackStartError(
+                        errorCode: JavaAudioDeviceModule.AudioTrackStartErrorCode,
+                        errorMessage: String
+                    ) {
+                        Log.e(TAG, "AudioTrack start error: $errorCode - $errorMessage")
+                    }
+                    override fun onWebRtcAudioTrackError(errorMessage: String) {
+                        Log.e(TAG, "AudioTrack error: $errorMessage")
+                    }
+                })
+                .createAudioDeviceModule()
 
-        peerConnectionFactory = PeerConnectionFactory.builder()
-            .setAudioDeviceModule(audioDeviceModule)
-            .createPeerConnectionFactory()
+            peerConnectionFactory = trace("VP:PeerConnectionFactory.create") {
+                PeerConnectionFactory.builder()
+                    .setAudioDeviceModule(audioDeviceModule)
+                    .createPeerConnectionFactory()
+            }
 
-        // Create Device with PeerConnectionFactory
-        device = Device(peerConnectionFactory)
+            // Create Device with PeerConnectionFactory
+            device = Device(peerConnectionFactory)
 
-        // Coordinate with AudioRouter: WebRTC now owns MODE_IN_COMMUNICATION
-        audioRouter.disableModeControl()
+            // Coordinate with AudioRouter: WebRTC now owns MODE_IN_COMMUNICATION
+            audioRouter.disableModeControl()
 
-        Log.d(TAG, "PeerConnectionFactory initialized with AEC and NS enabled")
+            Log.d(TAG, "PeerConnectionFactory initialized with AEC and NS enabled")
+        }
     }
 
     /**
@@ -267,12 +304,12 @@ class MediasoupClient @Inject constructor(
     }
 
     /**
-     * Create receive transport for a channel.
+     * Make a channel's audio receivable.
      *
-     * Steps:
-     * 1. Request CREATE_TRANSPORT from server with channelId and direction="recv"
-     * 2. Create RecvTransport with server's transport parameters
-     * 3. Set up transport listener for DTLS connection
+     * All channels share one RecvTransport: the first call creates it (CREATE_TRANSPORT with
+     * shared=true, then DTLS on the first consume); later channels only map to it, without a
+     * round-trip, ICE agent or DTLS handshake of their own.
+     * Servers that reject shared=true get a per-channel transport (CREATE_TRANSPORT with channelId).
      *
      * @param channelId The channel to create transport for
      * @throws Exception if transport creation fails
@@ -281,101 +318,209 @@ class MediasoupClient @Inject constructor(
         ensureInitialized()
         transportMutex.withLock {
             try {
-                // Guard: Prevent duplicate RecvTransport creation for same channel
+                // Guard: channel already mapped
                 if (recvTransports.containsKey(channelId)) {
                     Log.d(TAG, "RecvTransport already exists for channel: $channelId")
                     return@withContext
                 }
 
-                Log.d(TAG, "Creating receive transport for channel: $channelId")
-
                 // Ensure Device has loaded router capabilities (idempotent)
                 loadDeviceCapabilities(channelId)
 
-                // Step 1: Request transport from server
-                val transportResponse = signalingClient.request(
-                    SignalingType.CREATE_TRANSPORT,
-                    mapOf(
-                        "channelId" to channelId,
-                        "direction" to "recv"
-                    )
-                )
+                val shared = sharedRecvTransport ?: requestSharedRecvTransport()?.let {
+                    Log.d(TAG, "Creating shared receive transport")
+                    attachRecvTransport(it, shared = true)
+                }
+                if (shared != null) {
+                    recvTransports[channelId] = shared
+                    Log.d(TAG, "Channel $channelId receives on shared transport ${shared.id}")
+                } else {
+                    val transport = attachRecvTransport(requestChannelRecvTransport(channelId), shared = false)
+                    recvTransports[channelId] = transport
+                    Log.d(TAG, "Channel $channelId receives on its own transport ${transport.id}")
+                }
 
-                val transportData = transportResponse.data
-                    ?: throw IllegalStateException("No transport data in response")
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to create receive transport", e)
+                throw e
+            }
+        }
+    }
 
-                val transportId = transportData.get("id").asStringOrNull()
-                    ?: throw IllegalStateException("No transport id")
-                val iceParameters = toJsonString(transportData.get("iceParameters"))
-                val iceCandidates = toJsonString(transportData.get("iceCandidates"))
-                val dtlsParameters = toJsonString(transportData.get("dtlsParameters"))
+    /**
+     * Map several channels to the shared receive transport at once (reconnect path).
+     *
+     * Transport parameters already returned by the server (batched REJOIN response) are
+     * used as-is; otherwise one CREATE_TRANSPORT is made for all channels. Servers that
+     * reject shared transports get one CREATE_TRANSPORT per channel, sent concurrently.
+     *
+     * @param channelIds Channels that need a receive transport
+     * @param prefetched Server parameters of the shared transport (skips CREATE_TRANSPORT)
+     * @return Channels that have a receive transport afterwards
+     */
+    suspend fun createRecvTransports(
+        channelIds: Collection<String>,
+        prefetched: JsonObject? = null
+    ): Set<String> = withContext(Dispatchers.IO) {
+        ensureInitialized()
+        val firstChannelId = channelIds.firstOrNull() ?: return@withContext emptySet()
 
-                Log.d(TAG, "Transport parameters received: id=$transportId")
+        transportMutex.withLock {
+            // Router capabilities are identical across channels, load them once
+            loadDeviceCapabilities(firstChannelId)
 
-                // Step 2 & 3: Create RecvTransport with listener
-                val transport = device.createRecvTransport(
-                    listener = object : RecvTransport.Listener {
-                        override fun onConnect(transport: Transport, dtlsParameters: String) {
-                            Log.d(TAG, "RecvTransport onConnect: $transportId")
-                            runBlocking {
-                                // dtlsParameters is a JSON string from native —
-                                // parse into JsonElement to avoid double-encoding
-                                val connectData = JsonObject().apply {
-                                    addProperty("transportId", transportId)
-                                    add("dtlsParameters", JsonParser.parseString(dtlsParameters))
-                                }
-                                signalingClient.request(
-                                    SignalingType.CONNECT_TRANSPORT,
-                                    connectData
-                                )
-                            }
-                        }
+            val shared = sharedRecvTransport ?: try {
+                (prefetched ?: requestSharedRecvTransport())?.let { attachRecvTransport(it, shared = true) }
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to create shared receive transport", e)
+                return@withContext emptySet()
+            }
+            if (shared != null) {
+                channelIds.forEach { recvTransports[it] = shared }
+                return@withContext channelIds.toSet()
+            }
 
-                        override fun onConnectionStateChange(
-                            transport: Transport,
-                            newState: String
-                        ) {
-                            when (newState) {
-                                "disconnected" -> {
-                                    // ICE connectivity lost — WebRTC will attempt auto-recovery (~15s window)
-                                    // Do NOT remove transport, it may reconnect
-                                    Log.w(TAG, "RecvTransport disconnected, waiting for auto-recovery (channel: $channelId)")
-                                }
-                                "failed" -> {
-                                    // Auto-recovery failed — cleanup this channel's resources
-                                    Log.e(TAG, "RecvTransport failed, cleaning up channel: $channelId")
-                                    // Remove transport — Consumer.onTransportClose will clean up consumers
-                                    recvTransports.remove(channelId)
-                                }
-                                "connected" -> {
-                                    Log.d(TAG, "RecvTransport (re)connected: $channelId")
-                                }
-                            }
+            val parameters = coroutineScope {
+                channelIds.map { channelId ->
+                    async {
+                        try {
+                            channelId to requestChannelRecvTransport(channelId)
+                        } catch (e: Exception) {
+                            Log.e(TAG, "Failed to create receive transport for channel $channelId", e)
+                            null
                         }
-                    },
-                    id = transportId,
-                    iceParameters = iceParameters,
-                    iceCandidates = iceCandidates,
-                    dtlsParameters = dtlsParameters
-                )
-                recvTransports[channelId] = transport
+                    }
+                }.awaitAll().filterNotNull()
+            }
+            parameters.mapNotNullTo(mutableSetOf()) { (channelId, transportData) ->
+                try {
+                    recvTransports[channelId] = attachRecvTransport(transportData, shared = false)
+                    channelId
+                } catch (e: Exception) {
+                    Log.e(TAG, "Failed to create receive transport for channel $channelId", e)
+                    null
+                }
+            }
+        }
+    }
 
-                Log.d(TAG, "Receive transport created successfully")
+    /**
+     * Request shared recv transport parameters from the server (CREATE_TRANSPORT).
+     *
+     * @return Transport parameters, or null if the server does not support shared transports
+     */
+    private suspend fun requestSharedRecvTransport(): JsonObject? {
+        if (!sharedRecvSupported) return null
+
+        val transportResponse = signalingClient.request(
+            SignalingType.CREATE_TRANSPORT,
+            mapOf(
+                "direction" to "recv",
+                "shared" to true
+            )
+        )
+        if (transportResponse.error != null) {
+            Log.w(TAG, "Server rejected shared recv transport (${transportResponse.error}), falling back to per-channel transports")
+            sharedRecvSupported = false
+            return null
+        }
 
-            } catch (e: Exception) {
-                Log.e(TAG, "Failed to create receive transport", e)
-                throw e
-            }
+        return transportResponse.data
+            ?: throw IllegalStateException("No transport data in response")
+    }
+
+    /**
+     * Request recv transport parameters for one channel from the server (CREATE_TRANSPORT).
+     */
+    private suspend fun requestChannelRecvTransport(channelId: String): JsonObject {
+        val transportResponse = signalingClient.request(
+            SignalingType.CREATE_TRANSPORT,
+            mapOf(
+                "channelId" to channelId,
+                "direction" to "recv"
+            )
+        )
+        if (transportResponse.error != null) {
+            throw IllegalStateException("Server error: ${transportResponse.error}")
         }
+
+        return transportResponse.data
+            ?: throw IllegalStateException("No transport data in response")
+    }
+
+    /**
+     * Create a local RecvTransport for server transport parameters.
+     * Caller must hold [transportMutex].
+     *
+     * @param shared true for the transport shared by all channels (kept in [sharedRecvTransport])
+     */
+    private fun attachRecvTransport(transportData: JsonObject, shared: Boolean): RecvTransport {
+        val transportId = transportData.get("id").asStringOrNull()
+            ?: throw IllegalStateException("No transport id")
+        val iceParameters = toJsonString(transportData.get("iceParameters"))
+        val iceCandidates = toJsonString(transportData.get("iceCandidates"))
+        val dtlsParameters = toJsonString(transportData.get("dtlsParameters"))
+
+        Log.d(TAG, "Transport parameters received: id=$transportId")
+
+        val transport = device.createRecvTransport(
+            listener = object : RecvTransport.Listener {
+                override fun onConnect(transport: Transport, dtlsParameters: String) {
+                    Log.d(TAG, "RecvTransport onConnect: $transportId")
+                    // dtlsParameters is a JSON string from native —
+                    // parse into JsonElement to avoid double-encoding
+                    val connectData = JsonObject().apply {
+                        addProperty("transportId", transportId)
+                        add("dtlsParameters", JsonParser.parseString(dtlsParameters))
+                    }
+                    transportSignaling.request(
+                        SignalingType.CONNECT_TRANSPORT,
+                        connectData,
+                        TRANSPORT_CALLBACK_TIMEOUT_MS
+                    )
+                }
+
+                override fun onConnectionStateChange(
+                    transport: Transport,
+                    newState: String
+                ) {
+                    when (newState) {
+                        "disconnected" -> {
+                            // ICE connectivity lost — WebRTC will attempt auto-recovery (~15s window)
+                            // Do NOT remove transport, it may reconnect
+                            Log.w(TAG, "RecvTransport disconnected, waiting for auto-recovery: $transportId")
+                        }
+                        "failed" -> {
+                            // Auto-recovery failed — every channel on it loses its receive path
+                            Log.e(TAG, "RecvTransport failed, unmapping its channels: $transportId")
+                            // Remove transport — Consumer.onTransportClose will clean up consumers
+                            recvTransports.values.removeIf { it.id == transportId }
+                            if (sharedRecvTransport?.id == transportId) sharedRecvTransport = null
+                        }
+                        "connected" -> {
+                            Log.d(TAG, "RecvTransport (re)connected: $transportId")
+                        }
+                    }
+                }
+            },
+            id = transportId,
+            iceParameters = iceParameters,
+            iceCandidates = iceCandidates,
+            dtlsParameters = dtlsParameters
+        )
+        if (shared) sharedRecvTransport = transport
+        return transport
     }
 
     /**
      * Consume audio from a remote producer.
      *
-     * Steps:
+     * If a warm (paused) consumer of this producer exists on the channel, it is resumed
+     * locally and returned: no signaling round-trip. Otherwise:
      * 1. Request CONSUME from server with producerId and peerId
      * 2. Create consumer on receive transport
      * 3. Resume consumer to start audio playback
+     * 4. Keep it warm for the next over, evicting least recently used idle consumers
      *
      * @param channelId The channel ID for transport lookup
      * @param producerId The producer ID from server
@@ -384,6 +529,16 @@ class MediasoupClient @Inject constructor(
      * @throws Exception if consume fails
      */
     suspend fun consumeAudio(channelId: String, producerId: String, peerId: String): String = withContext(Dispatchers.IO) {
+        warmConsumers.activate(producerId, channelId)?.let { entry ->
+            val warm = consumers[entry.consumerId]
+            if (warm != null && !warm.closed) {
+                warm.resume()
+                Log.d(TAG, "Warm consumer resumed: ${entry.consumerId} (producer=$producerId)")
+                return@withContext entry.consumerId
+            }
+            warmConsumers.remove(entry.consumerId)
+        }
+
         try {
             Log.d(TAG, "Consuming audio: channel=$channelId, producer=$producerId, peer=$peerId")
 
@@ -417,6 +572,7 @@ class MediasoupClient @Inject constructor(
                     override fun onTransportClose(consumer: Consumer) {
                         Log.d(TAG, "Consumer transport closed: $consumerId")
                         consumers.remove(consumerId)
+                        warmConsumers.remove(consumerId)
                     }
                 },
                 id = consumerId,
@@ -429,6 +585,7 @@ class MediasoupClient @Inject constructor(
             consumer.resume()
 
             consumers[consumerId] = consumer
+            closeEvicted(warmConsumers.put(ConsumerCache.Entry(producerId, consumerId, channelId)))
             Log.d(TAG, "Consumer created and resumed: $consumerId")
 
             return@withContext consumerId
@@ -445,15 +602,50 @@ class MediasoupClient @Inject constructor(
      * @param consumerId The consumer ID to close
      */
     fun closeConsumer(consumerId: String) {
+        warmConsumers.remove(consumerId)
         consumers.remove(consumerId)?.let { consumer ->
             consumer.close()
             Log.d(TAG, "Consumer closed: $consumerId")
         }
     }
 
+    /**
+     * Pause a consumer whose speaker stopped, keeping it warm for the producer's next over.
+     * Closes least recently used idle consumers beyond the device budget.
+     *
+     * @param consumerId The consumer ID to pause
+     */
+    fun pauseConsumer(consumerId: String) {
+        consumers[consumerId]?.let { consumer ->
+            if (!consumer.closed) consumer.pause()
+        }
+        closeEvicted(warmConsumers.deactivate(consumerId))
+    }
+
+    /**
+     * Close every consumer of a channel, warm or active (mute, leave).
+     */
+    fun closeChannelConsumers(channelId: String) {
+        warmConsumers.removeChannel(channelId).forEach { entry ->
+            consumers.remove(entry.consumerId)?.close()
+        }
+    }
+
+    private fun closeEvicted(evicted: List<ConsumerCache.Entry>) {
+        evicted.forEach { entry ->
+            consumers.remove(entry.consumerId)?.close()
+            Log.d(TAG, "Warm consumer evicted: ${entry.consumerId} (producer=${entry.producerId})")
+        }
+    }
+
+    private fun consumerBudget(): Int {
+        val activityManager = context.getSystemService(ActivityManager::class.java)
+        return ConsumerCache.budgetFor(isLowRamDevice = activityManager?.isLowRamDevice == true)
+    }
+
     /**
      * Set volume for a specific consumer (0.0 to 1.0).
-     * Used for per-channel volume control and audio mix mode.
+     * Called per frame by the mixer while channel gains ramp.
      */
     fun setConsumerVolume(consumerId: String, volume: Float) {
         consumers[consumerId]?.let { consumer ->
@@ -462,7 +654,7 @@ class MediasoupClient @Inject constructor(
                 // Convert 0.0-1.0 app range to 0.0-10.0 WebRTC range
                 val webRtcVolume = (volume.coerceIn(0f, 1f) * 10.0)
                 audioTrack.setVolume(webRtcVolume)
-                Log.d(TAG, "Consumer volume set: $consumerId -> $volume (WebRTC: $webRtcVolume)")
+                Log.v(TAG, "Consumer volume set: $consumerId -> $volume (WebRTC: $webRtcVolume)")
             } else {
                 Log.w(TAG, "Consumer track is not AudioTrack: $consumerId")
             }
@@ -470,50 +662,60 @@ class MediasoupClient @Inject constructor(
     }
 
     /**
-     * Get consumer statistics for network quality indicator.
+     * Read cumulative inbound-rtp counters for a consumer (network quality pipeline).
      *
-     * Parses RTCStatsReport from Consumer.stats to extract:
-     * - packetsLost: Cumulative packets lost
-     * - jitter: Packet arrival time variance
-     * - packetsReceived: Total packets received
-     *
-     * Note: The actual implementation depends on crow-misia API. If consumer.stats
-     * returns a String (JSON), we parse it. If it returns an RTCStatsReport object,
-     * we iterate it. This stub returns default "Good" stats for compilation.
+     * Consumer.stats is the native RTCStatsReport serialized as JSON; counters are summed
+     * over its inbound-rtp entries (one per audio consumer). Deltas and smoothing are done
+     * by [ConsumerStatsCollector], which batches all consumers into one tick.
      *
      * @param consumerId Consumer ID to get stats for
-     * @return ConsumerNetworkStats or null if consumer not found or stats unavailable
+     * @return InboundRtpStats or null if consumer not found or stats unavailable
      */
-    suspend fun getConsumerStats(consumerId: String): ConsumerNetworkStats? = withContext(Dispatchers.IO) {
-        consumers[consumerId]?.let { consumer ->
-            try {
-                // TODO: Implement actual stats parsing when library API is confirmed
-                // The crow-misia library's Consumer.stats property type is not documented.
-                // Options:
-                // 1. If it returns String (JSON like device.rtpCapabilities):
-                //    val statsJson = consumer.stats as? String
-                //    Parse JSON to extract inbound-rtp metrics
-                // 2. If it returns RTCStatsReport object:
-                //    Iterate through statsReport.getStatsIds() or similar
-                // 3. If it's a method getStats() with callback:
-                //    Wrap in suspendCancellableCoroutine
-                //
-                // For now, return default "Good" stats to allow compilation and UI wiring.
-                // Will be updated after library API testing on device.
-
-                return@withContext ConsumerNetworkStats(
-                    packetsLost = 0,
-                    jitter = 0.0,
-                    packetsReceived = 100,
-                    indicator = "Good"
-                )
-            } catch (e: Exception) {
-                Log.e(TAG, "Failed to get consumer stats: $consumerId", e)
-                null
+    fun getConsumerStats(consumerId: String): InboundRtpStats? {
+        val consumer = consumers[consumerId] ?: return null
+        return try {
+            var packetsReceived = 0L
+            var packetsLost = 0L
+            var jitter = 0.0
+            var concealedSamples = 0L
+            var totalSamplesReceived = 0L
+            var jitterBufferDelay = 0.0
+            var jitterBufferEmittedCount = 0L
+            var found = false
+
+            for (report in statsReports(consumer.stats)) {
+                if (report.get("type").asStringOrNull() != "inbound-rtp") continue
+                found = true
+                packetsReceived += report.get("packetsReceived")?.asLong ?: 0L
+                packetsLost += report.get("packetsLost")?.asLong ?: 0L
+                jitter = maxOf(jitter, report.get("jitter")?.asDouble ?: 0.0)
+                concealedSamples += report.get("concealedSamples")?.asLong ?: 0L
+                totalSamplesReceived += report.get("totalSamplesReceived")?.asLong ?: 0L
+                jitterBufferDelay += report.get("jitterBufferDelay")?.asDouble ?: 0.0
+                jitterBufferEmittedCount += report.get("jitterBufferEmittedCount")?.asLong ?: 0L
             }
+
+            if (!found) return null
+            InboundRtpStats(
+                packetsReceived = packetsReceived,
+                packetsLost = packetsLost,
+                jitter = jitter,
+                concealedSamples = concealedSamples,
+                totalSamplesReceived = totalSamplesReceived,
+                jitterBufferDelay = jitterBufferDelay,
+                jitterBufferEmittedCount = jitterBufferEmittedCount
+            )
+        } catch (e: Exception) {
+            Log.w(TAG, "Failed to read consumer stats: $consumerId", e)
+            null
         }
     }
 
+    /**
+     * Current consumer IDs (snapshot, safe to iterate while consumers change).
+     */
+    fun consumerIds(): Set<String> = consumers.keys.toSet()
+
     /**
      * Create send transport for PTT audio transmission (singleton).
      *
@@ -565,18 +767,17 @@ class MediasoupClient @Inject constructor(
                     listener = object : SendTransport.Listener {
                         override fun onConnect(transport: Transport, dtlsParameters: String) {
                             Log.d(TAG, "SendTransport onConnect: $transportId")
-                            runBlocking {
-                                // dtlsParameters is a JSON string from native —
-                                // parse into JsonElement to avoid double-encoding
-                                val connectData = JsonObject().apply {
-                                    addProperty("transportId", transportId)
-                                    add("dtlsParameters", JsonParser.parseString(dtlsParameters))
-                                }
-                                signalingClient.request(
-                                    SignalingType.CONNECT_TRANSPORT,
-                                    connectData
-                                )
+                            // dtlsParameters is a JSON string from native —
+                            // parse into JsonElement to avoid double-encoding
+                            val connectData = JsonObject().apply {
+                                addProperty("transportId", transportId)
+                                add("dtlsParameters", JsonParser.parseString(dtlsParameters))
                             }
+                            transportSignaling.request(
+                                SignalingType.CONNECT_TRANSPORT,
+                                connectData,
+                                TRANSPORT_CALLBACK_TIMEOUT_MS
+                            )
                         }
 
                         override fun onProduce(
@@ -586,26 +787,25 @@ class MediasoupClient @Inject constructor(
                             appData: String?
                         ): String {
                             Log.d(TAG, "SendTransport onProduce: kind=$kind, transport=$transportId, channel=$sendTransportChannelId")
-                            return runBlocking {
-                                // rtpParameters is a JSON string from native —
-                                // parse into JsonElement to avoid double-encoding.
-                                // Server requires transportId and channelId.
-                                val produceData = JsonObject().apply {
-                                    addProperty("transportId", transportId)
-                                    addProperty("channelId", sendTransportChannelId)
-                                    addProperty("kind", kind)
-                                    add("rtpParameters", JsonParser.parseString(rtpParameters))
-                                }
-                                val produceResponse = signalingClient.request(
-                                    SignalingType.PRODUCE,
-                                    produceData
-                                )
-                                if (produceResponse.error != null) {
-                                    throw IllegalStateException("Produce failed: ${produceResponse.error}")
-                                }
-                                produceResponse.data?.get("id").asStringOrNull()
-                                    ?: throw IllegalStateException("No producer id in response")
+                            // rtpParameters is a JSON string from native —
+                            // parse into JsonElement to avoid double-encoding.
+                            // Server requires transportId and channelId.
+                            val produceData = JsonObject().apply {
+                                addProperty("transportId", transportId)
+                                addProperty("channelId", sendTransportChannelId)
+                                addProperty("kind", kind)
+                                add("rtpParameters", JsonParser.parseString(rtpParameters))
+                            }
+                            val produceResponse = transportSignaling.request(
+                                SignalingType.PRODUCE,
+                                produceData,
+                                TRANSPORT_CALLBACK_TIMEOUT_MS
+                            )
+                            if (produceResponse.error != null) {
+                                throw IllegalStateException("Produce failed: ${produceResponse.error}")
                             }
+                            return produceResponse.data?.get("id").asStringOrNull()
+                                ?: throw IllegalStateException("No producer id in response")
                         }
 
                         override fun onProduceData(
@@ -636,6 +836,7 @@ class MediasoupClient @Inject constructor(
                                     Log.e(TAG, "SendTransport failed, cleaning up producer and transport")
                                     audioProducer?.close()
                                     audioProducer = null
+                                    prewarmedChannelId = null
                                     cleanupAudioResources()
                                     sendTransport = null
                                 }
@@ -688,6 +889,8 @@ class MediasoupClient @Inject constructor(
 
             Log.d(TAG, "Starting audio producer")
             producingRequested = true
+            prewarmedChannelId = null
+            packetsSentAtStart = 0L
 
             // Guard: SendTransport must exist
             val transport = sendTransport
@@ -746,6 +949,113 @@ class MediasoupClient @Inject constructor(
         }
     }
 
+    /**
+     * Pre-warm the send path for a channel: create the send transport and a producer,
+     * then pause it locally. The server creates producers paused, and handlePttStart
+     * resumes this user's producer for the channel, so a later grant only needs
+     * [resumePrewarmedProducer] instead of CREATE_TRANSPORT + DTLS + PRODUCE (~700ms).
+     *
+     * Idempotent: does nothing if a producer is already pre-warmed for [channelId].
+     * A producer pre-warmed for a different channel is replaced.
+     *
+     * Note: the WebRTC audio module keeps the microphone open while the paused producer
+     * exists, which is why this mode is opt-in (Settings > Instant PTT).
+     */
+    suspend fun prewarmSendPath(channelId: String) = withContext(Dispatchers.IO) {
+        if (prewarmedChannelId == channelId && audioProducer != null) return@withContext
+
+        Log.d(TAG, "Pre-warming send path for channel: $channelId")
+        createSendTransport(channelId)
+        startProducing()
+
+        val producer = audioProducer ?: return@withContext
+        producer.pause()
+        prewarmedChannelId = channelId
+        Log.d(TAG, "Send path pre-warmed, producer ${producer.id} paused")
+    }
+
+    /**
+     * True if a paused producer is ready for [channelId] (the microphone is recording).
+     */
+    fun isPrewarmedFor(channelId: String): Boolean =
+        prewarmedChannelId == channelId && audioProducer?.closed == false
+
+    /**
+     * Resume the pre-warmed producer after a PTT grant.
+     *
+     * @return true if a pre-warmed producer for [channelId] was resumed; false if the
+     *         caller must take the cold path (createSendTransport + startProducing)
+     */
+    fun resumePrewarmedProducer(channelId: String): Boolean {
+        val producer = audioProducer ?: return false
+        if (prewarmedChannelId != channelId || producer.closed) return false
+
+        packetsSentAtStart = outboundPacketsSent(producer).coerceAtLeast(0L)
+        producingRequested = true
+        producer.resume()
+        Log.d(TAG, "Pre-warmed producer resumed for channel: $channelId")
+        return true
+    }
+
+    /**
+     * Pause the pre-warmed producer on PTT release, keeping it for the next grant.
+     *
+     * @return true if the producer was kept; false if it was a cold producer and the
+     *         caller should [stopProducing] instead
+     */
+    fun pausePrewarmedProducer(): Boolean {
+        val producer = audioProducer ?: return false
+        if (prewarmedChannelId == null || producer.closed) return false
+
+        producer.pause()
+        Log.d(TAG, "Pre-warmed producer paused")
+        return true
+    }
+
+    /**
+     * Wait until the live producer reports its first outbound RTP packet.
+     *
+     * Polls the producer's outbound-rtp packetsSent counter; used to measure
+     * grant-to-first-RTP latency.
+     *
+     * @return true once RTP is flowing, false on timeout or if no producer exists
+     */
+    suspend fun awaitFirstRtpPacket(timeoutMs: Long): Boolean = withContext(Dispatchers.IO) {
+        withTimeoutOrNull(timeoutMs) {
+            while (audioProducer.let { it == null || outboundPacketsSent(it) <= packetsSentAtStart }) {
+                delay(RTP_PROBE_INTERVAL_MS)
+            }
+            true
+        } ?: false
+    }
+
+    /**
+     * Sum of packetsSent over the producer's outbound-rtp stats, or -1 if unavailable.
+     * Producer.stats is the native RTCStatsReport serialized as JSON.
+     */
+    private fun outboundPacketsSent(producer: Producer): Long {
+        return try {
+            statsReports(producer.stats)
+                .filter { it.get("type").asStringOrNull() == "outbound-rtp" }
+                .sumOf { it.get("packetsSent")?.asLong ?: 0L }
+        } catch (e: Exception) {
+            -1L
+        }
+    }
+
+    /**
+     * Individual stats objects of a serialized RTCStatsReport (array or id-keyed object).
+     */
+    private fun statsReports(statsJson: String): List<JsonObject> {
+        val root = JsonParser.parseString(statsJson)
+        val reports = when {
+            root.isJsonArray -> root.asJsonArray.toList()
+            root.isJsonObject -> root.asJsonObject.entrySet().map { it.value }
+            else -> emptyList()
+        }
+        return reports.filter { it.isJsonObject }.map { it.asJsonObject }
+    }
+
     /**
      * Stop producing audio (PTT release).
      *
@@ -757,6 +1067,7 @@ class MediasoupClient @Inject constructor(
 
             // Signal to in-flight produce() that we want to stop
             producingRequested = false
+            prewarmedChannelId = null
 
             // Close producer (may be null if produce() hasn't returned yet —
             // the producingRequested flag handles that case)
@@ -793,8 +1104,10 @@ class MediasoupClient @Inject constructor(
     /**
      * Clean up resources for a specific channel.
      *
-     * Called when leaving a channel to close its RecvTransport.
-     * Consumers should be closed by caller first via closeConsumer().
+     * Called when leaving a channel to unmap it from its RecvTransport; the transport
+     * itself is closed with the last channel on it.
+     * Active consumers should be closed by caller first via closeConsumer(); warm
+     * (paused) consumers of the channel are closed here.
      *
      * Mutex-protected to prevent race conditions with concurrent transport creation/destruction.
      *
@@ -804,13 +1117,45 @@ class MediasoupClient @Inject constructor(
         transportMutex.withLock {
             Log.d(TAG, "Cleaning up channel: $channelId")
 
-            // Close RecvTransport for channel
-            // Note: Consumers for this channel should already be closed by caller
-            // (ChannelRepository closes consumers before calling this method)
-            recvTransports.remove(channelId)?.let { transport ->
+            // Close warm consumers of this channel, then unmap it
+            // (ChannelRepository closes active consumers before calling this method)
+            closeChannelConsumers(channelId)
+            val transport = recvTransports.remove(channelId)
+
+            // Last channel on the transport gone: close it
+            if (transport != null && recvTransports.values.none { it === transport }) {
                 transport.close()
-                Log.d(TAG, "RecvTransport closed for channel: $channelId")
+                if (transport === sharedRecvTransport) sharedRecvTransport = null
+                Log.d(TAG, "RecvTransport ${transport.id} closed (no channels left)")
+            }
+        }
+    }
+
+    /**
+     * Apply server-side ICE restarts after a resumed signaling session.
+     *
+     * The server kept this client's transports and restarted ICE on them (the local
+     * address may have changed); each transport picks up its new ICE parameters here.
+     *
+     * @param iceParameters transportId -> iceParameters JSON from the resumed CHANNEL_LIST
+     * @return Number of local transports restarted
+     */
+    suspend fun restartIce(iceParameters: Map<String, String>): Int {
+        return transportMutex.withLock {
+            val transports: List<Transport> =
+                (recvTransports.values + listOfNotNull(sharedRecvTransport, sendTransport)).distinct()
+            var restarted = 0
+            for (transport in transports) {
+                val parameters = iceParameters[transport.id] ?: continue
+                try {
+                    transport.restartIce(parameters)
+                    restarted++
+                } catch (e: Exception) {
+                    Log.w(TAG, "ICE restart failed for transport ${transport.id}", e)
+                }
             }
+            Log.d(TAG, "ICE restarted on $restarted/${transports.size} transports")
+            restarted
         }
     }
 
@@ -825,22 +1170,27 @@ class MediasoupClient @Inject constructor(
 
         // Step 1: Close producer FIRST
         producingRequested = false
+        prewarmedChannelId = null
         audioProducer?.close()
         audioProducer = null
         cleanupAudioResources()
 
-        // Step 2: Close all consumers
+        // Step 2: Close all consumers (active and warm)
         consumers.values.forEach { it.close() }
         consumers.clear()
+        warmConsumers.clear()
 
         // Step 3: Close send transport
         sendTransport?.close()
         sendTransport = null
         sendTransportChannelId = null
 
-        // Step 4: Close all recv transports
-        recvTransports.values.forEach { it.close() }
+        // Step 4: Close the recv transports (shared, or per channel)
+        (recvTransports.values + listOfNotNull(sharedRecvTransport)).distinct().forEach { it.close() }
+        sharedRecvTransport = null
         recvTransports.clear()
+        // The next session may reach a server that supports shared transports
+        sharedRecvSupported = true
 
         // Note: Device and PeerConnectionFactory are kept alive across cleanup cycles.
         // They're expensive to recreate, and initialize() is only called once in LoadingViewModel.
@@ -851,5 +1201,8 @@ class MediasoupClient @Inject constructor(
 
     companion object {
         private const val TAG = "MediasoupClient"
+        private const val RTP_PROBE_INTERVAL_MS = 5L
+        // Longest a native transport callback may park (server REQUEST_TIMEOUT is 10s)
+        private const val TRANSPORT_CALLBACK_TIMEOUT_MS = 5_000L
     }
 }
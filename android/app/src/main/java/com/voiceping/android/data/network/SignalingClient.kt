@@ -3,8 +3,11 @@ package com.voiceping.android.data.network
 import android.util.Log
 import com.google.gson.Gson
 import com.google.gson.JsonObject
+import com.voiceping.android.data.network.dto.ChannelStateEvent
+import com.voiceping.android.data.network.dto.SignalingEvent
 import com.voiceping.android.data.network.dto.SignalingMessage
 import com.voiceping.android.data.network.dto.SignalingType
+import com.voiceping.android.data.network.dto.SpeakerChangedEvent
 import com.voiceping.android.domain.model.ConnectionState
 import kotlinx.coroutines.CompletableDeferred
 import kotlinx.coroutines.CoroutineScope
@@ -25,6 +28,7 @@ import okhttp3.Request
 import okhttp3.Response
 import okhttp3.WebSocket
 import okhttp3.WebSocketListener
+import okio.ByteString
 import java.util.UUID
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.TimeUnit
@@ -32,6 +36,19 @@ import javax.inject.Inject
 import javax.inject.Singleton
 import kotlin.math.pow
 
+/**
+ * Server session for the current connection, from CHANNEL_LIST.
+ *
+ * @param resumed True if the server reattached the previous session (channels, transports, producers kept)
+ * @param joinedChannels Channels the resumed session is still joined to
+ * @param iceParameters transportId -> restarted iceParameters JSON for the kept transports
+ */
+data class SessionInfo(
+    val resumed: Boolean,
+    val joinedChannels: Set<String>,
+    val iceParameters: Map<String, String>
+)
+
 /**
  * WebSocket signaling client for VoicePing server.
  *
@@ -39,11 +56,14 @@ import kotlin.math.pow
  * - WebSocket connection with JWT authentication via Sec-WebSocket-Protocol header
  * - Request-response correlation using UUID message IDs
  * - Broadcast message handling via SharedFlow
+ * - Streaming decode of high-rate SPEAKER_CHANGED / CHANNEL_STATE broadcasts into typed events
+ * - Optional binary wire format ([BinarySignalingCodec]) negotiated via Sec-WebSocket-Protocol
  * - Connection state management via StateFlow
  * - Heartbeat (PING every 25 seconds)
  * - Automatic reconnection with exponential backoff (1s-30s cap, 5-minute max)
  * - Network-aware retry (resets backoff on network restore)
  * - Latency measurement via heartbeat PING round-trip time
+ * - Session resumption: the resume token from the last CHANNEL_LIST is offered on reconnect
  */
 @Singleton
 class SignalingClient @Inject constructor(
@@ -61,11 +81,41 @@ class SignalingClient @Inject constructor(
     val connectionState: StateFlow<ConnectionState> = _connectionState.asStateFlow()
 
     private val _messages = MutableSharedFlow<SignalingMessage>()
+
+    /**
+     * Rare broadcasts (permission updates, force-disconnect, etc.) as full JSON trees.
+     * SPEAKER_CHANGED and CHANNEL_STATE broadcasts are NOT emitted here — see
+     * [speakerChanges] and [channelStateUpdates].
+     */
     val messages: SharedFlow<SignalingMessage> = _messages.asSharedFlow()
 
+    private val frameDecoder = SignalingFrameDecoder()
+    private val binaryCodec = BinarySignalingCodec()
+
+    /** True when the server selected [BinarySignalingCodec.SUBPROTOCOL] for this connection */
+    @Volatile
+    private var binaryWire = false
+
+    private val _speakerChanges = MutableSharedFlow<SpeakerChangedEvent>(extraBufferCapacity = EVENT_BUFFER_CAPACITY)
+    val speakerChanges: SharedFlow<SpeakerChangedEvent> = _speakerChanges.asSharedFlow()
+
+    private val _channelStateUpdates = MutableSharedFlow<ChannelStateEvent>(extraBufferCapacity = EVENT_BUFFER_CAPACITY)
+    val channelStateUpdates: SharedFlow<ChannelStateEvent> = _channelStateUpdates.asSharedFlow()
+
     private val _latency = MutableStateFlow<Long?>(null)
     val latency: StateFlow<Long?> = _latency.asStateFlow()
 
+    /**
+     * Session info from the server's CHANNEL_LIST for the current connection
+     * (null until it arrives; reset on every connect).
+     */
+    private val _sessionInfo = MutableStateFlow<SessionInfo?>(null)
+    val sessionInfo: StateFlow<SessionInfo?> = _sessionInfo.asStateFlow()
+
+    /** Resume token of the last session, offered on the next connect (cleared on intentional disconnect) */
+    @Volatile
+    private var resumeToken: String? = null
+
     private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
     private var heartbeatJob: Job? = null
 
@@ -101,6 +151,10 @@ class SignalingClient @Inject constructor(
      *
      * Authentication: JWT passed via Sec-WebSocket-Protocol header as "voiceping, <token>".
      * Server's handleProtocols callback extracts the token.
+     *
+     * The binary token is offered AFTER the JWT: older servers take the first
+     * non-"voiceping" entry as the token, so they keep authenticating and stay on JSON.
+     * The resume token (if any) goes last for the same reason.
      */
     suspend fun connect(serverUrl: String, token: String) {
         // Store connection params for reconnection
@@ -115,39 +169,49 @@ class SignalingClient @Inject constructor(
 
         val wsUrl = serverUrl.trimEnd('/') + "/ws"
 
+        val protocols = buildString {
+            append("voiceping, $token, ${BinarySignalingCodec.SUBPROTOCOL}")
+            resumeToken?.let { append(", $RESUME_SUBPROTOCOL_PREFIX$it") }
+        }
+
         val request = Request.Builder()
             .url(wsUrl)
-            .header("Sec-WebSocket-Protocol", "voiceping, $token")
+            .header("Sec-WebSocket-Protocol", protocols)
             .build()
 
+        _sessionInfo.value = null
         _connectionState.value = ConnectionState.CONNECTING
 
         webSocket = client.newWebSocket(request, object : WebSocketListener() {
             override fun onOpen(webSocket: WebSocket, response: Response) {
-                Log.d(TAG, "WebSocket connected: ${response.message}")
+                binaryWire = response.header("Sec-WebSocket-Protocol") == BinarySignalingCodec.SUBPROTOCOL
+                Log.d(TAG, "WebSocket connected: ${response.message} (wire=${if (binaryWire) "binary" else "json"})")
                 _connectionState.value = ConnectionState.CONNECTED
                 resetReconnectionState()
                 startHeartbeat()
             }
 
             override fun onMessage(webSocket: WebSocket, text: String) {
+                // Hot path: high-rate broadcasts decoded without building a JsonObject tree
+                if (dispatchEvent(frameDecoder.decode(text))) return
+
                 try {
-                    val message = gson.fromJson(text, SignalingMessage::class.java)
-
-                    // Response to pending request (has correlation ID)
-                    if (message.id != null && pendingRequests.containsKey(message.id)) {
-                        pendingRequests.remove(message.id)?.complete(message)
-                    } else {
-                        // Broadcast message (no correlation ID, or server-initiated)
-                        scope.launch {
-                            _messages.emit(message)
-                        }
-                    }
+                    dispatchMessage(gson.fromJson(text, SignalingMessage::class.java))
                 } catch (e: Exception) {
                     Log.e(TAG, "Failed to parse message: $text", e)
                 }
             }
 
+            override fun onMessage(webSocket: WebSocket, bytes: ByteString) {
+                if (dispatchEvent(binaryCodec.decodeEvent(bytes))) return
+
+                try {
+                    dispatchMessage(binaryCodec.decode(bytes))
+                } catch (e: Exception) {
+                    Log.e(TAG, "Failed to parse binary message (${bytes.size} bytes): ${bytes.hex()}", e)
+                }
+            }
+
             override fun onFailure(webSocket: WebSocket, t: Throwable, response: Response?) {
                 Log.e(TAG, "WebSocket failure: ${t.message}", t)
 
@@ -240,8 +304,7 @@ class SignalingClient @Inject constructor(
 
         pendingRequests[id] = deferred
 
-        val json = gson.toJson(message)
-        val sent = webSocket?.send(json) ?: run {
+        val sent = sendFrame(message) ?: run {
             pendingRequests.remove(id)
             throw IllegalStateException("WebSocket not connected")
         }
@@ -270,8 +333,91 @@ class SignalingClient @Inject constructor(
     fun send(type: SignalingType, data: Map<String, Any> = emptyMap()) {
         val jsonData = if (data.isEmpty()) null else gson.toJsonTree(data).asJsonObject
         val message = SignalingMessage(type, null, jsonData)
-        val json = gson.toJson(message)
-        webSocket?.send(json)
+        sendFrame(message)
+    }
+
+    /**
+     * Serialize in the negotiated wire format and enqueue on the socket.
+     *
+     * @return OkHttp's send result, or null if not connected
+     */
+    private fun sendFrame(message: SignalingMessage): Boolean? {
+        val socket = webSocket ?: return null
+        return if (binaryWire) {
+            socket.send(binaryCodec.encode(message))
+        } else {
+            socket.send(gson.toJson(message))
+        }
+    }
+
+    /**
+     * Publish a decoded broadcast event.
+     *
+     * @return true if the frame was a broadcast event and has been handled
+     */
+    private fun dispatchEvent(event: SignalingEvent?): Boolean {
+        when (event) {
+            is SpeakerChangedEvent -> {
+                if (!_speakerChanges.tryEmit(event)) {
+                    scope.launch { _speakerChanges.emit(event) }
+                }
+            }
+            is ChannelStateEvent -> {
+                if (!_channelStateUpdates.tryEmit(event)) {
+                    scope.launch { _channelStateUpdates.emit(event) }
+                }
+            }
+            null -> return false // Request/response or rare broadcast: tree path
+        }
+        return true
+    }
+
+    /**
+     * Complete the matching pending request, or publish as a broadcast.
+     */
+    private fun dispatchMessage(message: SignalingMessage) {
+        if (message.type == SignalingType.CHANNEL_LIST) {
+            updateSession(message.data)
+        }
+
+        // Response to pending request (has correlation ID)
+        if (message.id != null && pendingRequests.containsKey(message.id)) {
+            pendingRequests.remove(message.id)?.complete(message)
+        } else {
+            // Broadcast message (no correlation ID, or server-initiated)
+            scope.launch {
+                _messages.emit(message)
+            }
+        }
+    }
+
+    /**
+     * Record the session from CHANNEL_LIST: keep its resume token for the next connect
+     * and publish whether this connection resumed the previous session.
+     */
+    private fun updateSession(data: JsonObject?) {
+        val token = data?.get("resumeToken")?.takeIf { it.isJsonPrimitive }?.asString
+        resumeToken = token
+
+        val resumed = token != null && data?.get("resumed")?.takeIf { it.isJsonPrimitive }?.asBoolean == true
+        val joinedChannels = data?.getAsJsonArray("joinedChannels")
+            ?.mapNotNull { it.takeIf { e -> e.isJsonPrimitive }?.asString }
+            ?.toSet()
+            .orEmpty()
+        val iceParameters = data?.getAsJsonArray("transports")
+            ?.mapNotNull { element ->
+                val transport = element.takeIf { it.isJsonObject }?.asJsonObject ?: return@mapNotNull null
+                val id = transport.get("id")?.takeIf { it.isJsonPrimitive }?.asString ?: return@mapNotNull null
+                val parameters = transport.get("iceParameters") ?: return@mapNotNull null
+                id to parameters.toString()
+            }
+            ?.toMap()
+            .orEmpty()
+
+        _sessionInfo.value = SessionInfo(resumed, joinedChannels, iceParameters)
+        if (resumed) {
+            Log.d(TAG, "Resumed previous session (${joinedChannels.size} channels, ${iceParameters.size} transports)")
+        }
     }
 
     /**
@@ -279,6 +425,7 @@ class SignalingClient @Inject constructor(
      */
     fun disconnect() {
         intentionalDisconnect = true
+        resumeToken = null
         resetReconnectionState()
 
         heartbeatJob?.cancel()
@@ -390,5 +537,7 @@ class SignalingClient @Inject constructor(
         private const val TAG = "SignalingClient"
         private const val REQUEST_TIMEOUT_MS = 10_000L // 10 seconds
         private const val HEARTBEAT_INTERVAL_MS = 25_000L // 25 seconds
+        private const val EVENT_BUFFER_CAPACITY = 64 // Absorbs bursts without suspending the socket thread
+        private const val RESUME_SUBPROTOCOL_PREFIX = "voiceping.resume." // Matches src/shared/protocol.ts
     }
 }
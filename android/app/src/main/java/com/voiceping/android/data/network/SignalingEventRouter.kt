@@ -0,0 +1,175 @@
+package com.voiceping.android.data.network
+
+import android.os.SystemClock
+import android.util.Log
+import com.voiceping.android.data.network.dto.SignalingEvent
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.flow.merge
+import kotlinx.coroutines.launch
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Per-channel mailbox instrumentation snapshot.
+ *
+ * @param depth Events currently queued
+ * @param maxDepth High-water mark since registration
+ * @param dropped Events dropped because the mailbox was full (oldest dropped first)
+ * @param dispatched Events delivered to the channel handler
+ * @param avgDispatchLatencyUs Smoothed (EWMA) time from socket decode to handler start
+ * @param maxDispatchLatencyUs Worst observed time from socket decode to handler start
+ */
+data class MailboxStats(
+    val depth: Int,
+    val maxDepth: Int,
+    val dropped: Long,
+    val dispatched: Long,
+    val avgDispatchLatencyUs: Long,
+    val maxDispatchLatencyUs: Long
+)
+
+/**
+ * Single demultiplexing dispatcher for channel broadcasts.
+ *
+ * Collects [SignalingClient.speakerChanges] and [SignalingClient.channelStateUpdates]
+ * exactly once and routes each event by channelId (hash lookup) into that channel's
+ * bounded mailbox. Each mailbox is drained by its own coroutine, so fan-out is O(1)
+ * per message and a channel stuck in a slow handler (e.g. consume round-trip) never
+ * delays events for the other channels.
+ *
+ * Mailboxes drop the OLDEST event on overflow: the newest speaker/state event always
+ * reflects current truth, so keeping it is what lets a lagging channel converge.
+ */
+@Singleton
+class SignalingEventRouter @Inject constructor(
+    private val signalingClient: SignalingClient
+) {
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private val mailboxes = ConcurrentHashMap<String, Mailbox>()
+    private var routerJob: Job? = null
+
+    private class Envelope(val event: SignalingEvent, val receivedAtNanos: Long)
+
+    private inner class Mailbox(val channelId: String) {
+        val depth = AtomicInteger(0)
+        val maxDepth = AtomicInteger(0)
+        val dropped = AtomicLong(0)
+        val dispatched = AtomicLong(0)
+        val avgLatencyNanos = AtomicLong(0)
+        val maxLatencyNanos = AtomicLong(0)
+
+        val queue = Channel<Envelope>(
+            capacity = MAILBOX_CAPACITY,
+            onBufferOverflow = BufferOverflow.DROP_OLDEST,
+            onUndeliveredElement = {
+                depth.decrementAndGet()
+                dropped.incrementAndGet()
+            }
+        )
+        var drainJob: Job? = null
+
+        fun offer(envelope: Envelope) {
+            val current = depth.incrementAndGet()
+            maxDepth.accumulateAndGet(current) { a, b -> maxOf(a, b) }
+            if (current == MAILBOX_CAPACITY / 2) {
+                Log.w(TAG, "Mailbox for $channelId is half full ($current events queued)")
+            }
+            queue.trySend(envelope)
+        }
+
+        fun recordDispatch(envelope: Envelope) {
+            depth.decrementAndGet()
+            dispatched.incrementAndGet()
+            val latency = SystemClock.elapsedRealtimeNanos() - envelope.receivedAtNanos
+            maxLatencyNanos.accumulateAndGet(latency) { a, b -> maxOf(a, b) }
+            // EWMA with alpha = 1/8 (integer math, no allocation)
+            val avg = avgLatencyNanos.get()
+            avgLatencyNanos.set(if (avg == 0L) latency else avg + (latency - avg) / 8)
+        }
+
+        fun snapshot() = MailboxStats(
+            depth = depth.get().coerceAtLeast(0),
+            maxDepth = maxDepth.get(),
+            dropped = dropped.get(),
+            dispatched = dispatched.get(),
+            avgDispatchLatencyUs = avgLatencyNanos.get() / 1000,
+            maxDispatchLatencyUs = maxLatencyNanos.get() / 1000
+        )
+    }
+
+    /**
+     * Register a channel handler. Replaces any existing handler for the same channel.
+     *
+     * Events are delivered sequentially (in arrival order) on a dedicated coroutine.
+     */
+    fun register(channelId: String, handler: suspend (SignalingEvent) -> Unit) {
+        unregister(channelId)
+        ensureRouting()
+
+        val mailbox = Mailbox(channelId)
+        mailbox.drainJob = scope.launch {
+            for (envelope in mailbox.queue) {
+                mailbox.recordDispatch(envelope)
+                try {
+                    handler(envelope.event)
+                } catch (e: Exception) {
+                    Log.e(TAG, "Handler failed for channel $channelId", e)
+                }
+            }
+        }
+        mailboxes[channelId] = mailbox
+    }
+
+    /**
+     * Unregister a channel handler and discard any queued events.
+     */
+    fun unregister(channelId: String) {
+        mailboxes.remove(channelId)?.let { mailbox ->
+            mailbox.queue.close()
+            mailbox.drainJob?.cancel()
+            Log.d(TAG, "Mailbox closed for $channelId: ${mailbox.snapshot()}")
+        }
+    }
+
+    /**
+     * Unregister all channel handlers.
+     */
+    fun unregisterAll() {
+        mailboxes.keys.toList().forEach { unregister(it) }
+    }
+
+    /**
+     * Instrumentation snapshot for all registered channels (channelId -> stats).
+     */
+    fun stats(): Map<String, MailboxStats> =
+        mailboxes.mapValues { (_, mailbox) -> mailbox.snapshot() }
+
+    private fun ensureRouting() {
+        if (routerJob?.isActive == true) return
+        synchronized(this) {
+            if (routerJob?.isActive == true) return
+            routerJob = scope.launch {
+                merge(signalingClient.speakerChanges, signalingClient.channelStateUpdates)
+                    .collect { event ->
+                        // Unmonitored channels are ignored with a single hash miss
+                        mailboxes[event.channelId]?.offer(
+                            Envelope(event, SystemClock.elapsedRealtimeNanos())
+                        )
+                    }
+            }
+        }
+    }
+
+    companion object {
+        private const val TAG = "SignalingEventRouter"
+        private const val MAILBOX_CAPACITY = 32
+    }
+}
@@ -0,0 +1,133 @@
+package com.voiceping.android.data.network
+
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.voiceping.android.data.network.dto.ChannelStateEvent
+import com.voiceping.android.data.network.dto.SignalingEvent
+import com.voiceping.android.data.network.dto.SpeakerChangedEvent
+import java.io.StringReader
+
+/**
+ * Streaming decoder for high-rate broadcast frames.
+ *
+ * Server frames are produced by JSON.stringify(createMessage(...)), so `type` is always
+ * the first key. A cheap prefix check selects SPEAKER_CHANGED / CHANNEL_STATE frames,
+ * which are then read token-by-token with [JsonReader]: only the fields observers use are
+ * materialized, everything else is skipped without building a JsonObject tree.
+ *
+ * Returns null whenever the frame is not a plain broadcast (other types, a correlation
+ * `id` — server responses also use type "channel-state" — an `error`, or anything
+ * malformed). Callers fall back to the Gson tree path for those rare frames.
+ */
+class SignalingFrameDecoder {
+
+    fun decode(text: String): SignalingEvent? {
+        val isSpeakerChanged = text.startsWith(SPEAKER_CHANGED_PREFIX)
+        if (!isSpeakerChanged && !text.startsWith(CHANNEL_STATE_PREFIX)) return null
+
+        return try {
+            JsonReader(StringReader(text)).use { reader ->
+                if (isSpeakerChanged) readSpeakerChanged(reader) else readChannelState(reader)
+            }
+        } catch (e: Exception) {
+            // Malformed or unexpected shape — let the tree path parse and log it
+            null
+        }
+    }
+
+    private fun readSpeakerChanged(reader: JsonReader): SpeakerChangedEvent? {
+        var channelId: String? = null
+        var currentSpeaker: String? = null
+        var speakerName: String? = null
+        var producerId: String? = null
+
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "data" -> {
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue()
+                        continue
+                    }
+                    reader.beginObject()
+                    while (reader.hasNext()) {
+                        when (reader.nextName()) {
+                            "channelId" -> channelId = reader.nextStringOrNull()
+                            "currentSpeaker" -> currentSpeaker = reader.nextStringOrNull()
+                            "speakerName" -> speakerName = reader.nextStringOrNull()
+                            "producerId" -> producerId = reader.nextStringOrNull()
+                            else -> reader.skipValue()
+                        }
+                    }
+                    reader.endObject()
+                }
+                "id", "error" -> if (!reader.skipNull()) return null
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+
+        return channelId?.let { SpeakerChangedEvent(it, currentSpeaker, speakerName, producerId) }
+    }
+
+    private fun readChannelState(reader: JsonReader): ChannelStateEvent? {
+        var channelId: String? = null
+        var userCount: Int? = null
+        var action: String? = null
+        var userId: String? = null
+        var userName: String? = null
+
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "data" -> {
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue()
+                        continue
+                    }
+                    reader.beginObject()
+                    while (reader.hasNext()) {
+                        when (reader.nextName()) {
+                            "channelId" -> channelId = reader.nextStringOrNull()
+                            "userCount" -> userCount = reader.nextIntOrNull()
+                            "action" -> action = reader.nextStringOrNull()
+                            "userId" -> userId = reader.nextStringOrNull()
+                            "userName" -> userName = reader.nextStringOrNull()
+                            else -> reader.skipValue()
+                        }
+                    }
+                    reader.endObject()
+                }
+                "id", "error" -> if (!reader.skipNull()) return null
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+
+        return channelId?.let { ChannelStateEvent(it, userCount, action, userId, userName) }
+    }
+
+    /** Consumes a JSON null and returns true; returns false (without consuming) otherwise. */
+    private fun JsonReader.skipNull(): Boolean {
+        if (peek() != JsonToken.NULL) return false
+        nextNull()
+        return true
+    }
+
+    private fun JsonReader.nextStringOrNull(): String? = when (peek()) {
+        JsonToken.STRING, JsonToken.NUMBER -> nextString()
+        JsonToken.NULL -> { nextNull(); null }
+        else -> { skipValue(); null }
+    }
+
+    private fun JsonReader.nextIntOrNull(): Int? = when (peek()) {
+        JsonToken.NUMBER -> nextInt()
+        JsonToken.NULL -> { nextNull(); null }
+        else -> { skipValue(); null }
+    }
+
+    companion object {
+        private const val SPEAKER_CHANGED_PREFIX = "{\"type\":\"speaker-changed\""
+        private const val CHANNEL_STATE_PREFIX = "{\"type\":\"channel-state\""
+    }
+}
@@ -0,0 +1,62 @@
+package com.voiceping.android.data.network
+
+import android.util.Log
+import com.google.gson.JsonObject
+import com.voiceping.android.data.network.dto.SignalingMessage
+import com.voiceping.android.data.network.dto.SignalingType
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.future.future
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Bridge from synchronous mediasoup transport callbacks to the suspending signaling client.
+ *
+ * libmediasoupclient calls onConnect / onProduce on its own native thread and needs the
+ * result before it returns. Instead of runBlocking (which runs an event loop, and any
+ * coroutine continuations, on that native thread), the request is started on a dedicated
+ * single-thread executor and the native thread parks on the result with a bounded timeout.
+ *
+ * The executor only starts requests and resumes them; the network round-trip itself never
+ * occupies it, so concurrent callbacks (several transports connecting at once) do not queue
+ * behind each other.
+ */
+@Singleton
+class TransportSignalingBridge @Inject constructor(
+    private val signalingClient: SignalingClient
+) {
+    private val executor = Executors.newSingleThreadExecutor { runnable ->
+        Thread(runnable, "mediasoup-signaling").apply { isDaemon = true }
+    }
+    private val scope = CoroutineScope(SupervisorJob() + executor.asCoroutineDispatcher())
+
+    /**
+     * Send a signaling request from a native transport callback and wait for the response.
+     *
+     * @param timeoutMs Maximum time the calling (native) thread is parked
+     * @return Server response
+     * @throws IllegalStateException on timeout, or the request's own failure
+     */
+    fun request(type: SignalingType, data: JsonObject, timeoutMs: Long): SignalingMessage {
+        val response = scope.future { signalingClient.request(type, data) }
+        return try {
+            response.get(timeoutMs, TimeUnit.MILLISECONDS)
+        } catch (e: TimeoutException) {
+            response.cancel(true)
+            Log.w(TAG, "$type timed out after ${timeoutMs}ms")
+            throw IllegalStateException("$type timed out after ${timeoutMs}ms")
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+    }
+
+    companion object {
+        private const val TAG = "TransportSignaling"
+    }
+}
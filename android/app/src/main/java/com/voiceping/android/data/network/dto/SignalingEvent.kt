@@ -0,0 +1,40 @@
+package com.voiceping.android.data.network.dto
+
+/**
+ * Typed broadcast events decoded directly from high-rate signaling frames.
+ *
+ * SPEAKER_CHANGED and CHANNEL_STATE broadcasts arrive for every monitored channel,
+ * so they bypass the JsonObject tree in [SignalingMessage] and are decoded once into
+ * these small immutable objects. Every observer shares the same instance instead of
+ * re-walking a JSON tree per channel.
+ *
+ * Immutable on purpose: events fan out through SharedFlow to several collectors, so
+ * mutating a pooled instance would race with slower collectors.
+ */
+sealed interface SignalingEvent {
+    val channelId: String
+}
+
+/**
+ * SPEAKER_CHANGED broadcast (server ChannelState + optional producerId).
+ *
+ * Speaker started: currentSpeaker, speakerName and producerId are all non-null.
+ * Speaker stopped: currentSpeaker is null.
+ */
+data class SpeakerChangedEvent(
+    override val channelId: String,
+    val currentSpeaker: String?,
+    val speakerName: String?,
+    val producerId: String?
+) : SignalingEvent
+
+/**
+ * CHANNEL_STATE broadcast (user joined/left/disconnected).
+ */
+data class ChannelStateEvent(
+    override val channelId: String,
+    val userCount: Int?,
+    val action: String?,
+    val userId: String?,
+    val userName: String?
+) : SignalingEvent
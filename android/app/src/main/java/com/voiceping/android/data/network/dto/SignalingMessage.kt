@@ -29,6 +29,9 @@ enum class SignalingType {
     @SerializedName("leave-channel")
     LEAVE_CHANNEL,
 
+    @SerializedName("rejoin")
+    REJOIN,
+
     @SerializedName("get-router-capabilities")
     GET_ROUTER_CAPABILITIES,
 
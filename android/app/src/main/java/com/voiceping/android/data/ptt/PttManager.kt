@@ -2,7 +2,9 @@ package com.voiceping.android.data.ptt
 
 import android.content.Context
 import android.content.Intent
+import android.os.SystemClock
 import android.util.Log
+import com.voiceping.android.data.audio.SpeculativeCapture
 import com.voiceping.android.data.network.MediasoupClient
 import com.voiceping.android.data.network.SignalingClient
 import com.voiceping.android.data.network.dto.SignalingType
@@ -17,6 +19,9 @@ import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withTimeoutOrNull
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -31,6 +36,8 @@ import javax.inject.Singleton
  *
  * CRITICAL: State transition requires server confirmation (NOT optimistic).
  * User sees Requesting state (subtle loading pulse) until server responds.
+ * The only exception is opt-in speculative capture (see PttManager), which lets the
+ * user start talking during Requesting; the state machine itself is unchanged.
  */
 sealed class PttState {
     object Idle : PttState()
@@ -39,6 +46,17 @@ sealed class PttState {
     object Denied : PttState()
 }
 
+/**
+ * Grant-to-first-RTP measurement for one transmission.
+ *
+ * @param grantToFirstRtpMs Time from PTT_START response to the first outbound RTP packet
+ * @param prewarmed True if the grant resumed a pre-warmed producer (no transport/produce setup)
+ */
+data class PttLatencySample(
+    val grantToFirstRtpMs: Long,
+    val prewarmed: Boolean
+)
+
 /**
  * PTT Manager - orchestrates PTT transmission flow.
  *
@@ -48,6 +66,15 @@ sealed class PttState {
  * 3. Audio flows: WebRTC AudioSource (internal capture) -> Producer (Opus encoding) -> SendTransport -> RTP
  * 4. releasePtt() -> stop producing (closes Producer, disposes resources) -> stop service -> send PTT_STOP
  *
+ * Instant PTT (pre-warm): when a pre-warm target is set, the send transport and a paused
+ * producer are created ahead of time for that channel. A grant then only resumes the
+ * producer, and release pauses it again instead of tearing it down.
+ *
+ * Speculative capture (opt-in, requires a pre-warmed producer): the talk-permit feedback
+ * fires at press and microphone audio is buffered by [SpeculativeCapture] while the
+ * request is in flight. On grant the buffer is played out ahead of live audio; on denial
+ * it is discarded and nothing was sent.
+ *
  * Callbacks: onPttGranted, onPttDenied, onPttReleased allow Plan 04 to wire in
  * TonePlayer/HapticFeedback without circular dependencies.
  */
@@ -55,6 +82,7 @@ sealed class PttState {
 class PttManager @Inject constructor(
     private val signalingClient: SignalingClient,
     private val mediasoupClient: MediasoupClient,
+    private val speculativeCapture: SpeculativeCapture,
     @ApplicationContext private val context: Context
 ) {
     private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
@@ -65,6 +93,29 @@ class PttManager @Inject constructor(
     private var transmissionStartTime: Long = 0
     private var currentChannelId: String? = null
 
+    // Serializes send path setup/teardown (pre-warm vs. grant vs. release)
+    private val sendPathMutex = Mutex()
+
+    // Channel to keep a paused producer ready for, null when Instant PTT is off
+    @Volatile
+    private var prewarmChannelId: String? = null
+
+    /**
+     * Speculative capture toggle (set by ChannelRepository from SettingsRepository).
+     * Only takes effect while the requested channel is pre-warmed.
+     */
+    @Volatile
+    var speculativeCaptureEnabled: Boolean = false
+
+    // Press released while a speculative request was still in flight
+    @Volatile
+    private var pendingRelease = false
+
+    private val _lastLatency = MutableStateFlow<PttLatencySample?>(null)
+
+    /** Most recent grant-to-first-RTP measurement (null until the first transmission). */
+    val lastLatency: StateFlow<PttLatencySample?> = _lastLatency.asStateFlow()
+
     /**
      * Callbacks for Plan 04 integration (TonePlayer, HapticFeedback).
      * These avoid circular dependencies by not injecting those components directly.
@@ -90,7 +141,8 @@ class PttManager @Inject constructor(
      * Request PTT from server.
      *
      * CRITICAL: NOT optimistic. State goes Idle -> Requesting -> (Transmitting | Denied).
-     * User sees Requesting state (loading pulse) until server responds.
+     * User sees Requesting state (loading pulse) until server responds. In speculative
+     * mode the state is the same, but feedback fires at press and audio is buffered.
      *
      * Steps when granted:
      * 1. Server grants PTT
@@ -120,6 +172,14 @@ class PttManager @Inject constructor(
         _pttState.value = PttState.Requesting
         Log.d(TAG, "PTT requested for channel: $channelId")
 
+        // Speculative: the microphone is already recording for a pre-warmed producer
+        val speculative = speculativeCaptureEnabled && mediasoupClient.isPrewarmedFor(channelId)
+        pendingRelease = false
+        if (speculative) {
+            speculativeCapture.begin()
+            onPttGranted?.invoke()
+        }
+
         scope.launch {
             try {
                 // Step 1: Request PTT from server (WAIT for response)
@@ -131,6 +191,7 @@ class PttManager @Inject constructor(
                 // Step 2: Check if granted
                 if (response.error == null) {
                     // PTT GRANTED
+                    val grantedAtMs = SystemClock.elapsedRealtime()
                     Log.d(TAG, "PTT granted by server")
                     _pttState.value = PttState.Transmitting
                     transmissionStartTime = System.currentTimeMillis()
@@ -142,15 +203,33 @@ class PttManager @Inject constructor(
                     }
                     context.startForegroundService(startIntent)
 
-                    // Step 4: Create send transport (singleton, requires channelId for server)
-                    mediasoupClient.createSendTransport(channelId)
-
-                    // Step 5: Start producing (creates AudioSource + AudioTrack, configures Opus codec)
-                    // AudioSource captures microphone internally, no manual buffer forwarding needed
-                    mediasoupClient.startProducing()
+                    // Step 4-5: Resume the pre-warmed producer, or take the cold path
+                    val prewarmed = sendPathMutex.withLock {
+                        // Queue buffered audio before the first chunk is sent
+                        if (speculative) speculativeCapture.flush()
+                        if (mediasoupClient.resumePrewarmedProducer(channelId)) {
+                            true
+                        } else {
+                            // Create send transport (singleton, requires channelId for server)
+                            mediasoupClient.createSendTransport(channelId)
+
+                            // Start producing (creates AudioSource + AudioTrack, configures Opus codec)
+                            // AudioSource captures microphone internally, no manual buffer forwarding needed
+                            mediasoupClient.startProducing()
+                            false
+                        }
+                    }
+                    measureGrantToFirstRtp(grantedAtMs, prewarmed)
 
                     // Step 6: Notify callback (Plan 04 will wire in tone/haptic)
-                    onPttGranted?.invoke()
+                    if (!speculative) onPttGranted?.invoke()
+
+                    // Released while the request was in flight: send what was buffered, then stop
+                    if (pendingRelease) {
+                        pendingRelease = false
+                        releasePtt()
+                        return@launch
+                    }
 
                     // Step 7: If TOGGLE mode, start max duration timer
                     if (currentPttMode == com.voiceping.android.domain.model.PttMode.TOGGLE) {
@@ -167,6 +246,8 @@ class PttManager @Inject constructor(
                 } else {
                     // PTT DENIED (channel busy)
                     Log.w(TAG, "PTT denied by server: ${response.error}")
+                    if (speculative) speculativeCapture.discard()
+                    pendingRelease = false
                     _pttState.value = PttState.Denied
                     onPttDenied?.invoke()
 
@@ -177,6 +258,8 @@ class PttManager @Inject constructor(
 
             } catch (e: Exception) {
                 Log.e(TAG, "PTT request failed", e)
+                if (speculative) speculativeCapture.discard()
+                pendingRelease = false
                 _pttState.value = PttState.Idle
                 onPttDenied?.invoke()
             }
@@ -193,6 +276,12 @@ class PttManager @Inject constructor(
      * 4. Stop producing (closes Producer, disposes AudioSource + AudioTrack) -> stop service -> notify server
      */
     fun releasePtt() {
+        if (_pttState.value is PttState.Requesting && speculativeCapture.isCapturing) {
+            // Speculative press: the user already talked, finish the transmission on grant
+            Log.d(TAG, "Released during speculative request, deferring until grant")
+            pendingRelease = true
+            return
+        }
         if (_pttState.value !is PttState.Transmitting) {
             Log.w(TAG, "Not transmitting, ignoring release")
             return
@@ -216,21 +305,13 @@ class PttManager @Inject constructor(
         // Step 4: Cleanup on IO thread
         scope.launch {
             try {
-                // Stop producing (closes Producer, disposes AudioSource + AudioTrack)
-                mediasoupClient.stopProducing()
-
-                val stopIntent = Intent(context, AudioCaptureService::class.java).apply {
-                    action = AudioCaptureService.ACTION_STOP
-                }
-                context.startService(stopIntent)
-
-                channelId?.let {
-                    signalingClient.send(
-                        SignalingType.PTT_STOP,
-                        mapOf("channelId" to it)
-                    )
+                // Let buffered speculative audio play out before pausing the producer
+                if (speculativeCapture.isFlushing) {
+                    withTimeoutOrNull(SPECULATIVE_DRAIN_TIMEOUT_MS) {
+                        while (speculativeCapture.isFlushing) delay(20)
+                    }
                 }
-
+                stopTransmission(channelId)
                 Log.d(TAG, "PTT released")
             } catch (e: Exception) {
                 Log.e(TAG, "Error during PTT release cleanup", e)
@@ -250,6 +331,12 @@ class PttManager @Inject constructor(
      * interruption to other users"
      */
     fun forceReleasePtt() {
+        if (_pttState.value is PttState.Requesting && speculativeCapture.isCapturing) {
+            // Drop what was said before the call; release as soon as the grant arrives
+            speculativeCapture.discard()
+            pendingRelease = true
+            return
+        }
         if (_pttState.value !is PttState.Transmitting) {
             Log.d(TAG, "Not transmitting, nothing to force-release")
             return
@@ -273,21 +360,7 @@ class PttManager @Inject constructor(
         // Step 4: Cleanup on IO thread
         scope.launch {
             try {
-                // Stop producing (closes Producer, disposes AudioSource + AudioTrack)
-                mediasoupClient.stopProducing()
-
-                val stopIntent = Intent(context, AudioCaptureService::class.java).apply {
-                    action = AudioCaptureService.ACTION_STOP
-                }
-                context.startService(stopIntent)
-
-                channelId?.let {
-                    signalingClient.send(
-                        SignalingType.PTT_STOP,
-                        mapOf("channelId" to it)
-                    )
-                }
-
+                stopTransmission(channelId)
                 Log.d(TAG, "PTT force-released (phone call interruption)")
             } catch (e: Exception) {
                 Log.e(TAG, "Error during force PTT release cleanup", e)
@@ -295,6 +368,82 @@ class PttManager @Inject constructor(
         }
     }
 
+    /**
+     * Stop sending audio after release: pause a pre-warmed producer (kept for the next
+     * grant while Instant PTT is on) or close it, stop the capture service, and notify
+     * the server.
+     */
+    private suspend fun stopTransmission(channelId: String?) {
+        speculativeCapture.discard()
+
+        // Not under sendPathMutex: stopProducing() must be able to run while a cold
+        // produce() is still blocking, so the producingRequested flag can abort it.
+        // Instant PTT turned off mid-transmission: close the producer to release the mic
+        if (prewarmChannelId == null || !mediasoupClient.pausePrewarmedProducer()) {
+            // Stop producing (closes Producer, disposes AudioSource + AudioTrack)
+            mediasoupClient.stopProducing()
+        }
+
+        val stopIntent = Intent(context, AudioCaptureService::class.java).apply {
+            action = AudioCaptureService.ACTION_STOP
+        }
+        context.startService(stopIntent)
+
+        channelId?.let {
+            signalingClient.send(
+                SignalingType.PTT_STOP,
+                mapOf("channelId" to it)
+            )
+        }
+
+        // A cold transmission on another channel replaced the pre-warmed producer
+        prewarmChannelId?.let { prewarm(it) }
+    }
+
+    /**
+     * Set the channel to keep a paused producer ready for (Instant PTT).
+     *
+     * Pass null to turn pre-warming off; the paused producer is closed so the
+     * microphone is released. Safe to call repeatedly (e.g. after every rejoin).
+     */
+    fun setPrewarmTarget(channelId: String?) {
+        prewarmChannelId = channelId
+        if (_pttState.value !is PttState.Idle) return // Re-armed by stopTransmission
+
+        scope.launch {
+            if (channelId != null) {
+                prewarm(channelId)
+            } else {
+                sendPathMutex.withLock { mediasoupClient.stopProducing() }
+            }
+        }
+    }
+
+    private suspend fun prewarm(channelId: String) {
+        try {
+            sendPathMutex.withLock {
+                // Target changed or a transmission started while waiting for the lock
+                if (prewarmChannelId != channelId || _pttState.value !is PttState.Idle) return
+                mediasoupClient.prewarmSendPath(channelId)
+            }
+        } catch (e: Exception) {
+            // Not fatal: the next grant falls back to the cold path
+            Log.w(TAG, "Failed to pre-warm send path for $channelId", e)
+        }
+    }
+
+    private fun measureGrantToFirstRtp(grantedAtMs: Long, prewarmed: Boolean) {
+        scope.launch {
+            if (mediasoupClient.awaitFirstRtpPacket(FIRST_RTP_TIMEOUT_MS)) {
+                val sample = PttLatencySample(SystemClock.elapsedRealtime() - grantedAtMs, prewarmed)
+                _lastLatency.value = sample
+                Log.i(TAG, "Grant-to-first-RTP: ${sample.grantToFirstRtpMs}ms (prewarmed=$prewarmed)")
+            } else {
+                Log.w(TAG, "No outbound RTP within ${FIRST_RTP_TIMEOUT_MS}ms of grant (prewarmed=$prewarmed)")
+            }
+        }
+    }
+
     /**
      * Get current transmission duration in seconds.
      *
@@ -310,5 +459,9 @@ class PttManager @Inject constructor(
 
     companion object {
         private const val TAG = "PttManager"
+        private const val FIRST_RTP_TIMEOUT_MS = 3_000L
+
+        // Upper bound on playing out the speculative buffer after release
+        private const val SPECULATIVE_DRAIN_TIMEOUT_MS = SpeculativeCapture.MAX_BUFFER_MS + 400L
     }
 }
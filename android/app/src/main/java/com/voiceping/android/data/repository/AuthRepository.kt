@@ -16,7 +16,8 @@ import javax.inject.Singleton
 class AuthRepository @Inject constructor(
     private val authApi: AuthApi,
     private val tokenManager: TokenManager,
-    private val preferencesManager: PreferencesManager
+    private val preferencesManager: PreferencesManager,
+    private val transmissionHistoryRepository: TransmissionHistoryRepository
 ) {
     /**
      * Login with email/password. Session cookie is handled automatically by CookieJar.
@@ -99,9 +100,13 @@ class AuthRepository @Inject constructor(
         }
     }
 
+    /**
+     * Clear credentials and this user's transmission history (the next user must not see it).
+     */
     suspend fun logout(): Result<Unit> {
         return withContext(Dispatchers.IO) {
             tokenManager.clearAll()
+            transmissionHistoryRepository.clearAll()
             Result.success(Unit)
         }
     }
@@ -4,9 +4,12 @@ import android.Manifest
 import android.content.Context
 import android.content.Intent
 import android.content.pm.PackageManager
+import android.os.SystemClock
 import android.util.Log
 import androidx.core.content.ContextCompat
+import androidx.tracing.traceAsync
 import com.voiceping.android.data.audio.AudioDeviceManager
+import com.voiceping.android.data.audio.AudioMixer
 import com.voiceping.android.data.audio.AudioRouter
 import com.voiceping.android.data.audio.HapticFeedback
 import com.voiceping.android.data.audio.TonePlayer
@@ -14,42 +17,52 @@ import com.voiceping.android.data.hardware.MediaButtonHandler
 import com.voiceping.android.data.network.MediasoupClient
 import com.voiceping.android.data.network.NetworkMonitor
 import com.voiceping.android.data.network.SignalingClient
+import com.voiceping.android.data.network.SignalingEventRouter
+import com.voiceping.android.data.network.dto.ChannelStateEvent
 import com.voiceping.android.data.network.dto.SignalingType
+import com.voiceping.android.data.network.dto.SpeakerChangedEvent
 import com.voiceping.android.data.ptt.PttManager
 import com.voiceping.android.data.ptt.PttState
 import com.voiceping.android.data.storage.SettingsRepository
-import com.voiceping.android.domain.model.AudioMixMode
 import com.voiceping.android.domain.model.AudioOutputDevice
 import com.voiceping.android.domain.model.ChannelMonitoringState
 import com.voiceping.android.domain.model.PttTargetMode
+import com.voiceping.android.domain.model.TransmissionHistoryEntry
 import com.voiceping.android.domain.model.User
 import com.voiceping.android.service.ChannelMonitoringService
+import com.google.gson.JsonArray
 import com.google.gson.JsonElement
+import com.google.gson.JsonObject
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
-import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.filterNotNull
 import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeoutOrNull
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
 import javax.inject.Inject
 import javax.inject.Singleton
 
-/** Safe accessor: returns null for both missing keys and JSON null values. */
-private fun JsonElement?.asStringOrNull(): String? =
-    if (this == null || this.isJsonNull) null else this.asString
-
 private fun JsonElement?.asIntOrNull(): Int? =
     if (this == null || this.isJsonNull) null else this.asInt
 
+private fun JsonElement?.asStringOrNull(): String? =
+    if (this == null || this.isJsonNull) null else this.asString
+
 @Singleton
 class ChannelRepository @Inject constructor(
     private val signalingClient: SignalingClient,
+    private val signalingEventRouter: SignalingEventRouter,
     private val mediasoupClient: MediasoupClient,
     private val audioRouter: AudioRouter,
     private val pttManager: PttManager,
@@ -59,10 +72,13 @@ class ChannelRepository @Inject constructor(
     private val audioDeviceManager: AudioDeviceManager,
     private val mediaButtonHandler: MediaButtonHandler,
     private val networkMonitor: NetworkMonitor,
+    private val transmissionHistoryRepository: TransmissionHistoryRepository,
+    private val channelStates: ChannelStateStore,
+    private val audioMixer: AudioMixer,
     @ApplicationContext private val context: Context
 ) {
-    private val _monitoredChannels = MutableStateFlow<Map<String, ChannelMonitoringState>>(emptyMap())
-    val monitoredChannels: StateFlow<Map<String, ChannelMonitoringState>> = _monitoredChannels.asStateFlow()
+    // Per-channel state slots; the aggregate flow is frame-paced (see ChannelStateStore)
+    val monitoredChannels: StateFlow<Map<String, ChannelMonitoringState>> = channelStates.states
 
     private val _primaryChannelId = MutableStateFlow<String?>(null)
     val primaryChannelId: StateFlow<String?> = _primaryChannelId.asStateFlow()
@@ -70,17 +86,23 @@ class ChannelRepository @Inject constructor(
     // Per-channel consumer tracking: channelId -> (producerId -> consumerId)
     private val channelConsumers = mutableMapOf<String, MutableMap<String, String>>()
 
-    // Per-channel speaker observer jobs
-    private val speakerObserverJobs = mutableMapOf<String, Job>()
-
-    // Per-channel state update observer jobs
-    private val channelStateObserverJobs = mutableMapOf<String, Job>()
+    // Consumers playing right now, per channel (channelId -> consumerIds), for network-quality stats.
+    // ChannelMonitoringState.consumerId holds the speaker's producer id, which has no consumer stats.
+    private val _activeConsumers = MutableStateFlow<Map<String, Set<String>>>(emptyMap())
+    val activeConsumers: StateFlow<Map<String, Set<String>>> = _activeConsumers.asStateFlow()
 
     // Per-channel last speaker fade jobs
     private val lastSpeakerFadeJobs = mutableMapOf<String, Job>()
 
+    // Channels where the current speaker is this user (for transmission history)
+    private val ownTransmissionChannels = ConcurrentHashMap.newKeySet<String>()
+
     private var isServiceRunning = false
-    private var currentAudioMixMode = AudioMixMode.EQUAL_VOLUME
+
+    // Drives AudioMixer gain ramps while any channel gain is moving (see scheduleMix)
+    private val mixLock = Any()
+    private var mixJob: Job? = null
+    private var instantPttEnabled = false
 
     // Expose PTT state via delegation to PttManager
     val pttState: StateFlow<PttState> = pttManager.pttState
@@ -97,7 +119,18 @@ class ChannelRepository @Inject constructor(
     private var previousConnectionState: com.voiceping.android.domain.model.ConnectionState? = null
     private val scope = CoroutineScope(Dispatchers.IO)
 
-    init {
+    private val started = AtomicBoolean(false)
+
+    /**
+     * Wire callbacks, start the network monitor and launch the state collectors.
+     *
+     * Run by AppInitializer's channelRuntime stage on a background dispatcher instead of
+     * in the constructor (injection may happen on the main thread). Idempotent; joinChannel
+     * calls it as well in case a join comes first.
+     */
+    fun start() {
+        if (!started.compareAndSet(false, true)) return
+
         // Wire PttManager callbacks for tone/haptic feedback
         pttManager.onPttGranted = {
             tonePlayer.playPttStartTone()
@@ -129,13 +162,13 @@ class ChannelRepository @Inject constructor(
                 pttManager.forceReleasePtt()
             }
 
-            // Close consumers for ALL monitored channels (pause everything)
+            // Pause consumers for ALL monitored channels (kept warm for after the call)
             channelConsumers.values.forEach { consumers ->
                 consumers.values.forEach { consumerId ->
-                    mediasoupClient.closeConsumer(consumerId)
+                    mediasoupClient.pauseConsumer(consumerId)
                 }
             }
-            Log.d(TAG, "Phone call: closed all consumers")
+            Log.d(TAG, "Phone call: paused all consumers")
         }
 
         audioRouter.onPhoneCallEnded = {
@@ -148,8 +181,24 @@ class ChannelRepository @Inject constructor(
         // Observe audio mix mode changes
         CoroutineScope(Dispatchers.IO).launch {
             settingsRepository.getAudioMixMode().collect { mode ->
-                currentAudioMixMode = mode
-                applyAudioMixMode(mode)
+                audioMixer.setMode(mode)
+                scheduleMix()
+                Log.d(TAG, "Applied audio mix mode: $mode")
+            }
+        }
+
+        // Observe Instant PTT setting (pre-warmed send path on the primary channel)
+        CoroutineScope(Dispatchers.IO).launch {
+            settingsRepository.getInstantPttEnabled().collect { enabled ->
+                instantPttEnabled = enabled
+                refreshInstantPtt()
+            }
+        }
+
+        // Observe speculative PTT setting (only effective while pre-warmed)
+        CoroutineScope(Dispatchers.IO).launch {
+            settingsRepository.getSpeculativePttEnabled().collect { enabled ->
+                pttManager.speculativeCaptureEnabled = enabled
             }
         }
 
@@ -213,15 +262,18 @@ class ChannelRepository @Inject constructor(
                         tonePlayer.playConnectionTone()
                     }
 
-                    // Always rejoin channels after reconnection — server drops all
-                    // channel memberships when the WebSocket disconnects, so even brief
-                    // disconnections require full rejoin + transport recreation.
+                    // Within the server's grace window the session is resumed (memberships,
+                    // transports and producers kept); otherwise the server has dropped all
+                    // channel memberships and a full rejoin + transport recreation is needed.
                     if (prevState == com.voiceping.android.domain.model.ConnectionState.RECONNECTING &&
-                        _monitoredChannels.value.isNotEmpty()) {
+                        !channelStates.isEmpty()) {
+                        val reconnectedAtMs = SystemClock.elapsedRealtime()
                         launch {
-                            Log.d(TAG, "Reconnected, cleaning up stale resources and rejoining ${_monitoredChannels.value.size} channels")
-                            mediasoupClient.cleanup()
-                            rejoinAllMonitoredChannels()
+                            if (!resumeSession(reconnectedAtMs)) {
+                                Log.d(TAG, "Reconnected, cleaning up stale resources and rejoining ${channelStates.size} channels")
+                                mediasoupClient.cleanup()
+                                rejoinAllMonitoredChannels(reconnectedAtMs)
+                            }
                         }
                     }
 
@@ -267,17 +319,25 @@ class ChannelRepository @Inject constructor(
     companion object {
         private const val TAG = "ChannelRepository"
         private const val MAX_CHANNELS = 5
+        private const val SESSION_INFO_TIMEOUT_MS = 3_000L // CHANNEL_LIST follows the upgrade immediately
     }
 
-    suspend fun joinChannel(channelId: String, channelName: String, teamName: String): Result<Unit> {
+    suspend fun joinChannel(channelId: String, channelName: String, teamName: String): Result<Unit> =
+        // Async section: the join suspends across signaling + transport round-trips
+        traceAsync("VP:ChannelRepository.joinChannel", channelId.hashCode()) {
+            performJoin(channelId, channelName, teamName)
+        }
+
+    private suspend fun performJoin(channelId: String, channelName: String, teamName: String): Result<Unit> {
+        start()
         return try {
             // Guard: max 5 channels
-            if (_monitoredChannels.value.size >= MAX_CHANNELS && channelId !in _monitoredChannels.value) {
+            if (channelStates.size >= MAX_CHANNELS && channelId !in channelStates) {
                 return Result.failure(Exception("Maximum $MAX_CHANNELS channels. Leave a channel to join another."))
             }
 
             // If channel already joined, return success (no-op)
-            if (channelId in _monitoredChannels.value) {
+            if (channelId in channelStates) {
                 Log.d(TAG, "Channel $channelId already joined")
                 return Result.success(Unit)
             }
@@ -293,7 +353,7 @@ class ChannelRepository @Inject constructor(
             }
 
             // If first channel: set up audio routing
-            val isFirstChannel = _monitoredChannels.value.isEmpty()
+            val isFirstChannel = channelStates.isEmpty()
             if (isFirstChannel) {
                 audioRouter.requestAudioFocus()
                 audioRouter.setEarpieceMode()
@@ -302,7 +362,7 @@ class ChannelRepository @Inject constructor(
                 _primaryChannelId.value = channelId
             }
 
-            // Create recv transport for every channel (each channel needs its own for audio consumption)
+            // Map the channel to the shared recv transport (created with the first channel)
             mediasoupClient.createRecvTransport(channelId)
 
             // Parse user count from join response
@@ -318,19 +378,17 @@ class ChannelRepository @Inject constructor(
             )
 
             // Add to monitored channels map
-            _monitoredChannels.value = _monitoredChannels.value + (channelId to channelState)
+            channelStates.add(channelState)
+            audioMixer.addChannel(channelId, channelState.volume, channelState.isPrimary, channelState.isMuted)
 
-            // Start observing speaker changes and channel state updates for this channel
-            observeSpeakerChangesForChannel(channelId)
-            observeChannelStateUpdates(channelId)
+            // Start routing speaker changes and channel state updates for this channel
+            observeChannelEvents(channelId)
 
-            // Persist monitored channels
-            settingsRepository.setMonitoredChannels(_monitoredChannels.value.keys)
-
-            // If primary, persist
-            if (isFirstChannel) {
-                settingsRepository.setPrimaryChannel(channelId)
-            }
+            // Persist monitored channels (and primary, if this is the first channel) in one write
+            settingsRepository.setMonitoredChannels(
+                channelStates.channelIds,
+                primaryChannelId = if (isFirstChannel) channelId else null
+            )
 
             // Start foreground service if first channel
             if (isFirstChannel && !isServiceRunning) {
@@ -360,6 +418,11 @@ class ChannelRepository @Inject constructor(
             // Update notification
             updateServiceNotification()
 
+            // Pre-warm the send path once the primary channel has its transport
+            if (isFirstChannel) {
+                refreshInstantPtt()
+            }
+
             Result.success(Unit)
         } catch (e: Exception) {
             Result.failure(e)
@@ -368,13 +431,8 @@ class ChannelRepository @Inject constructor(
 
     suspend fun leaveChannel(channelId: String): Result<Unit> {
         return try {
-            // Cancel speaker observer for this channel
-            speakerObserverJobs[channelId]?.cancel()
-            speakerObserverJobs.remove(channelId)
-
-            // Cancel channel state observer for this channel
-            channelStateObserverJobs[channelId]?.cancel()
-            channelStateObserverJobs.remove(channelId)
+            // Stop routing broadcasts for this channel
+            signalingEventRouter.unregister(channelId)
 
             // Cancel fade job for this channel
             lastSpeakerFadeJobs[channelId]?.cancel()
@@ -385,24 +443,27 @@ class ChannelRepository @Inject constructor(
                 mediasoupClient.closeConsumer(consumerId)
             }
             channelConsumers.remove(channelId)
+            publishActiveConsumers()
 
             // Clean up channel's RecvTransport
             mediasoupClient.cleanupChannel(channelId)
 
             // Remove from monitored channels map
-            _monitoredChannels.value = _monitoredChannels.value - channelId
+            channelStates.remove(channelId)
+            audioMixer.removeChannel(channelId)
 
             // If was primary and other channels remain, reassign primary to first remaining channel
             val wasPrimary = _primaryChannelId.value == channelId
-            if (wasPrimary && _monitoredChannels.value.isNotEmpty()) {
-                val newPrimary = _monitoredChannels.value.keys.first()
+            if (wasPrimary && !channelStates.isEmpty()) {
+                val newPrimary = channelStates.channelIds.first()
                 setPrimaryChannel(newPrimary)
-            } else if (_monitoredChannels.value.isEmpty()) {
+            } else if (channelStates.isEmpty()) {
                 _primaryChannelId.value = null
+                refreshInstantPtt()
             }
 
             // If last channel, clean up everything
-            val isLastChannel = _monitoredChannels.value.isEmpty()
+            val isLastChannel = channelStates.isEmpty()
             if (isLastChannel) {
                 audioRouter.releaseAudioFocus()
                 audioRouter.resetAudioMode()
@@ -430,11 +491,8 @@ class ChannelRepository @Inject constructor(
                 mapOf("channelId" to channelId)
             )
 
-            // Persist updated monitored channels
-            settingsRepository.setMonitoredChannels(_monitoredChannels.value.keys)
-            if (_primaryChannelId.value != null) {
-                settingsRepository.setPrimaryChannel(_primaryChannelId.value!!)
-            }
+            // Persist updated monitored channels and primary in one write
+            settingsRepository.setMonitoredChannels(channelStates.channelIds, _primaryChannelId.value)
 
             // Update notification (or stop service if last channel)
             if (!isLastChannel) {
@@ -447,136 +505,142 @@ class ChannelRepository @Inject constructor(
         }
     }
 
-    private fun observeChannelStateUpdates(channelId: String) {
-        channelStateObserverJobs[channelId]?.cancel()
-
-        val job = CoroutineScope(Dispatchers.IO).launch {
-            signalingClient.messages
-                .filter { it.type == SignalingType.CHANNEL_STATE }
-                .collect { message ->
-                    val data = message.data ?: return@collect
-                    val messageChannelId = data.get("channelId").asStringOrNull()
-                    if (messageChannelId == channelId) {
-                        val userCount = data.get("userCount").asIntOrNull()
-                        if (userCount != null) {
-                            updateChannelState(channelId) { state ->
-                                state.copy(userCount = userCount)
-                            }
-                        }
-                    }
-                }
+    /**
+     * Register this channel with the broadcast router.
+     *
+     * [SignalingEventRouter] reads the broadcast streams once and demultiplexes events by
+     * channelId into a per-channel mailbox, so the handlers below only ever see events for
+     * [channelId] and a slow consume on one channel never stalls the others.
+     */
+    private fun observeChannelEvents(channelId: String) {
+        signalingEventRouter.register(channelId) { event ->
+            when (event) {
+                is SpeakerChangedEvent -> handleSpeakerChanged(channelId, event)
+                is ChannelStateEvent -> handleChannelStateUpdate(channelId, event)
+            }
         }
-        channelStateObserverJobs[channelId] = job
     }
 
-    private fun observeSpeakerChangesForChannel(channelId: String) {
-        // Cancel any existing observer for this channel
-        speakerObserverJobs[channelId]?.cancel()
-
-        // Launch new coroutine to collect speaker changed broadcasts
-        val job = CoroutineScope(Dispatchers.IO).launch {
-            signalingClient.messages
-                .filter { it.type == SignalingType.SPEAKER_CHANGED }
-                .collect { message ->
-                    val data = message.data ?: return@collect
-
-                    // Extract data from broadcast
-                    val messageChannelId = data.get("channelId").asStringOrNull()
-                    val speakerUserId = data.get("currentSpeaker").asStringOrNull()
-                    val speakerName = data.get("speakerName").asStringOrNull()
-                    val producerId = data.get("producerId").asStringOrNull()
-
-                    // Only process messages for this channel
-                    if (messageChannelId == channelId) {
-                        if (speakerUserId != null && speakerName != null && producerId != null) {
-                            // Speaker started transmitting
-                            val newSpeaker = User(speakerUserId, speakerName)
-
-                            // Update channel state
-                            updateChannelState(channelId) { state ->
-                                state.copy(
-                                    currentSpeaker = newSpeaker,
-                                    speakerStartTime = System.currentTimeMillis(),
-                                    consumerId = producerId
-                                )
-                            }
+    private fun handleChannelStateUpdate(channelId: String, event: ChannelStateEvent) {
+        val userCount = event.userCount ?: return
+        updateChannelState(channelId) { state ->
+            state.copy(userCount = userCount)
+        }
+    }
 
-                            // Cancel fade job when new speaker starts
-                            lastSpeakerFadeJobs[channelId]?.cancel()
-                            lastSpeakerFadeJobs.remove(channelId)
+    private suspend fun handleSpeakerChanged(channelId: String, event: SpeakerChangedEvent) {
+        val speakerUserId = event.currentSpeaker
+        val speakerName = event.speakerName
+        val producerId = event.producerId
+
+        if (speakerUserId != null && speakerName != null && producerId != null) {
+            // Speaker started transmitting
+            val newSpeaker = User(speakerUserId, speakerName)
+
+            // Update channel state
+            updateChannelState(channelId) { state ->
+                state.copy(
+                    currentSpeaker = newSpeaker,
+                    speakerStartTime = System.currentTimeMillis(),
+                    consumerId = producerId
+                )
+            }
 
-                            // Play RX squelch open and transmission start haptic (only for incoming speakers, not own transmission)
-                            if (pttManager.pttState.value !is PttState.Transmitting) {
-                                tonePlayer.playRxSquelchOpen()
-                                hapticFeedback.vibrateTransmissionStart()
-                            }
+            // Cancel fade job when new speaker starts
+            lastSpeakerFadeJobs[channelId]?.cancel()
+            lastSpeakerFadeJobs.remove(channelId)
 
-                            // Close previous consumer if exists for this channel
-                            channelConsumers[channelId]?.get(producerId)?.let { oldConsumerId ->
-                                mediasoupClient.closeConsumer(oldConsumerId)
-                            }
+            // Side-chain: an active primary ducks the secondaries
+            audioMixer.setActive(channelId, true)
+            scheduleMix()
 
-                            // Consume audio from this producer (guard: only if not muted)
-                            val channelState = _monitoredChannels.value[channelId]
-                            if (channelState?.isMuted == false) {
-                                val actualConsumerId = mediasoupClient.consumeAudio(channelId, producerId, speakerUserId)
+            // Play RX squelch open and transmission start haptic (only for incoming speakers, not own transmission)
+            if (pttManager.pttState.value is PttState.Transmitting) {
+                ownTransmissionChannels.add(channelId)
+            } else {
+                ownTransmissionChannels.remove(channelId)
+                tonePlayer.playRxSquelchOpen()
+                hapticFeedback.vibrateTransmissionStart()
+            }
 
-                                // Track consumer: producerId -> actual consumerId (NOT producerId!)
-                                // The actual consumerId is needed for closeConsumer() and setConsumerVolume()
-                                if (channelConsumers[channelId] == null) {
-                                    channelConsumers[channelId] = mutableMapOf()
-                                }
-                                channelConsumers[channelId]!![producerId] = actualConsumerId
+            // Consume audio from this producer (guard: only if not muted).
+            // A warm consumer from this speaker's previous over is resumed without signaling.
+            val channelState = channelStates[channelId]
+            if (channelState?.isMuted == false) {
+                val actualConsumerId = mediasoupClient.consumeAudio(channelId, producerId, speakerUserId)
 
-                                // Apply audio mix mode to new consumer
-                                applyAudioMixMode(currentAudioMixMode)
-                            }
-                        } else {
-                            // Speaker stopped transmitting
-                            val channelState = _monitoredChannels.value[channelId]
-                            val previousSpeaker = channelState?.currentSpeaker
-
-                            // Update channel state
-                            updateChannelState(channelId) { state ->
-                                state.copy(
-                                    currentSpeaker = null,
-                                    lastSpeaker = previousSpeaker
-                                )
-                            }
+                // Track consumer: producerId -> actual consumerId (NOT producerId!)
+                // The actual consumerId is needed for closeConsumer() and setConsumerVolume()
+                if (channelConsumers[channelId] == null) {
+                    channelConsumers[channelId] = mutableMapOf()
+                }
+                channelConsumers[channelId]!![producerId] = actualConsumerId
+                publishActiveConsumers()
 
-                            // Play RX squelch close (only for incoming speakers, not own transmission)
-                            if (pttManager.pttState.value !is PttState.Transmitting) {
-                                tonePlayer.playRxSquelchClose()
-                            }
+                // New consumer starts at the channel's current mixer gain
+                mediasoupClient.setConsumerVolume(actualConsumerId, audioMixer.gain(channelId))
+            }
+        } else {
+            // Speaker stopped transmitting
+            val channelState = channelStates[channelId]
+            val previousSpeaker = channelState?.currentSpeaker
+
+            // Update channel state (speaker moved to lastSpeaker within the same atomic update)
+            updateChannelState(channelId) { state ->
+                state.copy(
+                    currentSpeaker = null,
+                    lastSpeaker = state.currentSpeaker ?: state.lastSpeaker
+                )
+            }
 
-                            // Start last speaker fade timer
-                            previousSpeaker?.let {
-                                lastSpeakerFadeJobs[channelId]?.cancel()
-                                lastSpeakerFadeJobs[channelId] = CoroutineScope(Dispatchers.IO).launch {
-                                    delay(2500)
-                                    updateChannelState(channelId) { state ->
-                                        state.copy(lastSpeaker = null)
-                                    }
-                                    lastSpeakerFadeJobs.remove(channelId)
-                                }
-                            }
+            // Record finished transmission (queued, stored off this path)
+            if (previousSpeaker != null) {
+                val endedAt = System.currentTimeMillis()
+                val startedAt = channelState?.speakerStartTime?.takeIf { it > 0 } ?: endedAt
+                transmissionHistoryRepository.addEntry(
+                    TransmissionHistoryEntry(
+                        speakerName = previousSpeaker.name,
+                        timestamp = endedAt,
+                        durationSeconds = ((endedAt - startedAt) / 1000).toInt(),
+                        channelId = channelId,
+                        isOwnTransmission = ownTransmissionChannels.remove(channelId)
+                    )
+                )
+            }
 
-                            // Close all consumers for this channel
-                            channelConsumers[channelId]?.values?.forEach { consId ->
-                                mediasoupClient.closeConsumer(consId)
-                            }
-                            channelConsumers[channelId]?.clear()
-                        }
+            // Play RX squelch close (only for incoming speakers, not own transmission)
+            if (pttManager.pttState.value !is PttState.Transmitting) {
+                tonePlayer.playRxSquelchClose()
+            }
+
+            // Start last speaker fade timer
+            previousSpeaker?.let {
+                lastSpeakerFadeJobs[channelId]?.cancel()
+                lastSpeakerFadeJobs[channelId] = CoroutineScope(Dispatchers.IO).launch {
+                    delay(2500)
+                    updateChannelState(channelId) { state ->
+                        state.copy(lastSpeaker = null)
                     }
+                    lastSpeakerFadeJobs.remove(channelId)
                 }
-        }
+            }
 
-        speakerObserverJobs[channelId] = job
+            // Pause this channel's consumers: they stay warm for the speakers' next overs
+            channelConsumers[channelId]?.values?.forEach { consId ->
+                mediasoupClient.pauseConsumer(consId)
+            }
+            channelConsumers[channelId]?.clear()
+            publishActiveConsumers()
+
+            // Secondaries come back up once the primary goes quiet
+            audioMixer.setActive(channelId, false)
+            scheduleMix()
+        }
     }
 
     suspend fun setPrimaryChannel(channelId: String) {
         // Guard: channel must be in monitored map
-        if (channelId !in _monitoredChannels.value) {
+        if (channelId !in channelStates) {
             Log.w(TAG, "Cannot set primary: channel $channelId not monitored")
             return
         }
@@ -585,26 +649,40 @@ class ChannelRepository @Inject constructor(
         _primaryChannelId.value = channelId
 
         // Update all ChannelMonitoringState entries: set isPrimary true for target, false for others
-        _monitoredChannels.value = _monitoredChannels.value.mapValues { (id, state) ->
-            state.copy(isPrimary = id == channelId)
+        channelStates.updateAll { state ->
+            state.copy(isPrimary = state.channelId == channelId)
         }
 
         // Persist
         settingsRepository.setPrimaryChannel(channelId)
 
-        // Apply audio mix mode (primary changed, volumes may need adjustment)
-        applyAudioMixMode(currentAudioMixMode)
+        // Primary changed: ducking side-chain and mode gains move to the new primary
+        audioMixer.setPrimary(channelId)
+        scheduleMix()
+
+        // Move the pre-warmed send path to the new primary
+        refreshInstantPtt()
 
         // Update notification
         updateServiceNotification()
     }
 
+    /**
+     * Point PttManager's pre-warm target at the primary channel (Instant PTT on),
+     * or clear it (Instant PTT off / no primary). Idempotent.
+     */
+    private fun refreshInstantPtt() {
+        pttManager.setPrewarmTarget(if (instantPttEnabled) _primaryChannelId.value else null)
+    }
+
     suspend fun muteChannel(channelId: String) {
-        // Close ALL consumers for this channel (bandwidth savings)
+        // Close ALL consumers for this channel, warm ones included (bandwidth savings)
         channelConsumers[channelId]?.values?.forEach { consumerId ->
             mediasoupClient.closeConsumer(consumerId)
         }
         channelConsumers[channelId]?.clear()
+        publishActiveConsumers()
+        mediasoupClient.closeChannelConsumers(channelId)
 
         // Update channel state
         updateChannelState(channelId) { state ->
@@ -613,6 +691,9 @@ class ChannelRepository @Inject constructor(
                 currentSpeaker = null
             )
         }
+        audioMixer.setMuted(channelId, true)
+        audioMixer.setActive(channelId, false)
+        scheduleMix()
 
         Log.d(TAG, "Channel $channelId muted")
     }
@@ -622,9 +703,10 @@ class ChannelRepository @Inject constructor(
         updateChannelState(channelId) { state ->
             state.copy(isMuted = false)
         }
+        audioMixer.setMuted(channelId, false)
 
         // Explicit active speaker check: if someone is currently speaking, immediately create consumer
-        val channelState = _monitoredChannels.value[channelId]
+        val channelState = channelStates[channelId]
         if (channelState?.currentSpeaker != null && channelState.consumerId != null) {
             val producerId = channelState.consumerId
             val speakerId = channelState.currentSpeaker.id
@@ -636,10 +718,11 @@ class ChannelRepository @Inject constructor(
                 channelConsumers[channelId] = mutableMapOf()
             }
             channelConsumers[channelId]!![producerId] = actualConsumerId
-
-            // Apply audio mix mode
-            applyAudioMixMode(currentAudioMixMode)
+            publishActiveConsumers()
+            audioMixer.setActive(channelId, true)
+            mediasoupClient.setConsumerVolume(actualConsumerId, audioMixer.gain(channelId))
         }
+        scheduleMix()
 
         Log.d(TAG, "Channel $channelId unmuted")
     }
@@ -653,35 +736,49 @@ class ChannelRepository @Inject constructor(
             state.copy(volume = clampedVolume)
         }
 
-        // Apply volume to active consumers for this channel
-        channelConsumers[channelId]?.values?.forEach { consumerId ->
-            mediasoupClient.setConsumerVolume(consumerId, clampedVolume)
-        }
+        // Ramp active consumers for this channel to the new volume
+        audioMixer.setVolume(channelId, clampedVolume)
+        scheduleMix()
 
         Log.d(TAG, "Channel $channelId volume set to $clampedVolume")
     }
 
-    private fun applyAudioMixMode(audioMixMode: AudioMixMode) {
-        _monitoredChannels.value.forEach { (channelId, state) ->
-            // Calculate target volume based on mode
-            val targetVolume = when (audioMixMode) {
-                AudioMixMode.EQUAL_VOLUME -> state.volume
-                AudioMixMode.PRIMARY_PRIORITY -> {
-                    if (state.isPrimary) state.volume else state.volume * 0.5f
+    /**
+     * Run the mixer's gain ramps until they settle, one step per frame, applying each
+     * channel's gain to its consumers. Idempotent: at most one ramp loop runs.
+     */
+    private fun scheduleMix() {
+        synchronized(mixLock) {
+            if (mixJob != null) return
+            mixJob = scope.launch {
+                while (true) {
+                    if (audioMixer.tick()) applyMixGains()
+                    synchronized(mixLock) {
+                        // Re-check under the lock: a target changed after the last tick keeps the loop alive
+                        if (audioMixer.isSettled) {
+                            mixJob = null
+                            return@launch
+                        }
+                    }
+                    delay(AudioMixer.FRAME_MS.toLong())
                 }
             }
+        }
+    }
 
-            // Apply to all active consumers for this channel
-            channelConsumers[channelId]?.values?.forEach { consumerId ->
-                mediasoupClient.setConsumerVolume(consumerId, targetVolume)
+    private fun applyMixGains() {
+        for (channelId in channelStates.channelIds) {
+            val consumerIds = channelConsumers[channelId]?.values?.toList() ?: continue
+            if (consumerIds.isEmpty()) continue
+            val gain = audioMixer.gain(channelId)
+            consumerIds.forEach { consumerId ->
+                mediasoupClient.setConsumerVolume(consumerId, gain)
             }
         }
-
-        Log.d(TAG, "Applied audio mix mode: $audioMixMode")
     }
 
     suspend fun muteAllExceptPrimary() {
-        _monitoredChannels.value.forEach { (channelId, state) ->
+        channelStates.snapshot().forEach { (channelId, state) ->
             if (!state.isPrimary && !state.isMuted) {
                 muteChannel(channelId)
             }
@@ -690,7 +787,7 @@ class ChannelRepository @Inject constructor(
     }
 
     suspend fun unmuteAllChannels() {
-        _monitoredChannels.value.forEach { (channelId, state) ->
+        channelStates.snapshot().forEach { (channelId, state) ->
             if (state.isMuted) {
                 unmuteChannel(channelId)
             }
@@ -718,10 +815,8 @@ class ChannelRepository @Inject constructor(
      * @return Channel ID to transmit on, or null if no channel available
      */
     fun getHardwarePttTargetChannelId(): String? {
-        // Read PTT target mode from settings (cached, safe for main thread)
-        val pttTargetMode = runBlocking {
-            settingsRepository.getPttTargetMode().first()
-        }
+        // In-memory settings snapshot: no DataStore read on the key-event path
+        val pttTargetMode = settingsRepository.getCachedPttTargetMode()
 
         return when (pttTargetMode) {
             PttTargetMode.ALWAYS_PRIMARY -> _primaryChannelId.value
@@ -729,8 +824,41 @@ class ChannelRepository @Inject constructor(
         }
     }
 
-    private suspend fun rejoinAllMonitoredChannels() {
-        val currentChannels = _monitoredChannels.value
+    /**
+     * Per-channel outcome of a rejoin (batched REJOIN or legacy JOIN_CHANNEL fallback).
+     *
+     * @param producerId Current speaker's producer (batched path only)
+     */
+    private class RejoinResult(
+        val channelId: String,
+        val userCount: Int?,
+        val currentSpeaker: String?,
+        val speakerName: String?,
+        val producerId: String?
+    )
+
+    /**
+     * Batched REJOIN response: per-channel results plus the shared recv transport
+     * the server created for all of them.
+     */
+    private class BatchedRejoin(
+        val channels: List<RejoinResult>,
+        val transport: JsonObject?
+    )
+
+    /**
+     * Restore all monitored channels after a reconnect.
+     *
+     * One REJOIN request carries every channel ID; the server joins them concurrently,
+     * creates the shared recv transport and returns current speakers. The local transport is
+     * then created once for all channels, and consumers are re-created at once for channels that still have
+     * an active speaker. Falls back to concurrent JOIN_CHANNEL requests on servers without
+     * REJOIN. Logs reconnect-to-audio time per channel.
+     *
+     * @param reconnectedAtMs elapsedRealtime when signaling reconnected
+     */
+    private suspend fun rejoinAllMonitoredChannels(reconnectedAtMs: Long) {
+        val currentChannels = channelStates.snapshot()
         if (currentChannels.isEmpty()) {
             Log.d(TAG, "No channels to rejoin")
             return
@@ -742,21 +870,188 @@ class ChannelRepository @Inject constructor(
         audioRouter.requestAudioFocus()
         audioRouter.setEarpieceMode()
 
-        for ((channelId, state) in currentChannels) {
-            try {
-                // Step 1: Rejoin channel on server
-                signalingClient.request(
-                    SignalingType.JOIN_CHANNEL,
-                    mapOf("channelId" to channelId)
-                )
+        val channelIds = currentChannels.keys.toList()
+        val batched = requestBatchedRejoin(channelIds)
+        val results = batched?.channels ?: requestLegacyRejoin(channelIds)
+        val joined = results.associateBy { it.channelId }
+
+        channelIds.filterNot { it in joined }.forEach { channelId ->
+            Log.e(TAG, "Failed to rejoin channel ${currentChannels[channelId]?.channelName}")
+        }
+
+        // Recreate recv transports (cleanup() closed all transports)
+        val ready = mediasoupClient.createRecvTransports(joined.keys, batched?.transport)
+        val transportsReadyMs = SystemClock.elapsedRealtime() - reconnectedAtMs
+        Log.i(TAG, "Rejoin: ${ready.size}/${channelIds.size} channels with transport after ${transportsReadyMs}ms")
 
-                // Step 2: Recreate recv transport (cleanup() closed all transports)
-                mediasoupClient.createRecvTransport(channelId)
+        coroutineScope {
+            for (result in results) {
+                if (result.channelId !in ready) continue
+                launch {
+                    restoreChannelAudio(result, batched != null, currentChannels[result.channelId], reconnectedAtMs)
+                }
+            }
+        }
+
+        // cleanup() closed the pre-warmed producer along with the transports
+        refreshInstantPtt()
+    }
+
+    /**
+     * Continue the previous server session after a reconnect, if the server resumed it.
+     *
+     * The server kept channel memberships, transports and consumers, restarted ICE on the
+     * transports and replays current speakers, so only ICE restarts are applied locally.
+     * The server released the floor and paused producers during the gap, so an interrupted
+     * transmission is ended here.
+     *
+     * @param reconnectedAtMs elapsedRealtime when signaling reconnected
+     * @return false if the session was not resumed (full rejoin needed)
+     */
+    private suspend fun resumeSession(reconnectedAtMs: Long): Boolean {
+        val session = withTimeoutOrNull(SESSION_INFO_TIMEOUT_MS) {
+            signalingClient.sessionInfo.filterNotNull().first()
+        }
+        if (session == null || !session.resumed) return false
 
-                Log.d(TAG, "Rejoined channel with transport: ${state.channelName}")
+        val channelIds = channelStates.channelIds
+        if (!session.joinedChannels.containsAll(channelIds)) {
+            Log.d(TAG, "Resumed session is missing ${channelIds - session.joinedChannels}, rejoining all")
+            return false
+        }
+
+        // Left while offline: the server still has the membership
+        for (channelId in session.joinedChannels - channelIds) {
+            try {
+                signalingClient.request(SignalingType.LEAVE_CHANNEL, mapOf("channelId" to channelId))
             } catch (e: Exception) {
-                Log.e(TAG, "Failed to rejoin channel ${state.channelName}", e)
+                Log.w(TAG, "Failed to leave channel $channelId after resume", e)
+            }
+        }
+
+        // Re-acquire audio focus (may have been released during disconnect)
+        audioRouter.requestAudioFocus()
+        audioRouter.setEarpieceMode()
+
+        mediasoupClient.restartIce(session.iceParameters)
+
+        if (pttManager.pttState.value is PttState.Transmitting) {
+            Log.d(TAG, "Transmission interrupted by disconnect, releasing PTT")
+            pttManager.forceReleasePtt()
+        }
+        refreshInstantPtt()
+
+        val elapsedMs = SystemClock.elapsedRealtime() - reconnectedAtMs
+        Log.i(TAG, "Session resumed: ${channelIds.size} channels restored after ${elapsedMs}ms without rejoin")
+        return true
+    }
+
+    /**
+     * Batched REJOIN request, or null if the server does not support it.
+     */
+    private suspend fun requestBatchedRejoin(channelIds: List<String>): BatchedRejoin? {
+        val response = try {
+            signalingClient.request(
+                SignalingType.REJOIN,
+                JsonObject().apply {
+                    add("channelIds", JsonArray().apply { channelIds.forEach { add(it) } })
+                    addProperty("sharedRecv", true)
+                }
+            )
+        } catch (e: Exception) {
+            Log.w(TAG, "Batched rejoin failed, falling back to per-channel join", e)
+            return null
+        }
+
+        if (response.error != null) {
+            Log.w(TAG, "Server rejected batched rejoin (${response.error}), falling back to per-channel join")
+            return null
+        }
+
+        val data = response.data ?: return null
+        val channels = data.getAsJsonArray("channels") ?: return null
+        val results = channels.mapNotNull { element ->
+            val channel = element.asJsonObject
+            val channelId = channel.get("channelId").asStringOrNull() ?: return@mapNotNull null
+            channel.get("error").asStringOrNull()?.let { error ->
+                Log.e(TAG, "Server refused rejoin of $channelId: $error")
+                return@mapNotNull null
+            }
+            val state = channel.getAsJsonObject("state")
+            RejoinResult(
+                channelId = channelId,
+                userCount = channel.get("userCount").asIntOrNull(),
+                currentSpeaker = state?.get("currentSpeaker").asStringOrNull(),
+                speakerName = state?.get("speakerName").asStringOrNull(),
+                producerId = channel.get("producerId").asStringOrNull()
+            )
+        }
+        return BatchedRejoin(results, data.get("transport")?.takeIf { it.isJsonObject }?.asJsonObject)
+    }
+
+    /**
+     * Fallback for servers without REJOIN: concurrent JOIN_CHANNEL requests.
+     */
+    private suspend fun requestLegacyRejoin(channelIds: List<String>): List<RejoinResult> = coroutineScope {
+        channelIds.map { channelId ->
+            async {
+                try {
+                    val response = signalingClient.request(
+                        SignalingType.JOIN_CHANNEL,
+                        mapOf("channelId" to channelId)
+                    )
+                    if (response.error != null) {
+                        Log.e(TAG, "Server refused rejoin of $channelId: ${response.error}")
+                        return@async null
+                    }
+                    RejoinResult(
+                        channelId = channelId,
+                        userCount = response.data?.get("userCount").asIntOrNull(),
+                        // JOIN_CHANNEL carries no producerId: audio resumes on the next broadcast
+                        currentSpeaker = null,
+                        speakerName = null,
+                        producerId = null
+                    )
+                } catch (e: Exception) {
+                    Log.e(TAG, "Failed to rejoin channel $channelId", e)
+                    null
+                }
             }
+        }.awaitAll().filterNotNull()
+    }
+
+    /**
+     * Apply a rejoin result: user count, and the current speaker (re-consume) or the
+     * end of a transmission that finished while disconnected.
+     *
+     * @param batched true if [result] came from the batched REJOIN, whose speaker state is
+     *        authoritative (legacy JOIN_CHANNEL results carry no producerId)
+     */
+    private suspend fun restoreChannelAudio(
+        result: RejoinResult,
+        batched: Boolean,
+        previous: ChannelMonitoringState?,
+        reconnectedAtMs: Long
+    ) {
+        val channelId = result.channelId
+        result.userCount?.let { userCount ->
+            updateChannelState(channelId) { it.copy(userCount = userCount) }
+        }
+
+        try {
+            if (result.currentSpeaker != null && result.speakerName != null && result.producerId != null) {
+                handleSpeakerChanged(
+                    channelId,
+                    SpeakerChangedEvent(channelId, result.currentSpeaker, result.speakerName, result.producerId)
+                )
+                val audioMs = SystemClock.elapsedRealtime() - reconnectedAtMs
+                Log.i(TAG, "Rejoin: reconnect-to-audio ${audioMs}ms for ${previous?.channelName ?: channelId}")
+            } else if (batched && previous?.currentSpeaker != null) {
+                // Batched path reported an idle channel: the transmission ended while we were away
+                handleSpeakerChanged(channelId, SpeakerChangedEvent(channelId, null, null, null))
+            }
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to restore audio for channel $channelId", e)
         }
     }
 
@@ -764,6 +1059,9 @@ class ChannelRepository @Inject constructor(
         // Stop NetworkMonitor
         networkMonitor.stop()
 
+        // Release the pre-warmed producer (and the microphone)
+        pttManager.setPrewarmTarget(null)
+
         // Stop AudioDeviceManager and MediaButtonHandler
         audioDeviceManager.stop()
         mediaButtonHandler.setActive(false)
@@ -778,20 +1076,15 @@ class ChannelRepository @Inject constructor(
             Log.d(TAG, "Stopped ChannelMonitoringService (disconnectAll)")
         }
 
-        // Cancel all speaker observer jobs
-        speakerObserverJobs.values.forEach { it.cancel() }
-        speakerObserverJobs.clear()
-
-        // Cancel all channel state observer jobs
-        channelStateObserverJobs.values.forEach { it.cancel() }
-        channelStateObserverJobs.clear()
+        // Stop routing broadcasts for all channels
+        signalingEventRouter.unregisterAll()
 
         // Cancel all fade jobs
         lastSpeakerFadeJobs.values.forEach { it.cancel() }
         lastSpeakerFadeJobs.clear()
 
         // Leave all channels
-        val channelIds = _monitoredChannels.value.keys.toList()
+        val channelIds = channelStates.channelIds.toList()
         CoroutineScope(Dispatchers.IO).launch {
             channelIds.forEach { channelId ->
                 leaveChannel(channelId)
@@ -799,7 +1092,9 @@ class ChannelRepository @Inject constructor(
 
             // Clear all maps
             channelConsumers.clear()
-            _monitoredChannels.value = emptyMap()
+            publishActiveConsumers()
+            channelStates.clear()
+            audioMixer.clear()
             _primaryChannelId.value = null
 
             // Clear persisted state
@@ -807,15 +1102,19 @@ class ChannelRepository @Inject constructor(
         }
     }
 
+    private fun publishActiveConsumers() {
+        _activeConsumers.value = channelConsumers
+            .mapValues { (_, consumers) -> consumers.values.toSet() }
+            .filterValues { it.isNotEmpty() }
+    }
+
     private fun updateChannelState(channelId: String, transform: (ChannelMonitoringState) -> ChannelMonitoringState) {
-        _monitoredChannels.value[channelId]?.let { state ->
-            _monitoredChannels.value = _monitoredChannels.value + (channelId to transform(state))
-        }
+        channelStates.update(channelId, transform)
     }
 
     private fun updateServiceNotification() {
-        val primaryName = _monitoredChannels.value[_primaryChannelId.value]?.channelName ?: return
-        val otherCount = _monitoredChannels.value.size - 1
+        val primaryName = _primaryChannelId.value?.let { channelStates[it] }?.channelName ?: return
+        val otherCount = channelStates.size - 1
         val serviceIntent = Intent(context, ChannelMonitoringService::class.java).apply {
             action = ChannelMonitoringService.ACTION_UPDATE_CHANNEL
             putExtra(ChannelMonitoringService.EXTRA_CHANNEL_NAME, primaryName)
@@ -825,8 +1124,8 @@ class ChannelRepository @Inject constructor(
     }
 
     private fun updateServiceNotificationReconnectingState(isReconnecting: Boolean) {
-        val primaryName = _monitoredChannels.value[_primaryChannelId.value]?.channelName ?: return
-        val otherCount = _monitoredChannels.value.size - 1
+        val primaryName = _primaryChannelId.value?.let { channelStates[it] }?.channelName ?: return
+        val otherCount = channelStates.size - 1
         val serviceIntent = Intent(context, ChannelMonitoringService::class.java).apply {
             action = ChannelMonitoringService.ACTION_UPDATE_CHANNEL
             putExtra(ChannelMonitoringService.EXTRA_CHANNEL_NAME, primaryName)
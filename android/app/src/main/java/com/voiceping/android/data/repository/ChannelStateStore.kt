@@ -0,0 +1,146 @@
+package com.voiceping.android.data.repository
+
+import com.voiceping.android.domain.model.ChannelMonitoringState
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.flow.updateAndGet
+import kotlinx.coroutines.launch
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Per-channel monitoring state with atomic updates.
+ *
+ * Each monitored channel owns one slot (a MutableStateFlow); [update] is a compare-and-set
+ * on that slot only, so concurrent speaker / user-count / volume updates from different
+ * coroutines never overwrite each other and no map is copied per event.
+ *
+ * Membership (join/leave, rare) is copy-on-write under a lock and keeps join order.
+ *
+ * [states] is the aggregate for observers: slot updates mark it dirty and it is rebuilt
+ * at most once per [FRAME_INTERVAL_MS] (conflated), so a burst of events across channels
+ * becomes one emission. Membership changes publish immediately. Code that needs the latest
+ * value of a channel reads the slot directly via [get].
+ */
+@Singleton
+class ChannelStateStore @Inject constructor() {
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+
+    private val membershipLock = Any()
+    private val publishLock = Any()
+
+    @Volatile
+    private var slots: Map<String, MutableStateFlow<ChannelMonitoringState>> = emptyMap()
+
+    private val _states = MutableStateFlow<Map<String, ChannelMonitoringState>>(emptyMap())
+
+    /** All monitored channels in join order, emitted at most once per frame. */
+    val states: StateFlow<Map<String, ChannelMonitoringState>> = _states.asStateFlow()
+
+    private val dirty = Channel<Unit>(Channel.CONFLATED)
+
+    init {
+        scope.launch {
+            for (signal in dirty) {
+                publish()
+                delay(FRAME_INTERVAL_MS)
+            }
+        }
+    }
+
+    val size: Int
+        get() = slots.size
+
+    /** Monitored channel IDs in join order. */
+    val channelIds: Set<String>
+        get() = slots.keys
+
+    fun isEmpty(): Boolean = slots.isEmpty()
+
+    operator fun contains(channelId: String): Boolean = channelId in slots
+
+    /** Latest state of a channel (not frame-delayed), or null if not monitored. */
+    operator fun get(channelId: String): ChannelMonitoringState? = slots[channelId]?.value
+
+    /** Latest state of all channels (not frame-delayed). */
+    fun snapshot(): Map<String, ChannelMonitoringState> {
+        val current = slots
+        val result = LinkedHashMap<String, ChannelMonitoringState>(current.size)
+        for ((channelId, slot) in current) {
+            result[channelId] = slot.value
+        }
+        return result
+    }
+
+    /** Per-channel state flow (every update, no frame pacing), or null if not monitored. */
+    fun observe(channelId: String): StateFlow<ChannelMonitoringState>? = slots[channelId]?.asStateFlow()
+
+    /**
+     * Start tracking a channel.
+     *
+     * @return false if the channel was already monitored (state left unchanged)
+     */
+    fun add(state: ChannelMonitoringState): Boolean {
+        synchronized(membershipLock) {
+            if (state.channelId in slots) return false
+            slots = LinkedHashMap(slots).apply { put(state.channelId, MutableStateFlow(state)) }
+        }
+        publish()
+        return true
+    }
+
+    fun remove(channelId: String) {
+        synchronized(membershipLock) {
+            if (channelId !in slots) return
+            slots = LinkedHashMap(slots).apply { remove(channelId) }
+        }
+        publish()
+    }
+
+    fun clear() {
+        synchronized(membershipLock) {
+            slots = emptyMap()
+        }
+        publish()
+    }
+
+    /**
+     * Atomically transform one channel's state. [transform] may run more than once under
+     * contention and must not have side effects.
+     *
+     * @return The new state, or null if the channel is not monitored
+     */
+    fun update(channelId: String, transform: (ChannelMonitoringState) -> ChannelMonitoringState): ChannelMonitoringState? {
+        val slot = slots[channelId] ?: return null
+        val updated = slot.updateAndGet(transform)
+        dirty.trySend(Unit)
+        return updated
+    }
+
+    /** Atomically transform every channel's state (each slot on its own). */
+    fun updateAll(transform: (ChannelMonitoringState) -> ChannelMonitoringState) {
+        for (slot in slots.values) {
+            slot.update(transform)
+        }
+        dirty.trySend(Unit)
+    }
+
+    private fun publish() {
+        // Snapshot + assign under one lock: a later publish always carries a fresher snapshot
+        synchronized(publishLock) {
+            _states.value = snapshot()
+        }
+    }
+
+    companion object {
+        private const val FRAME_INTERVAL_MS = 16L // ~60 Hz
+    }
+}
@@ -1,16 +1,19 @@
 package com.voiceping.android.data.repository
 
+import android.util.Log
 import com.voiceping.android.data.api.EventApi
 import com.voiceping.android.data.database.dao.ChannelDao
 import com.voiceping.android.data.database.dao.EventDao
 import com.voiceping.android.data.database.entities.ChannelEntity
 import com.voiceping.android.data.database.entities.EventEntity
+import com.voiceping.android.data.network.dto.ChannelResponse
 import com.voiceping.android.domain.model.Channel
 import com.voiceping.android.domain.model.Event
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.withContext
+import retrofit2.HttpException
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -40,15 +43,11 @@ class EventRepository @Inject constructor(
     suspend fun getChannelsForEvent(eventId: String): Result<List<Channel>> = withContext(Dispatchers.IO) {
         try {
             val response = eventApi.getChannels(eventId)
-            val channels = response.map { dto ->
-                Channel(
-                    id = dto.id,
-                    name = dto.name,
-                    teamId = dto.teamId,
-                    teamName = dto.teamName
-                )
+            val body = response.body()
+            if (!response.isSuccessful || body == null) {
+                throw HttpException(response)
             }
-            Result.success(channels)
+            Result.success(body.map { it.toDomain() })
         } catch (e: Exception) {
             Result.failure(e)
         }
@@ -87,18 +86,37 @@ class EventRepository @Inject constructor(
         }
     }
 
+    /**
+     * Refresh the channel list of an event and keep the Room cache in sync.
+     *
+     * The request carries the ETag of the cached list; an unchanged list costs a 304 and no
+     * database writes. Otherwise only added, changed and removed rows are written, in one
+     * transaction (see [ChannelDao.syncEvent]). Falls back to the cache when offline.
+     */
     suspend fun getChannelsWithCache(eventId: String): Result<List<Channel>> {
         return try {
-            val networkResult = getChannelsForEvent(eventId)
-            if (networkResult.isSuccess) {
-                val channels = networkResult.getOrThrow()
-                withContext(Dispatchers.IO) {
-                    channelDao.deleteByEvent(eventId)
-                    channelDao.insertAll(channels.map { ChannelEntity.fromDomain(it, eventId) })
+            withContext(Dispatchers.IO) {
+                val etag = channelDao.getSyncEtag(eventId)
+                val response = eventApi.getChannels(eventId, etag)
+
+                if (response.code() == HTTP_NOT_MODIFIED) {
+                    Log.d(TAG, "Channels of $eventId unchanged (304)")
+                    return@withContext getCachedChannels(eventId)
                 }
-                networkResult
-            } else {
-                getCachedChannels(eventId)
+
+                val body = response.body()
+                if (!response.isSuccessful || body == null) {
+                    throw HttpException(response)
+                }
+
+                val channels = body.map { it.toDomain() }
+                val written = channelDao.syncEvent(
+                    eventId,
+                    channels.map { ChannelEntity.fromDomain(it, eventId) },
+                    response.headers()["ETag"]
+                )
+                Log.d(TAG, "Channels of $eventId synced: ${channels.size} channels, $written rows written")
+                Result.success(channels)
             }
         } catch (e: Exception) {
             val cached = getCachedChannels(eventId)
@@ -125,4 +143,18 @@ class EventRepository @Inject constructor(
         return channelDao.getChannelsFlow(eventId)
             .map { entities -> entities.map { it.toDomain() } }
     }
+
+    private fun ChannelResponse.toDomain(): Channel {
+        return Channel(
+            id = id,
+            name = name,
+            teamId = teamId,
+            teamName = teamName
+        )
+    }
+
+    companion object {
+        private const val TAG = "EventRepository"
+        private const val HTTP_NOT_MODIFIED = 304
+    }
 }
@@ -1,82 +1,151 @@
 package com.voiceping.android.data.repository
 
+import android.util.Log
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.map
+import com.voiceping.android.data.database.dao.TransmissionHistoryDao
+import com.voiceping.android.data.database.entities.TransmissionHistoryEntity
 import com.voiceping.android.domain.model.TransmissionHistoryEntry
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.MutableSharedFlow
-import kotlinx.coroutines.flow.filter
 import kotlinx.coroutines.flow.map
-import kotlinx.coroutines.flow.onStart
-import java.util.concurrent.ConcurrentHashMap
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
 import javax.inject.Inject
 import javax.inject.Singleton
 
 /**
- * In-memory repository for transmission history per channel.
+ * Persistent transmission history per channel (Room, table transmission_history).
  *
- * Stores last 20 transmissions per channel with reactive Flow observation.
- * Session-only: clears on app restart per user decision.
+ * Writes: [addEntry] never blocks or suspends the caller (speaker-changed / audio path).
+ * Entries are queued and a single writer inserts them in batches: it waits up to
+ * [BATCH_WINDOW_MS] after the first queued entry, then writes everything pending in
+ * one transaction. [clearAll] goes through the same queue, so a batch the writer is
+ * still holding is dropped instead of being inserted after the delete.
  *
- * Thread-safe using ConcurrentHashMap for multi-channel concurrent access.
+ * Reads: [observeHistory] pages rows from the (channelId, timestamp) index, newest first,
+ * so opening the sheet loads one page instead of copying the whole history.
+ *
+ * Retention: a compaction pass at startup and every [COMPACTION_INTERVAL_MS] deletes rows
+ * older than [RETENTION_MS] and caps each channel at [MAX_ENTRIES_PER_CHANNEL] rows.
  */
 @Singleton
-class TransmissionHistoryRepository @Inject constructor() {
-
-    private val history = ConcurrentHashMap<String, MutableList<TransmissionHistoryEntry>>()
-    private val maxEntriesPerChannel = 20
-    private val _historyUpdated = MutableSharedFlow<String>()
-
-    /**
-     * Add transmission entry to channel history.
-     *
-     * Circular buffer: oldest entry removed when limit reached.
-     * Emits channelId on _historyUpdated for UI reactivity.
-     */
-    suspend fun addEntry(entry: TransmissionHistoryEntry) {
-        val list = history.getOrPut(entry.channelId) { mutableListOf() }
+class TransmissionHistoryRepository @Inject constructor(
+    private val historyDao: TransmissionHistoryDao
+) {
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private val pending = Channel<WriteOp>(Channel.UNLIMITED)
 
-        synchronized(list) {
-            if (list.size >= maxEntriesPerChannel) {
-                list.removeFirst() // Remove oldest
+    init {
+        scope.launch { writeBatches() }
+        scope.launch {
+            while (isActive) {
+                compact()
+                delay(COMPACTION_INTERVAL_MS)
             }
-            list.add(entry)
         }
-
-        _historyUpdated.emit(entry.channelId)
     }
 
     /**
-     * Get transmission history for a channel.
-     *
-     * @param channelId Channel ID
-     * @return List of entries in reverse chronological order (newest first), or empty list
+     * Queue a transmission entry for storage. Returns immediately.
      */
-    fun getHistory(channelId: String): List<TransmissionHistoryEntry> {
-        val list = history[channelId] ?: return emptyList()
-        return synchronized(list) {
-            list.toList().reversed() // Newest first
-        }
+    fun addEntry(entry: TransmissionHistoryEntry) {
+        pending.trySend(WriteOp.Add(entry))
     }
 
     /**
-     * Observe transmission history for a channel as reactive Flow.
+     * Observe transmission history for a channel as pages, newest first.
      *
-     * Emits whenever history changes for this channel.
-     * Starts with current history on collection.
+     * Room invalidates the paging source when rows are inserted, so new transmissions
+     * appear without re-reading pages that are not on screen.
      *
      * @param channelId Channel ID
-     * @return Flow emitting history list on changes
+     * @return Flow of paged history
      */
-    fun observeHistory(channelId: String): Flow<List<TransmissionHistoryEntry>> {
-        return _historyUpdated
-            .filter { it == channelId }
-            .map { getHistory(channelId) }
-            .onStart { emit(getHistory(channelId)) }
+    fun observeHistory(channelId: String): Flow<PagingData<TransmissionHistoryEntry>> {
+        return Pager(
+            config = PagingConfig(pageSize = PAGE_SIZE, enablePlaceholders = false)
+        ) {
+            historyDao.pagingSource(channelId)
+        }.flow.map { page -> page.map { it.toDomain() } }
     }
 
     /**
-     * Clear all history (called on disconnect/logout).
+     * Clear all stored history, including entries still queued or held for writing.
+     * Returns immediately; the writer performs the delete in queue order.
      */
     fun clearAll() {
-        history.clear()
+        pending.trySend(WriteOp.Clear)
+    }
+
+    private suspend fun writeBatches() {
+        val batch = ArrayList<TransmissionHistoryEntity>()
+        while (true) {
+            // Suspend until something is queued, then let a burst accumulate
+            var clear = batch.addOp(pending.receive())
+            delay(BATCH_WINDOW_MS)
+            while (true) {
+                val op = pending.tryReceive().getOrNull() ?: break
+                clear = batch.addOp(op) || clear
+            }
+
+            try {
+                if (clear) historyDao.deleteAll()
+                if (batch.isNotEmpty()) historyDao.insertAll(batch) // One transaction per batch
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to store ${batch.size} history entries (clear=$clear)", e)
+            }
+            batch.clear()
+        }
+    }
+
+    /**
+     * Add an entry to the batch, or on a clear drop everything queued before it.
+     * @return true if [op] was a clear
+     */
+    private fun MutableList<TransmissionHistoryEntity>.addOp(op: WriteOp): Boolean = when (op) {
+        is WriteOp.Add -> {
+            add(TransmissionHistoryEntity.fromDomain(op.entry))
+            false
+        }
+        WriteOp.Clear -> {
+            clear()
+            true
+        }
+    }
+
+    private suspend fun compact() {
+        try {
+            val expired = historyDao.deleteOlderThan(System.currentTimeMillis() - RETENTION_MS)
+            var trimmed = 0
+            for (channelId in historyDao.getChannelIds()) {
+                trimmed += historyDao.trimChannel(channelId, MAX_ENTRIES_PER_CHANNEL)
+            }
+            if (expired + trimmed > 0) {
+                Log.d(TAG, "History compaction: $expired expired, $trimmed over per-channel cap")
+            }
+        } catch (e: Exception) {
+            Log.e(TAG, "History compaction failed", e)
+        }
+    }
+
+    private sealed interface WriteOp {
+        data class Add(val entry: TransmissionHistoryEntry) : WriteOp
+        data object Clear : WriteOp
+    }
+
+    companion object {
+        private const val TAG = "TransmissionHistory"
+        private const val PAGE_SIZE = 50
+        private const val BATCH_WINDOW_MS = 500L
+        private const val RETENTION_MS = 48 * 60 * 60 * 1000L // Two full shifts
+        private const val MAX_ENTRIES_PER_CHANNEL = 10_000
+        private const val COMPACTION_INTERVAL_MS = 60 * 60 * 1000L // Hourly
     }
 }
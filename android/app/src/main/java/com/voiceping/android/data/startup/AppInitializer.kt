@@ -0,0 +1,59 @@
+package com.voiceping.android.data.startup
+
+import android.content.Context
+import com.voiceping.android.data.database.VoicePingDatabase
+import com.voiceping.android.data.repository.ChannelRepository
+import com.voiceping.android.data.storage.TokenManager
+import dagger.Lazy
+import dagger.hilt.android.qualifiers.ApplicationContext
+import io.github.crow_misia.mediasoup.MediasoupClient
+import io.github.crow_misia.webrtc.log.DefaultLogHandler
+import kotlinx.coroutines.Dispatchers
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Staged, off-main-thread initialization of the heavy singletons.
+ *
+ * Started from VoicePingApplication.onCreate. The singletons are injected as [Lazy], so
+ * nothing is constructed until its stage runs on a background dispatcher; by the time a
+ * screen injects them Hilt only returns the existing instance.
+ *
+ * Stages and dependencies:
+ * - [nativeMedia]: mediasoup + WebRTC native libraries (needed before any Device)
+ * - [secureStorage]: Keystore master key + EncryptedSharedPreferences (start destination)
+ * - [database]: Room opened (schema validation, migrations)
+ * - [channelRuntime]: ChannelRepository graph constructed and started
+ *   (depends on [database] for transmission history)
+ */
+@Singleton
+class AppInitializer @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val tokenManager: Lazy<TokenManager>,
+    private val voicePingDatabase: Lazy<VoicePingDatabase>,
+    private val channelRepository: Lazy<ChannelRepository>
+) {
+    val nativeMedia = InitStage("nativeMedia", dispatcher = Dispatchers.Default) {
+        MediasoupClient.initialize(context, DefaultLogHandler)
+    }
+
+    val secureStorage = InitStage("secureStorage") {
+        tokenManager.get().awaitReady()
+    }
+
+    val database = InitStage("database") {
+        voicePingDatabase.get().openHelper.writableDatabase
+        Unit
+    }
+
+    val channelRuntime = InitStage("channelRuntime", dependencies = listOf(database)) {
+        channelRepository.get().start()
+    }
+
+    /** Kick off all stages in the background. Returns immediately. */
+    fun start() {
+        nativeMedia.start()
+        secureStorage.start()
+        channelRuntime.start()
+    }
+}
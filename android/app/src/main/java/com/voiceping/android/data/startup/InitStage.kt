@@ -0,0 +1,84 @@
+package com.voiceping.android.data.startup
+
+import android.util.Log
+import androidx.tracing.traceAsync
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.future.await
+import kotlinx.coroutines.launch
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * One step of the staged initialization graph.
+ *
+ * [create] runs at most once, on [dispatcher], after every stage in [dependencies] is ready.
+ * The first [start], [await] or [getBlocking] call kicks it off (dependencies first).
+ *
+ * [isReady] turns true when [create] has completed. A failed stage stays not-ready and
+ * rethrows its error to every waiter.
+ *
+ * Each run is traced as "VP:init.<name>".
+ */
+class InitStage<T>(
+    val name: String,
+    private val dependencies: List<InitStage<*>> = emptyList(),
+    private val dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val create: suspend () -> T
+) {
+    private val started = AtomicBoolean(false)
+    private val result = CompletableFuture<T>()
+
+    private val _isReady = MutableStateFlow(false)
+    val isReady: StateFlow<Boolean> = _isReady.asStateFlow()
+
+    /** Start this stage (and its dependencies) in the background. Idempotent. */
+    fun start() {
+        if (!started.compareAndSet(false, true)) return
+        dependencies.forEach { it.start() }
+
+        stageScope.launch(dispatcher) {
+            try {
+                dependencies.forEach { it.await() }
+                val value = traceAsync("VP:init.$name", name.hashCode()) { create() }
+                result.complete(value)
+                _isReady.value = true
+            } catch (e: Throwable) {
+                Log.e(TAG, "Init stage '$name' failed", e)
+                result.completeExceptionally(e)
+            }
+        }
+    }
+
+    /** Suspend until the stage is ready. */
+    suspend fun await(): T {
+        start()
+        return result.await()
+    }
+
+    /**
+     * Block until the stage is ready. For synchronous APIs only; returns immediately
+     * once [isReady] is true.
+     */
+    fun getBlocking(): T {
+        start()
+        return try {
+            result.join()
+        } catch (e: CompletionException) {
+            throw e.cause ?: e
+        }
+    }
+
+    companion object {
+        private const val TAG = "InitStage"
+
+        // Stages outlive any caller (process-wide singletons)
+        private val stageScope = CoroutineScope(SupervisorJob())
+    }
+}
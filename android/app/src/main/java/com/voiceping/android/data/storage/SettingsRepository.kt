@@ -1,22 +1,37 @@
 package com.voiceping.android.data.storage
 
 import android.content.Context
+import android.util.Log
+import androidx.datastore.preferences.core.MutablePreferences
+import androidx.datastore.preferences.core.Preferences
 import androidx.datastore.preferences.core.booleanPreferencesKey
 import androidx.datastore.preferences.core.edit
 import androidx.datastore.preferences.core.intPreferencesKey
 import androidx.datastore.preferences.core.stringPreferencesKey
 import androidx.datastore.preferences.core.stringSetPreferencesKey
-import android.view.KeyEvent
 import com.voiceping.android.domain.model.AudioMixMode
 import com.voiceping.android.domain.model.AudioRoute
 import com.voiceping.android.domain.model.PttMode
 import com.voiceping.android.domain.model.PttTargetMode
+import com.voiceping.android.domain.model.Settings
 import com.voiceping.android.domain.model.VolumeKeyPttConfig
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.map
-import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.flow.retryWhen
+import kotlinx.coroutines.launch
+import java.io.IOException
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -28,6 +43,8 @@ import javax.inject.Singleton
  * - Audio output route (SPEAKER, EARPIECE, BLUETOOTH)
  * - Audio tone toggles (PTT start, roger beep, RX squelch)
  * - Toggle mode max transmission duration
+ * - Instant PTT (pre-warmed send path)
+ * - Speculative PTT (talk before the grant arrives)
  * - Multi-channel monitoring: monitored channels, primary channel
  * - Scan mode: enabled, return delay, PTT target mode, audio mix mode
  * - Hardware buttons: volume key config, Bluetooth button keycode/enabled, boot auto-start, long press threshold
@@ -39,6 +56,8 @@ import javax.inject.Singleton
  * - Roger beep: ON
  * - RX squelch: OFF
  * - Toggle max duration: 60 seconds
+ * - Instant PTT: OFF (keeps the microphone open while idle, user must opt-in)
+ * - Speculative PTT: OFF (user must opt-in, only effective with Instant PTT)
  * - Scan mode enabled: ON
  * - Scan return delay: 2 seconds
  * - PTT target mode: ALWAYS_PRIMARY
@@ -48,6 +67,15 @@ import javax.inject.Singleton
  * - Bluetooth PTT enabled: OFF
  * - Boot auto-start enabled: OFF
  * - Long press threshold: 300ms
+ *
+ * Reads: the preferences are parsed once per DataStore write into a typed [Settings]
+ * snapshot held in [settings]. Per-setting getters are distinctUntilChanged projections
+ * of that snapshot, so a write only wakes collectors whose value actually changed, and
+ * getCached* reads are plain field reads (safe on key-event and audio threads).
+ *
+ * Writes: every setter goes through [update], which applies a Settings transform in one
+ * DataStore transaction and writes only the changed keys; related settings changed
+ * together (e.g. monitored channels + primary) are one write.
  */
 
 @Singleton
@@ -61,6 +89,8 @@ class SettingsRepository @Inject constructor(
         val ROGER_BEEP_ENABLED = booleanPreferencesKey("roger_beep_enabled")
         val RX_SQUELCH_ENABLED = booleanPreferencesKey("rx_squelch_enabled")
         val TOGGLE_MAX_DURATION = intPreferencesKey("toggle_max_duration")
+        val INSTANT_PTT_ENABLED = booleanPreferencesKey("instant_ptt_enabled")
+        val SPECULATIVE_PTT_ENABLED = booleanPreferencesKey("speculative_ptt_enabled")
 
         // Multi-channel monitoring and scan mode
         val MONITORED_CHANNEL_IDS = stringSetPreferencesKey("monitored_channel_ids")
@@ -78,271 +108,278 @@ class SettingsRepository @Inject constructor(
         val LONG_PRESS_THRESHOLD_MS = intPreferencesKey("long_press_threshold_ms")
     }
 
-    // PTT Mode
-    suspend fun setPttMode(mode: PttMode) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.PTT_MODE] = mode.name
-        }
-    }
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
 
-    fun getPttMode(): Flow<PttMode> = context.dataStore.data.map { preferences ->
-        val modeName = preferences[Keys.PTT_MODE] ?: PttMode.PRESS_AND_HOLD.name
-        try {
-            PttMode.valueOf(modeName)
-        } catch (e: IllegalArgumentException) {
-            PttMode.PRESS_AND_HOLD
+    private val _settings = MutableStateFlow(Settings())
+
+    /**
+     * All settings, updated once per DataStore write. Holds the defaults until the first
+     * load completes (projections below wait for it).
+     */
+    val settings: StateFlow<Settings> = _settings.asStateFlow()
+
+    private val firstLoad = CompletableDeferred<Unit>()
+
+    init {
+        scope.launch {
+            context.dataStore.data
+                .retryWhen { e, attempt ->
+                    if (e !is IOException) return@retryWhen false
+                    // Keep the last snapshot (defaults before the first load) and re-read later;
+                    // projections must not wait forever for a load that keeps failing
+                    Log.e(TAG, "Failed to read settings, retrying (attempt ${attempt + 1})", e)
+                    firstLoad.complete(Unit)
+                    delay((READ_RETRY_BASE_MS shl attempt.coerceAtMost(5L).toInt()).coerceAtMost(READ_RETRY_MAX_MS))
+                    true
+                }
+                .map { it.toSettings() }
+                .collect { loaded ->
+                    _settings.value = loaded
+                    firstLoad.complete(Unit)
+                }
         }
     }
 
-    // Audio Route
-    suspend fun setAudioRoute(route: AudioRoute) {
+    /**
+     * Apply [transform] to the stored settings in one DataStore transaction.
+     * Only keys whose value changed are written.
+     */
+    suspend fun update(transform: (Settings) -> Settings) {
         context.dataStore.edit { preferences ->
-            preferences[Keys.AUDIO_ROUTE] = route.name
+            val current = preferences.toSettings()
+            transform(current).writeChanges(current, preferences)
         }
     }
 
-    fun getAudioRoute(): Flow<AudioRoute> = context.dataStore.data.map { preferences ->
-        val routeName = preferences[Keys.AUDIO_ROUTE] ?: AudioRoute.SPEAKER.name
-        try {
-            AudioRoute.valueOf(routeName)
-        } catch (e: IllegalArgumentException) {
-            AudioRoute.SPEAKER
-        }
+    /** Projection of one setting: emits after the first load, then only on change. */
+    private fun <T> project(selector: (Settings) -> T): Flow<T> = flow {
+        firstLoad.await()
+        emitAll(_settings.map(selector).distinctUntilChanged())
     }
 
+    // PTT Mode
+    suspend fun setPttMode(mode: PttMode) = update { it.copy(pttMode = mode) }
+
+    fun getPttMode(): Flow<PttMode> = project { it.pttMode }
+
+    // Audio Route
+    suspend fun setAudioRoute(route: AudioRoute) = update { it.copy(audioRoute = route) }
+
+    fun getAudioRoute(): Flow<AudioRoute> = project { it.audioRoute }
+
     // PTT Start Tone
-    suspend fun setPttStartToneEnabled(enabled: Boolean) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.PTT_START_TONE_ENABLED] = enabled
-        }
-    }
+    suspend fun setPttStartToneEnabled(enabled: Boolean) = update { it.copy(pttStartToneEnabled = enabled) }
 
-    fun getPttStartToneEnabled(): Flow<Boolean> = context.dataStore.data.map { preferences ->
-        preferences[Keys.PTT_START_TONE_ENABLED] ?: true
-    }
+    fun getPttStartToneEnabled(): Flow<Boolean> = project { it.pttStartToneEnabled }
 
     /**
      * Get PTT start tone enabled setting synchronously.
-     * Safe to call from audio thread - DataStore caches after first read.
+     * Reads the in-memory snapshot, safe to call from the audio thread.
      */
-    fun getCachedPttStartToneEnabled(): Boolean = runBlocking {
-        context.dataStore.data.first()[Keys.PTT_START_TONE_ENABLED] ?: true
-    }
+    fun getCachedPttStartToneEnabled(): Boolean = _settings.value.pttStartToneEnabled
 
     // Roger Beep
-    suspend fun setRogerBeepEnabled(enabled: Boolean) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.ROGER_BEEP_ENABLED] = enabled
-        }
-    }
+    suspend fun setRogerBeepEnabled(enabled: Boolean) = update { it.copy(rogerBeepEnabled = enabled) }
 
-    fun getRogerBeepEnabled(): Flow<Boolean> = context.dataStore.data.map { preferences ->
-        preferences[Keys.ROGER_BEEP_ENABLED] ?: true
-    }
+    fun getRogerBeepEnabled(): Flow<Boolean> = project { it.rogerBeepEnabled }
 
     /**
      * Get roger beep enabled setting synchronously.
-     * Safe to call from audio thread - DataStore caches after first read.
+     * Reads the in-memory snapshot, safe to call from the audio thread.
      */
-    fun getCachedRogerBeepEnabled(): Boolean = runBlocking {
-        context.dataStore.data.first()[Keys.ROGER_BEEP_ENABLED] ?: true
-    }
+    fun getCachedRogerBeepEnabled(): Boolean = _settings.value.rogerBeepEnabled
 
     // RX Squelch
-    suspend fun setRxSquelchEnabled(enabled: Boolean) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.RX_SQUELCH_ENABLED] = enabled
-        }
-    }
+    suspend fun setRxSquelchEnabled(enabled: Boolean) = update { it.copy(rxSquelchEnabled = enabled) }
 
-    fun getRxSquelchEnabled(): Flow<Boolean> = context.dataStore.data.map { preferences ->
-        preferences[Keys.RX_SQUELCH_ENABLED] ?: false
-    }
+    fun getRxSquelchEnabled(): Flow<Boolean> = project { it.rxSquelchEnabled }
 
     /**
      * Get RX squelch enabled setting synchronously.
-     * Safe to call from audio thread - DataStore caches after first read.
+     * Reads the in-memory snapshot, safe to call from the audio thread.
      */
-    fun getCachedRxSquelchEnabled(): Boolean = runBlocking {
-        context.dataStore.data.first()[Keys.RX_SQUELCH_ENABLED] ?: false
-    }
+    fun getCachedRxSquelchEnabled(): Boolean = _settings.value.rxSquelchEnabled
 
     // Toggle Max Duration
-    suspend fun setToggleMaxDuration(durationSeconds: Int) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.TOGGLE_MAX_DURATION] = durationSeconds
-        }
-    }
+    suspend fun setToggleMaxDuration(durationSeconds: Int) = update { it.copy(toggleMaxDurationSeconds = durationSeconds) }
 
-    fun getToggleMaxDuration(): Flow<Int> = context.dataStore.data.map { preferences ->
-        preferences[Keys.TOGGLE_MAX_DURATION] ?: 60
-    }
+    fun getToggleMaxDuration(): Flow<Int> = project { it.toggleMaxDurationSeconds }
+
+    // Instant PTT (pre-warmed send transport + paused producer on the primary channel)
+    suspend fun setInstantPttEnabled(enabled: Boolean) = update { it.copy(instantPttEnabled = enabled) }
+
+    fun getInstantPttEnabled(): Flow<Boolean> = project { it.instantPttEnabled }
+
+    // Speculative PTT (buffer audio from press, send it on grant, discard on denial)
+    suspend fun setSpeculativePttEnabled(enabled: Boolean) = update { it.copy(speculativePttEnabled = enabled) }
+
+    fun getSpeculativePttEnabled(): Flow<Boolean> = project { it.speculativePttEnabled }
 
     // Monitored Channels
-    suspend fun setMonitoredChannels(channelIds: Set<String>) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.MONITORED_CHANNEL_IDS] = channelIds
-        }
-    }
+    suspend fun setMonitoredChannels(channelIds: Set<String>) = update { it.copy(monitoredChannelIds = channelIds) }
 
-    fun getMonitoredChannels(): Flow<Set<String>> = context.dataStore.data.map { preferences ->
-        preferences[Keys.MONITORED_CHANNEL_IDS] ?: emptySet()
-    }
+    fun getMonitoredChannels(): Flow<Set<String>> = project { it.monitoredChannelIds }
 
     // Primary Channel
-    suspend fun setPrimaryChannel(channelId: String) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.PRIMARY_CHANNEL_ID] = channelId
-        }
-    }
+    suspend fun setPrimaryChannel(channelId: String) = update { it.copy(primaryChannelId = channelId) }
+
+    fun getPrimaryChannel(): Flow<String?> = project { it.primaryChannelId }
 
-    fun getPrimaryChannel(): Flow<String?> = context.dataStore.data.map { preferences ->
-        preferences[Keys.PRIMARY_CHANNEL_ID]
+    /**
+     * Persist the monitored channel set and primary channel in one write.
+     *
+     * @param primaryChannelId New primary, or null to keep the stored one
+     */
+    suspend fun setMonitoredChannels(channelIds: Set<String>, primaryChannelId: String?) = update {
+        it.copy(
+            monitoredChannelIds = channelIds,
+            primaryChannelId = primaryChannelId ?: it.primaryChannelId
+        )
     }
 
     // Scan Mode Enabled
-    suspend fun setScanModeEnabled(enabled: Boolean) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.SCAN_MODE_ENABLED] = enabled
-        }
-    }
+    suspend fun setScanModeEnabled(enabled: Boolean) = update { it.copy(scanModeEnabled = enabled) }
 
-    fun getScanModeEnabled(): Flow<Boolean> = context.dataStore.data.map { preferences ->
-        preferences[Keys.SCAN_MODE_ENABLED] ?: true
-    }
+    fun getScanModeEnabled(): Flow<Boolean> = project { it.scanModeEnabled }
 
     // Scan Return Delay
-    suspend fun setScanReturnDelay(seconds: Int) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.SCAN_RETURN_DELAY] = seconds
-        }
-    }
+    suspend fun setScanReturnDelay(seconds: Int) = update { it.copy(scanReturnDelaySeconds = seconds) }
 
-    fun getScanReturnDelay(): Flow<Int> = context.dataStore.data.map { preferences ->
-        preferences[Keys.SCAN_RETURN_DELAY] ?: 2
-    }
+    fun getScanReturnDelay(): Flow<Int> = project { it.scanReturnDelaySeconds }
 
     // PTT Target Mode
-    suspend fun setPttTargetMode(mode: PttTargetMode) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.PTT_TARGET_MODE] = mode.name
-        }
-    }
+    suspend fun setPttTargetMode(mode: PttTargetMode) = update { it.copy(pttTargetMode = mode) }
 
-    fun getPttTargetMode(): Flow<PttTargetMode> = context.dataStore.data.map { preferences ->
-        val modeName = preferences[Keys.PTT_TARGET_MODE] ?: PttTargetMode.ALWAYS_PRIMARY.name
-        try {
-            PttTargetMode.valueOf(modeName)
-        } catch (e: IllegalArgumentException) {
-            PttTargetMode.ALWAYS_PRIMARY
-        }
-    }
+    fun getPttTargetMode(): Flow<PttTargetMode> = project { it.pttTargetMode }
+
+    /**
+     * Get PTT target mode synchronously.
+     * Reads the in-memory snapshot, safe to call on the hardware PTT key path.
+     */
+    fun getCachedPttTargetMode(): PttTargetMode = _settings.value.pttTargetMode
 
     // Audio Mix Mode
-    suspend fun setAudioMixMode(mode: AudioMixMode) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.AUDIO_MIX_MODE] = mode.name
-        }
-    }
+    suspend fun setAudioMixMode(mode: AudioMixMode) = update { it.copy(audioMixMode = mode) }
 
-    fun getAudioMixMode(): Flow<AudioMixMode> = context.dataStore.data.map { preferences ->
-        val modeName = preferences[Keys.AUDIO_MIX_MODE] ?: AudioMixMode.EQUAL_VOLUME.name
-        try {
-            AudioMixMode.valueOf(modeName)
-        } catch (e: IllegalArgumentException) {
-            AudioMixMode.EQUAL_VOLUME
-        }
-    }
+    fun getAudioMixMode(): Flow<AudioMixMode> = project { it.audioMixMode }
 
     // Volume Key PTT Config
-    suspend fun setVolumeKeyPttConfig(config: VolumeKeyPttConfig) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.VOLUME_KEY_PTT_CONFIG] = config.name
-        }
-    }
+    suspend fun setVolumeKeyPttConfig(config: VolumeKeyPttConfig) = update { it.copy(volumeKeyPttConfig = config) }
 
-    fun getVolumeKeyPttConfig(): Flow<VolumeKeyPttConfig> = context.dataStore.data.map { preferences ->
-        val configName = preferences[Keys.VOLUME_KEY_PTT_CONFIG] ?: VolumeKeyPttConfig.DISABLED.name
-        try {
-            VolumeKeyPttConfig.valueOf(configName)
-        } catch (e: IllegalArgumentException) {
-            VolumeKeyPttConfig.DISABLED
-        }
-    }
+    fun getVolumeKeyPttConfig(): Flow<VolumeKeyPttConfig> = project { it.volumeKeyPttConfig }
 
     /**
      * Get volume key PTT config synchronously.
-     * Safe to call from key event handler on main thread - DataStore caches after first read.
+     * Reads the in-memory snapshot, safe to call from the key event handler on the main thread.
      */
-    fun getCachedVolumeKeyPttConfig(): VolumeKeyPttConfig = runBlocking {
-        val configName = context.dataStore.data.first()[Keys.VOLUME_KEY_PTT_CONFIG] ?: VolumeKeyPttConfig.DISABLED.name
-        try {
-            VolumeKeyPttConfig.valueOf(configName)
-        } catch (e: IllegalArgumentException) {
-            VolumeKeyPttConfig.DISABLED
-        }
-    }
+    fun getCachedVolumeKeyPttConfig(): VolumeKeyPttConfig = _settings.value.volumeKeyPttConfig
 
     // Bluetooth PTT Button Keycode
-    suspend fun setBluetoothPttButtonKeycode(keycode: Int) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.BLUETOOTH_PTT_BUTTON_KEYCODE] = keycode
-        }
-    }
+    suspend fun setBluetoothPttButtonKeycode(keycode: Int) = update { it.copy(bluetoothPttButtonKeycode = keycode) }
 
-    fun getBluetoothPttButtonKeycode(): Flow<Int> = context.dataStore.data.map { preferences ->
-        preferences[Keys.BLUETOOTH_PTT_BUTTON_KEYCODE] ?: KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE
-    }
+    fun getBluetoothPttButtonKeycode(): Flow<Int> = project { it.bluetoothPttButtonKeycode }
 
     // Bluetooth PTT Enabled
-    suspend fun setBluetoothPttEnabled(enabled: Boolean) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.BLUETOOTH_PTT_ENABLED] = enabled
-        }
-    }
+    suspend fun setBluetoothPttEnabled(enabled: Boolean) = update { it.copy(bluetoothPttEnabled = enabled) }
 
-    fun getBluetoothPttEnabled(): Flow<Boolean> = context.dataStore.data.map { preferences ->
-        preferences[Keys.BLUETOOTH_PTT_ENABLED] ?: false
-    }
+    fun getBluetoothPttEnabled(): Flow<Boolean> = project { it.bluetoothPttEnabled }
 
     // Boot Auto-Start Enabled
-    suspend fun setBootAutoStartEnabled(enabled: Boolean) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.BOOT_AUTO_START_ENABLED] = enabled
-        }
-    }
+    suspend fun setBootAutoStartEnabled(enabled: Boolean) = update { it.copy(bootAutoStartEnabled = enabled) }
 
-    fun getBootAutoStartEnabled(): Flow<Boolean> = context.dataStore.data.map { preferences ->
-        preferences[Keys.BOOT_AUTO_START_ENABLED] ?: false
-    }
+    fun getBootAutoStartEnabled(): Flow<Boolean> = project { it.bootAutoStartEnabled }
 
     // Long Press Threshold
-    suspend fun setLongPressThresholdMs(thresholdMs: Int) {
-        context.dataStore.edit { preferences ->
-            preferences[Keys.LONG_PRESS_THRESHOLD_MS] = thresholdMs
-        }
-    }
+    suspend fun setLongPressThresholdMs(thresholdMs: Int) = update { it.copy(longPressThresholdMs = thresholdMs) }
 
-    fun getLongPressThresholdMs(): Flow<Int> = context.dataStore.data.map { preferences ->
-        preferences[Keys.LONG_PRESS_THRESHOLD_MS] ?: 300
-    }
+    fun getLongPressThresholdMs(): Flow<Int> = project { it.longPressThresholdMs }
 
     /**
      * Get long press threshold synchronously.
-     * Safe to call from key event handler on main thread - DataStore caches after first read.
+     * Reads the in-memory snapshot, safe to call from the key event handler on the main thread.
      */
-    fun getCachedLongPressThresholdMs(): Int = runBlocking {
-        context.dataStore.data.first()[Keys.LONG_PRESS_THRESHOLD_MS] ?: 300
-    }
+    fun getCachedLongPressThresholdMs(): Int = _settings.value.longPressThresholdMs
 
     /**
      * Clear all monitored channels and primary channel setting.
      * Used on logout or disconnect.
      */
-    suspend fun clearMonitoredChannels() {
-        context.dataStore.edit { preferences ->
-            preferences.remove(Keys.MONITORED_CHANNEL_IDS)
-            preferences.remove(Keys.PRIMARY_CHANNEL_ID)
+    suspend fun clearMonitoredChannels() = update {
+        it.copy(monitoredChannelIds = emptySet(), primaryChannelId = null)
+    }
+
+    private fun Preferences.toSettings(): Settings {
+        val defaults = Settings()
+        return Settings(
+            pttMode = enumOrDefault(this[Keys.PTT_MODE], defaults.pttMode),
+            toggleMaxDurationSeconds = this[Keys.TOGGLE_MAX_DURATION] ?: defaults.toggleMaxDurationSeconds,
+            instantPttEnabled = this[Keys.INSTANT_PTT_ENABLED] ?: defaults.instantPttEnabled,
+            speculativePttEnabled = this[Keys.SPECULATIVE_PTT_ENABLED] ?: defaults.speculativePttEnabled,
+            audioRoute = enumOrDefault(this[Keys.AUDIO_ROUTE], defaults.audioRoute),
+            pttStartToneEnabled = this[Keys.PTT_START_TONE_ENABLED] ?: defaults.pttStartToneEnabled,
+            rogerBeepEnabled = this[Keys.ROGER_BEEP_ENABLED] ?: defaults.rogerBeepEnabled,
+            rxSquelchEnabled = this[Keys.RX_SQUELCH_ENABLED] ?: defaults.rxSquelchEnabled,
+            monitoredChannelIds = this[Keys.MONITORED_CHANNEL_IDS] ?: defaults.monitoredChannelIds,
+            primaryChannelId = this[Keys.PRIMARY_CHANNEL_ID],
+            scanModeEnabled = this[Keys.SCAN_MODE_ENABLED] ?: defaults.scanModeEnabled,
+            scanReturnDelaySeconds = this[Keys.SCAN_RETURN_DELAY] ?: defaults.scanReturnDelaySeconds,
+            pttTargetMode = enumOrDefault(this[Keys.PTT_TARGET_MODE], defaults.pttTargetMode),
+            audioMixMode = enumOrDefault(this[Keys.AUDIO_MIX_MODE], defaults.audioMixMode),
+            volumeKeyPttConfig = enumOrDefault(this[Keys.VOLUME_KEY_PTT_CONFIG], defaults.volumeKeyPttConfig),
+            bluetoothPttButtonKeycode = this[Keys.BLUETOOTH_PTT_BUTTON_KEYCODE] ?: defaults.bluetoothPttButtonKeycode,
+            bluetoothPttEnabled = this[Keys.BLUETOOTH_PTT_ENABLED] ?: defaults.bluetoothPttEnabled,
+            bootAutoStartEnabled = this[Keys.BOOT_AUTO_START_ENABLED] ?: defaults.bootAutoStartEnabled,
+            longPressThresholdMs = this[Keys.LONG_PRESS_THRESHOLD_MS] ?: defaults.longPressThresholdMs
+        )
+    }
+
+    private fun Settings.writeChanges(old: Settings, preferences: MutablePreferences) {
+        if (pttMode != old.pttMode) preferences[Keys.PTT_MODE] = pttMode.name
+        if (toggleMaxDurationSeconds != old.toggleMaxDurationSeconds) preferences[Keys.TOGGLE_MAX_DURATION] = toggleMaxDurationSeconds
+        if (instantPttEnabled != old.instantPttEnabled) preferences[Keys.INSTANT_PTT_ENABLED] = instantPttEnabled
+        if (speculativePttEnabled != old.speculativePttEnabled) preferences[Keys.SPECULATIVE_PTT_ENABLED] = speculativePttEnabled
+        if (audioRoute != old.audioRoute) preferences[Keys.AUDIO_ROUTE] = audioRoute.name
+        if (pttStartToneEnabled != old.pttStartToneEnabled) preferences[Keys.PTT_START_TONE_ENABLED] = pttStartToneEnabled
+        if (rogerBeepEnabled != old.rogerBeepEnabled) preferences[Keys.ROGER_BEEP_ENABLED] = rogerBeepEnabled
+        if (rxSquelchEnabled != old.rxSquelchEnabled) preferences[Keys.RX_SQUELCH_ENABLED] = rxSquelchEnabled
+        if (monitoredChannelIds != old.monitoredChannelIds) {
+            if (monitoredChannelIds.isEmpty()) {
+                preferences.remove(Keys.MONITORED_CHANNEL_IDS)
+            } else {
+                preferences[Keys.MONITORED_CHANNEL_IDS] = monitoredChannelIds
+            }
+        }
+        if (primaryChannelId != old.primaryChannelId) {
+            val primary = primaryChannelId
+            if (primary == null) {
+                preferences.remove(Keys.PRIMARY_CHANNEL_ID)
+            } else {
+                preferences[Keys.PRIMARY_CHANNEL_ID] = primary
+            }
+        }
+        if (scanModeEnabled != old.scanModeEnabled) preferences[Keys.SCAN_MODE_ENABLED] = scanModeEnabled
+        if (scanReturnDelaySeconds != old.scanReturnDelaySeconds) preferences[Keys.SCAN_RETURN_DELAY] = scanReturnDelaySeconds
+        if (pttTargetMode != old.pttTargetMode) preferences[Keys.PTT_TARGET_MODE] = pttTargetMode.name
+        if (audioMixMode != old.audioMixMode) preferences[Keys.AUDIO_MIX_MODE] = audioMixMode.name
+        if (volumeKeyPttConfig != old.volumeKeyPttConfig) preferences[Keys.VOLUME_KEY_PTT_CONFIG] = volumeKeyPttConfig.name
+        if (bluetoothPttButtonKeycode != old.bluetoothPttButtonKeycode) preferences[Keys.BLUETOOTH_PTT_BUTTON_KEYCODE] = bluetoothPttButtonKeycode
+        if (bluetoothPttEnabled != old.bluetoothPttEnabled) preferences[Keys.BLUETOOTH_PTT_ENABLED] = bluetoothPttEnabled
+        if (bootAutoStartEnabled != old.bootAutoStartEnabled) preferences[Keys.BOOT_AUTO_START_ENABLED] = bootAutoStartEnabled
+        if (longPressThresholdMs != old.longPressThresholdMs) preferences[Keys.LONG_PRESS_THRESHOLD_MS] = longPressThresholdMs
+    }
+
+    private inline fun <reified T : Enum<T>> enumOrDefault(name: String?, default: T): T {
+        if (name == null) return default
+        return try {
+            enumValueOf<T>(name)
+        } catch (e: IllegalArgumentException) {
+            default
         }
     }
+
+    companion object {
+        private const val TAG = "SettingsRepository"
+        private const val READ_RETRY_BASE_MS = 500L // Doubles per failed read
+        private const val READ_RETRY_MAX_MS = 10_000L
+    }
 }
@@ -3,7 +3,10 @@ package com.voiceping.android.data.storage
 import android.content.Context
 import androidx.security.crypto.EncryptedSharedPreferences
 import androidx.security.crypto.MasterKey
+import androidx.tracing.trace
+import com.voiceping.android.data.startup.InitStage
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.flow.StateFlow
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -11,17 +14,35 @@ import javax.inject.Singleton
 class TokenManager @Inject constructor(
     @ApplicationContext private val context: Context
 ) {
-    private val masterKey = MasterKey.Builder(context)
-        .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
-        .build()
-
-    private val encryptedPrefs = EncryptedSharedPreferences.create(
-        context,
-        "voiceping_secure_prefs",
-        masterKey,
-        EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
-        EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM
-    )
+    // Keystore key + Tink keyset load: one of the slowest steps of cold start on low-end
+    // devices, so it is built on a background dispatcher instead of in the constructor
+    private val prefsStage = InitStage("encryptedPrefs") {
+        trace("VP:TokenManager.encryptedPrefs") {
+            val masterKey = MasterKey.Builder(context)
+                .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
+                .build()
+
+            EncryptedSharedPreferences.create(
+                context,
+                "voiceping_secure_prefs",
+                masterKey,
+                EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
+                EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM
+            )
+        }
+    }
+
+    // Blocks only if read before the stage completes (callers should awaitReady() first)
+    private val encryptedPrefs
+        get() = prefsStage.getBlocking()
+
+    /** True once the encrypted preferences are open. */
+    val isReady: StateFlow<Boolean> = prefsStage.isReady
+
+    /** Open the encrypted preferences (off the caller's thread) and wait for them. */
+    suspend fun awaitReady() {
+        prefsStage.await()
+    }
 
     fun saveToken(token: String) {
         encryptedPrefs.edit()
@@ -2,6 +2,7 @@ package com.voiceping.android.di
 
 import android.content.Context
 import androidx.room.Room
+import androidx.tracing.trace
 import com.google.gson.Gson
 import com.google.gson.GsonBuilder
 import com.google.gson.ToNumberPolicy
@@ -12,6 +13,7 @@ import com.voiceping.android.data.database.VoicePingDatabase
 import com.voiceping.android.data.network.dto.SignalingType
 import com.voiceping.android.data.database.dao.ChannelDao
 import com.voiceping.android.data.database.dao.EventDao
+import com.voiceping.android.data.database.dao.TransmissionHistoryDao
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
@@ -114,12 +116,12 @@ object AppModule {
 
     @Provides
     @Singleton
-    fun provideOkHttpClient(cookieJar: SessionCookieJar): OkHttpClient {
+    fun provideOkHttpClient(cookieJar: SessionCookieJar): OkHttpClient = trace("VP:OkHttp.build") {
         val loggingInterceptor = HttpLoggingInterceptor().apply {
             level = HttpLoggingInterceptor.Level.BODY
         }
 
-        return OkHttpClient.Builder()
+        OkHttpClient.Builder()
             .cookieJar(cookieJar)
             .addInterceptor(loggingInterceptor)
             .connectTimeout(30, TimeUnit.SECONDS)
@@ -130,8 +132,8 @@ object AppModule {
 
     @Provides
     @Singleton
-    fun provideDatabase(@ApplicationContext context: Context): VoicePingDatabase {
-        return Room.databaseBuilder(
+    fun provideDatabase(@ApplicationContext context: Context): VoicePingDatabase = trace("VP:Room.build") {
+        Room.databaseBuilder(
             context,
             VoicePingDatabase::class.java,
             "voiceping_db"
@@ -148,4 +150,9 @@ object AppModule {
     fun provideChannelDao(database: VoicePingDatabase): ChannelDao {
         return database.channelDao()
     }
+
+    @Provides
+    fun provideTransmissionHistoryDao(database: VoicePingDatabase): TransmissionHistoryDao {
+        return database.transmissionHistoryDao()
+    }
 }
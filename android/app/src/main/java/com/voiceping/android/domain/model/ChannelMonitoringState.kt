@@ -15,7 +15,7 @@ data class ChannelMonitoringState(
     val currentSpeaker: User? = null,
     val lastSpeaker: User? = null,
     val speakerStartTime: Long = 0L,  // System.currentTimeMillis() when speaker started
-    val consumerId: String? = null,     // mediasoup consumer ID for this channel
+    val consumerId: String? = null,     // Current speaker's producer ID (consumed on unmute); consumer IDs: ChannelRepository.activeConsumers
     val volume: Float = 1.0f,          // 0.0-1.0 range for per-channel volume
     val userCount: Int = 0             // number of users connected to this channel
 )
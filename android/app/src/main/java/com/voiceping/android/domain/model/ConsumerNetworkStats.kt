@@ -2,18 +2,22 @@ package com.voiceping.android.domain.model
 
 /**
  * Network quality metrics from WebRTC consumer statistics.
- * Parsed from RTCStatsReport inbound-rtp entries.
+ * Parsed from RTCStatsReport inbound-rtp entries, smoothed over a short sliding window.
  *
- * @param packetsLost Cumulative packets lost
- * @param jitter Inter-arrival jitter in seconds (convert to ms for display)
- * @param packetsReceived Total packets received (for loss percentage calc)
+ * @param packetsLost Packets lost within the window
+ * @param jitter Inter-arrival jitter in seconds, averaged over the window (convert to ms for display)
+ * @param packetsReceived Packets received within the window (for loss percentage calc)
  * @param indicator Quality indicator: "Good", "Fair", or "Poor"
+ * @param concealmentPercentage Share of played samples that were concealed (PLC) within the window
+ * @param jitterBufferDelayMs Average time a sample spent in the jitter buffer within the window
  */
 data class ConsumerNetworkStats(
     val packetsLost: Long = 0,
     val jitter: Double = 0.0,
     val packetsReceived: Long = 0,
-    val indicator: String = "Good"
+    val indicator: String = "Good",
+    val concealmentPercentage: Double = 0.0,
+    val jitterBufferDelayMs: Int = 0
 ) {
     val lossPercentage: Double
         get() = if (packetsReceived + packetsLost > 0) {
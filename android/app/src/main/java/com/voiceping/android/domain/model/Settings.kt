@@ -0,0 +1,35 @@
+package com.voiceping.android.domain.model
+
+/**
+ * All user settings as one immutable snapshot (see SettingsRepository.settings).
+ *
+ * Defaults match a fresh install.
+ */
+data class Settings(
+    // PTT
+    val pttMode: PttMode = PttMode.PRESS_AND_HOLD,
+    val toggleMaxDurationSeconds: Int = 60,
+    val instantPttEnabled: Boolean = false,
+    val speculativePttEnabled: Boolean = false,
+
+    // Audio
+    val audioRoute: AudioRoute = AudioRoute.SPEAKER,
+    val pttStartToneEnabled: Boolean = true,
+    val rogerBeepEnabled: Boolean = true,
+    val rxSquelchEnabled: Boolean = false,
+
+    // Multi-channel monitoring and scan mode
+    val monitoredChannelIds: Set<String> = emptySet(),
+    val primaryChannelId: String? = null,
+    val scanModeEnabled: Boolean = true,
+    val scanReturnDelaySeconds: Int = 2,
+    val pttTargetMode: PttTargetMode = PttTargetMode.ALWAYS_PRIMARY,
+    val audioMixMode: AudioMixMode = AudioMixMode.EQUAL_VOLUME,
+
+    // Hardware buttons
+    val volumeKeyPttConfig: VolumeKeyPttConfig = VolumeKeyPttConfig.DISABLED,
+    val bluetoothPttButtonKeycode: Int = 85, // KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE
+    val bluetoothPttEnabled: Boolean = false,
+    val bootAutoStartEnabled: Boolean = false,
+    val longPressThresholdMs: Int = 300
+)
@@ -4,9 +4,10 @@ package com.voiceping.android.domain.model
  * Single transmission history entry for a channel.
  *
  * Captures speaker name, duration, and timestamp for UX-03 transmission history feature.
- * Session-only (in-memory), clears on app restart.
+ * Persisted in Room (see TransmissionHistoryRepository for retention).
  */
 data class TransmissionHistoryEntry(
+    val id: Long = 0,               // Row id once stored (0 until then)
     val speakerName: String,
     val timestamp: Long,           // System.currentTimeMillis() when transmission ended
     val durationSeconds: Int,       // Duration in seconds
@@ -8,7 +8,10 @@ import androidx.activity.enableEdgeToEdge
 import androidx.compose.foundation.layout.fillMaxSize
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.Surface
+import androidx.compose.ui.ExperimentalComposeUiApi
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.semantics.semantics
+import androidx.compose.ui.semantics.testTagsAsResourceId
 import androidx.navigation.compose.rememberNavController
 import com.voiceping.android.data.hardware.HardwareKeyHandler
 import com.voiceping.android.data.ptt.PttManager
@@ -16,6 +19,7 @@ import com.voiceping.android.data.repository.ChannelRepository
 import com.voiceping.android.data.storage.PreferencesManager
 import com.voiceping.android.presentation.navigation.NavGraph
 import com.voiceping.android.presentation.theme.VoicePingTheme
+import dagger.Lazy
 import dagger.hilt.android.AndroidEntryPoint
 import javax.inject.Inject
 
@@ -28,31 +32,37 @@ class MainActivity : ComponentActivity() {
     @Inject
     lateinit var hardwareKeyHandler: HardwareKeyHandler
 
+    // Lazy: PTT + repository graph (mediasoup, audio, signaling) is built off the main
+    // thread by AppInitializer; only resolved here on the first hardware PTT press
     @Inject
-    lateinit var pttManager: PttManager
+    lateinit var pttManager: Lazy<PttManager>
 
     @Inject
-    lateinit var channelRepository: ChannelRepository
+    lateinit var channelRepository: Lazy<ChannelRepository>
 
+    @OptIn(ExperimentalComposeUiApi::class)
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
         enableEdgeToEdge()
 
         // Wire hardware PTT callbacks
         hardwareKeyHandler.onPttPress = {
-            val targetChannelId = channelRepository.getHardwarePttTargetChannelId()
+            val targetChannelId = channelRepository.get().getHardwarePttTargetChannelId()
             if (targetChannelId != null) {
-                pttManager.requestPtt(targetChannelId)
+                pttManager.get().requestPtt(targetChannelId)
             }
         }
         hardwareKeyHandler.onPttRelease = {
-            pttManager.releasePtt()
+            pttManager.get().releasePtt()
         }
 
         setContent {
             VoicePingTheme {
                 Surface(
-                    modifier = Modifier.fillMaxSize(),
+                    // Expose test tags to UiAutomator (:macrobenchmark journeys)
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .semantics { testTagsAsResourceId = true },
                     color = MaterialTheme.colorScheme.background
                 ) {
                     val navController = rememberNavController()
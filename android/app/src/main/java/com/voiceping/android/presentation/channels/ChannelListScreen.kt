@@ -16,8 +16,6 @@ import androidx.compose.foundation.layout.fillMaxSize
 import androidx.compose.foundation.layout.padding
 import androidx.compose.foundation.layout.size
 import androidx.compose.foundation.layout.width
-import androidx.compose.foundation.lazy.LazyColumn
-import androidx.compose.foundation.lazy.items
 import androidx.compose.foundation.shape.CircleShape
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.Bluetooth
@@ -47,15 +45,16 @@ import androidx.compose.runtime.rememberUpdatedState
 import androidx.compose.runtime.setValue
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.testTag
 import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
+import androidx.paging.compose.collectAsLazyPagingItems
 import com.voiceping.android.data.ptt.PttState
 import com.voiceping.android.domain.model.ConnectionState
 import com.voiceping.android.presentation.channels.components.BottomBar
-import com.voiceping.android.presentation.channels.components.ChannelRow
+import com.voiceping.android.presentation.channels.components.ChannelSections
 import com.voiceping.android.presentation.channels.components.ChannelVolumeDialog
 import com.voiceping.android.presentation.channels.components.NetworkQualityIndicator
-import com.voiceping.android.presentation.channels.components.TeamHeader
 import com.voiceping.android.presentation.channels.components.TransmissionHistorySheet
 import com.voiceping.android.presentation.shell.ConnectionBanner
 import com.voiceping.android.presentation.shell.ProfileDrawer
@@ -69,18 +68,18 @@ fun ChannelListScreen(
     onSettings: () -> Unit = {},
     onLogout: () -> Unit = {}
 ) {
-    val channels by viewModel.channels.collectAsState()
-    val connectionState by viewModel.connectionState.collectAsState()
-    val monitoredChannels by viewModel.monitoredChannels.collectAsState()
-    val primaryChannelId by viewModel.primaryChannelId.collectAsState()
-    val displayedChannelId by viewModel.displayedChannelId.collectAsState()
-    val scanModeEnabled by viewModel.scanModeEnabled.collectAsState()
-    val scanModeLocked by viewModel.scanModeLocked.collectAsState()
+    // Channel list, PTT, network and scan state: one value, updated at most once per frame
+    val uiState by viewModel.uiState.collectAsState()
+    val connectionState = uiState.connectionState
+    val primaryChannelId = uiState.primaryChannelId
+    val displayedChannelId = uiState.displayedChannelId
+    val scanModeEnabled = uiState.scanModeEnabled
+    val scanModeLocked = uiState.scanModeLocked
+    val pttState = uiState.pttState
     val scanReturnDelay by viewModel.scanReturnDelay.collectAsState()
     val pttTargetMode by viewModel.pttTargetMode.collectAsState()
     val audioMixMode by viewModel.audioMixMode.collectAsState()
     val toastMessage by viewModel.toastMessage.collectAsState()
-    val pttState by viewModel.pttState.collectAsState()
     val pttMode by viewModel.pttMode.collectAsState()
     val audioRoute by viewModel.audioRoute.collectAsState()
     val toggleMaxDuration by viewModel.toggleMaxDuration.collectAsState()
@@ -98,17 +97,15 @@ fun ChannelListScreen(
     val currentOutputDevice by viewModel.currentOutputDevice.collectAsState()
     val showButtonDetection by viewModel.showButtonDetection.collectAsState()
     val detectedKeyCode by viewModel.detectedKeyCode.collectAsState()
-    val latency by viewModel.latency.collectAsState()
-    val networkType by viewModel.networkType.collectAsState()
     val selectedHistoryChannelId by viewModel.selectedHistoryChannelId.collectAsState()
-    val transmissionHistory by viewModel.transmissionHistory.collectAsState()
+    val transmissionHistory = viewModel.transmissionHistory.collectAsLazyPagingItems()
 
     val context = LocalContext.current
     var drawerOpen by remember { mutableStateOf(false) }
     var volumeDialogChannelId by remember { mutableStateOf<String?>(null) }
 
     // Derive displayed channel state for BottomBar
-    val displayedChannel = monitoredChannels[displayedChannelId]
+    val displayedChannel = uiState.displayedChannel
     val displayedChannelName = displayedChannel?.let { "${it.teamName} | ${it.channelName}" }
     val isPrimaryDisplayed = displayedChannel?.isPrimary ?: true
     val displayedSpeaker = displayedChannel?.currentSpeaker
@@ -177,9 +174,7 @@ fun ChannelListScreen(
         val currentDisplayed by rememberUpdatedState(displayedChannelId)
 
         // Find if any non-primary channel has active speaker
-        val anyNonPrimaryActive = monitoredChannels.values.any {
-            it.currentSpeaker != null && !it.isPrimary && !it.isMuted
-        }
+        val anyNonPrimaryActive = uiState.anyNonPrimaryActive
 
         LaunchedEffect(anyNonPrimaryActive) {
             if (!anyNonPrimaryActive && currentDisplayed != null && currentDisplayed != currentPrimary) {
@@ -222,7 +217,7 @@ fun ChannelListScreen(
                     title = { Text("Channels") },
                     actions = {
                         // Mute-all button (only when 2+ channels joined)
-                        if (monitoredChannels.size > 1) {
+                        if (uiState.monitoredCount > 1) {
                             IconButton(onClick = { viewModel.muteAllExceptPrimary() }) {
                                 Icon(Icons.Default.VolumeOff, contentDescription = "Mute all except primary")
                             }
@@ -244,8 +239,8 @@ fun ChannelListScreen(
 
                         // Network quality indicator
                         NetworkQualityIndicator(
-                            latency = latency,
-                            networkType = networkType,
+                            latency = uiState.latency,
+                            networkType = uiState.networkType,
                             serverUrl = viewModel.serverUrl
                         )
 
@@ -304,49 +299,27 @@ fun ChannelListScreen(
                 )
 
                 // Channel list grouped by team
-                val channelsByTeam = channels.groupBy { it.teamName }
-
-                LazyColumn(
-                    modifier = Modifier.fillMaxSize()
-                ) {
-                    channelsByTeam.forEach { (teamName, teamChannels) ->
-                        // Team header
-                        item {
-                            TeamHeader(teamName = teamName)
+                ChannelSections(
+                    sections = uiState.sections,
+                    onToggle = { channel -> viewModel.toggleChannel(channel) },
+                    onLongPress = { row ->
+                        if (row.isJoined) {
+                            viewModel.showTransmissionHistory(row.channel.id)
                         }
-
-                        // Channels in team
-                        items(teamChannels) { channel ->
-                            val channelState = monitoredChannels[channel.id]
-                            ChannelRow(
-                                channel = channel,
-                                isJoined = channelState != null,
-                                isPrimary = channelState?.isPrimary ?: false,
-                                isMuted = channelState?.isMuted ?: false,
-                                currentSpeaker = channelState?.currentSpeaker,
-                                lastSpeaker = channelState?.lastSpeaker,
-                                lastSpeakerVisible = channelState?.lastSpeaker != null,
-                                monitoredUserCount = channelState?.userCount,
-                                onToggle = { viewModel.toggleChannel(channel) },
-                                onLongPress = {
-                                    if (channelState != null) {
-                                        viewModel.showTransmissionHistory(channel.id)
-                                    }
-                                },
-                                onSettingsClick = {
-                                    if (channelState != null) {
-                                        volumeDialogChannelId = channel.id
-                                    }
-                                }
-                            )
+                    },
+                    onSettingsClick = { row ->
+                        if (row.isJoined) {
+                            volumeDialogChannelId = row.channel.id
                         }
-                    }
-                }
+                    },
+                    modifier = Modifier.testTag("channel_list")
+                )
             }
         }
 
         // Volume dialog
         volumeDialogChannelId?.let { channelId ->
+            val monitoredChannels by viewModel.monitoredChannels.collectAsState()
             val channelState = monitoredChannels[channelId]
             if (channelState != null) {
                 ChannelVolumeDialog(
@@ -366,7 +339,7 @@ fun ChannelListScreen(
         // Transmission history sheet
         selectedHistoryChannelId?.let { channelId ->
             val channelName = remember(channelId) {
-                channels.find { it.id == channelId }?.name ?: "Channel"
+                viewModel.channels.value.find { it.id == channelId }?.name ?: "Channel"
             }
             TransmissionHistorySheet(
                 channelName = channelName,
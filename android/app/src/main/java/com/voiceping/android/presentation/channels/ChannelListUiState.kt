@@ -0,0 +1,155 @@
+package com.voiceping.android.presentation.channels
+
+import androidx.compose.runtime.Immutable
+import com.voiceping.android.data.ptt.PttState
+import com.voiceping.android.domain.model.Channel
+import com.voiceping.android.domain.model.ChannelMonitoringState
+import com.voiceping.android.domain.model.ConnectionState
+import com.voiceping.android.domain.model.NetworkType
+import com.voiceping.android.domain.model.User
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.sample
+
+/** Reducer runs at most once per display frame (~60 Hz). */
+const val UI_FRAME_INTERVAL_MS = 16L
+
+/**
+ * One channel row. [key] is the stable LazyColumn key (channel ID).
+ */
+@Immutable
+data class ChannelRowUiState(
+    val channel: Channel,
+    val isJoined: Boolean,
+    val isPrimary: Boolean,
+    val isMuted: Boolean,
+    val currentSpeaker: User?,
+    val lastSpeaker: User?,
+    val userCount: Int?
+) {
+    val key: String
+        get() = channel.id
+}
+
+/**
+ * Channels of one team, in server order. [key] is the stable LazyColumn key of the header.
+ */
+@Immutable
+data class TeamSectionUiState(
+    val teamName: String,
+    val rows: List<ChannelRowUiState>
+) {
+    val key: String
+        get() = "team:$teamName"
+}
+
+/**
+ * Everything the channel list screen renders from repository, PTT, network and scan state,
+ * as one immutable value (see [reduceChannelListUiState]).
+ */
+@Immutable
+data class ChannelListUiState(
+    val sections: List<TeamSectionUiState> = emptyList(),
+    val monitoredCount: Int = 0,
+    val primaryChannelId: String? = null,
+    val displayedChannelId: String? = null,
+    val displayedChannel: ChannelMonitoringState? = null,
+    val anyNonPrimaryActive: Boolean = false,
+    val scanModeEnabled: Boolean = true,
+    val scanModeLocked: Boolean = false,
+    val pttState: PttState = PttState.Idle,
+    val connectionState: ConnectionState = ConnectionState.DISCONNECTED,
+    val latency: Long? = null,
+    val networkType: NetworkType = NetworkType.NONE
+)
+
+/**
+ * Raw inputs of the reducer, combined from the source flows.
+ */
+data class ChannelListInputs(
+    val channels: List<Channel>,
+    val monitored: Map<String, ChannelMonitoringState>,
+    val primaryChannelId: String?,
+    val scanModeEnabled: Boolean,
+    val scanModeLocked: Boolean,
+    val manuallySelectedChannelId: String?,
+    val pttState: PttState,
+    val connectionState: ConnectionState,
+    val latency: Long?,
+    val networkType: NetworkType
+)
+
+/**
+ * Pure reducer: inputs -> screen state.
+ *
+ * Scan logic: a manual lock wins; with scan disabled the primary is shown; otherwise the
+ * most recent active, unmuted non-primary speaker is shown, falling back to the primary.
+ */
+fun reduceChannelListUiState(input: ChannelListInputs): ChannelListUiState {
+    val monitored = input.monitored
+
+    var anyNonPrimaryActive = false
+    var latestNonPrimary: ChannelMonitoringState? = null
+    for (state in monitored.values) {
+        if (state.currentSpeaker == null || state.isPrimary || state.isMuted) continue
+        anyNonPrimaryActive = true
+        if (latestNonPrimary == null || state.speakerStartTime > latestNonPrimary.speakerStartTime) {
+            latestNonPrimary = state
+        }
+    }
+
+    val displayedChannelId = when {
+        monitored.isEmpty() -> null
+        input.scanModeLocked && input.manuallySelectedChannelId != null -> input.manuallySelectedChannelId
+        !input.scanModeEnabled -> input.primaryChannelId
+        else -> latestNonPrimary?.channelId ?: input.primaryChannelId
+    }
+
+    val sections = input.channels
+        .groupBy { it.teamName }
+        .map { (teamName, teamChannels) ->
+            TeamSectionUiState(
+                teamName = teamName,
+                rows = teamChannels.map { channel ->
+                    val state = monitored[channel.id]
+                    ChannelRowUiState(
+                        channel = channel,
+                        isJoined = state != null,
+                        isPrimary = state?.isPrimary ?: false,
+                        isMuted = state?.isMuted ?: false,
+                        currentSpeaker = state?.currentSpeaker,
+                        lastSpeaker = state?.lastSpeaker,
+                        userCount = state?.userCount
+                    )
+                }
+            )
+        }
+
+    return ChannelListUiState(
+        sections = sections,
+        monitoredCount = monitored.size,
+        primaryChannelId = input.primaryChannelId,
+        displayedChannelId = displayedChannelId,
+        displayedChannel = displayedChannelId?.let { monitored[it] },
+        anyNonPrimaryActive = anyNonPrimaryActive,
+        scanModeEnabled = input.scanModeEnabled,
+        scanModeLocked = input.scanModeLocked,
+        pttState = input.pttState,
+        connectionState = input.connectionState,
+        latency = input.latency,
+        networkType = input.networkType
+    )
+}
+
+/**
+ * Sample inputs at frame rate and reduce: a burst of speaker / user-count events between
+ * two frames costs one reduction and at most one recomposition.
+ */
+@OptIn(FlowPreview::class)
+fun Flow<ChannelListInputs>.toChannelListUiState(): Flow<ChannelListUiState> {
+    return sample(UI_FRAME_INTERVAL_MS)
+        .map(::reduceChannelListUiState)
+        .distinctUntilChanged()
+}
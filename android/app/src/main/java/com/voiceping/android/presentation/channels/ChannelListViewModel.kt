@@ -5,10 +5,13 @@ import android.util.Log
 import androidx.lifecycle.SavedStateHandle
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
 import com.voiceping.android.BuildConfig
 import com.voiceping.android.data.audio.AudioRouter
-import com.voiceping.android.data.network.MediasoupClient
+import com.voiceping.android.data.network.ConsumerStatsCollector
 import com.voiceping.android.data.network.NetworkMonitor
+import com.voiceping.android.data.network.networkQualityByChannel
 import com.voiceping.android.data.network.SignalingClient
 import com.voiceping.android.data.ptt.PttManager
 import com.voiceping.android.data.ptt.PttState
@@ -31,19 +34,18 @@ import com.voiceping.android.domain.model.TransmissionHistoryEntry
 import com.voiceping.android.domain.model.VolumeKeyPttConfig
 import dagger.hilt.android.lifecycle.HiltViewModel
 import dagger.hilt.android.qualifiers.ApplicationContext
-import kotlinx.coroutines.Job
-import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.flatMapLatest
-import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.stateIn
-import kotlinx.coroutines.isActive
 import kotlinx.coroutines.launch
 import javax.inject.Inject
 
@@ -59,7 +61,7 @@ class ChannelListViewModel @Inject constructor(
     private val networkMonitor: NetworkMonitor,
     private val transmissionHistoryRepository: TransmissionHistoryRepository,
     private val tokenManager: com.voiceping.android.data.storage.TokenManager,
-    private val mediasoupClient: MediasoupClient,
+    private val consumerStatsCollector: ConsumerStatsCollector,
     @ApplicationContext private val context: Context,
     savedStateHandle: SavedStateHandle
 ) : ViewModel() {
@@ -130,28 +132,51 @@ class ChannelListViewModel @Inject constructor(
 
     private val _manuallySelectedChannelId = MutableStateFlow<String?>(null)
 
-    // Derive displayed channel ID (core scan logic)
-    val displayedChannelId: StateFlow<String?> = combine(
-        monitoredChannels,
-        primaryChannelId,
-        _scanModeLocked,
-        _manuallySelectedChannelId,
-        scanModeEnabled
-    ) { channels, primary, locked, manual, scanEnabled ->
-        when {
-            channels.isEmpty() -> null
-            locked && manual != null -> manual  // Manual lock takes priority
-            !scanEnabled -> primary  // Scan disabled, show primary
-            else -> {
-                // Scan mode: find most recent active non-primary speaker
-                val activeNonPrimary = channels.values
-                    .filter { it.currentSpeaker != null && !it.isPrimary && !it.isMuted }
-                    .sortedByDescending { it.speakerStartTime }
-
-                activeNonPrimary.firstOrNull()?.channelId ?: primary
-            }
+    // Network quality indicator
+    val latency: StateFlow<Long?> = signalingClient.latency
+    val networkType: StateFlow<NetworkType> = networkMonitor.networkType
+    val serverUrl: String = BuildConfig.SERVER_URL
+
+    // Single screen state: repository, PTT, network and scan inputs reduced at frame rate
+    val uiState: StateFlow<ChannelListUiState> = combine(
+        combine(channels, monitoredChannels, primaryChannelId) { channels, monitored, primary ->
+            Triple(channels, monitored, primary)
+        },
+        combine(scanModeEnabled, _scanModeLocked, _manuallySelectedChannelId) { enabled, locked, manual ->
+            Triple(enabled, locked, manual)
+        },
+        combine(pttState, connectionState, latency, networkType) { ptt, connection, latency, networkType ->
+            LiveInputs(ptt, connection, latency, networkType)
         }
-    }.stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), null)
+    ) { (channels, monitored, primary), (scanEnabled, locked, manual), live ->
+        ChannelListInputs(
+            channels = channels,
+            monitored = monitored,
+            primaryChannelId = primary,
+            scanModeEnabled = scanEnabled,
+            scanModeLocked = locked,
+            manuallySelectedChannelId = manual,
+            pttState = live.pttState,
+            connectionState = live.connectionState,
+            latency = live.latency,
+            networkType = live.networkType
+        )
+    }
+        .toChannelListUiState()
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), ChannelListUiState())
+
+    private data class LiveInputs(
+        val pttState: PttState,
+        val connectionState: ConnectionState,
+        val latency: Long?,
+        val networkType: NetworkType
+    )
+
+    // Displayed channel ID (core scan logic, see reduceChannelListUiState)
+    val displayedChannelId: StateFlow<String?> = uiState
+        .map { it.displayedChannelId }
+        .distinctUntilChanged()
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), null)
 
     // Toast message for user feedback
     private val _toastMessage = MutableStateFlow<String?>(null)
@@ -166,32 +191,28 @@ class ChannelListViewModel @Inject constructor(
     val showBatteryOptimizationPrompt: StateFlow<Boolean> = _showBatteryOptimizationPrompt.asStateFlow()
     private var hasCheckedBatteryOptimization = false
 
-    // Network quality indicator
-    val latency: StateFlow<Long?> = signalingClient.latency
-    val networkType: StateFlow<NetworkType> = networkMonitor.networkType
-    val serverUrl: String = BuildConfig.SERVER_URL
-
-    // Network quality per channel: channelId -> ConsumerNetworkStats
-    private val _networkQuality = MutableStateFlow<Map<String, ConsumerNetworkStats>>(emptyMap())
-    val networkQuality: StateFlow<Map<String, ConsumerNetworkStats>> = _networkQuality.asStateFlow()
-
-    // Active polling jobs tracker
-    private val networkQualityJobs = mutableMapOf<String, Job>()
+    // Network quality per channel: channelId -> ConsumerNetworkStats (active consumers only)
+    val networkQuality: StateFlow<Map<String, ConsumerNetworkStats>> = combine(
+        channelRepository.activeConsumers,
+        consumerStatsCollector.stats
+    ) { consumers, statsByConsumer ->
+        networkQualityByChannel(consumers, statsByConsumer)
+    }.stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), emptyMap())
 
     // Transmission history
     private val _selectedHistoryChannelId = MutableStateFlow<String?>(null)
     val selectedHistoryChannelId: StateFlow<String?> = _selectedHistoryChannelId.asStateFlow()
 
     @OptIn(ExperimentalCoroutinesApi::class)
-    val transmissionHistory: StateFlow<List<TransmissionHistoryEntry>> = _selectedHistoryChannelId
+    val transmissionHistory: Flow<PagingData<TransmissionHistoryEntry>> = _selectedHistoryChannelId
         .flatMapLatest { channelId ->
             if (channelId != null) {
                 transmissionHistoryRepository.observeHistory(channelId)
             } else {
-                flowOf(emptyList())
+                flowOf(PagingData.empty())
             }
         }
-        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), emptyList())
+        .cachedIn(viewModelScope)
 
     private val eventId: String? = savedStateHandle.get<String>("eventId")
         ?: preferencesManager.getLastEventId()
@@ -221,31 +242,10 @@ class ChannelListViewModel @Inject constructor(
             }
         }
 
-        // Observe monitored channels for network quality polling lifecycle
+        // Track active consumers for network quality (one batched sampling tick for all)
         viewModelScope.launch {
-            monitoredChannels.collect { channels ->
-                channels.forEach { (channelId, state) ->
-                    val hasActiveConsumer = state.currentSpeaker != null && state.consumerId != null
-                    val isPollingActive = networkQualityJobs.containsKey(channelId)
-
-                    when {
-                        hasActiveConsumer && !isPollingActive -> {
-                            // Start polling for new active consumer
-                            startNetworkQualityPolling(channelId, state.consumerId!!)
-                        }
-                        !hasActiveConsumer && isPollingActive -> {
-                            // Stop polling when consumer becomes inactive
-                            stopNetworkQualityPolling(channelId)
-                        }
-                    }
-                }
-
-                // Stop polling for channels that are no longer monitored
-                networkQualityJobs.keys.toList().forEach { channelId ->
-                    if (!channels.containsKey(channelId)) {
-                        stopNetworkQualityPolling(channelId)
-                    }
-                }
+            channelRepository.activeConsumers.collect { consumers ->
+                consumerStatsCollector.track(consumers.values.flatMapTo(mutableSetOf()) { it })
             }
         }
     }
@@ -505,41 +505,10 @@ class ChannelListViewModel @Inject constructor(
         _selectedHistoryChannelId.value = null
     }
 
-    /**
-     * Start polling network quality for a channel's active consumer.
-     * Polls every 5 seconds while the consumer is active.
-     */
-    private fun startNetworkQualityPolling(channelId: String, consumerId: String) {
-        // Cancel existing polling for this channel
-        networkQualityJobs[channelId]?.cancel()
-
-        networkQualityJobs[channelId] = viewModelScope.launch {
-            while (isActive) {
-                delay(5000) // Poll every 5 seconds
-
-                mediasoupClient.getConsumerStats(consumerId)?.let { stats ->
-                    _networkQuality.update { current ->
-                        current + (channelId to stats)
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Stop polling network quality for a channel.
-     */
-    private fun stopNetworkQualityPolling(channelId: String) {
-        networkQualityJobs[channelId]?.cancel()
-        networkQualityJobs.remove(channelId)
-        _networkQuality.update { it - channelId }
-    }
-
     override fun onCleared() {
         super.onCleared()
-        // Clean up network quality polling jobs
-        networkQualityJobs.values.forEach { it.cancel() }
-        networkQualityJobs.clear()
+        // Stop network quality sampling
+        consumerStatsCollector.track(emptySet())
         // Disconnect from all channels on ViewModel cleanup
         channelRepository.disconnectAll()
         // Stop NetworkMonitor
@@ -51,7 +51,8 @@ fun ChannelRow(
     monitoredUserCount: Int? = null,
     onToggle: () -> Unit,
     onLongPress: () -> Unit,
-    onSettingsClick: () -> Unit = {}
+    onSettingsClick: () -> Unit = {},
+    modifier: Modifier = Modifier
 ) {
     // Determine if this channel is active (has current speaker, and not muted)
     val isActiveChannel = currentSpeaker != null && !isMuted
@@ -77,7 +78,7 @@ fun ChannelRow(
     }
 
     Box(
-        modifier = Modifier.fillMaxWidth()
+        modifier = modifier.fillMaxWidth()
     ) {
         Row(
             modifier = Modifier
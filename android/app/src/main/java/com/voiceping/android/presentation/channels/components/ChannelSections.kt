@@ -0,0 +1,62 @@
+package com.voiceping.android.presentation.channels.components
+
+import androidx.compose.foundation.layout.fillMaxSize
+import androidx.compose.foundation.lazy.LazyColumn
+import androidx.compose.foundation.lazy.items
+import androidx.compose.runtime.Composable
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.testTag
+import com.voiceping.android.domain.model.Channel
+import com.voiceping.android.presentation.channels.ChannelRowUiState
+import com.voiceping.android.presentation.channels.TeamSectionUiState
+
+/**
+ * Channel list grouped by team.
+ *
+ * Rows and headers use stable keys (channel ID / team name), so a speaker change moves no
+ * items and only the changed row recomposes.
+ */
+@Composable
+fun ChannelSections(
+    sections: List<TeamSectionUiState>,
+    onToggle: (Channel) -> Unit,
+    onLongPress: (ChannelRowUiState) -> Unit,
+    onSettingsClick: (ChannelRowUiState) -> Unit,
+    modifier: Modifier = Modifier
+) {
+    LazyColumn(
+        modifier = modifier.fillMaxSize()
+    ) {
+        sections.forEach { section ->
+            // Team header
+            item(key = section.key, contentType = CONTENT_TYPE_HEADER) {
+                TeamHeader(teamName = section.teamName)
+            }
+
+            // Channels in team
+            items(
+                items = section.rows,
+                key = { it.key },
+                contentType = { CONTENT_TYPE_CHANNEL }
+            ) { row ->
+                ChannelRow(
+                    channel = row.channel,
+                    isJoined = row.isJoined,
+                    isPrimary = row.isPrimary,
+                    isMuted = row.isMuted,
+                    currentSpeaker = row.currentSpeaker,
+                    lastSpeaker = row.lastSpeaker,
+                    lastSpeakerVisible = row.lastSpeaker != null,
+                    monitoredUserCount = row.userCount,
+                    onToggle = { onToggle(row.channel) },
+                    onLongPress = { onLongPress(row) },
+                    onSettingsClick = { onSettingsClick(row) },
+                    modifier = Modifier.testTag("channel_row")
+                )
+            }
+        }
+    }
+}
+
+private const val CONTENT_TYPE_HEADER = "team-header"
+private const val CONTENT_TYPE_CHANNEL = "channel"
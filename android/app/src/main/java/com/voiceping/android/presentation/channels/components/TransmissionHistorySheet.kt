@@ -9,7 +9,6 @@ import androidx.compose.foundation.layout.fillMaxWidth
 import androidx.compose.foundation.layout.padding
 import androidx.compose.foundation.layout.size
 import androidx.compose.foundation.lazy.LazyColumn
-import androidx.compose.foundation.lazy.items
 import androidx.compose.foundation.shape.CircleShape
 import androidx.compose.material3.ExperimentalMaterial3Api
 import androidx.compose.material3.ListItem
@@ -22,6 +21,9 @@ import androidx.compose.runtime.remember
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.unit.dp
+import androidx.paging.LoadState
+import androidx.paging.compose.LazyPagingItems
+import androidx.paging.compose.itemKey
 import com.voiceping.android.domain.model.TransmissionHistoryEntry
 import java.text.SimpleDateFormat
 import java.util.Date
@@ -31,18 +33,18 @@ import java.util.Locale
  * Transmission history bottom sheet composable.
  *
  * Access: Long-press on channel row opens this bottom sheet.
- * Content: Shows last 20 transmissions per channel with speaker name, timestamp, and duration.
- * Session only (in-memory): clears on app restart.
+ * Content: Shows the channel's stored transmissions with speaker name, timestamp, and duration.
+ * Paged from Room: rows are loaded as the list scrolls.
  *
  * @param channelName Name of channel for display in title
- * @param history List of transmission entries in reverse chronological order (newest first)
+ * @param history Paged transmission entries in reverse chronological order (newest first)
  * @param onDismiss Callback when bottom sheet is dismissed
  */
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun TransmissionHistorySheet(
     channelName: String,
-    history: List<TransmissionHistoryEntry>,
+    history: LazyPagingItems<TransmissionHistoryEntry>,
     onDismiss: () -> Unit
 ) {
     val sheetState = rememberModalBottomSheetState()
@@ -65,7 +67,7 @@ fun TransmissionHistorySheet(
             )
 
             // History list
-            if (history.isEmpty()) {
+            if (history.itemCount == 0 && history.loadState.refresh is LoadState.NotLoading) {
                 Box(
                     modifier = Modifier
                         .fillMaxWidth()
@@ -82,7 +84,11 @@ fun TransmissionHistorySheet(
                 LazyColumn(
                     modifier = Modifier.fillMaxSize()
                 ) {
-                    items(history) { entry ->
+                    items(
+                        count = history.itemCount,
+                        key = history.itemKey { it.id }
+                    ) { index ->
+                        val entry = history[index] ?: return@items
                         val timestamp = timeFormat.format(Date(entry.timestamp))
                         val duration = "${entry.durationSeconds}s"
 
@@ -3,10 +3,12 @@ package com.voiceping.android.presentation.loading
 import android.util.Log
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.tracing.traceAsync
 import com.voiceping.android.BuildConfig
 import com.voiceping.android.data.network.MediasoupClient
 import com.voiceping.android.data.network.SignalingClient
 import com.voiceping.android.data.repository.AuthRepository
+import com.voiceping.android.data.startup.AppInitializer
 import com.voiceping.android.data.storage.PreferencesManager
 import com.voiceping.android.data.storage.TokenManager
 import com.voiceping.android.domain.model.ConnectionState
@@ -31,7 +33,8 @@ class LoadingViewModel @Inject constructor(
     private val mediasoupClient: MediasoupClient,
     private val preferencesManager: PreferencesManager,
     private val tokenManager: TokenManager,
-    private val authRepository: AuthRepository
+    private val authRepository: AuthRepository,
+    private val appInitializer: AppInitializer
 ) : ViewModel() {
 
     private val _uiState = MutableStateFlow<LoadingUiState>(LoadingUiState.Connecting)
@@ -46,10 +49,13 @@ class LoadingViewModel @Inject constructor(
             try {
                 // 1. Re-establish session with stored credentials (cookies are in-memory,
                 //    so we need to re-login on each app start / Loading screen entry)
+                tokenManager.awaitReady()
                 val credentials = tokenManager.getStoredCredentials()
                 if (credentials != null) {
                     Log.d(TAG, "Re-establishing session with stored credentials")
-                    val loginResult = authRepository.login(credentials.email, credentials.password)
+                    val loginResult = traceAsync("VP:Loading.login", TRACE_COOKIE) {
+                        authRepository.login(credentials.email, credentials.password)
+                    }
                     if (loginResult.isFailure) {
                         _uiState.value = LoadingUiState.Failed("Login failed. Please sign in again.")
                         return@launch
@@ -68,7 +74,9 @@ class LoadingViewModel @Inject constructor(
 
                 // 3. Get router token for the saved event (JWT for WebSocket auth)
                 Log.d(TAG, "Getting router token for event: $savedEventId")
-                val tokenResult = authRepository.getRouterToken(savedEventId)
+                val tokenResult = traceAsync("VP:Loading.routerToken", TRACE_COOKIE) {
+                    authRepository.getRouterToken(savedEventId)
+                }
                 if (tokenResult.isFailure) {
                     Log.w(TAG, "Failed to get router token, clearing saved event", tokenResult.exceptionOrNull())
                     // Event might have been removed or user lost access — go to event picker
@@ -81,18 +89,23 @@ class LoadingViewModel @Inject constructor(
                 val serverUrl = BuildConfig.SERVER_URL
                 val token = tokenResult.getOrThrow()
                 Log.d(TAG, "Connecting to WebSocket: $serverUrl")
-                signalingClient.connect(serverUrl, token)
+                traceAsync("VP:Loading.connectSignaling", TRACE_COOKIE) {
+                    signalingClient.connect(serverUrl, token)
 
-                // 5. Wait for connection to be established (with 15-second timeout)
-                withTimeout(15_000) {
-                    signalingClient.connectionState
-                        .first { it == ConnectionState.CONNECTED }
+                    // 5. Wait for connection to be established (with 15-second timeout)
+                    withTimeout(15_000) {
+                        signalingClient.connectionState
+                            .first { it == ConnectionState.CONNECTED }
+                    }
                 }
 
                 Log.d(TAG, "WebSocket connected, initializing mediasoup")
 
                 // 6. Initialize mediasoup Device
-                mediasoupClient.initialize()
+                traceAsync("VP:Loading.mediasoupInit", TRACE_COOKIE) {
+                    appInitializer.nativeMedia.await()
+                    mediasoupClient.initialize()
+                }
                 Log.d(TAG, "Mediasoup initialized successfully")
 
                 // 7. Emit connected state with saved event ID
@@ -112,5 +125,6 @@ class LoadingViewModel @Inject constructor(
 
     companion object {
         private const val TAG = "LoadingViewModel"
+        private const val TRACE_COOKIE = 0 // Phases are sequential, one connect at a time
     }
 }
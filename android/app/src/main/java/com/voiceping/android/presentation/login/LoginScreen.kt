@@ -9,6 +9,7 @@ import androidx.compose.material3.*
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.testTag
 import androidx.compose.ui.res.painterResource
 import androidx.compose.ui.text.input.PasswordVisualTransformation
 import androidx.compose.ui.unit.dp
@@ -71,7 +72,9 @@ fun LoginScreen(
                     onValueChange = { email = it },
                     label = { Text("Email") },
                     isError = (uiState as? LoginUiState.Error)?.emailError != null,
-                    modifier = Modifier.fillMaxWidth(),
+                    modifier = Modifier
+                        .fillMaxWidth()
+                        .testTag("login_email"),
                     singleLine = true
                 )
 
@@ -96,7 +99,9 @@ fun LoginScreen(
                     label = { Text("Password") },
                     visualTransformation = PasswordVisualTransformation(),
                     isError = (uiState as? LoginUiState.Error)?.passwordError != null,
-                    modifier = Modifier.fillMaxWidth(),
+                    modifier = Modifier
+                        .fillMaxWidth()
+                        .testTag("login_password"),
                     singleLine = true
                 )
 
@@ -131,7 +136,9 @@ fun LoginScreen(
                 Button(
                     onClick = { viewModel.login(email, password) },
                     enabled = uiState !is LoginUiState.Loading,
-                    modifier = Modifier.fillMaxWidth()
+                    modifier = Modifier
+                        .fillMaxWidth()
+                        .testTag("login_button")
                 ) {
                     if (uiState is LoginUiState.Loading) {
                         CircularProgressIndicator(
@@ -6,6 +6,7 @@ import com.voiceping.android.data.storage.TokenManager
 import com.voiceping.android.domain.model.User
 import com.voiceping.android.domain.usecase.LoginUseCase
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
@@ -21,6 +22,17 @@ class LoginViewModel @Inject constructor(
     private val _uiState = MutableStateFlow<LoginUiState>(LoginUiState.Idle)
     val uiState: StateFlow<LoginUiState> = _uiState.asStateFlow()
 
+    // Null until secure storage is open (read off the main thread, not during first frame)
+    private val _hasStoredCredentials = MutableStateFlow<Boolean?>(null)
+    val hasStoredCredentials: StateFlow<Boolean?> = _hasStoredCredentials.asStateFlow()
+
+    init {
+        viewModelScope.launch(Dispatchers.IO) {
+            tokenManager.awaitReady()
+            _hasStoredCredentials.value = tokenManager.getStoredCredentials() != null
+        }
+    }
+
     fun login(email: String, password: String) {
         viewModelScope.launch {
             // Local validation first
@@ -61,10 +73,6 @@ class LoginViewModel @Inject constructor(
             }
         }
     }
-
-    fun checkAutoLogin(): Boolean {
-        return tokenManager.getStoredCredentials() != null
-    }
 }
 
 sealed class LoginUiState {
@@ -1,6 +1,8 @@
 package com.voiceping.android.presentation.navigation
 
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.collectAsState
+import androidx.compose.runtime.getValue
 import androidx.hilt.navigation.compose.hiltViewModel
 import androidx.navigation.NavHostController
 import androidx.navigation.NavType
@@ -32,11 +34,11 @@ fun NavGraph(
     loginViewModel: LoginViewModel = hiltViewModel(),
     preferencesManager: PreferencesManager
 ) {
-    // Determine start destination based on auto-login
-    val startDestination = if (loginViewModel.checkAutoLogin()) {
-        Routes.LOADING
-    } else {
-        Routes.LOGIN
+    // Determine start destination based on auto-login (empty until secure storage is open)
+    val hasStoredCredentials by loginViewModel.hasStoredCredentials.collectAsState()
+    val startDestination = when (hasStoredCredentials ?: return) {
+        true -> Routes.LOADING
+        false -> Routes.LOGIN
     }
 
     NavHost(
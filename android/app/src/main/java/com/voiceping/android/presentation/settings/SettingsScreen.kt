@@ -61,6 +61,8 @@ fun SettingsScreen(
     val bluetoothPttEnabled by viewModel.bluetoothPttEnabled.collectAsState()
     val bluetoothPttButtonKeycode by viewModel.bluetoothPttButtonKeycode.collectAsState()
     val bootAutoStartEnabled by viewModel.bootAutoStartEnabled.collectAsState()
+    val instantPttEnabled by viewModel.instantPttEnabled.collectAsState()
+    val speculativePttEnabled by viewModel.speculativePttEnabled.collectAsState()
 
     Scaffold(
         topBar = {
@@ -153,6 +155,35 @@ fun SettingsScreen(
                 }
             }
 
+            item {
+                ListItem(
+                    headlineContent = { Text("Instant PTT") },
+                    supportingContent = { Text("Keeps the microphone ready on the primary channel so the first word is not clipped") },
+                    trailingContent = {
+                        Switch(
+                            checked = instantPttEnabled,
+                            onCheckedChange = { viewModel.setInstantPttEnabled(it) }
+                        )
+                    }
+                )
+            }
+
+            // Speculative PTT needs the microphone already recording (Instant PTT)
+            if (instantPttEnabled) {
+                item {
+                    ListItem(
+                        headlineContent = { Text("Talk immediately") },
+                        supportingContent = { Text("Start talking at press; audio is held until the channel is granted and discarded if busy") },
+                        trailingContent = {
+                            Switch(
+                                checked = speculativePttEnabled,
+                                onCheckedChange = { viewModel.setSpeculativePttEnabled(it) }
+                            )
+                        }
+                    )
+                }
+            }
+
             item {
                 Spacer(modifier = Modifier.height(16.dp))
                 HorizontalDivider()
@@ -29,6 +29,12 @@ class SettingsViewModel @Inject constructor(
     val toggleMaxDuration: StateFlow<Int> = settingsRepository.getToggleMaxDuration()
         .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), 60)
 
+    val instantPttEnabled: StateFlow<Boolean> = settingsRepository.getInstantPttEnabled()
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), false)
+
+    val speculativePttEnabled: StateFlow<Boolean> = settingsRepository.getSpeculativePttEnabled()
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), false)
+
     // Audio Settings
     val audioRoute: StateFlow<AudioRoute> = settingsRepository.getAudioRoute()
         .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), AudioRoute.SPEAKER)
@@ -77,6 +83,14 @@ class SettingsViewModel @Inject constructor(
         settingsRepository.setToggleMaxDuration(seconds)
     }
 
+    fun setInstantPttEnabled(enabled: Boolean) = viewModelScope.launch {
+        settingsRepository.setInstantPttEnabled(enabled)
+    }
+
+    fun setSpeculativePttEnabled(enabled: Boolean) = viewModelScope.launch {
+        settingsRepository.setSpeculativePttEnabled(enabled)
+    }
+
     // Audio Settings setters
     fun setAudioRoute(route: AudioRoute) = viewModelScope.launch {
         settingsRepository.setAudioRoute(route)
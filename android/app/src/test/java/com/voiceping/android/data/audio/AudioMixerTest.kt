@@ -0,0 +1,96 @@
+package com.voiceping.android.data.audio
+
+import com.voiceping.android.domain.model.AudioMixMode
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Drives [AudioMixer] ramps frame by frame and checks gain curves, ducking and muting.
+ */
+class AudioMixerTest {
+
+    private lateinit var mixer: AudioMixer
+
+    @Before
+    fun setUp() {
+        mixer = AudioMixer()
+        mixer.addChannel(PRIMARY, volume = 1f, isPrimary = true, isMuted = false)
+        mixer.addChannel(SECONDARY, volume = 1f, isPrimary = false, isMuted = false)
+    }
+
+    @Test
+    fun equalVolumeNeverDucks() {
+        mixer.setActive(PRIMARY, true)
+        mixer.setActive(SECONDARY, true)
+        repeat(50) { mixer.tick() }
+
+        assertEquals(BUS_SHARE, mixer.gain(PRIMARY), EPSILON)
+        assertEquals(BUS_SHARE, mixer.gain(SECONDARY), EPSILON)
+    }
+
+    @Test
+    fun primaryPriorityDucksSecondaryWhilePrimaryTalks() {
+        mixer.setMode(AudioMixMode.PRIMARY_PRIORITY)
+        repeat(50) { mixer.tick() }
+        assertEquals(AudioMixer.PRIORITY_GAIN, mixer.gain(SECONDARY), EPSILON)
+
+        mixer.setActive(PRIMARY, true)
+        assertEquals(AudioMixer.DUCKED_GAIN, mixer.targetGain(SECONDARY), EPSILON)
+
+        // Attack: within ~3 time constants (5 frames at 30 ms) the duck is mostly done
+        repeat(5) { mixer.tick() }
+        val duckedRange = AudioMixer.PRIORITY_GAIN - AudioMixer.DUCKED_GAIN
+        assertTrue(mixer.gain(SECONDARY) - AudioMixer.DUCKED_GAIN < 0.1f * duckedRange)
+        assertEquals(1f, mixer.gain(PRIMARY), EPSILON)
+
+        // Release is slower than attack: 5 frames later the secondary is not back yet
+        mixer.setActive(PRIMARY, false)
+        repeat(5) { mixer.tick() }
+        val recovered = (mixer.gain(SECONDARY) - AudioMixer.DUCKED_GAIN) / duckedRange
+        assertTrue(recovered in 0.2f..0.5f)
+
+        repeat(100) { mixer.tick() }
+        assertEquals(AudioMixer.PRIORITY_GAIN, mixer.gain(SECONDARY), 0f)
+        assertTrue(mixer.isSettled)
+    }
+
+    @Test
+    fun gainCurvesAreMonotonicAndSettle() {
+        mixer.setMode(AudioMixMode.PRIMARY_PRIORITY)
+        mixer.setActive(PRIMARY, true)
+
+        var previous = mixer.gain(SECONDARY)
+        var frames = 0
+        while (mixer.tick()) {
+            val current = mixer.gain(SECONDARY)
+            assertTrue("gain rose while ducking", current <= previous)
+            previous = current
+            frames++
+        }
+        assertEquals(AudioMixer.DUCKED_GAIN, previous, 0f)
+        assertTrue("ramp took $frames frames", frames in 3..30)
+        assertFalse(mixer.tick())
+    }
+
+    @Test
+    fun mutedChannelFadesToSilence() {
+        mixer.setMuted(SECONDARY, true)
+        assertEquals(0f, mixer.targetGain(SECONDARY), 0f)
+
+        // Fades out on the attack curve instead of cutting off
+        mixer.tick()
+        assertTrue(mixer.gain(SECONDARY) > 0f)
+        repeat(30) { mixer.tick() }
+        assertEquals(0f, mixer.gain(SECONDARY), 0f)
+    }
+
+    companion object {
+        private const val PRIMARY = "primary"
+        private const val SECONDARY = "secondary"
+        private const val EPSILON = 0.002f
+        private const val BUS_SHARE = AudioMixer.BUS_HEADROOM / 2 // Two active channels at full volume
+    }
+}
@@ -0,0 +1,51 @@
+package com.voiceping.android.data.audio
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * Checks the [ToneBank] layout and the marker positions [TonePlayer] sets for back-to-back cues.
+ */
+class ToneBankTest {
+
+    private val bank = ToneBank(SAMPLE_RATE)
+
+    @Test
+    fun cuesDoNotOverlapAndEndInSilence() {
+        var previousEnd = 0
+        for (cue in ToneCue.entries) {
+            if (cue.ordinal > 0) assertTrue("$cue overlaps the previous guard", bank.startFrame(cue) > previousEnd)
+            assertEquals(cue.segments.sumOf { SAMPLE_RATE * it.durationMs / 1000 }, bank.frameCount(cue))
+            previousEnd = bank.endFrame(cue)
+        }
+        for (frame in previousEnd until bank.pcm.size) {
+            assertEquals(0, bank.pcm[frame].toInt())
+        }
+    }
+
+    @Test
+    fun repeatedCuesEndAfterOneCueLength() {
+        // Static-track head counts frames played since stop: it keeps growing across cues
+        val cues = listOf(ToneCue.PTT_START, ToneCue.ROGER_BEEP, ToneCue.PTT_START, ToneCue.ERROR, ToneCue.PTT_START)
+        var head = 0
+        for (cue in cues) {
+            val marker = bank.markerPosition(cue, head)
+            assertEquals("$cue after $head frames", bank.frameCount(cue), marker - head)
+            head = marker
+        }
+        // The old buffer-offset marker would sit behind the head from the second cue on
+        assertTrue(head > bank.endFrame(ToneCue.PTT_START))
+    }
+
+    @Test
+    fun markerMatchesBufferOffsetOnFirstCue() {
+        for (cue in ToneCue.entries) {
+            assertEquals(bank.endFrame(cue), bank.markerPosition(cue, bank.startFrame(cue)))
+        }
+    }
+
+    companion object {
+        private const val SAMPLE_RATE = 48_000
+    }
+}
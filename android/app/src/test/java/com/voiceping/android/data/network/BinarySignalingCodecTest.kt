@@ -0,0 +1,122 @@
+package com.voiceping.android.data.network
+
+import com.google.gson.Gson
+import com.google.gson.JsonArray
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
+import com.voiceping.android.data.network.dto.ChannelStateEvent
+import com.voiceping.android.data.network.dto.SignalingMessage
+import com.voiceping.android.data.network.dto.SignalingType
+import com.voiceping.android.data.network.dto.SpeakerChangedEvent
+import okio.ByteString
+import okio.ByteString.Companion.decodeHex
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertThrows
+import org.junit.Test
+
+/**
+ * Checks [BinarySignalingCodec] against the golden frames of the server codec tests
+ * (src/server/test/fixtures/binarySignalingFrames.json) and round-trips every type.
+ */
+class BinarySignalingCodecTest {
+
+    private val codec = BinarySignalingCodec()
+    private val gson = Gson()
+    private val golden: JsonObject = javaClass.getResourceAsStream("/$GOLDEN_FRAMES")!!
+        .reader().use { JsonParser.parseReader(it).asJsonObject }
+
+    @Test
+    fun typeCodesMatchServerTable() {
+        val wireNames = golden.getAsJsonArray("typeCodes").map { it.asString }
+        wireNames.forEachIndexed { code, wireName ->
+            val type = gson.fromJson("\"$wireName\"", SignalingType::class.java)
+            assertEquals(wireName, code, codec.encode(SignalingMessage(type))[0].toInt() and 0xff)
+        }
+        // Every client type has a wire code on the server
+        assertEquals(SignalingType.entries.toSet(), wireNames.map { gson.fromJson("\"$it\"", SignalingType::class.java) }.toSet())
+    }
+
+    @Test
+    fun goldenFramesEncodeIdentically() {
+        for ((name, message, hex) in goldenFrames()) {
+            assertEquals(name, hex, codec.encode(message).hex())
+        }
+    }
+
+    @Test
+    fun goldenFramesDecodeToJsonMessage() {
+        for ((name, message, hex) in goldenFrames()) {
+            assertEquals(name, message, codec.decode(hex.decodeHex()))
+        }
+    }
+
+    @Test
+    fun roundTripsEveryType() {
+        val data = JsonObject().apply {
+            addProperty("channelId", "channel-1")
+            addProperty("producerId", PRODUCER_ID)
+            addProperty("speakerName", "Dispatcher Zoë")
+            addProperty("lockTimestamp", 1_760_600_000_000L)
+            addProperty("score", -1.25)
+            add("currentSpeaker", null)
+            add("ids", JsonArray().apply { (0 until 20).forEach { add(it.toLong()) } })
+        }
+        for (type in SignalingType.entries) {
+            for (message in listOf(
+                SignalingMessage(type),
+                SignalingMessage(type, id = REQUEST_ID, data = data),
+                SignalingMessage(type, id = "legacy-id-42", error = "Channel busy")
+            )) {
+                assertEquals(message, codec.decode(codec.encode(message)))
+            }
+        }
+    }
+
+    @Test
+    fun decodesHotBroadcastsStraightOffTheFrame() {
+        val speaker = goldenFrames().first { it.message.type == SignalingType.SPEAKER_CHANGED }
+        assertEquals(
+            SpeakerChangedEvent("channel-1", "user-7", "Dispatcher Zoë", PRODUCER_ID),
+            codec.decodeEvent(speaker.hex.decodeHex())
+        )
+
+        val state = goldenFrames().first { it.message.type == SignalingType.CHANNEL_STATE }
+        assertEquals(
+            ChannelStateEvent("channel-1", 300, "join", "user-12", "Field Unit 12"),
+            codec.decodeEvent(state.hex.decodeHex())
+        )
+
+        // Responses carry an id: full decode path
+        val response = goldenFrames().first { it.message.id != null }
+        assertNull(codec.decodeEvent(response.hex.decodeHex()))
+    }
+
+    @Test
+    fun rejectsMalformedFrames() {
+        assertThrows(IllegalArgumentException::class.java) { codec.decode("ff00".decodeHex()) }
+
+        val frame = goldenFrames().first { it.message.data != null && it.message.id != null }.hex.decodeHex()
+        for (len in 1 until frame.size) {
+            assertThrows(Exception::class.java) { codec.decode(frame.substring(0, len)) }
+        }
+        assertThrows(IllegalArgumentException::class.java) { codec.decode(ByteString.of(*frame.toByteArray(), 0xc0.toByte())) }
+    }
+
+    private data class GoldenFrame(val name: String, val message: SignalingMessage, val hex: String)
+
+    private fun goldenFrames(): List<GoldenFrame> = golden.getAsJsonArray("frames").map { element ->
+        val frame = element.asJsonObject
+        GoldenFrame(
+            name = frame.get("name").asString,
+            message = gson.fromJson(frame.get("message"), SignalingMessage::class.java),
+            hex = frame.get("hex").asString
+        )
+    }
+
+    companion object {
+        private const val GOLDEN_FRAMES = "binarySignalingFrames.json"
+        private const val REQUEST_ID = "3f2b8c1e-9a4d-4e7b-8c21-5d6e7f809a1b"
+        private const val PRODUCER_ID = "a0b1c2d3-e4f5-4a6b-8c7d-9e0f1a2b3c4d"
+    }
+}
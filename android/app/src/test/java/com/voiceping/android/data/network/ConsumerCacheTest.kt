@@ -0,0 +1,106 @@
+package com.voiceping.android.data.network
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * Checks [ConsumerCache] bookkeeping: LRU order of idle consumers, the budget, and that
+ * active consumers are never evicted.
+ */
+class ConsumerCacheTest {
+
+    @Test
+    fun idleConsumersWithinBudgetStayWarm() {
+        val cache = ConsumerCache(budget = 3)
+        for (i in 1..3) {
+            assertTrue(cache.put(entry(i)).isEmpty())
+            assertTrue(cache.deactivate("c$i").isEmpty())
+        }
+
+        assertEquals(3, cache.size)
+        val warm = cache.activate("p2", CHANNEL)
+        assertEquals("c2", warm?.consumerId)
+        assertTrue(warm!!.active)
+    }
+
+    @Test
+    fun evictsLeastRecentlyUsedIdleConsumer() {
+        val cache = ConsumerCache(budget = 3)
+        for (i in 1..3) {
+            cache.put(entry(i))
+            cache.deactivate("c$i")
+        }
+        // p1 speaks again: p2 becomes the least recently used
+        cache.activate("p1", CHANNEL)
+        cache.deactivate("c1")
+
+        val evicted = cache.put(entry(4))
+        assertEquals(listOf("c2"), evicted.map { it.consumerId })
+        assertNull(cache.activate("p2", CHANNEL))
+        assertEquals(3, cache.size)
+    }
+
+    @Test
+    fun activeConsumersAreNeverEvicted() {
+        val cache = ConsumerCache(budget = 2)
+        for (i in 1..4) {
+            assertTrue(cache.put(entry(i)).isEmpty())
+        }
+        // Four speakers at once exceed the budget until they go idle
+        assertEquals(4, cache.size)
+
+        assertEquals(listOf("c4"), cache.deactivate("c4").map { it.consumerId })
+        assertEquals(3, cache.size)
+        val evicted = cache.deactivate("c1")
+        assertEquals(listOf("c1"), evicted.map { it.consumerId })
+        assertEquals(2, cache.size)
+    }
+
+    @Test
+    fun replacedConsumerOfSameProducerIsReturnedForClosing() {
+        val cache = ConsumerCache(budget = 3)
+        val first = entry(1)
+        cache.put(first)
+
+        val evicted = cache.put(ConsumerCache.Entry("p1", "c1-new", CHANNEL))
+        assertEquals(1, evicted.size)
+        assertSame(first, evicted.single())
+        assertEquals("c1-new", cache.activate("p1", CHANNEL)?.consumerId)
+    }
+
+    @Test
+    fun warmConsumerIsPerChannel() {
+        val cache = ConsumerCache(budget = 3)
+        cache.put(entry(1))
+        cache.deactivate("c1")
+
+        assertNull(cache.activate("p1", "other-channel"))
+        assertEquals(listOf("c1"), cache.removeChannel(CHANNEL).map { it.consumerId })
+        assertEquals(0, cache.size)
+    }
+
+    @Test
+    fun lowRamDevicesGetSmallerBudget() {
+        assertEquals(ConsumerCache.LOW_RAM_CONSUMER_BUDGET, ConsumerCache.budgetFor(isLowRamDevice = true))
+        assertEquals(ConsumerCache.CONSUMER_BUDGET, ConsumerCache.budgetFor(isLowRamDevice = false))
+        assertTrue(ConsumerCache.LOW_RAM_CONSUMER_BUDGET < ConsumerCache.CONSUMER_BUDGET)
+
+        val cache = ConsumerCache(ConsumerCache.budgetFor(isLowRamDevice = true))
+        val evicted = (1..ConsumerCache.CONSUMER_BUDGET).flatMap { i ->
+            cache.put(entry(i)) + cache.deactivate("c$i")
+        }
+        assertEquals(ConsumerCache.LOW_RAM_CONSUMER_BUDGET, cache.size)
+        assertEquals(ConsumerCache.CONSUMER_BUDGET - ConsumerCache.LOW_RAM_CONSUMER_BUDGET, evicted.size)
+        // The oldest went first
+        assertEquals("c1", evicted.first().consumerId)
+    }
+
+    private fun entry(i: Int) = ConsumerCache.Entry("p$i", "c$i", CHANNEL)
+
+    companion object {
+        private const val CHANNEL = "channel-1"
+    }
+}
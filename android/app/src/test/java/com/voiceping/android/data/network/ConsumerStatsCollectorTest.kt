@@ -0,0 +1,90 @@
+package com.voiceping.android.data.network
+
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Drives [ConsumerStatsCollector] with synthetic inbound-rtp counters (ticks are invoked by
+ * hand) and maps the results to channels the way ChannelListViewModel does.
+ */
+class ConsumerStatsCollectorTest {
+
+    // Cumulative counters per real consumer id, advanced by the test between ticks
+    private val counters = HashMap<String, InboundRtpStats>()
+    private lateinit var collector: ConsumerStatsCollector
+
+    @Before
+    fun setUp() {
+        collector = ConsumerStatsCollector { consumerId -> counters[consumerId] }
+    }
+
+    @After
+    fun tearDown() {
+        collector.track(emptySet())
+    }
+
+    @Test
+    fun consumedChannelGetsNetworkQuality() {
+        // Channel ch-1 plays the speaker's producer through consumer c-1
+        val activeConsumers = mapOf(CHANNEL to setOf(CONSUMER))
+        collector.track(activeConsumers.values.flatten().toSet())
+
+        counters[CONSUMER] = sample(packetsReceived = 100, packetsLost = 0)
+        collector.tick()
+        assertNull(networkQualityByChannel(activeConsumers, collector.stats.value)[CHANNEL])
+
+        counters[CONSUMER] = sample(packetsReceived = 200, packetsLost = 2)
+        collector.tick()
+
+        val quality = networkQualityByChannel(activeConsumers, collector.stats.value)[CHANNEL]
+        assertNotNull(quality)
+        assertEquals(100L, quality!!.packetsReceived)
+        assertEquals(2L, quality.packetsLost)
+        assertEquals("Good", quality.indicator)
+    }
+
+    @Test
+    fun producerIdHasNoStats() {
+        // Regression: the channel state's consumerId field carries the producer id
+        collector.track(setOf(PRODUCER))
+        counters[CONSUMER] = sample(packetsReceived = 100, packetsLost = 0)
+        collector.tick()
+        collector.tick()
+
+        assertTrue(networkQualityByChannel(mapOf(CHANNEL to setOf(PRODUCER)), collector.stats.value).isEmpty())
+    }
+
+    @Test
+    fun untrackedConsumersAreDropped() {
+        collector.track(setOf(CONSUMER))
+        counters[CONSUMER] = sample(packetsReceived = 100, packetsLost = 0)
+        collector.tick()
+        counters[CONSUMER] = sample(packetsReceived = 150, packetsLost = 0)
+        collector.tick()
+        assertNotNull(collector.stats.value[CONSUMER])
+
+        collector.track(emptySet())
+        assertTrue(collector.stats.value.isEmpty())
+    }
+
+    private fun sample(packetsReceived: Long, packetsLost: Long) = InboundRtpStats(
+        packetsReceived = packetsReceived,
+        packetsLost = packetsLost,
+        jitter = 0.005,
+        concealedSamples = 0,
+        totalSamplesReceived = packetsReceived * 960,
+        jitterBufferDelay = packetsReceived * 960 * 0.04,
+        jitterBufferEmittedCount = packetsReceived * 960
+    )
+
+    companion object {
+        private const val CHANNEL = "ch-1"
+        private const val CONSUMER = "c-1"
+        private const val PRODUCER = "p-1"
+    }
+}
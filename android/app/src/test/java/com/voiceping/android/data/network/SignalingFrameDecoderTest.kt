@@ -0,0 +1,141 @@
+package com.voiceping.android.data.network
+
+import com.google.gson.Gson
+import com.google.gson.JsonElement
+import com.voiceping.android.data.network.dto.ChannelStateEvent
+import com.voiceping.android.data.network.dto.SignalingEvent
+import com.voiceping.android.data.network.dto.SignalingMessage
+import com.voiceping.android.data.network.dto.SignalingType
+import com.voiceping.android.data.network.dto.SpeakerChangedEvent
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.lang.management.ManagementFactory
+
+/**
+ * Checks [SignalingFrameDecoder] against the Gson tree path it replaces for hot broadcasts,
+ * and reports the timing of both on the same frames (JsonReader vs Gson). The numbers are
+ * printed only: wall-clock and allocation figures are too noisy on shared CI to assert on.
+ */
+class SignalingFrameDecoderTest {
+
+    private val decoder = SignalingFrameDecoder()
+    private val gson = Gson()
+
+    @Test
+    fun broadcastsDecodeLikeTheTreePath() {
+        for (frame in BROADCASTS) {
+            val event = decoder.decode(frame)
+            assertEquals(frame, viaTree(frame), event)
+        }
+        assertEquals(
+            SpeakerChangedEvent("channel-1", "user-7", "Dispatcher \"Zoë\"", PRODUCER_ID),
+            decoder.decode(BROADCASTS[0])
+        )
+    }
+
+    @Test
+    fun responsesAndOtherTypesTakeTheTreePath() {
+        assertNull(decoder.decode("""{"type":"channel-state","id":"req-1","data":{"channelId":"channel-1","userCount":3}}"""))
+        assertNull(decoder.decode("""{"type":"speaker-changed","data":{"channelId":"channel-1"},"error":"denied"}"""))
+        assertNull(decoder.decode("""{"type":"ping"}"""))
+        assertNull(decoder.decode("""{"type":"channel-state","data":{"channelId":"channel-1",""")) // Truncated
+    }
+
+    @Test
+    fun reportsStreamingVersusTreeDecodeCost() {
+        // Warm up the JIT on both paths
+        repeat(WARMUP_ROUNDS) {
+            runStreaming()
+            runTree()
+        }
+
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        val threadId = Thread.currentThread().id
+
+        // Best of several rounds, so a GC pause or scheduler hiccup does not skew the report
+        var streamingNs = Long.MAX_VALUE
+        var treeNs = Long.MAX_VALUE
+        var streamingBytes = Long.MAX_VALUE
+        var treeBytes = Long.MAX_VALUE
+        repeat(MEASURED_ROUNDS) {
+            val allocatedBefore = threads?.getThreadAllocatedBytes(threadId) ?: 0L
+            val start = System.nanoTime()
+            runStreaming()
+            streamingNs = minOf(streamingNs, System.nanoTime() - start)
+            streamingBytes = minOf(streamingBytes, (threads?.getThreadAllocatedBytes(threadId) ?: 0L) - allocatedBefore)
+
+            val treeAllocatedBefore = threads?.getThreadAllocatedBytes(threadId) ?: 0L
+            val treeStart = System.nanoTime()
+            runTree()
+            treeNs = minOf(treeNs, System.nanoTime() - treeStart)
+            treeBytes = minOf(treeBytes, (threads?.getThreadAllocatedBytes(threadId) ?: 0L) - treeAllocatedBefore)
+        }
+
+        val streamingUs = streamingNs / 1_000.0 / FRAMES_PER_ROUND
+        val treeUs = treeNs / 1_000.0 / FRAMES_PER_ROUND
+        println("SignalingFrameDecoder: JsonReader $streamingUs us vs Gson tree $treeUs us per frame")
+        if (threads != null && threads.isThreadAllocatedMemorySupported) {
+            println("SignalingFrameDecoder: JsonReader $streamingBytes vs Gson tree $treeBytes bytes per round")
+        }
+    }
+
+    private fun runStreaming() {
+        var decoded = 0
+        for (i in 0 until FRAMES_PER_ROUND) {
+            if (decoder.decode(BROADCASTS[i % BROADCASTS.size]) != null) decoded++
+        }
+        assertEquals(FRAMES_PER_ROUND, decoded)
+    }
+
+    private fun runTree() {
+        var decoded = 0
+        for (i in 0 until FRAMES_PER_ROUND) {
+            if (viaTree(BROADCASTS[i % BROADCASTS.size]) != null) decoded++
+        }
+        assertEquals(FRAMES_PER_ROUND, decoded)
+    }
+
+    /**
+     * The pre-streaming path: full SignalingMessage tree, then field lookups on data.
+     */
+    private fun viaTree(text: String): SignalingEvent? {
+        val message = gson.fromJson(text, SignalingMessage::class.java)
+        val data = message.data ?: return null
+        val channelId = data.get("channelId").stringOrNull() ?: return null
+        return when (message.type) {
+            SignalingType.SPEAKER_CHANGED -> SpeakerChangedEvent(
+                channelId,
+                data.get("currentSpeaker").stringOrNull(),
+                data.get("speakerName").stringOrNull(),
+                data.get("producerId").stringOrNull()
+            )
+            SignalingType.CHANNEL_STATE -> ChannelStateEvent(
+                channelId,
+                data.get("userCount")?.takeUnless { it.isJsonNull }?.asInt,
+                data.get("action").stringOrNull(),
+                data.get("userId").stringOrNull(),
+                data.get("userName").stringOrNull()
+            )
+            else -> null
+        }
+    }
+
+    private fun JsonElement?.stringOrNull(): String? = if (this == null || isJsonNull) null else asString
+
+    companion object {
+        private const val PRODUCER_ID = "a0b1c2d3-e4f5-4a6b-8c7d-9e0f1a2b3c4d"
+
+        // Shapes produced by JSON.stringify(createMessage(...)) on the server
+        private val BROADCASTS = listOf(
+            """{"type":"speaker-changed","data":{"channelId":"channel-1","currentSpeaker":"user-7","speakerName":"Dispatcher \"Zoë\"","producerId":"$PRODUCER_ID","lockTimestamp":1760600000000,"isEmergency":false}}""",
+            """{"type":"speaker-changed","data":{"channelId":"channel-2","currentSpeaker":null,"speakerName":null,"producerId":null}}""",
+            """{"type":"channel-state","data":{"channelId":"channel-1","userCount":42,"action":"join","userId":"user-12","userName":"Field Unit 12","members":[{"userId":"user-1"},{"userId":"user-2"}]}}""",
+            """{"type":"channel-state","data":{"channelId":"channel-3","userCount":41,"action":"leave","userId":"user-12","userName":null}}"""
+        )
+
+        private const val WARMUP_ROUNDS = 20
+        private const val MEASURED_ROUNDS = 10
+        private const val FRAMES_PER_ROUND = 10_000
+    }
+}
@@ -1,7 +1,9 @@
 // Top-level build file where you can add configuration options common to all sub-projects/modules.
 plugins {
     id("com.android.application") version "9.0.0" apply false
+    id("com.android.test") version "9.0.0" apply false
     id("com.google.dagger.hilt.android") version "2.59.1" apply false
     id("com.google.devtools.ksp") version "2.3.5" apply false
     id("org.jetbrains.kotlin.plugin.compose") version "2.2.10" apply false
+    id("androidx.baselineprofile") version "1.4.1" apply false
 }
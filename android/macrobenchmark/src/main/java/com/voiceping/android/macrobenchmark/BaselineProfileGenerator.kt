@@ -0,0 +1,34 @@
+package com.voiceping.android.macrobenchmark
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Generates the app's baseline + startup profiles from the startup and join-channel journeys.
+ *
+ * Run: ./gradlew :app:generateReleaseBaselineProfile
+ * (output lands in app/src/release/generated/baselineProfiles, to be checked in; until then
+ * app/src/main/baseline-prof.txt is a hand-written seed)
+ */
+@RunWith(AndroidJUnit4::class)
+class BaselineProfileGenerator {
+
+    @get:Rule
+    val baselineProfileRule = BaselineProfileRule()
+
+    @Test
+    fun startupAndJoinChannel() {
+        baselineProfileRule.collect(
+            packageName = TARGET_PACKAGE,
+            includeInStartupProfile = true
+        ) {
+            pressHome()
+            if (startToChannelList()) {
+                joinFirstChannel()
+            }
+        }
+    }
+}
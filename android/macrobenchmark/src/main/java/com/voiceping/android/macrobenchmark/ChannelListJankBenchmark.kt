@@ -0,0 +1,68 @@
+package com.voiceping.android.macrobenchmark
+
+import android.content.Intent
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.FrameTimingMetric
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Direction
+import androidx.test.uiautomator.Until
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Jank of the channel list under busy multi-channel traffic.
+ *
+ * Runs the app's SpeakerChangeReplayActivity (benchmark build type): 5 monitored channels,
+ * 200 speaker changes per minute, 30s replay. The list is flung up and down during the
+ * replay so both event-driven recomposition and scrolling are in the frame timings.
+ *
+ * Run: ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ */
+@RunWith(AndroidJUnit4::class)
+class ChannelListJankBenchmark {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun speakerChangeReplayNoCompilation() = replay(CompilationMode.None())
+
+    @Test
+    fun speakerChangeReplayPartialCompilation() = replay(CompilationMode.Partial())
+
+    private fun replay(compilationMode: CompilationMode) {
+        benchmarkRule.measureRepeated(
+            packageName = TARGET_PACKAGE,
+            metrics = listOf(FrameTimingMetric()),
+            compilationMode = compilationMode,
+            startupMode = StartupMode.COLD,
+            iterations = 5,
+            setupBlock = { pressHome() }
+        ) {
+            startActivityAndWait(
+                Intent().apply {
+                    setClassName(TARGET_PACKAGE, REPLAY_ACTIVITY)
+                    putExtra(EXTRA_DURATION_MS, REPLAY_DURATION_MS)
+                }
+            )
+
+            val list = device.wait(Until.findObject(By.res("channel_list")), UI_TIMEOUT_MS)
+            list.setGestureMargin(device.displayWidth / 5)
+            while (!device.hasObject(By.text("Replay done"))) {
+                list.fling(Direction.DOWN)
+                list.fling(Direction.UP)
+            }
+        }
+    }
+
+    companion object {
+        private const val REPLAY_ACTIVITY = "com.voiceping.android.benchmark.SpeakerChangeReplayActivity"
+        private const val EXTRA_DURATION_MS = "durationMs"
+        private const val REPLAY_DURATION_MS = 30_000L
+        private const val UI_TIMEOUT_MS = 5_000L
+    }
+}
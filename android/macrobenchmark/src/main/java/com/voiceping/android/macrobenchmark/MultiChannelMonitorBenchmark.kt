@@ -0,0 +1,83 @@
+package com.voiceping.android.macrobenchmark
+
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.ExperimentalMetricApi
+import androidx.benchmark.macro.PowerMetric
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.TraceSectionMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Assume.assumeTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Cost of monitoring several channels at once: join latency and idle energy.
+ *
+ * - joinChannels: total and per-join time of "VP:ChannelRepository.joinChannel" while
+ *   joining [CHANNELS] channels (the receive transport set-up is inside each join).
+ * - monitorIdle: energy drawn over [MONITOR_WINDOW_MS] with [CHANNELS] channels joined and
+ *   nobody talking, i.e. ICE consent checks, DTLS and keepalives of the receive path.
+ *   Needs on-device power rails (Pixel 6 and later); skipped elsewhere.
+ *
+ * Compare runs across builds (e.g. before and after a transport change) on the same device,
+ * server and event, with at least [CHANNELS] channels in the event.
+ *
+ * Run: ./gradlew :macrobenchmark:connectedBenchmarkReleaseAndroidTest
+ *   -Pandroid.testInstrumentationRunnerArguments.class=com.voiceping.android.macrobenchmark.MultiChannelMonitorBenchmark
+ */
+@OptIn(ExperimentalMetricApi::class)
+@RunWith(AndroidJUnit4::class)
+class MultiChannelMonitorBenchmark {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun joinChannels() {
+        benchmarkRule.measureRepeated(
+            packageName = TARGET_PACKAGE,
+            metrics = listOf(
+                TraceSectionMetric(JOIN_CHANNEL_SECTION, TraceSectionMetric.Mode.Sum),
+                TraceSectionMetric(JOIN_CHANNEL_SECTION, TraceSectionMetric.Mode.Average)
+            ),
+            compilationMode = CompilationMode.DEFAULT,
+            startupMode = StartupMode.COLD,
+            iterations = ITERATIONS,
+            setupBlock = {
+                pressHome()
+                startToChannelList()
+            }
+        ) {
+            joinChannels(CHANNELS)
+        }
+    }
+
+    @Test
+    fun monitorIdle() {
+        assumeTrue(PowerMetric.deviceSupportsHighPrecisionTracking())
+
+        benchmarkRule.measureRepeated(
+            packageName = TARGET_PACKAGE,
+            metrics = listOf(PowerMetric(PowerMetric.Energy())),
+            compilationMode = CompilationMode.DEFAULT,
+            startupMode = StartupMode.COLD,
+            iterations = POWER_ITERATIONS,
+            setupBlock = {
+                pressHome()
+                startToChannelList()
+                joinChannels(CHANNELS)
+            }
+        ) {
+            Thread.sleep(MONITOR_WINDOW_MS)
+        }
+    }
+
+    companion object {
+        private const val CHANNELS = 5 // App's monitoring limit
+        private const val ITERATIONS = 10
+        private const val POWER_ITERATIONS = 3
+        private const val MONITOR_WINDOW_MS = 60_000L
+    }
+}
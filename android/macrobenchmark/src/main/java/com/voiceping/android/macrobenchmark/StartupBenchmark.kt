@@ -0,0 +1,77 @@
+package com.voiceping.android.macrobenchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.ExperimentalMetricApi
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.TraceSectionMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Cold start and join-channel timings, without and with the baseline profile.
+ *
+ * Startup reports time-to-initial-display plus the duration of every "VP:" init phase
+ * (Application, EncryptedSharedPreferences, Room, OkHttp, login, WebSocket connect,
+ * PeerConnectionFactory), so a slow device shows which phase the time goes to.
+ *
+ * Run: ./gradlew :macrobenchmark:connectedBenchmarkReleaseAndroidTest
+ */
+@OptIn(ExperimentalMetricApi::class)
+@RunWith(AndroidJUnit4::class)
+class StartupBenchmark {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun startupNoCompilation() = startup(CompilationMode.None())
+
+    @Test
+    fun startupBaselineProfile() = startup(CompilationMode.Partial(BaselineProfileMode.Require))
+
+    @Test
+    fun joinChannelNoCompilation() = joinChannel(CompilationMode.None())
+
+    @Test
+    fun joinChannelBaselineProfile() = joinChannel(CompilationMode.Partial(BaselineProfileMode.Require))
+
+    private fun startup(compilationMode: CompilationMode) {
+        benchmarkRule.measureRepeated(
+            packageName = TARGET_PACKAGE,
+            metrics = listOf(StartupTimingMetric()) + STARTUP_SECTIONS.map {
+                TraceSectionMetric(it, TraceSectionMetric.Mode.First)
+            },
+            compilationMode = compilationMode,
+            startupMode = StartupMode.COLD,
+            iterations = ITERATIONS,
+            setupBlock = { pressHome() }
+        ) {
+            startToChannelList()
+        }
+    }
+
+    private fun joinChannel(compilationMode: CompilationMode) {
+        benchmarkRule.measureRepeated(
+            packageName = TARGET_PACKAGE,
+            metrics = listOf(TraceSectionMetric(JOIN_CHANNEL_SECTION, TraceSectionMetric.Mode.First)),
+            compilationMode = compilationMode,
+            startupMode = StartupMode.COLD,
+            iterations = ITERATIONS,
+            setupBlock = {
+                pressHome()
+                startToChannelList()
+            }
+        ) {
+            joinFirstChannel()
+        }
+    }
+
+    companion object {
+        private const val ITERATIONS = 10
+    }
+}
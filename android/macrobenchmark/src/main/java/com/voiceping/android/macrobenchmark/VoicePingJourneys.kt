@@ -0,0 +1,95 @@
+package com.voiceping.android.macrobenchmark
+
+import androidx.benchmark.macro.MacrobenchmarkScope
+import androidx.test.platform.app.InstrumentationRegistry
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Until
+
+/**
+ * User journeys shared by the profile generator and the benchmarks.
+ *
+ * The login journey needs an account on the target server, passed as instrumentation
+ * arguments:
+ *   -Pandroid.testInstrumentationRunnerArguments.voicepingEmail=...
+ *   -Pandroid.testInstrumentationRunnerArguments.voicepingPassword=...
+ * Without them the journeys stop at whatever screen the app opens on.
+ */
+internal const val TARGET_PACKAGE = "com.voiceping.android"
+
+private const val UI_TIMEOUT_MS = 15_000L // Covers login + WebSocket connect on slow devices
+
+/** Startup trace sections added in the app (all prefixed "VP:"). */
+internal val STARTUP_SECTIONS = listOf(
+    "VP:Application.onCreate",
+    "VP:init.nativeMedia",
+    "VP:init.secureStorage",
+    "VP:TokenManager.encryptedPrefs",
+    "VP:init.database",
+    "VP:init.channelRuntime",
+    "VP:Room.build",
+    "VP:OkHttp.build",
+    "VP:Loading.login",
+    "VP:Loading.routerToken",
+    "VP:Loading.connectSignaling",
+    "VP:Loading.mediasoupInit",
+    "VP:MediasoupClient.initializeWebRTC",
+    "VP:PeerConnectionFactory.create"
+)
+
+internal const val JOIN_CHANNEL_SECTION = "VP:ChannelRepository.joinChannel"
+
+/** Sign in with the instrumentation-argument account if the login screen is shown. */
+internal fun MacrobenchmarkScope.loginIfNeeded() {
+    val args = InstrumentationRegistry.getArguments()
+    val email = args.getString("voicepingEmail") ?: return
+    val password = args.getString("voicepingPassword") ?: return
+
+    val emailField = device.wait(Until.findObject(By.res("login_email")), UI_TIMEOUT_MS) ?: return
+    emailField.text = email
+    device.findObject(By.res("login_password")).text = password
+    device.findObject(By.res("login_button")).click()
+}
+
+/** Pick the first event if the event picker is shown (no saved event). */
+internal fun MacrobenchmarkScope.selectEventIfNeeded() {
+    val events = device.wait(Until.findObject(By.res("event_list")), UI_TIMEOUT_MS) ?: return
+    events.children.firstOrNull()?.click()
+}
+
+/** Wait until the channel list is on screen. */
+internal fun MacrobenchmarkScope.waitForChannelList(): Boolean {
+    return device.wait(Until.hasObject(By.res("channel_list")), UI_TIMEOUT_MS)
+}
+
+/** Cold start through login and event selection to the channel list. */
+internal fun MacrobenchmarkScope.startToChannelList(): Boolean {
+    startActivityAndWait()
+    loginIfNeeded()
+    selectEventIfNeeded()
+    return waitForChannelList()
+}
+
+/**
+ * Tap the first channel row and wait for the join to settle (row toggles to joined,
+ * PTT button appears in the bottom bar).
+ */
+internal fun MacrobenchmarkScope.joinFirstChannel() {
+    val list = device.findObject(By.res("channel_list")) ?: return
+    // First child is the team header, second the first channel of that team
+    list.children.getOrNull(1)?.click()
+    device.waitForIdle()
+}
+
+/**
+ * Join up to [count] channels, top of the list first, waiting for each join to settle.
+ *
+ * @return Number of channel rows tapped
+ */
+internal fun MacrobenchmarkScope.joinChannels(count: Int): Int {
+    val rows = device.findObjects(By.res("channel_row")).take(count)
+    rows.forEach { row ->
+        row.click()
+        device.waitForIdle()
+    }
+    return rows.size
+}
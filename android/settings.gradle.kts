@@ -16,3 +16,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "VoicePing"
 include(":app")
+include(":macrobenchmark")
@@ -872,6 +872,8 @@ app.get("/api/events", requireAuth, requireProfileComplete, async (req, res) =>
 
 app.get("/api/events/:eventId/channels", requireAuth, requireProfileComplete, async (req, res) => {
   const { eventId } = req.params;
+  // Per-user list: clients revalidate with If-None-Match (Express ETag) and get 304 when unchanged
+  res.set("Cache-Control", "private, no-cache");
 
   if (req.user.globalRole === "ADMIN") {
     const channels = await prisma.channel.findMany({
@@ -79,6 +79,7 @@ export const config = {
   server: {
     port: parseInt(process.env.PORT || '3000', 10),
     host: process.env.HOST || '0.0.0.0',
+    nodeId: process.env.NODE_ID || `${os.hostname()}:${process.pid}`, // Identity in channel ownership leases
   },
 
   mediasoup: {
@@ -127,9 +128,25 @@ export const config = {
     permissionRefreshIntervalMs: 30000, // 30s heartbeat-based permission refresh
   },
 
+  signaling: {
+    binaryWireEnabled: process.env.SIGNALING_BINARY_WIRE !== 'false', // Offer 'voiceping.bin' to clients that request it
+    resumeGraceMs: parseInt(process.env.SIGNALING_RESUME_GRACE_MS || '30000', 10), // Keep dropped sessions resumable (0 disables)
+    sendHighWaterBytes: parseInt(process.env.SIGNALING_SEND_HIGH_WATER_BYTES || '65536', 10), // Hold and coalesce channel-state above this
+    sendMaxBufferedBytes: parseInt(process.env.SIGNALING_SEND_MAX_BUFFERED_BYTES || '1048576', 10), // Drop connections buffering more
+  },
+
   ptt: {
     lockTtlSeconds: 30,
     busyTimeoutMs: 30000,
+    // 'redis': every grant goes through the Redis speaker lock
+    // 'ownership': the node owning a channel grants in memory, Redis holds only the ownership lease
+    lockMode: (process.env.PTT_LOCK_MODE === 'ownership' ? 'ownership' : 'redis') as 'redis' | 'ownership',
+    ownershipLeaseMs: parseInt(process.env.PTT_OWNERSHIP_LEASE_MS || '6000', 10),
+    // Speaker keepalive: the lock is refreshed while the producer sends RTP and released on silence.
+    // Clients send Opus with DTX, which drops to one packet per 400 ms during speech pauses, so the
+    // silence threshold must cover a DTX gap plus cellular jitter
+    keepaliveSilenceMs: parseInt(process.env.PTT_KEEPALIVE_SILENCE_MS || '1500', 10),
+    keepaliveStartGraceMs: parseInt(process.env.PTT_KEEPALIVE_START_GRACE_MS || '3000', 10), // Grant to first packet (cold path produces after the grant)
   },
 
   dispatch: {
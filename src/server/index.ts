@@ -68,6 +68,22 @@ async function main() {
             connections: signalingServer?.getConnectedClients() || 0,
           })
         );
+      } else if (req.url === '/metrics/signaling' && req.method === 'GET') {
+        // Outbound backpressure counters, aggregated (same public server as the WebSocket endpoint,
+        // so user and connection ids are only listed outside production)
+        const connections = signalingServer?.getOutboundStats() || [];
+        res.writeHead(200, { 'Content-Type': 'application/json' });
+        res.end(
+          JSON.stringify({
+            connections: connections.length,
+            sent: connections.reduce((sum, c) => sum + c.sent, 0),
+            coalesced: connections.reduce((sum, c) => sum + c.coalesced, 0),
+            dropped: connections.reduce((sum, c) => sum + c.dropped, 0),
+            pending: connections.reduce((sum, c) => sum + c.pending, 0),
+            congested: connections.filter((c) => c.bufferedAmount >= config.signaling.sendHighWaterBytes).length,
+            ...(process.env.NODE_ENV !== 'production' && { perConnection: connections }),
+          })
+        );
       } else if (req.url === '/dev/seed-test-data' && req.method === 'POST' && process.env.NODE_ENV !== 'production') {
         // Dev-only endpoint: Seed Redis with test users
         (async () => {
@@ -243,6 +259,7 @@ async function main() {
         // Close WebSocket server and connections
         logger.info('Closing WebSocket server...');
         await signalingServer.close();
+        handlers.stopSpeakerKeepalive();
 
         // Close HTTP server
         logger.info('Closing HTTP server...');
@@ -24,6 +24,17 @@ interface ProducerMetadata {
 interface ConsumerMetadata {
   consumer: mediasoupTypes.Consumer;
   userId: string;
+  channelId: string;
+  transportId: string;
+}
+
+/**
+ * Callbacks for a watched producer (see watchProducerActivity)
+ */
+export interface ProducerActivityListener {
+  onRtp(): void; // An RTP packet arrived
+  onScore(score: number): void; // Best encoding score, 0 (no packets) to 10
+  onEnd(): void; // Producer paused or closed
 }
 
 /**
@@ -33,6 +44,8 @@ interface ConsumerMetadata {
 export class ProducerConsumerManager {
   private producers = new Map<string, ProducerMetadata>();
   private consumers = new Map<string, ConsumerMetadata>();
+  // Producers piped into another router (`${routerId}:${producerId}`), in flight or done
+  private pipes = new Map<string, Promise<void>>();
   private transportManager: TransportManager;
 
   constructor(transportManager: TransportManager) {
@@ -116,6 +129,12 @@ export class ProducerConsumerManager {
       throw new Error(`Cannot consume producer ${producerId} with provided RTP capabilities`);
     }
 
+    // Shared recv transport lives on the user's receive router: pipe the producer there first
+    const transportRouter = this.transportManager.getRouterForTransport(transportId);
+    if (transportRouter && transportRouter.id !== router.id) {
+      await this.pipeProducer(producerId, router, transportRouter);
+    }
+
     const consumer = await transport.consume({
       producerId,
       rtpCapabilities,
@@ -125,6 +144,8 @@ export class ProducerConsumerManager {
     this.consumers.set(consumer.id, {
       consumer,
       userId,
+      channelId,
+      transportId,
     });
 
     // Handle transport close
@@ -149,6 +170,30 @@ export class ProducerConsumerManager {
     };
   }
 
+  /**
+   * Pipe a producer from its channel router into another router (once per router pair)
+   * The piped producer keeps the same ID and closes with the original
+   */
+  private pipeProducer(
+    producerId: string,
+    source: mediasoupTypes.Router,
+    target: mediasoupTypes.Router
+  ): Promise<void> {
+    const key = `${target.id}:${producerId}`;
+    let pipe = this.pipes.get(key);
+
+    if (!pipe) {
+      pipe = source.pipeToRouter({ producerId, router: target }).then(({ pipeProducer }) => {
+        pipeProducer?.observer.once('close', () => this.pipes.delete(key));
+        logger.info(`Piped producer ${producerId} into router ${target.id}`);
+      });
+      pipe.catch(() => this.pipes.delete(key));
+      this.pipes.set(key, pipe);
+    }
+
+    return pipe;
+  }
+
   /**
    * Resume producer (PTT start transmitting)
    */
@@ -187,6 +232,48 @@ export class ProducerConsumerManager {
     logger.info(`Producer ${producerId} paused (PTT stopped)`);
   }
 
+  /**
+   * Watch a producer's RTP activity while it transmits
+   * Enables 'rtp' trace events (one worker notification per packet, so only for the duration of a
+   * transmission) and follows score changes. Ends on pause or close.
+   *
+   * @returns Function that stops watching and disables tracing
+   */
+  watchProducerActivity(producerId: string, listener: ProducerActivityListener): () => void {
+    const metadata = this.producers.get(producerId);
+
+    if (!metadata) {
+      throw new Error(`Producer ${producerId} not found`);
+    }
+
+    const { producer } = metadata;
+    const onTrace = (trace: mediasoupTypes.ProducerTraceEventData) => {
+      if (trace.type === 'rtp') listener.onRtp();
+    };
+    const onScore = (scores: mediasoupTypes.ProducerScore[]) => {
+      if (scores.length > 0) listener.onScore(Math.max(...scores.map((s) => s.score)));
+    };
+    const onEnd = () => listener.onEnd();
+
+    producer.on('trace', onTrace);
+    producer.on('score', onScore);
+    producer.observer.on('pause', onEnd);
+    producer.observer.on('close', onEnd);
+    producer.enableTraceEvent(['rtp']).catch((err) => {
+      logger.warn(`Could not enable RTP trace on producer ${producerId}: ${err instanceof Error ? err.message : String(err)}`);
+    });
+
+    return () => {
+      producer.off('trace', onTrace);
+      producer.off('score', onScore);
+      producer.observer.off('pause', onEnd);
+      producer.observer.off('close', onEnd);
+      if (!producer.closed) {
+        producer.enableTraceEvent([]).catch(() => undefined);
+      }
+    };
+  }
+
   /**
    * Resume consumer (start receiving audio)
    */
@@ -206,6 +293,13 @@ export class ProducerConsumerManager {
     logger.info(`Consumer ${consumerId} resumed (receiving audio)`);
   }
 
+  /**
+   * Channel a producer belongs to, or undefined if the producer does not exist
+   */
+  getProducerChannel(producerId: string): string | undefined {
+    return this.producers.get(producerId)?.channelId;
+  }
+
   /**
    * Get all active producers for a channel
    */
@@ -267,7 +361,7 @@ export class ProducerConsumerManager {
     }
 
     for (const [id, metadata] of this.consumers.entries()) {
-      if (metadata.userId === userId) {
+      if (metadata.userId === userId && metadata.channelId === channelId) {
         consumersToClose.push(id);
       }
     }
@@ -287,6 +381,28 @@ export class ProducerConsumerManager {
     }
   }
 
+  /**
+   * Close a user's consumers of one channel (leave: a shared recv transport outlives the channel)
+   * With transportId, only consumers on that transport (one connection's) are closed
+   */
+  async closeUserChannelConsumers(userId: string, channelId: string, transportId?: string): Promise<void> {
+    const consumersToClose: string[] = [];
+
+    for (const [id, metadata] of this.consumers.entries()) {
+      if (
+        metadata.userId === userId &&
+        metadata.channelId === channelId &&
+        (transportId === undefined || metadata.transportId === transportId)
+      ) {
+        consumersToClose.push(id);
+      }
+    }
+
+    for (const id of consumersToClose) {
+      await this.closeConsumer(id);
+    }
+  }
+
   /**
    * Close all producers and consumers for a user (cleanup on disconnect)
    */
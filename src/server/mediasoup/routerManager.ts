@@ -13,9 +13,13 @@ const logger = createLogger('RouterManager');
 /**
  * RouterManager creates and tracks mediasoup Routers
  * Each channel gets its own Router for audio isolation
+ * Each connection with a shared receive transport also gets a receive Router; producers of
+ * its channels are piped into it so one transport carries every channel. Keyed by connection,
+ * since a user on several devices monitors a different set of channels on each
  */
 export class RouterManager {
   private routers = new Map<string, mediasoupTypes.Router>();
+  private receiveRouters = new Map<string, mediasoupTypes.Router>(); // connectionId -> router
   private workerPool: WorkerPool;
 
   constructor(workerPool: WorkerPool) {
@@ -72,6 +76,34 @@ export class RouterManager {
     }
   }
 
+  /**
+   * Get existing receive router for connection or create new one
+   */
+  async getOrCreateReceiveRouter(connectionId: string): Promise<mediasoupTypes.Router> {
+    let router = this.receiveRouters.get(connectionId);
+
+    if (!router || router.closed) {
+      router = await this.createRouter();
+      this.receiveRouters.set(connectionId, router);
+      logger.info(`Receive router created for connection ${connectionId}`);
+    }
+
+    return router;
+  }
+
+  /**
+   * Remove receive router for connection (closes its transports and piped producers)
+   */
+  async removeReceiveRouter(connectionId: string): Promise<void> {
+    const router = this.receiveRouters.get(connectionId);
+
+    if (router) {
+      router.close();
+      this.receiveRouters.delete(connectionId);
+      logger.info(`Receive router removed for connection ${connectionId}`);
+    }
+  }
+
   /**
    * Get router RTP capabilities (needed by client Device.load())
    */
@@ -11,13 +11,22 @@ import { createLogger } from '../logger';
 
 const logger = createLogger('TransportManager');
 
+/** Channel segment of the transport key for a connection's shared receive transport */
+const SHARED_RECV_CHANNEL = '*';
+
+function sharedRecvKey(userId: string, connectionId: string): string {
+  return `${userId}:${SHARED_RECV_CHANNEL}:${connectionId}:recv`;
+}
+
 /**
  * TransportManager creates and tracks WebRTC transports
- * Each user gets send/recv transports per channel for bidirectional audio
+ * Each user gets send/recv transports per channel for bidirectional audio, or one shared
+ * recv transport per connection (on the connection's receive router) for all monitored channels
  */
 export class TransportManager {
   private transports = new Map<string, mediasoupTypes.WebRtcTransport>();
   private transportIdToKey = new Map<string, string>();
+  private transportRouters = new Map<string, mediasoupTypes.Router>();
   private routerManager: RouterManager;
 
   constructor(routerManager: RouterManager) {
@@ -35,7 +44,38 @@ export class TransportManager {
     direction: 'send' | 'recv'
   ): Promise<TransportOptions> {
     const router = await this.routerManager.getOrCreateRouter(channelId);
+    const transport = await this.createTransportOnRouter(router, `${userId}:${channelId}:${direction}`);
+
+    logger.info(`Created ${direction} transport ${transport.id} for user ${userId} in channel ${channelId}`);
+
+    return this.toTransportOptions(transport);
+  }
+
+  /**
+   * Create a connection's shared recv transport on its receive router
+   * One ICE/DTLS session carries consumers of every channel monitored on the connection; a
+   * previous shared transport of the same connection (client dropped its media) is closed first.
+   * The user's other connections (devices) keep theirs.
+   */
+  async createSharedRecvTransport(userId: string, connectionId: string): Promise<TransportOptions> {
+    const key = sharedRecvKey(userId, connectionId);
+    const existing = this.transports.get(key);
+    if (existing) {
+      await this.closeTransport(existing.id);
+    }
 
+    const router = await this.routerManager.getOrCreateReceiveRouter(connectionId);
+    const transport = await this.createTransportOnRouter(router, key);
+
+    logger.info(`Created shared recv transport ${transport.id} for user ${userId} [${connectionId}]`);
+
+    return this.toTransportOptions(transport);
+  }
+
+  private async createTransportOnRouter(
+    router: mediasoupTypes.Router,
+    key: string
+  ): Promise<mediasoupTypes.WebRtcTransport> {
     const transport = await router.createWebRtcTransport({
       listenIps: config.webrtc.listenIps,
       enableUdp: config.webrtc.enableUdp,
@@ -44,9 +84,9 @@ export class TransportManager {
       initialAvailableOutgoingBitrate: 600000, // 600kbps for voice-optimized bandwidth
     });
 
-    const key = `${userId}:${channelId}:${direction}`;
     this.transports.set(key, transport);
     this.transportIdToKey.set(transport.id, key);
+    this.transportRouters.set(transport.id, router);
 
     // Monitor DTLS state changes
     transport.on('dtlsstatechange', (dtlsState) => {
@@ -63,8 +103,19 @@ export class TransportManager {
       logger.info(`Transport ${transport.id} ICE state changed to ${iceState}`);
     });
 
-    logger.info(`Created ${direction} transport ${transport.id} for user ${userId} in channel ${channelId}`);
+    // Router closed (user router removed): transport goes with it
+    transport.on('routerclose', () => {
+      if (this.transports.get(key) === transport) {
+        this.transports.delete(key);
+      }
+      this.transportIdToKey.delete(transport.id);
+      this.transportRouters.delete(transport.id);
+    });
 
+    return transport;
+  }
+
+  private toTransportOptions(transport: mediasoupTypes.WebRtcTransport): TransportOptions {
     return {
       id: transport.id,
       iceParameters: transport.iceParameters,
@@ -100,6 +151,13 @@ export class TransportManager {
     return this.transports.get(key) || null;
   }
 
+  /**
+   * Get the router a transport was created on
+   */
+  getRouterForTransport(transportId: string): mediasoupTypes.Router | null {
+    return this.transportRouters.get(transportId) || null;
+  }
+
   /**
    * Get router for a channel
    */
@@ -119,6 +177,18 @@ export class TransportManager {
     return this.transports.get(key) || null;
   }
 
+  /**
+   * Get the transport to consume a channel on: the channel's own recv transport if the
+   * user has one, otherwise the connection's shared recv transport
+   */
+  getUserRecvTransport(userId: string, channelId: string, connectionId: string): mediasoupTypes.WebRtcTransport | null {
+    return (
+      this.getUserChannelTransport(userId, channelId, 'recv') ??
+      this.transports.get(sharedRecvKey(userId, connectionId)) ??
+      null
+    );
+  }
+
   /**
    * Close and remove transport
    */
@@ -136,6 +206,7 @@ export class TransportManager {
       transport.close();
       this.transports.delete(key);
       this.transportIdToKey.delete(transportId);
+      this.transportRouters.delete(transportId);
       logger.info(`Transport ${transportId} closed and removed`);
     }
   }
@@ -178,6 +249,7 @@ export class TransportManager {
       if (transport) {
         transport.close();
         this.transportIdToKey.delete(transport.id);
+        this.transportRouters.delete(transport.id);
         this.transports.delete(key);
       }
     }
@@ -187,6 +259,38 @@ export class TransportManager {
     }
   }
 
+  /**
+   * Restart ICE on the transports of one resumed session (after a network change): the
+   * per-channel transports of its channels and the shared recv transport of its connection.
+   * Transports of the user's other connections are left alone.
+   * Returns the new ICE parameters per transport for the client to apply
+   */
+  async restartSessionIce(
+    userId: string,
+    connectionId: string,
+    channelIds: Iterable<string>
+  ): Promise<Array<{ id: string; iceParameters: mediasoupTypes.IceParameters }>> {
+    const restarted: Array<{ id: string; iceParameters: mediasoupTypes.IceParameters }> = [];
+
+    const keys = [sharedRecvKey(userId, connectionId)];
+    for (const channelId of channelIds) {
+      keys.push(`${userId}:${channelId}:send`, `${userId}:${channelId}:recv`);
+    }
+
+    for (const key of keys) {
+      const transport = this.transports.get(key);
+      if (!transport || transport.closed) continue;
+      try {
+        const iceParameters = await transport.restartIce();
+        restarted.push({ id: transport.id, iceParameters });
+      } catch (err) {
+        logger.warn(`ICE restart failed for transport ${transport.id}: ${err instanceof Error ? err.message : String(err)}`);
+      }
+    }
+
+    return restarted;
+  }
+
   /**
    * Close all transports for a user (cleanup on disconnect)
    */
@@ -205,6 +309,7 @@ export class TransportManager {
       if (transport) {
         transport.close();
         this.transportIdToKey.delete(transport.id);
+        this.transportRouters.delete(transport.id);
         this.transports.delete(key);
       }
     }
@@ -0,0 +1,143 @@
+/**
+ * Broadcast index for connected clients
+ * Keeps channelId -> clients and userId -> clients so a broadcast touches only its recipients
+ * instead of scanning every connection
+ */
+
+/**
+ * What the index needs from a client context
+ */
+export interface IndexedClient {
+  userId: string;
+  channels: Set<string>;
+}
+
+const EMPTY = new Set<never>();
+
+/**
+ * ClientIndex tracks registered (connected) clients by channel and by user
+ * Channel membership follows the client's `channels` set: use [trackChannels] to create it,
+ * so join/leave (`channels.add` / `channels.delete`) update the index in place
+ * Parked (disconnected, resumable) clients are unregistered and receive nothing
+ */
+export class ClientIndex<C extends IndexedClient> {
+  private registered = new Set<C>();
+  private byChannel = new Map<string, Set<C>>();
+  private byUser = new Map<string, Set<C>>();
+
+  /**
+   * Number of registered clients
+   */
+  get size(): number {
+    return this.registered.size;
+  }
+
+  /**
+   * Register a client with its current channels
+   */
+  add(client: C): void {
+    if (this.registered.has(client)) return;
+    this.registered.add(client);
+
+    addTo(this.byUser, client.userId, client);
+    for (const channelId of client.channels) {
+      addTo(this.byChannel, channelId, client);
+    }
+  }
+
+  /**
+   * Unregister a client (its `channels` set is left as is, for resumption)
+   */
+  remove(client: C): void {
+    if (!this.registered.delete(client)) return;
+
+    removeFrom(this.byUser, client.userId, client);
+    for (const channelId of client.channels) {
+      removeFrom(this.byChannel, channelId, client);
+    }
+  }
+
+  has(client: C): boolean {
+    return this.registered.has(client);
+  }
+
+  /**
+   * Registered clients in a channel (live view: do not mutate channels while iterating)
+   */
+  channelMembers(channelId: string): ReadonlySet<C> {
+    return this.byChannel.get(channelId) ?? EMPTY;
+  }
+
+  /**
+   * Registered connections of a user (live view)
+   */
+  userClients(userId: string): ReadonlySet<C> {
+    return this.byUser.get(userId) ?? EMPTY;
+  }
+
+  /**
+   * Create a channel set for a client that keeps the index in step with it
+   */
+  trackChannels(client: C): Set<string> {
+    return new TrackedChannelSet(this, client);
+  }
+
+  /** @internal Called by TrackedChannelSet */
+  onJoin(client: C, channelId: string): void {
+    if (this.registered.has(client)) addTo(this.byChannel, channelId, client);
+  }
+
+  /** @internal Called by TrackedChannelSet */
+  onLeave(client: C, channelId: string): void {
+    if (this.registered.has(client)) removeFrom(this.byChannel, channelId, client);
+  }
+}
+
+/**
+ * Set of channel IDs that reports joins and leaves to its ClientIndex
+ */
+class TrackedChannelSet<C extends IndexedClient> extends Set<string> {
+  constructor(
+    private readonly index: ClientIndex<C>,
+    private readonly client: C
+  ) {
+    super();
+  }
+
+  add(channelId: string): this {
+    if (!this.has(channelId)) {
+      super.add(channelId);
+      this.index.onJoin(this.client, channelId);
+    }
+    return this;
+  }
+
+  delete(channelId: string): boolean {
+    const removed = super.delete(channelId);
+    if (removed) this.index.onLeave(this.client, channelId);
+    return removed;
+  }
+
+  clear(): void {
+    for (const channelId of this) {
+      this.index.onLeave(this.client, channelId);
+    }
+    super.clear();
+  }
+}
+
+function addTo<C>(map: Map<string, Set<C>>, key: string, client: C): void {
+  let set = map.get(key);
+  if (!set) {
+    set = new Set();
+    map.set(key, set);
+  }
+  set.add(client);
+}
+
+function removeFrom<C>(map: Map<string, Set<C>>, key: string, client: C): void {
+  const set = map.get(key);
+  if (!set) return;
+  set.delete(client);
+  if (set.size === 0) map.delete(key);
+}
@@ -12,6 +12,7 @@ import { AuditLogger, AuditAction } from '../auth/auditLogger';
 import { createLogger } from '../logger';
 import { config } from '../config';
 import { ClientContext } from './websocketServer';
+import { SerializedMessage } from './wireFormat';
 import { SignalingHandlers } from './handlers';
 
 const logger = createLogger('DispatchHandlers');
@@ -119,6 +120,7 @@ export class DispatchHandlers {
           if (producerId) {
             await this.producerConsumerManager.resumeProducer(producerId);
           }
+          this.signalingHandlers.watchSpeaker(ctx, channelId, producerId);
 
           // Audit log
           this.auditLogger.log({
@@ -173,6 +175,7 @@ export class DispatchHandlers {
           if (producerId) {
             await this.producerConsumerManager.resumeProducer(producerId);
           }
+          this.signalingHandlers.watchSpeaker(ctx, channelId, producerId);
 
           // Send PTT_INTERRUPTED to interrupted user
           this.sendToUser(
@@ -616,9 +619,7 @@ export class DispatchHandlers {
       response.id = messageId;
     }
 
-    if (ctx.ws.readyState === 1) { // WebSocket.OPEN
-      ctx.ws.send(JSON.stringify(response));
-    }
+    ctx.outbound.send(new SerializedMessage(response));
   }
 
   /**
@@ -634,8 +635,6 @@ export class DispatchHandlers {
       errorMessage.id = messageId;
     }
 
-    if (ctx.ws.readyState === 1) { // WebSocket.OPEN
-      ctx.ws.send(JSON.stringify(errorMessage));
-    }
+    ctx.outbound.send(new SerializedMessage(errorMessage));
   }
 }
@@ -19,9 +19,17 @@ import { DispatchHandlers } from './dispatchHandlers';
 import { createLogger } from '../logger';
 import { config } from '../config';
 import { ClientContext } from './websocketServer';
+import { SerializedMessage } from './wireFormat';
+import { SpeakerKeepalive } from './speakerKeepalive';
 
 const logger = createLogger('SignalingHandlers');
 
+/**
+ * A channel join refused by policy (permission, channel limit, channel full)
+ * Already audit-logged, so callers report it without logging an error
+ */
+class ChannelJoinDeniedError extends Error {}
+
 /**
  * Broadcast function type for channel-wide notifications
  */
@@ -42,6 +50,7 @@ export class SignalingHandlers {
   private adminHandlers?: AdminHandlers;
   private securityEventsManager?: SecurityEventsManager;
   private dispatchHandlers?: DispatchHandlers;
+  private speakerKeepalive: SpeakerKeepalive;
 
   // Track user's producer IDs for PTT operations
   private userProducers = new Map<string, string>(); // userId:channelId -> producerId
@@ -67,6 +76,16 @@ export class SignalingHandlers {
     this.broadcastToChannel = broadcastToChannel;
     this.permissionManager = permissionManager;
     this.auditLogger = auditLogger;
+    this.speakerKeepalive = new SpeakerKeepalive(
+      producerConsumerManager,
+      channelStateManager,
+      (ctx, channelId, reason) => void this.releaseSilentSpeaker(ctx, channelId, reason),
+      {
+        silenceMs: config.ptt.keepaliveSilenceMs,
+        startGraceMs: config.ptt.keepaliveStartGraceMs,
+        refreshIntervalMs: (config.ptt.lockTtlSeconds * 1000) / 3,
+      }
+    );
   }
 
   /**
@@ -103,6 +122,21 @@ export class SignalingHandlers {
     return this.userProducers.get(producerKey);
   }
 
+  /**
+   * Refresh a granted speaker's lock from its producer's RTP and release it on silence
+   * Used by DispatchHandlers for priority PTT grants
+   */
+  watchSpeaker(ctx: ClientContext, channelId: string, producerId?: string): void {
+    this.speakerKeepalive.watch(ctx, channelId, producerId);
+  }
+
+  /**
+   * Stop all speaker keepalives (server shutdown)
+   */
+  stopSpeakerKeepalive(): void {
+    this.speakerKeepalive.stop();
+  }
+
   /**
    * Handle JOIN_CHANNEL: Add user to channel and subscribe to state updates
    */
@@ -114,143 +148,255 @@ export class SignalingHandlers {
         throw new Error('channelId is required');
       }
 
-      // Permission check: Admin bypasses, others must have channel in authorizedChannels
-      const isAdmin = ctx.globalRole === 'ADMIN';
-      const hasPermission = isAdmin || ctx.authorizedChannels.has(channelId);
+      const result = await this.joinChannel(ctx, channelId);
 
-      if (!hasPermission) {
-        logger.warn(`User ${ctx.userId} denied access to channel ${channelId} (not authorized)`);
+      // Send response to requesting client
+      this.sendResponse(ctx, message.id, result);
+    } catch (err) {
+      if (!(err instanceof ChannelJoinDeniedError)) {
+        logger.error(`Error handling JOIN_CHANNEL: ${err instanceof Error ? err.message : String(err)}`);
+      }
+      this.sendError(ctx, message.id, err instanceof Error ? err.message : 'Failed to join channel');
+    }
+  }
 
-        // Audit log denial
-        this.auditLogger.log({
-          action: AuditAction.CHANNEL_JOIN_DENIED,
-          actorId: ctx.userId,
-          eventId: ctx.eventId,
-          targetId: channelId,
-          metadata: {
-            userName: ctx.userName,
-            role: ctx.role,
-            reason: 'not_authorized',
-          },
-        });
+  /**
+   * Handle REJOIN: Batched resume after reconnect
+   *
+   * Joins every requested channel and creates its recv transport concurrently, and returns
+   * per-channel results in one response, so a client monitoring N channels pays one round-trip
+   * instead of 2N serial ones. Each result carries the current speaker's producerId (if any)
+   * so the client can consume immediately. Failures are reported per channel.
+   *
+   * With `sharedRecv`, one shared recv transport is created for all channels and returned
+   * once at the top level instead of a transport per channel.
+   */
+  async handleRejoin(ctx: ClientContext, message: SignalingMessage): Promise<void> {
+    try {
+      const { channelIds, sharedRecv } = message.data as { channelIds: string[]; sharedRecv?: boolean };
 
-        this.sendError(ctx, message.id, 'Permission denied: Not authorized for this channel');
-        return;
+      if (!Array.isArray(channelIds) || channelIds.length === 0) {
+        throw new Error('channelIds is required');
       }
 
-      // Enforce simultaneous channel limit (role-aware)
+      // Enforce the simultaneous channel limit up front: the per-channel check in joinChannel
+      // cannot see joins that are still in flight
       const isDispatchOrAdmin = ctx.role === UserRole.DISPATCH || ctx.role === UserRole.ADMIN;
       const channelLimit = isDispatchOrAdmin
         ? config.channels.dispatchSimultaneousChannelLimit
         : config.channels.defaultSimultaneousChannelLimit;
+      const uniqueIds = [...new Set(channelIds)];
+      const toJoin = uniqueIds.filter((id) => !ctx.channels.has(id));
+      const allowed = new Set(toJoin.slice(0, Math.max(0, channelLimit - ctx.channels.size)));
+
+      const sharedTransport = sharedRecv
+        ? await this.transportManager.createSharedRecvTransport(ctx.userId, ctx.connectionId)
+        : undefined;
+
+      const channels = await Promise.all(
+        uniqueIds.map(async (channelId) => {
+          const alreadyJoined = ctx.channels.has(channelId);
+          if (!alreadyJoined && !allowed.has(channelId)) {
+            return { channelId, error: `Cannot join more than ${channelLimit} channels simultaneously` };
+          }
+
+          try {
+            // Already joined (resumed session): the client dropped its media, start it over
+            const joined = alreadyJoined
+              ? await this.resetChannelMedia(ctx, channelId)
+              : await this.joinChannel(ctx, channelId);
+            const transport = sharedTransport
+              ? undefined
+              : await this.transportManager.createWebRtcTransport(channelId, ctx.userId, 'recv');
+
+            // Current speaker's producer, so the client can consume without waiting for a broadcast
+            const producerId = joined.state.currentSpeaker
+              ? this.userProducers.get(`${joined.state.currentSpeaker}:${channelId}`) ?? null
+              : null;
+
+            return { ...joined, producerId, transport };
+          } catch (err) {
+            if (!(err instanceof ChannelJoinDeniedError)) {
+              logger.error(`Error rejoining channel ${channelId}: ${err instanceof Error ? err.message : String(err)}`);
+            }
+            return { channelId, error: err instanceof Error ? err.message : 'Failed to join channel' };
+          }
+        })
+      );
 
-      if (ctx.channels.size >= channelLimit) {
-        logger.warn(`User ${ctx.userId} denied access to channel ${channelId} (simultaneous channel limit)`);
-
-        // Audit log denial
-        this.auditLogger.log({
-          action: AuditAction.CHANNEL_JOIN_DENIED,
-          actorId: ctx.userId,
-          eventId: ctx.eventId,
-          targetId: channelId,
-          metadata: {
-            userName: ctx.userName,
-            role: ctx.role,
-            reason: 'simultaneous_channel_limit',
-            currentChannelCount: ctx.channels.size,
-            limit: channelLimit,
-          },
-        });
-
-        this.sendError(ctx, message.id, `Cannot join more than ${channelLimit} channels simultaneously`);
-        return;
-      }
+      this.sendResponse(ctx, message.id, { channels, transport: sharedTransport });
 
-      // Check channel user limit
-      const channelUserCount = await this.sessionStore.getChannelUserCount(channelId);
-      if (channelUserCount >= config.channels.defaultMaxUsersPerChannel) {
-        logger.warn(`User ${ctx.userId} denied access to channel ${channelId} (channel full)`);
+      const failed = channels.filter((c) => 'error' in c).length;
+      logger.info(`User ${ctx.userId} rejoined ${channels.length - failed}/${channels.length} channels`);
+    } catch (err) {
+      logger.error(`Error handling REJOIN: ${err instanceof Error ? err.message : String(err)}`);
+      this.sendError(ctx, message.id, err instanceof Error ? err.message : 'Failed to rejoin channels');
+    }
+  }
 
-        // Audit log denial
-        this.auditLogger.log({
-          action: AuditAction.CHANNEL_JOIN_DENIED,
-          actorId: ctx.userId,
-          eventId: ctx.eventId,
-          targetId: channelId,
-          metadata: {
-            userName: ctx.userName,
-            role: ctx.role,
-            reason: 'channel_full',
-            currentUserCount: channelUserCount,
-            limit: config.channels.defaultMaxUsersPerChannel,
-          },
-        });
+  /**
+   * Drop this user's transports, producers and consumers in a channel they stay joined to
+   * Used by REJOIN for channels a resumed session still holds
+   */
+  private async resetChannelMedia(
+    ctx: ClientContext,
+    channelId: string
+  ): Promise<{ channelId: string; state: ChannelState; userCount: number }> {
+    await this.transportManager.closeUserChannelTransports(ctx.userId, channelId);
+    await this.producerConsumerManager.closeUserChannelProducersAndConsumers(ctx.userId, channelId);
+    this.userProducers.delete(`${ctx.userId}:${channelId}`);
+
+    return {
+      channelId,
+      state: await this.channelStateManager.getChannelState(channelId),
+      userCount: await this.sessionStore.getChannelUserCount(channelId),
+    };
+  }
 
-        this.sendError(ctx, message.id, 'Channel is full');
-        return;
-      }
+  /**
+   * Join a channel: permission and limit checks, session/router/subscription setup,
+   * audit log and member notification. Shared by JOIN_CHANNEL and REJOIN.
+   *
+   * @throws ChannelJoinDeniedError when the join is refused (already audit-logged)
+   */
+  private async joinChannel(
+    ctx: ClientContext,
+    channelId: string
+  ): Promise<{ channelId: string; state: ChannelState; userCount: number }> {
+    // Permission check: Admin bypasses, others must have channel in authorizedChannels
+    const isAdmin = ctx.globalRole === 'ADMIN';
+    const hasPermission = isAdmin || ctx.authorizedChannels.has(channelId);
+
+    if (!hasPermission) {
+      logger.warn(`User ${ctx.userId} denied access to channel ${channelId} (not authorized)`);
+
+      // Audit log denial
+      this.auditLogger.log({
+        action: AuditAction.CHANNEL_JOIN_DENIED,
+        actorId: ctx.userId,
+        eventId: ctx.eventId,
+        targetId: channelId,
+        metadata: {
+          userName: ctx.userName,
+          role: ctx.role,
+          reason: 'not_authorized',
+        },
+      });
 
-      // Add user to channel in session store
-      await this.sessionStore.addUserToChannel(ctx.userId, channelId);
+      throw new ChannelJoinDeniedError('Permission denied: Not authorized for this channel');
+    }
 
-      // Add to client context
-      ctx.channels.add(channelId);
+    // Enforce simultaneous channel limit (role-aware)
+    const isDispatchOrAdmin = ctx.role === UserRole.DISPATCH || ctx.role === UserRole.ADMIN;
+    const channelLimit = isDispatchOrAdmin
+      ? config.channels.dispatchSimultaneousChannelLimit
+      : config.channels.defaultSimultaneousChannelLimit;
 
-      // Get or create router for channel
-      await this.routerManager.getOrCreateRouter(channelId);
+    if (ctx.channels.size >= channelLimit) {
+      logger.warn(`User ${ctx.userId} denied access to channel ${channelId} (simultaneous channel limit)`);
 
-      // Subscribe to channel state events
-      await this.channelStateManager.subscribeToChannel(channelId, (state: ChannelState) => {
-        // Broadcast speaker change to all channel members
-        this.broadcastToChannel(
-          channelId,
-          createMessage(SignalingType.SPEAKER_CHANGED, state as any)
-        );
+      // Audit log denial
+      this.auditLogger.log({
+        action: AuditAction.CHANNEL_JOIN_DENIED,
+        actorId: ctx.userId,
+        eventId: ctx.eventId,
+        targetId: channelId,
+        metadata: {
+          userName: ctx.userName,
+          role: ctx.role,
+          reason: 'simultaneous_channel_limit',
+          currentChannelCount: ctx.channels.size,
+          limit: channelLimit,
+        },
       });
 
-      // Get current channel state
-      const currentState = await this.channelStateManager.getChannelState(channelId);
+      throw new ChannelJoinDeniedError(`Cannot join more than ${channelLimit} channels simultaneously`);
+    }
+
+    // Check channel user limit
+    const channelUserCount = await this.sessionStore.getChannelUserCount(channelId);
+    if (channelUserCount >= config.channels.defaultMaxUsersPerChannel) {
+      logger.warn(`User ${ctx.userId} denied access to channel ${channelId} (channel full)`);
 
-      // Audit log successful join
+      // Audit log denial
       this.auditLogger.log({
-        action: AuditAction.CHANNEL_JOIN,
+        action: AuditAction.CHANNEL_JOIN_DENIED,
         actorId: ctx.userId,
         eventId: ctx.eventId,
         targetId: channelId,
         metadata: {
           userName: ctx.userName,
           role: ctx.role,
+          reason: 'channel_full',
+          currentUserCount: channelUserCount,
+          limit: config.channels.defaultMaxUsersPerChannel,
         },
       });
 
-      // Get updated user count after join
-      const updatedUserCount = await this.sessionStore.getChannelUserCount(channelId);
+      throw new ChannelJoinDeniedError('Channel is full');
+    }
+
+    // Add user to channel in session store
+    await this.sessionStore.addUserToChannel(ctx.userId, channelId);
 
-      // Send response to requesting client
-      this.sendResponse(ctx, message.id, {
-        channelId,
-        state: currentState,
-        userCount: updatedUserCount,
-      });
+    // Add to client context
+    ctx.channels.add(channelId);
 
-      // Notify other channel members
+    // Get or create router for channel
+    await this.routerManager.getOrCreateRouter(channelId);
+
+    // Subscribe to channel state events (before serving the channel, so the state published by a
+    // previous owner's hand-over is not missed)
+    await this.channelStateManager.subscribeToChannel(channelId, (state: ChannelState) => {
+      // Broadcast speaker change to all channel members
       this.broadcastToChannel(
         channelId,
-        createMessage(SignalingType.CHANNEL_STATE, {
-          ...currentState,
-          action: 'user-joined',
-          userId: ctx.userId,
-          userName: ctx.userName,
-          userCount: updatedUserCount,
-        }),
-        ctx.userId
+        createMessage(SignalingType.SPEAKER_CHANGED, state as any)
       );
+    });
+
+    // This node now serves the channel (ownership mode: may arbitrate its speaker lock in memory;
+    // waits for another node's hand-over so the state read below shows its speaker)
+    await this.channelStateManager.addLocalMember(channelId, ctx.connectionId);
+
+    // Get current channel state
+    const currentState = await this.channelStateManager.getChannelState(channelId);
+
+    // Audit log successful join
+    this.auditLogger.log({
+      action: AuditAction.CHANNEL_JOIN,
+      actorId: ctx.userId,
+      eventId: ctx.eventId,
+      targetId: channelId,
+      metadata: {
+        userName: ctx.userName,
+        role: ctx.role,
+      },
+    });
+
+    // Get updated user count after join
+    const updatedUserCount = await this.sessionStore.getChannelUserCount(channelId);
+
+    // Notify other channel members
+    this.broadcastToChannel(
+      channelId,
+      createMessage(SignalingType.CHANNEL_STATE, {
+        ...currentState,
+        action: 'user-joined',
+        userId: ctx.userId,
+        userName: ctx.userName,
+        userCount: updatedUserCount,
+      }),
+      ctx.userId
+    );
 
-      logger.info(`User ${ctx.userId} joined channel ${channelId}`);
-    } catch (err) {
-      logger.error(`Error handling JOIN_CHANNEL: ${err instanceof Error ? err.message : String(err)}`);
-      this.sendError(ctx, message.id, err instanceof Error ? err.message : 'Failed to join channel');
-    }
+    logger.info(`User ${ctx.userId} joined channel ${channelId}`);
+
+    return {
+      channelId,
+      state: currentState,
+      userCount: updatedUserCount,
+    };
   }
 
   /**
@@ -267,6 +413,7 @@ export class SignalingHandlers {
       // Release speaker lock if user was speaking
       const currentState = await this.channelStateManager.getChannelState(channelId);
       if (currentState.currentSpeaker === ctx.userId) {
+        this.speakerKeepalive.unwatch(channelId, ctx.userId);
         await this.channelStateManager.stopPtt(channelId, ctx.userId);
       }
 
@@ -274,11 +421,16 @@ export class SignalingHandlers {
       const producerKey = `${ctx.userId}:${channelId}`;
       this.userProducers.delete(producerKey);
 
+      // Close this connection's consumers of the channel (the shared recv transport stays for other channels)
+      const recvTransport = this.transportManager.getUserRecvTransport(ctx.userId, channelId, ctx.connectionId);
+      await this.producerConsumerManager.closeUserChannelConsumers(ctx.userId, channelId, recvTransport?.id);
+
       // Remove from channel in session store
       await this.sessionStore.removeUserFromChannel(ctx.userId, channelId);
 
       // Remove from client context
       ctx.channels.delete(channelId);
+      await this.channelStateManager.removeLocalMember(channelId, ctx.connectionId);
 
       // Unsubscribe from channel events
       await this.channelStateManager.unsubscribeFromChannel(channelId);
@@ -348,10 +500,25 @@ export class SignalingHandlers {
 
   /**
    * Handle CREATE_TRANSPORT: Create WebRTC transport for sending or receiving audio
+   * `shared: true` (recv only) creates the user's single recv transport for all channels
    */
   async handleCreateTransport(ctx: ClientContext, message: SignalingMessage): Promise<void> {
     try {
-      const { channelId, direction } = message.data as { channelId: string; direction: 'send' | 'recv' };
+      const { channelId, direction, shared } = message.data as {
+        channelId: string;
+        direction: 'send' | 'recv';
+        shared?: boolean;
+      };
+
+      if (shared) {
+        if (direction !== 'recv') {
+          throw new Error('Only recv transports can be shared');
+        }
+
+        const transportOptions = await this.transportManager.createSharedRecvTransport(ctx.userId, ctx.connectionId);
+        this.sendResponse(ctx, message.id, transportOptions);
+        return;
+      }
 
       if (!channelId || !direction) {
         throw new Error('channelId and direction are required');
@@ -402,7 +569,7 @@ export class SignalingHandlers {
   }
 
   /**
-   * Handle PRODUCE: Create audio producer on transport (starts paused)
+   * Handle PRODUCE: Create audio producer on transport (starts paused unless the user is already speaking)
    */
   async handleProduce(ctx: ClientContext, message: SignalingMessage): Promise<void> {
     try {
@@ -429,6 +596,15 @@ export class SignalingHandlers {
       const producerKey = `${ctx.userId}:${channelId}`;
       this.userProducers.set(producerKey, producerId);
 
+      // Producers start paused and PTT_START resumes them. A client that pre-warms
+      // produces before PTT_START; a client on the cold path produces after the grant,
+      // so resume now if this user already holds the speaker lock.
+      const state = await this.channelStateManager.getChannelState(channelId);
+      if (state.currentSpeaker === ctx.userId) {
+        await this.producerConsumerManager.resumeProducer(producerId);
+        this.speakerKeepalive.attachProducer(ctx, channelId, producerId);
+      }
+
       this.sendResponse(ctx, message.id, { id: producerId });
 
       logger.info(`Created producer ${producerId} for ${ctx.userId} in channel ${channelId}`);
@@ -453,8 +629,17 @@ export class SignalingHandlers {
         throw new Error('channelId, producerId, and rtpCapabilities are required');
       }
 
-      // Get receiver's recv transport
-      const transport = this.transportManager.getUserChannelTransport(ctx.userId, channelId, 'recv');
+      // Producers are piped into the connection's receive router, so router separation no longer
+      // limits what can be consumed: only producers of a channel this connection has joined
+      if (!ctx.channels.has(channelId)) {
+        throw new Error(`Not a member of channel ${channelId}`);
+      }
+      if (this.producerConsumerManager.getProducerChannel(producerId) !== channelId) {
+        throw new Error(`Producer ${producerId} is not in channel ${channelId}`);
+      }
+
+      // Get receiver's recv transport (the channel's own, or the connection's shared one)
+      const transport = this.transportManager.getUserRecvTransport(ctx.userId, channelId, ctx.connectionId);
       if (!transport) {
         throw new Error('Receive transport not found for consume operation');
       }
@@ -505,6 +690,7 @@ export class SignalingHandlers {
         } else {
           logger.warn(`No producer found for ${ctx.userId} in channel ${channelId}`);
         }
+        this.speakerKeepalive.watch(ctx, channelId, producerId);
 
         // Audit log PTT start
         this.auditLogger.log({
@@ -580,6 +766,8 @@ export class SignalingHandlers {
         throw new Error('channelId is required');
       }
 
+      this.speakerKeepalive.unwatch(channelId, ctx.userId);
+
       // Pause producer
       const producerKey = `${ctx.userId}:${channelId}`;
       const producerId = this.userProducers.get(producerKey);
@@ -917,19 +1105,7 @@ export class SignalingHandlers {
       });
 
       // Release speaker locks in all channels user was in
-      for (const channelId of ctx.channels) {
-        const currentState = await this.channelStateManager.getChannelState(channelId);
-        if (currentState.currentSpeaker === ctx.userId) {
-          await this.channelStateManager.stopPtt(channelId, ctx.userId);
-
-          // Broadcast speaker change
-          const updatedState = await this.channelStateManager.getChannelState(channelId);
-          this.broadcastToChannel(
-            channelId,
-            createMessage(SignalingType.SPEAKER_CHANGED, updatedState as any)
-          );
-        }
-      }
+      await this.releaseSpeakerLocks(ctx);
 
       // Close transports, producers, consumers per-channel (not globally for user)
       // Each channel has its own WebSocket connection, so only clean up THIS connection's channels
@@ -943,6 +1119,7 @@ export class SignalingHandlers {
 
         // Remove from session store
         await this.sessionStore.removeUserFromChannel(ctx.userId, channelId);
+        await this.channelStateManager.removeLocalMember(channelId, ctx.connectionId);
 
         // Notify channel members
         const updatedState = await this.channelStateManager.getChannelState(channelId);
@@ -957,6 +1134,9 @@ export class SignalingHandlers {
         );
       }
 
+      // Shared recv transport and receive router (closing the router closes the transport)
+      await this.routerManager.removeReceiveRouter(ctx.connectionId);
+
       // Clear pending channel removals
       this.pendingChannelRemovals.delete(ctx.userId);
 
@@ -966,6 +1146,147 @@ export class SignalingHandlers {
     }
   }
 
+  /**
+   * Handle suspend: the socket dropped but the session is parked for resumption
+   * Channel memberships, transports, producers and consumers are kept; only the floor is
+   * released (a speaker without signaling cannot be stopped) and the user's producers are paused
+   */
+  async handleSuspend(ctx: ClientContext): Promise<void> {
+    try {
+      logger.info(`Suspending session of user ${ctx.userId} (${ctx.channels.size} channels kept)`);
+
+      await this.releaseSpeakerLocks(ctx);
+
+      for (const channelId of ctx.channels) {
+        const producerId = this.userProducers.get(`${ctx.userId}:${channelId}`);
+        if (producerId) {
+          await this.producerConsumerManager.pauseProducer(producerId);
+        }
+      }
+    } catch (err) {
+      logger.error(`Error suspending session for ${ctx.userId}: ${err instanceof Error ? err.message : String(err)}`);
+    }
+  }
+
+  /**
+   * Restart ICE on a resumed session's kept transports (the client's address may have changed)
+   *
+   * @returns New ICE parameters per transport for the client to apply
+   */
+  async restartSessionIce(ctx: ClientContext): Promise<Array<{ id: string; iceParameters: mediasoupTypes.IceParameters }>> {
+    return this.transportManager.restartSessionIce(ctx.userId, ctx.connectionId, ctx.channels);
+  }
+
+  /**
+   * Leave kept channels the resumed session is no longer authorized for (revoked while parked)
+   * Runs before the session info so joinedChannels and the state replay only cover allowed channels
+   */
+  async leaveRevokedChannels(ctx: ClientContext): Promise<void> {
+    if (ctx.globalRole === 'ADMIN') return; // Admin bypasses channel authorization
+
+    for (const channelId of [...ctx.channels]) {
+      if (ctx.authorizedChannels.has(channelId)) continue;
+      logger.info(`Resumed session of ${ctx.userId} lost access to channel ${channelId}, leaving`);
+      await this.handlePermissionRevocation(ctx, channelId, true);
+    }
+  }
+
+  /**
+   * Handle resume: a parked session was reattached to a new socket
+   * Replays current speaker state and user count per channel, since broadcasts during the
+   * gap were not delivered
+   */
+  async handleResume(ctx: ClientContext): Promise<void> {
+    for (const channelId of ctx.channels) {
+      try {
+        const state = await this.channelStateManager.getChannelState(channelId);
+        const producerId = state.currentSpeaker
+          ? this.userProducers.get(`${state.currentSpeaker}:${channelId}`)
+          : undefined;
+        const userCount = await this.sessionStore.getChannelUserCount(channelId);
+
+        ctx.outbound.send(new SerializedMessage(createMessage(SignalingType.SPEAKER_CHANGED, { ...state, producerId } as any)));
+        ctx.outbound.send(new SerializedMessage(createMessage(SignalingType.CHANNEL_STATE, {
+          ...state,
+          action: 'session-resumed',
+          userId: ctx.userId,
+          userName: ctx.userName,
+          userCount,
+        })));
+      } catch (err) {
+        logger.error(`Error replaying state of ${channelId} for ${ctx.userId}: ${err instanceof Error ? err.message : String(err)}`);
+      }
+    }
+
+    logger.info(`Resumed session of user ${ctx.userId} (${ctx.channels.size} channels)`);
+  }
+
+  /**
+   * Release the speaker lock in every channel where this user holds it and broadcast the change
+   */
+  private async releaseSpeakerLocks(ctx: ClientContext): Promise<void> {
+    for (const channelId of ctx.channels) {
+      this.speakerKeepalive.unwatch(channelId, ctx.userId);
+      const currentState = await this.channelStateManager.getChannelState(channelId);
+      if (currentState.currentSpeaker === ctx.userId) {
+        await this.channelStateManager.stopPtt(channelId, ctx.userId);
+
+        // Broadcast speaker change
+        const updatedState = await this.channelStateManager.getChannelState(channelId);
+        this.broadcastToChannel(
+          channelId,
+          createMessage(SignalingType.SPEAKER_CHANGED, updatedState as any)
+        );
+      }
+    }
+  }
+
+  /**
+   * Release the floor of a speaker whose producer stopped sending RTP
+   * The client is told with PTT_INTERRUPTED since it may still believe it is transmitting
+   */
+  private async releaseSilentSpeaker(ctx: ClientContext, channelId: string, reason: string): Promise<void> {
+    try {
+      const currentState = await this.channelStateManager.getChannelState(channelId);
+      if (currentState.currentSpeaker !== ctx.userId) {
+        return;
+      }
+
+      const producerId = this.userProducers.get(`${ctx.userId}:${channelId}`);
+      if (producerId) {
+        await this.producerConsumerManager.pauseProducer(producerId);
+      }
+
+      const state = await this.channelStateManager.stopPtt(channelId, ctx.userId);
+
+      this.auditLogger.log({
+        action: AuditAction.PTT_STOP,
+        actorId: ctx.userId,
+        eventId: ctx.eventId,
+        targetId: channelId,
+        metadata: {
+          userName: ctx.userName,
+          role: ctx.role,
+          reason,
+        },
+      });
+
+      ctx.outbound.send(new SerializedMessage(createMessage(SignalingType.PTT_INTERRUPTED, {
+        channelId,
+        interruptedBy: 'server',
+        message: `Transmission ended: ${reason}`,
+      })));
+
+      // Sent to the speaker too, so its UI leaves the transmitting state
+      this.broadcastToChannel(
+        channelId,
+        createMessage(SignalingType.SPEAKER_CHANGED, state as any)
+      );
+    } catch (err) {
+      logger.error(`Error releasing silent speaker ${ctx.userId} in ${channelId}: ${err instanceof Error ? err.message : String(err)}`);
+    }
+  }
+
   /**
    * Handle permission revocation for a channel
    * If user is transmitting, defer removal until PTT stop
@@ -1063,9 +1384,7 @@ export class SignalingHandlers {
       response.id = messageId;
     }
 
-    if (ctx.ws.readyState === 1) { // WebSocket.OPEN
-      ctx.ws.send(JSON.stringify(response));
-    }
+    ctx.outbound.send(new SerializedMessage(response));
   }
 
   /**
@@ -1081,8 +1400,6 @@ export class SignalingHandlers {
       errorMessage.id = messageId;
     }
 
-    if (ctx.ws.readyState === 1) { // WebSocket.OPEN
-      ctx.ws.send(JSON.stringify(errorMessage));
-    }
+    ctx.outbound.send(new SerializedMessage(errorMessage));
   }
 }
@@ -0,0 +1,149 @@
+/**
+ * Per-connection outbound queue with backpressure
+ * Keeps slow (cellular) clients from piling up unbounded send buffers in the server process
+ */
+
+import * as ws from 'ws';
+import { SignalingMessage, SignalingType } from '../../shared/protocol';
+import { SerializedMessage } from './wireFormat';
+import { createLogger } from '../logger';
+
+const logger = createLogger('OutboundQueue');
+
+/**
+ * How long a congested connection waits before checking its send buffer again
+ */
+const DRAIN_POLL_MS = 50;
+
+export interface BackpressureLimits {
+  highWaterBytes: number; // Above this, channel-state broadcasts are held and coalesced
+  maxBufferedBytes: number; // Above this, the connection is dropped
+}
+
+/**
+ * Counters for one connection
+ */
+export interface OutboundStats {
+  sent: number;
+  coalesced: number; // Held channel-state replaced by a newer one for the same channel
+  dropped: number; // Frames never sent (connection closed or dropped while congested)
+  pending: number;
+  bufferedAmount: number;
+}
+
+/**
+ * Coalescing key for a frame, or undefined if it must always be delivered
+ * Only channel-state broadcasts are coalescible: each carries the full channel state, so the
+ * latest one per channel supersedes the others. Responses (with id), speaker-changed and
+ * everything else are always sent, in order.
+ */
+export function coalesceKey(message: SignalingMessage): string | undefined {
+  if (message.type !== SignalingType.CHANNEL_STATE || message.id !== undefined) return undefined;
+  const channelId = message.data?.channelId;
+  return typeof channelId === 'string' ? channelId : undefined;
+}
+
+/**
+ * OutboundQueue sends pre-serialized frames to one socket
+ * While the socket's send buffer is over the high-water mark, channel-state frames wait in a
+ * per-channel slot (latest wins) and are flushed once it drains. A connection whose buffer
+ * grows past maxBufferedBytes is terminated; the client resumes its session and gets fresh state.
+ */
+export class OutboundQueue {
+  private pending = new Map<string, SerializedMessage>(); // channelId -> latest channel-state
+  private drainTimer: NodeJS.Timeout | null = null;
+  private sent = 0;
+  private coalesced = 0;
+  private dropped = 0;
+
+  constructor(
+    private readonly socket: ws.WebSocket,
+    private readonly limits: BackpressureLimits
+  ) {}
+
+  /**
+   * Queue a frame for this connection
+   */
+  send(payload: SerializedMessage): void {
+    if (this.socket.readyState !== ws.OPEN) {
+      this.dropped++;
+      return;
+    }
+
+    if (this.socket.bufferedAmount > this.limits.maxBufferedBytes) {
+      this.dropSlowConsumer();
+      this.dropped++;
+      return;
+    }
+
+    const key = coalesceKey(payload.message);
+    if (key === undefined || (this.pending.size === 0 && this.socket.bufferedAmount < this.limits.highWaterBytes)) {
+      this.write(payload);
+      return;
+    }
+
+    // Congested: keep only the newest state per channel (re-inserted so flush order follows recency)
+    if (this.pending.delete(key)) this.coalesced++;
+    this.pending.set(key, payload);
+    this.scheduleDrain();
+  }
+
+  stats(): OutboundStats {
+    return {
+      sent: this.sent,
+      coalesced: this.coalesced,
+      dropped: this.dropped,
+      pending: this.pending.size,
+      bufferedAmount: this.socket.bufferedAmount,
+    };
+  }
+
+  /**
+   * Stop draining and discard held frames (connection closed)
+   */
+  close(): void {
+    if (this.drainTimer) {
+      clearTimeout(this.drainTimer);
+      this.drainTimer = null;
+    }
+    this.dropped += this.pending.size;
+    this.pending.clear();
+  }
+
+  private write(payload: SerializedMessage): void {
+    payload.send(this.socket);
+    this.sent++;
+  }
+
+  private scheduleDrain(): void {
+    if (this.drainTimer) return;
+    this.drainTimer = setTimeout(() => {
+      this.drainTimer = null;
+      this.drain();
+    }, DRAIN_POLL_MS);
+    this.drainTimer.unref();
+  }
+
+  private drain(): void {
+    if (this.socket.readyState !== ws.OPEN) {
+      this.close();
+      return;
+    }
+    if (this.socket.bufferedAmount >= this.limits.highWaterBytes) {
+      this.scheduleDrain();
+      return;
+    }
+
+    const held = [...this.pending.values()];
+    this.pending.clear();
+    for (const payload of held) {
+      this.write(payload);
+    }
+  }
+
+  private dropSlowConsumer(): void {
+    logger.warn(`Dropping slow consumer: ${this.socket.bufferedAmount} bytes buffered, ${this.pending.size} frames held`);
+    this.close();
+    this.socket.terminate();
+  }
+}
@@ -0,0 +1,180 @@
+/**
+ * Speaker keepalive
+ * Ties the speaker lock to the speaker's actual audio: the lock TTL is refreshed while the
+ * producer sends RTP, and the floor is released shortly after packets stop (client crash, dead
+ * network, stuck PTT) instead of waiting out the lock TTL. Opus DTX packets (one per 400 ms
+ * during speech pauses) count as activity, so silenceMs must stay well above that spacing
+ */
+
+import { ProducerConsumerManager } from '../mediasoup/producerConsumerManager';
+import { ChannelStateManager } from '../state/channelState';
+import { createLogger } from '../logger';
+import { ClientContext } from './websocketServer';
+
+const logger = createLogger('SpeakerKeepalive');
+
+export interface SpeakerKeepaliveOptions {
+  silenceMs: number; // Release after this long without RTP (above the DTX interval plus jitter)
+  startGraceMs: number; // Time from grant to first packet (cold path produces after the grant)
+  refreshIntervalMs: number; // Lock TTL refresh period while audio flows
+  checkIntervalMs?: number; // Deadline check tick (default 200 ms)
+}
+
+/**
+ * Called when a watched speaker went silent; the watch is already removed
+ */
+export type SilenceHandler = (ctx: ClientContext, channelId: string, reason: string) => void;
+
+interface Watch {
+  ctx: ClientContext;
+  channelId: string;
+  grantedAt: number;
+  lastRtpAt: number | null; // null until the first packet
+  lastRefreshAt: number;
+  producerId?: string;
+  unwatch?: () => void;
+}
+
+/**
+ * SpeakerKeepalive tracks at most one speaker per channel on this node
+ * A single timer runs while any speaker is watched
+ */
+export class SpeakerKeepalive {
+  private producerConsumerManager: ProducerConsumerManager;
+  private channelStateManager: ChannelStateManager;
+  private onSilence: SilenceHandler;
+  private options: SpeakerKeepaliveOptions;
+  private watches = new Map<string, Watch>(); // channelId -> watch
+  private timer: NodeJS.Timeout | null = null;
+
+  constructor(
+    producerConsumerManager: ProducerConsumerManager,
+    channelStateManager: ChannelStateManager,
+    onSilence: SilenceHandler,
+    options: SpeakerKeepaliveOptions
+  ) {
+    this.producerConsumerManager = producerConsumerManager;
+    this.channelStateManager = channelStateManager;
+    this.onSilence = onSilence;
+    this.options = options;
+  }
+
+  /**
+   * Start watching a speaker that was just granted the floor
+   * producerId may be missing on the cold path; attachProducer supplies it later
+   */
+  watch(ctx: ClientContext, channelId: string, producerId?: string): void {
+    const previous = this.watches.get(channelId);
+    if (previous) this.remove(previous);
+
+    const now = Date.now();
+    const watch: Watch = { ctx, channelId, grantedAt: now, lastRtpAt: null, lastRefreshAt: now };
+    this.watches.set(channelId, watch);
+    if (producerId) this.attach(watch, producerId);
+
+    if (!this.timer) {
+      this.timer = setInterval(() => this.check(), this.options.checkIntervalMs ?? 200);
+      this.timer.unref();
+    }
+  }
+
+  /**
+   * Attach a producer created after the grant to the speaker's watch
+   */
+  attachProducer(ctx: ClientContext, channelId: string, producerId: string): void {
+    const watch = this.watches.get(channelId);
+    if (watch && watch.ctx.userId === ctx.userId && watch.producerId !== producerId) {
+      watch.unwatch?.();
+      this.attach(watch, producerId);
+    }
+  }
+
+  /**
+   * Stop watching userId in a channel (PTT stop, leave, disconnect)
+   */
+  unwatch(channelId: string, userId: string): void {
+    const watch = this.watches.get(channelId);
+    if (watch && watch.ctx.userId === userId) this.remove(watch);
+  }
+
+  /**
+   * Number of speakers currently watched
+   */
+  size(): number {
+    return this.watches.size;
+  }
+
+  /**
+   * Stop all watches and the timer (shutdown)
+   */
+  stop(): void {
+    for (const watch of [...this.watches.values()]) this.remove(watch);
+  }
+
+  private attach(watch: Watch, producerId: string): void {
+    watch.producerId = producerId;
+    try {
+      watch.unwatch = this.producerConsumerManager.watchProducerActivity(producerId, {
+        onRtp: () => {
+          watch.lastRtpAt = Date.now();
+        },
+        onScore: (score) => {
+          // Score 0 means the worker saw no packets for the stream; expire on the next check
+          if (score > 0) watch.lastRtpAt = Date.now();
+          else if (watch.lastRtpAt !== null) watch.lastRtpAt = 0;
+        },
+        onEnd: () => {
+          if (this.watches.get(watch.channelId) === watch) this.remove(watch);
+        },
+      });
+    } catch (err) {
+      logger.warn(`Cannot watch producer ${producerId} of ${watch.ctx.userId}: ${err instanceof Error ? err.message : String(err)}`);
+    }
+  }
+
+  private remove(watch: Watch): void {
+    this.watches.delete(watch.channelId);
+    watch.unwatch?.();
+    watch.unwatch = undefined;
+
+    if (this.watches.size === 0 && this.timer) {
+      clearInterval(this.timer);
+      this.timer = null;
+    }
+  }
+
+  private check(): void {
+    const now = Date.now();
+
+    for (const watch of [...this.watches.values()]) {
+      const deadline = watch.lastRtpAt !== null
+        ? watch.lastRtpAt + this.options.silenceMs
+        : watch.grantedAt + this.options.startGraceMs;
+
+      if (now >= deadline) {
+        const reason = watch.lastRtpAt === null ? 'no audio after grant' : 'audio stopped';
+        logger.info(`Releasing floor of ${watch.ctx.userId} in channel ${watch.channelId}: ${reason}`);
+        this.remove(watch);
+        this.onSilence(watch.ctx, watch.channelId, reason);
+        continue;
+      }
+
+      // Audio is flowing (a packet within silenceMs): keep the lock from expiring under it
+      if (watch.lastRtpAt !== null && now - watch.lastRefreshAt >= this.options.refreshIntervalMs) {
+        watch.lastRefreshAt = now;
+        this.refresh(watch);
+      }
+    }
+  }
+
+  private refresh(watch: Watch): void {
+    this.channelStateManager.refreshPtt(watch.channelId, watch.ctx.userId).then((held) => {
+      if (!held && this.watches.get(watch.channelId) === watch) {
+        logger.warn(`Speaker lock of ${watch.ctx.userId} in channel ${watch.channelId} lost while transmitting`);
+        this.remove(watch);
+      }
+    }).catch((err) => {
+      logger.error(`Error refreshing speaker lock in ${watch.channelId}: ${err instanceof Error ? err.message : String(err)}`);
+    });
+  }
+}
@@ -6,6 +6,7 @@
 import * as http from 'http';
 import * as ws from 'ws';
 import * as jwt from 'jsonwebtoken';
+import { randomBytes } from 'crypto';
 import { SignalingMessage, SignalingType, createMessage } from '../../shared/protocol';
 import { UserRole } from '../../shared/types';
 import { config } from '../config';
@@ -15,6 +16,9 @@ import { PermissionManager } from '../auth/permissionManager';
 import { AuditLogger, AuditAction } from '../auth/auditLogger';
 import { SecurityEventsManager } from '../auth/securityEvents';
 import { rateLimiter } from '../auth/rateLimiter';
+import { selectSubprotocol, isSignalingSubprotocol, extractResumeToken, parseFrame, SerializedMessage } from './wireFormat';
+import { ClientIndex } from './clientIndex';
+import { OutboundQueue, OutboundStats } from './outboundQueue';
 
 const logger = createLogger('SignalingServer');
 
@@ -32,8 +36,33 @@ export interface ClientContext {
   eventId: string;
   authorizedChannels: Set<string>;
   globalRole: string;
+  resumeToken: string;
+  outbound: OutboundQueue; // Broadcast path with backpressure (per socket)
 }
 
+/**
+ * Outbound counters of one connection (see OutboundQueue)
+ */
+export interface ConnectionOutboundStats extends OutboundStats {
+  connectionId: string;
+  userId: string;
+}
+
+/**
+ * A dropped session kept for resumption (see config.signaling.resumeGraceMs)
+ */
+interface ParkedSession {
+  ctx: ClientContext;
+  expiry: NodeJS.Timeout;
+}
+
+/**
+ * Close codes that end a session for good (no parking for resumption)
+ */
+const NORMAL_CLOSE_CODE = 1000; // Client disconnected on purpose
+const GOING_AWAY_CLOSE_CODE = 1001; // Server shutting down
+const FORCE_DISCONNECT_CLOSE_CODE = 4003; // Admin force-disconnect / ban
+
 /**
  * JWT payload structure
  */
@@ -54,6 +83,8 @@ interface JwtPayload {
 export class SignalingServer {
   private wss: ws.WebSocketServer;
   private clients = new Map<string, ClientContext>();
+  private index = new ClientIndex<ClientContext>(); // channelId / userId -> connected clients
+  private parkedSessions = new Map<string, ParkedSession>(); // resumeToken -> parked session
   private handlers: SignalingHandlers;
   private heartbeatInterval: NodeJS.Timeout | null = null;
   private permissionManager: PermissionManager;
@@ -77,10 +108,8 @@ export class SignalingServer {
       verifyClient: this.verifyClient.bind(this),
       // Select 'voiceping' subprotocol from client's offered list
       // Client sends ['voiceping', jwtToken] — we accept 'voiceping' as the protocol
-      handleProtocols: (protocols: Set<string>) => {
-        if (protocols.has('voiceping')) return 'voiceping';
-        return false;
-      },
+      // Clients that also offer 'voiceping.bin' get the binary wire format instead
+      handleProtocols: selectSubprotocol,
     });
 
     this.wss.on('connection', this.handleConnection.bind(this));
@@ -146,26 +175,27 @@ export class SignalingServer {
       token = url.searchParams.get('token') || undefined;
     }
 
+    // sec-websocket-protocol header is comma-separated string
+    const protocols = info.req.headers['sec-websocket-protocol'];
+    const protocolList = !protocols
+      ? []
+      : typeof protocols === 'string'
+        ? protocols.split(',').map(p => p.trim())
+        : protocols;
+
     // 3. Check sec-websocket-protocol header
     // Client sends: new WebSocket(url, ['voiceping', jwtToken])
-    // Token is any non-'voiceping' subprotocol (raw JWT starting with eyJ...)
+    // Token is any subprotocol other than 'voiceping'/'voiceping.bin'/resume token (raw JWT starting with eyJ...)
     if (!token) {
-      const protocols = info.req.headers['sec-websocket-protocol'];
-      if (protocols) {
-        // sec-websocket-protocol header is comma-separated string
-        const protocolList = typeof protocols === 'string'
-          ? protocols.split(',').map(p => p.trim())
-          : protocols;
-        for (const protocol of protocolList) {
-          if (protocol === 'voiceping') continue;
-          // Support both raw JWT and legacy "token-<jwt>" format
-          if (protocol.startsWith('token-')) {
-            token = protocol.substring(6);
-          } else {
-            token = protocol;
-          }
-          break;
+      for (const protocol of protocolList) {
+        if (isSignalingSubprotocol(protocol)) continue;
+        // Support both raw JWT and legacy "token-<jwt>" format
+        if (protocol.startsWith('token-')) {
+          token = protocol.substring(6);
+        } else {
+          token = protocol;
         }
+        break;
       }
     }
 
@@ -211,6 +241,7 @@ export class SignalingServer {
       (info.req as any).role = user.role;
       (info.req as any).channelIds = user.channelIds;
       (info.req as any).globalRole = user.globalRole;
+      (info.req as any).resumeToken = extractResumeToken(protocolList);
 
       // Check if user is banned (if SecurityEventsManager is available)
       if (this.securityEventsManager) {
@@ -237,6 +268,8 @@ export class SignalingServer {
 
   /**
    * Handle new WebSocket connection
+   * A valid resume token reattaches the parked session (channels, transports, producers)
+   * to the new socket instead of starting an empty one
    */
   private handleConnection(socket: ws.WebSocket, req: http.IncomingMessage): void {
     const userId = (req as any).userId;
@@ -245,24 +278,57 @@ export class SignalingServer {
     const role = (req as any).role as UserRole;
     const channelIds = (req as any).channelIds as string[];
     const globalRole = (req as any).globalRole;
-    const connectionId = `${userId}:${Date.now()}`;
 
-    const clientContext: ClientContext = {
+    const parked = this.takeParkedSession((req as any).resumeToken, userId);
+    const resumed = parked !== undefined;
+
+    // A resumed session keeps its connection id: its receive router and shared transport are keyed by it
+    const connectionId = parked?.connectionId ?? `${userId}:${Date.now()}`;
+
+    // A fresh session would collide with a parked one (transports are keyed by user and channel)
+    const ready = resumed ? Promise.resolve() : this.expireParkedSessions(userId);
+
+    const outbound = new OutboundQueue(socket, {
+      highWaterBytes: config.signaling.sendHighWaterBytes,
+      maxBufferedBytes: config.signaling.sendMaxBufferedBytes,
+    });
+
+    const clientContext: ClientContext = parked ?? {
       ws: socket,
       userId,
       userName,
-      channels: new Set(),
+      channels: new Set(), // Replaced by an index-tracked set below
       connectionId,
       isAlive: true,
       role,
       eventId,
       authorizedChannels: new Set(channelIds || []),
       globalRole,
+      resumeToken: '',
+      outbound,
     };
+    if (!parked) {
+      clientContext.channels = this.index.trackChannels(clientContext);
+    }
+
+    // Resumed: same session object on the new socket, identity and permissions from the new JWT
+    Object.assign(clientContext, {
+      ws: socket,
+      userName,
+      connectionId,
+      isAlive: true,
+      role,
+      eventId,
+      authorizedChannels: new Set(channelIds || []),
+      globalRole,
+      resumeToken: randomBytes(24).toString('base64url'),
+      outbound,
+    });
 
     this.clients.set(connectionId, clientContext);
+    this.index.add(clientContext);
 
-    logger.info(`User ${userId} (${userName}) connected [${connectionId}] with role ${role}`);
+    logger.info(`User ${userId} (${userName}) ${resumed ? 'resumed' : 'connected'} [${connectionId}] with role ${role}`);
 
     // Audit log AUTH_LOGIN
     this.auditLogger.log({
@@ -275,16 +341,12 @@ export class SignalingServer {
         globalRole,
         connectionId,
         channelCount: channelIds.length,
+        resumed,
       },
     });
 
-    // Send CHANNEL_LIST message with authorized channels
-    const channelListMessage = createMessage(SignalingType.CHANNEL_LIST, {
-      channels: Array.from(clientContext.authorizedChannels),
-      role,
-      globalRole,
-    });
-    this.sendToClient(socket, channelListMessage);
+    // Client messages wait until the session is settled (parked sessions expired, or resume replayed)
+    const sessionReady = ready.then(() => this.sendSessionInfo(clientContext, resumed));
 
     // Handle pong responses for heartbeat
     socket.on('pong', () => {
@@ -292,13 +354,13 @@ export class SignalingServer {
     });
 
     // Handle incoming messages
-    socket.on('message', (data: ws.RawData) => {
-      this.handleMessage(clientContext, data);
+    socket.on('message', (data: ws.RawData, isBinary: boolean) => {
+      sessionReady.then(() => this.handleMessage(clientContext, data, isBinary));
     });
 
     // Handle connection close
-    socket.on('close', () => {
-      this.handleDisconnect(clientContext);
+    socket.on('close', (code: number) => {
+      sessionReady.then(() => this.handleDisconnect(clientContext, code));
     });
 
     // Handle errors
@@ -308,18 +370,78 @@ export class SignalingServer {
     });
   }
 
+  /**
+   * Send CHANNEL_LIST (authorized channels + resume token); for a resumed session also the
+   * kept channels, new ICE parameters for the kept transports, and a replay of channel state
+   * Kept channels the new JWT no longer authorizes are left first
+   */
+  private async sendSessionInfo(ctx: ClientContext, resumed: boolean): Promise<void> {
+    try {
+      if (resumed) {
+        await this.handlers.leaveRevokedChannels(ctx);
+      }
+      const transports = resumed ? await this.handlers.restartSessionIce(ctx) : [];
+
+      // Send CHANNEL_LIST message with authorized channels
+      const channelListMessage = createMessage(SignalingType.CHANNEL_LIST, {
+        channels: Array.from(ctx.authorizedChannels),
+        role: ctx.role,
+        globalRole: ctx.globalRole,
+        resumeToken: ctx.resumeToken,
+        resumed,
+        joinedChannels: Array.from(ctx.channels),
+        transports,
+      });
+      this.sendToClient(ctx, channelListMessage);
+
+      if (resumed) {
+        await this.handlers.handleResume(ctx);
+      }
+    } catch (err) {
+      logger.error(`Error sending session info to ${ctx.userId}: ${err instanceof Error ? err.message : String(err)}`);
+    }
+  }
+
+  /**
+   * Take the parked session for a resume token, if it exists and belongs to this user
+   */
+  private takeParkedSession(resumeToken: string | undefined, userId: string): ClientContext | undefined {
+    if (!resumeToken) return undefined;
+
+    const parked = this.parkedSessions.get(resumeToken);
+    if (!parked || parked.ctx.userId !== userId) {
+      logger.info(`Resume token from ${userId} not usable (expired or unknown), starting a new session`);
+      return undefined;
+    }
+
+    clearTimeout(parked.expiry);
+    this.parkedSessions.delete(resumeToken);
+    return parked.ctx;
+  }
+
+  /**
+   * Fully clean up any parked sessions of a user now
+   */
+  private async expireParkedSessions(userId: string): Promise<void> {
+    for (const [resumeToken, parked] of this.parkedSessions.entries()) {
+      if (parked.ctx.userId !== userId) continue;
+      clearTimeout(parked.expiry);
+      this.parkedSessions.delete(resumeToken);
+      await this.handlers.handleDisconnect(parked.ctx);
+    }
+  }
+
   /**
    * Handle incoming signaling message
    */
-  private async handleMessage(ctx: ClientContext, data: ws.RawData): Promise<void> {
+  private async handleMessage(ctx: ClientContext, data: ws.RawData, isBinary: boolean): Promise<void> {
     try {
-      const messageStr = data.toString();
-      const message: SignalingMessage = JSON.parse(messageStr);
+      const message = parseFrame(data, isBinary);
 
       // Validate message has a type
       if (!message.type || !Object.values(SignalingType).includes(message.type)) {
         logger.warn(`Invalid message type from ${ctx.userId}: ${message.type}`);
-        this.sendError(ctx.ws, 'Invalid message type', message.id);
+        this.sendError(ctx, 'Invalid message type', message.id);
         return;
       }
 
@@ -329,7 +451,7 @@ export class SignalingServer {
       await this.routeMessage(ctx, message);
     } catch (err) {
       logger.error(`Error handling message from ${ctx.userId}: ${err instanceof Error ? err.message : String(err)}`);
-      this.sendError(ctx.ws, 'Failed to process message');
+      this.sendError(ctx, 'Failed to process message');
     }
   }
 
@@ -347,6 +469,10 @@ export class SignalingServer {
           await this.handlers.handleLeaveChannel(ctx, message);
           break;
 
+        case SignalingType.REJOIN:
+          await this.handlers.handleRejoin(ctx, message);
+          break;
+
         case SignalingType.GET_ROUTER_CAPABILITIES:
           await this.handlers.handleGetRouterCapabilities(ctx, message);
           break;
@@ -409,40 +535,57 @@ export class SignalingServer {
 
         default:
           logger.warn(`Unhandled message type: ${message.type}`);
-          this.sendError(ctx.ws, `Unhandled message type: ${message.type}`, message.id);
+          this.sendError(ctx, `Unhandled message type: ${message.type}`, message.id);
       }
     } catch (err) {
       logger.error(`Handler error for ${message.type}: ${err instanceof Error ? err.message : String(err)}`);
-      this.sendError(ctx.ws, err instanceof Error ? err.message : 'Handler error', message.id);
+      this.sendError(ctx, err instanceof Error ? err.message : 'Handler error', message.id);
     }
   }
 
   /**
    * Handle client disconnect
    */
-  private async handleDisconnect(ctx: ClientContext): Promise<void> {
-    logger.info(`User ${ctx.userId} disconnected [${ctx.connectionId}]`);
+  private async handleDisconnect(ctx: ClientContext, code?: number): Promise<void> {
+    logger.info(`User ${ctx.userId} disconnected [${ctx.connectionId}] (code ${code})`);
+    ctx.outbound.close();
+
+    // Unexpected drop of a session with channels: keep it resumable for the grace window
+    const graceMs = config.signaling.resumeGraceMs;
+    if (graceMs > 0 && ctx.channels.size > 0 && code !== NORMAL_CLOSE_CODE && code !== GOING_AWAY_CLOSE_CODE && code !== FORCE_DISCONNECT_CLOSE_CODE) {
+      this.clients.delete(ctx.connectionId);
+      this.index.remove(ctx);
+      await this.handlers.handleSuspend(ctx);
+
+      const resumeToken = ctx.resumeToken;
+      const expiry = setTimeout(() => {
+        this.parkedSessions.delete(resumeToken);
+        logger.info(`Resume window expired for user ${ctx.userId}, cleaning up`);
+        this.handlers.handleDisconnect(ctx);
+      }, graceMs);
+      this.parkedSessions.set(resumeToken, { ctx, expiry });
+      return;
+    }
 
     // Call disconnect handler for cleanup
     await this.handlers.handleDisconnect(ctx);
 
     // Remove from clients map
     this.clients.delete(ctx.connectionId);
+    this.index.remove(ctx);
   }
 
   /**
-   * Send message to a specific client
+   * Send message to a specific client (through its outbound queue, so backpressure limits apply)
    */
-  sendToClient(socket: ws.WebSocket, message: SignalingMessage): void {
-    if (socket.readyState === ws.OPEN) {
-      socket.send(JSON.stringify(message));
-    }
+  sendToClient(ctx: ClientContext, message: SignalingMessage): void {
+    ctx.outbound.send(new SerializedMessage(message));
   }
 
   /**
    * Send error message to client
    */
-  private sendError(socket: ws.WebSocket, error: string, id?: string): void {
+  private sendError(ctx: ClientContext, error: string, id?: string): void {
     const errorMessage: SignalingMessage = {
       type: SignalingType.ERROR,
       error,
@@ -452,18 +595,19 @@ export class SignalingServer {
       errorMessage.id = id;
     }
 
-    this.sendToClient(socket, errorMessage);
+    this.sendToClient(ctx, errorMessage);
   }
 
   /**
    * Broadcast message to all clients in a channel
    */
   broadcastToChannel(channelId: string, message: SignalingMessage, excludeUserId?: string): void {
+    const payload = new SerializedMessage(message);
     let sentCount = 0;
 
-    for (const ctx of this.clients.values()) {
-      if (ctx.channels.has(channelId) && ctx.userId !== excludeUserId) {
-        this.sendToClient(ctx.ws, message);
+    for (const ctx of this.index.channelMembers(channelId)) {
+      if (ctx.userId !== excludeUserId) {
+        ctx.outbound.send(payload);
         sentCount++;
       }
     }
@@ -480,6 +624,17 @@ export class SignalingServer {
     return this.clients.size;
   }
 
+  /**
+   * Outbound backpressure counters per connection (sent / coalesced / dropped frames)
+   */
+  getOutboundStats(): ConnectionOutboundStats[] {
+    return Array.from(this.clients.values(), (ctx) => ({
+      connectionId: ctx.connectionId,
+      userId: ctx.userId,
+      ...ctx.outbound.stats(),
+    }));
+  }
+
   /**
    * Disconnect a specific user by userId
    * Used by admin handlers for force-disconnect
@@ -488,13 +643,16 @@ export class SignalingServer {
    * @returns true if user was found and disconnected, false otherwise
    */
   disconnectUser(targetUserId: string, reason: string): boolean {
-    for (const [connectionId, ctx] of this.clients.entries()) {
-      if (ctx.userId === targetUserId) {
-        this.sendToClient(ctx.ws, createMessage(SignalingType.FORCE_DISCONNECT, { reason }));
-        ctx.ws.close(4003, reason);
-        logger.info(`User ${targetUserId} force-disconnected: ${reason}`);
-        return true;
-      }
+    // A parked session must not be resumable after a force-disconnect
+    this.expireParkedSessions(targetUserId).catch((err) => {
+      logger.error(`Error expiring parked sessions of ${targetUserId}: ${err instanceof Error ? err.message : String(err)}`);
+    });
+
+    for (const ctx of this.index.userClients(targetUserId)) {
+      this.sendToClient(ctx, createMessage(SignalingType.FORCE_DISCONNECT, { reason }));
+      ctx.ws.close(4003, reason);
+      logger.info(`User ${targetUserId} force-disconnected: ${reason}`);
+      return true;
     }
     logger.warn(`User ${targetUserId} not found for disconnect`);
     return false;
@@ -508,11 +666,9 @@ export class SignalingServer {
    * @returns true if user was found and message sent, false otherwise
    */
   sendToUser(targetUserId: string, message: SignalingMessage): boolean {
-    for (const ctx of this.clients.values()) {
-      if (ctx.userId === targetUserId) {
-        this.sendToClient(ctx.ws, message);
-        return true;
-      }
+    for (const ctx of this.index.userClients(targetUserId)) {
+      this.sendToClient(ctx, message);
+      return true;
     }
     return false;
   }
@@ -525,15 +681,13 @@ export class SignalingServer {
    * @param action - Action that triggered the update
    */
   pushPermissionUpdate(userId: string, newChannelIds: string[], action: string): void {
-    for (const ctx of this.clients.values()) {
-      if (ctx.userId === userId) {
-        ctx.authorizedChannels = new Set(newChannelIds);
-        this.sendToClient(ctx.ws, createMessage(SignalingType.PERMISSION_UPDATE, {
-          channelIds: newChannelIds,
-          action,
-        }));
-        logger.info(`Permission update pushed to ${userId}: ${action}`);
-      }
+    for (const ctx of this.index.userClients(userId)) {
+      ctx.authorizedChannels = new Set(newChannelIds);
+      this.sendToClient(ctx, createMessage(SignalingType.PERMISSION_UPDATE, {
+        channelIds: newChannelIds,
+        action,
+      }));
+      logger.info(`Permission update pushed to ${userId}: ${action}`);
     }
   }
 
@@ -547,6 +701,7 @@ export class SignalingServer {
           logger.warn(`Client ${ctx.userId} failed heartbeat, terminating connection`);
           ctx.ws.terminate();
           this.clients.delete(connectionId);
+          this.index.remove(ctx);
           continue;
         }
 
@@ -614,7 +769,7 @@ export class SignalingServer {
           removed: [],
           channels: Array.from(freshChannels),
         });
-        this.sendToClient(ctx.ws, updateMessage);
+        this.sendToClient(ctx, updateMessage);
       }
 
       // Handle removed channels
@@ -636,7 +791,7 @@ export class SignalingServer {
           removed: removedChannels,
           channels: Array.from(freshChannels),
         });
-        this.sendToClient(ctx.ws, updateMessage);
+        this.sendToClient(ctx, updateMessage);
       }
     } catch (err) {
       logger.error(`Failed to refresh permissions for ${ctx.userId}: ${err instanceof Error ? err.message : String(err)}`);
@@ -662,11 +817,18 @@ export class SignalingServer {
 
     // Close all client connections
     for (const ctx of this.clients.values()) {
-      ctx.ws.close();
+      ctx.ws.close(GOING_AWAY_CLOSE_CODE);
+      this.index.remove(ctx);
     }
 
     this.clients.clear();
 
+    // Parked sessions cannot be resumed on another process
+    for (const parked of this.parkedSessions.values()) {
+      clearTimeout(parked.expiry);
+    }
+    this.parkedSessions.clear();
+
     // Close WebSocket server
     return new Promise((resolve, reject) => {
       this.wss.close((err) => {
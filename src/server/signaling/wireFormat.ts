@@ -0,0 +1,106 @@
+/**
+ * Per-connection signaling wire format
+ * Connections that negotiated BINARY_SIGNALING_SUBPROTOCOL exchange binary frames,
+ * everything else (browser client, older Android builds) keeps JSON text
+ */
+
+import * as ws from 'ws';
+import {
+  SignalingMessage,
+  SIGNALING_SUBPROTOCOL,
+  BINARY_SIGNALING_SUBPROTOCOL,
+  RESUME_SUBPROTOCOL_PREFIX,
+} from '../../shared/protocol';
+import { encodeBinaryMessage, decodeBinaryMessage } from '../../shared/binaryCodec';
+import { config } from '../config';
+
+/**
+ * Pick the subprotocol for a new connection
+ * Binary wins when the client offered it and the server has it enabled
+ */
+export function selectSubprotocol(protocols: Set<string>): string | false {
+  if (!protocols.has(SIGNALING_SUBPROTOCOL)) return false;
+  if (config.signaling.binaryWireEnabled && protocols.has(BINARY_SIGNALING_SUBPROTOCOL)) {
+    return BINARY_SIGNALING_SUBPROTOCOL;
+  }
+  return SIGNALING_SUBPROTOCOL;
+}
+
+/**
+ * True for subprotocol tokens that select a wire format or carry a resume token (i.e. are not the JWT)
+ */
+export function isSignalingSubprotocol(protocol: string): boolean {
+  return protocol === SIGNALING_SUBPROTOCOL
+    || protocol === BINARY_SIGNALING_SUBPROTOCOL
+    || protocol.startsWith(RESUME_SUBPROTOCOL_PREFIX);
+}
+
+/**
+ * Resume token offered by the client, if any
+ */
+export function extractResumeToken(protocols: string[]): string | undefined {
+  const entry = protocols.find((protocol) => protocol.startsWith(RESUME_SUBPROTOCOL_PREFIX));
+  return entry ? entry.substring(RESUME_SUBPROTOCOL_PREFIX.length) || undefined : undefined;
+}
+
+/**
+ * True if this socket negotiated the binary wire format
+ */
+export function usesBinaryWire(socket: ws.WebSocket): boolean {
+  return socket.protocol === BINARY_SIGNALING_SUBPROTOCOL;
+}
+
+/**
+ * Serialize a message in the socket's negotiated wire format
+ */
+export function serializeForSocket(socket: ws.WebSocket, message: SignalingMessage): string | Uint8Array {
+  return usesBinaryWire(socket) ? encodeBinaryMessage(message) : JSON.stringify(message);
+}
+
+/**
+ * A message encoded at most once per wire format, for fan-out to many sockets
+ * JSON is pre-encoded to a UTF-8 buffer (sent as a text frame), so every recipient on the
+ * same format shares one buffer and ws does not re-encode the string per socket
+ */
+export class SerializedMessage {
+  private json?: Buffer;
+  private binary?: Uint8Array;
+
+  constructor(readonly message: SignalingMessage) {}
+
+  /**
+   * Encoded frame in the socket's negotiated wire format
+   */
+  for(socket: ws.WebSocket): Uint8Array {
+    if (usesBinaryWire(socket)) {
+      return this.binary ??= encodeBinaryMessage(this.message);
+    }
+    return this.json ??= Buffer.from(JSON.stringify(this.message));
+  }
+
+  /**
+   * Send the shared frame (text frame for JSON, binary frame for the binary codec)
+   */
+  send(socket: ws.WebSocket): void {
+    socket.send(this.for(socket), { binary: usesBinaryWire(socket) });
+  }
+}
+
+/**
+ * Parse an incoming frame (binary frames use the binary codec, text frames are JSON)
+ */
+export function parseFrame(data: ws.RawData, isBinary: boolean): SignalingMessage {
+  if (!isBinary) {
+    return JSON.parse(data.toString());
+  }
+
+  let bytes: Uint8Array;
+  if (Array.isArray(data)) {
+    bytes = Buffer.concat(data);
+  } else if (data instanceof ArrayBuffer) {
+    bytes = new Uint8Array(data);
+  } else {
+    bytes = data;
+  }
+  return decodeBinaryMessage(bytes);
+}
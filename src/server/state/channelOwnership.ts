@@ -0,0 +1,449 @@
+/**
+ * Channel ownership for in-memory speaker arbitration
+ * When only one node serves a channel, that node holds a Redis lease on it and grants the speaker
+ * lock in memory (no Redis round-trip per PTT). Redis stays the arbiter for channels served by
+ * several nodes: the owner hands its current grant over to the Redis speaker lock and steps down.
+ */
+
+import { RedisClientType } from 'redis';
+import { SpeakerLockResult } from '../../shared/types';
+import { createLogger } from '../logger';
+import { defineScript, runScript } from './luaScript';
+import { getLockKey, getOwnerKey } from './speakerLock';
+
+const logger = createLogger('ChannelOwnership');
+
+/**
+ * Fencing token = epoch * SEQ_SPACE + grant sequence
+ * The epoch comes from INCR on every lease claim, so tokens grow across failovers
+ */
+const SEQ_SPACE = 2 ** 20;
+
+/**
+ * How often a joining node checks whether the previous owner has handed over
+ */
+const HANDOVER_POLL_MS = 20;
+
+/** Claim reply: another node owns the channel and was asked to hand over */
+const CLAIM_HANDOVER_REQUESTED = 3;
+
+export interface OwnershipOptions {
+  nodeId: string;
+  leaseMs: number; // Ownership lease TTL, renewed every leaseMs / 3
+  lockTtlMs: number; // In-memory speaker grant TTL (same as the Redis lock TTL)
+  // Called after a hand-over with the speaker moved to Redis, so other nodes learn the current state
+  // (speaker changes were delivered only locally while this node owned the channel)
+  onHandover?: (channelId: string, speaker: { userId: string; userName: string } | null) => void;
+}
+
+/**
+ * Speaker grant result with the grant's fencing token
+ */
+export interface OwnedLockResult extends SpeakerLockResult {
+  fencingToken?: number;
+}
+
+interface Grant {
+  userId: string;
+  userName: string;
+  timestamp: number;
+  fencingToken: number;
+  expiresAt: number;
+}
+
+interface OwnedChannel {
+  epoch: number;
+  seq: number;
+  validUntil: number; // Local clock; grants only before this (lease may be gone after it)
+  speaker: Grant | null;
+}
+
+function getNodesKey(channelId: string): string {
+  return `channel:${channelId}:nodes`;
+}
+
+function getEpochKey(channelId: string): string {
+  return `channel:${channelId}:epoch`;
+}
+
+function getRevokeChannel(nodeId: string): string {
+  return `channel-ownership:${nodeId}`;
+}
+
+/**
+ * Register this node as serving the channel and claim or renew the ownership lease
+ * KEYS: owner, nodes (zset nodeId -> expiry ms), epoch, speaker
+ * ARGV: nodeId, leaseMs, memberTtlMs, channelId
+ * Returns {1, epoch} renewed, {2, epoch[, speakerValue, speakerTtlMs]} claimed (adopting the
+ * Redis speaker lock), {-1, epoch} owner must hand over (another node serves the channel),
+ * {3} not owner and the foreign owner was told to hand over (this node is a second server),
+ * {0} not owner
+ */
+const CLAIM_SCRIPT = defineScript(`
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', now)
+redis.call('ZADD', KEYS[2], now + tonumber(ARGV[3]), ARGV[1])
+redis.call('PEXPIRE', KEYS[2], ARGV[3])
+local single = redis.call('ZCARD', KEYS[2]) == 1
+
+local owner = redis.call('GET', KEYS[1])
+if owner then
+  local node, epoch = string.match(owner, '^(.*)|(%d+)$')
+  if node == ARGV[1] then
+    if not single then return {-1, tonumber(epoch)} end
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return {1, tonumber(epoch)}
+  end
+  if not single and node then
+    redis.call('PUBLISH', 'channel-ownership:' .. node, ARGV[4])
+    return {3}
+  end
+  return {0}
+end
+if not single then return {0} end
+
+local epoch = redis.call('INCR', KEYS[3])
+redis.call('SET', KEYS[1], ARGV[1] .. '|' .. epoch, 'PX', ARGV[2])
+local speaker = redis.call('GET', KEYS[4])
+if not speaker then return {2, epoch} end
+local ttl = redis.call('PTTL', KEYS[4])
+redis.call('DEL', KEYS[4])
+return {2, epoch, speaker, ttl}
+`);
+
+/**
+ * Step down: move the in-memory grant to the Redis speaker lock and drop the lease
+ * Fenced by the lease value: a stale owner (lease expired and claimed again) changes nothing
+ * KEYS: owner, speaker; ARGV: lease value, speaker value or '', speaker TTL ms
+ * Returns 1 handed over, 0 fenced
+ */
+const HANDOVER_SCRIPT = defineScript(`
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end
+redis.call('DEL', KEYS[1])
+if ARGV[2] ~= '' then redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3]) end
+return 1
+`);
+
+/**
+ * ChannelOwnership arbitrates speaker locks in memory for the channels this node owns
+ * Callers fall back to the Redis speaker lock whenever a method returns undefined (not owner)
+ */
+export class ChannelOwnership {
+  private owned = new Map<string, OwnedChannel>();
+  private members = new Map<string, Set<string>>(); // channelId -> local connection ids
+  private joins = new Map<string, Promise<void>>(); // First claim per channel, awaited by later members
+  private handovers = new Map<string, Promise<void>>();
+  private renewTimer: NodeJS.Timeout | null = null;
+
+  constructor(
+    private readonly client: RedisClientType,
+    private readonly subClient: RedisClientType,
+    private readonly options: OwnershipOptions
+  ) {}
+
+  /**
+   * Listen for hand-over requests and start lease renewal
+   * Both clients must be connected
+   */
+  async start(): Promise<void> {
+    await this.subClient.subscribe(getRevokeChannel(this.options.nodeId), (channelId) => {
+      logger.info(`Another node serves channel ${channelId}, handing over speaker arbitration`);
+      this.handOver(channelId);
+    });
+
+    this.renewTimer = setInterval(() => this.renewAll(), Math.max(1, Math.floor(this.options.leaseMs / 3)));
+    this.renewTimer.unref();
+    logger.info(`Channel ownership started for node ${this.options.nodeId} (lease ${this.options.leaseMs}ms)`);
+  }
+
+  /**
+   * Stop renewing leases
+   * Graceful: hand every owned channel over to Redis and leave all channels.
+   * Otherwise leases and memberships simply expire (as after a crash).
+   */
+  async stop(graceful = true): Promise<void> {
+    if (this.renewTimer) {
+      clearInterval(this.renewTimer);
+      this.renewTimer = null;
+    }
+    await this.subClient.unsubscribe(getRevokeChannel(this.options.nodeId));
+    if (!graceful) return;
+
+    await Promise.all(Array.from(this.owned.keys(), (channelId) => this.handOver(channelId)));
+    await Promise.all(Array.from(this.members.keys(), (channelId) => this.client.zRem(getNodesKey(channelId), this.options.nodeId)));
+    this.members.clear();
+  }
+
+  /**
+   * A local connection joined a channel (the first one registers this node and claims the lease)
+   * Resolves once the channel's speaker can be read here: if another node owned the channel, after
+   * it handed its grant over to the Redis speaker lock
+   */
+  async addMember(channelId: string, connectionId: string): Promise<void> {
+    const connections = this.members.get(channelId);
+    if (connections) {
+      connections.add(connectionId);
+      await this.joins.get(channelId);
+      return;
+    }
+    this.members.set(channelId, new Set([connectionId]));
+
+    const join = this.join(channelId).finally(() => this.joins.delete(channelId));
+    this.joins.set(channelId, join);
+    await join;
+  }
+
+  /**
+   * A local connection left a channel (the last one hands over and unregisters this node)
+   * Counted per connection: a user with two connections in the channel keeps it served when one leaves
+   */
+  async removeMember(channelId: string, connectionId: string): Promise<void> {
+    const connections = this.members.get(channelId);
+    if (!connections || !connections.delete(connectionId) || connections.size > 0) return;
+
+    this.members.delete(channelId);
+    await this.handOver(channelId);
+    try {
+      await this.client.zRem(getNodesKey(channelId), this.options.nodeId);
+    } catch (err) {
+      logger.error(`Error leaving channel ${channelId}: ${err instanceof Error ? err.message : String(err)}`);
+    }
+  }
+
+  /**
+   * True while this node may grant the channel's speaker lock in memory
+   */
+  owns(channelId: string): boolean {
+    return this.validChannel(channelId) !== undefined;
+  }
+
+  /**
+   * Current lease epoch, if this node owns the channel
+   */
+  epochOf(channelId: string): number | undefined {
+    return this.validChannel(channelId)?.epoch;
+  }
+
+  /**
+   * Grant the speaker lock in memory
+   * @returns Result with fencing token, or undefined if this node does not own the channel
+   */
+  async tryAcquire(channelId: string, userId: string, userName: string): Promise<OwnedLockResult | undefined> {
+    await this.handovers.get(channelId);
+    const channel = this.validChannel(channelId);
+    if (!channel) return undefined;
+
+    const now = Date.now();
+    const current = this.activeGrant(channel, now);
+    if (current) {
+      return { acquired: false, currentSpeaker: current.userId, currentSpeakerName: current.userName };
+    }
+
+    if (channel.seq + 1 >= SEQ_SPACE) {
+      // Token space of this epoch used up: step down, the next claim starts a new epoch
+      await this.handOver(channelId);
+      return undefined;
+    }
+
+    channel.seq++;
+    const fencingToken = channel.epoch * SEQ_SPACE + channel.seq;
+    channel.speaker = { userId, userName, timestamp: now, fencingToken, expiresAt: now + this.options.lockTtlMs };
+    return { acquired: true, fencingToken };
+  }
+
+  /**
+   * Release an in-memory grant held by userId
+   * @returns true released (or no speaker), false held by someone else, undefined if not owner
+   */
+  async release(channelId: string, userId: string): Promise<boolean | undefined> {
+    await this.handovers.get(channelId);
+    const channel = this.owned.get(channelId);
+    if (!channel) return undefined;
+
+    // Clear a matching grant even while the lease is unconfirmed, so it cannot resurface after renewal
+    const current = this.activeGrant(channel, Date.now());
+    const released = !current || current.userId === userId;
+    if (released) channel.speaker = null;
+    return this.validChannel(channelId) ? released : undefined;
+  }
+
+  /**
+   * Extend an in-memory grant held by userId by the lock TTL
+   * @returns true extended, false not the holder, undefined if not owner
+   */
+  async refresh(channelId: string, userId: string): Promise<boolean | undefined> {
+    await this.handovers.get(channelId);
+    const channel = this.validChannel(channelId);
+    if (!channel) return undefined;
+
+    const now = Date.now();
+    const current = this.activeGrant(channel, now);
+    if (!current || current.userId !== userId) return false;
+    current.expiresAt = now + this.options.lockTtlMs;
+    return true;
+  }
+
+  /**
+   * Current in-memory speaker
+   * @returns Speaker, null if idle, undefined if not owner
+   */
+  async currentSpeaker(channelId: string): Promise<{ userId: string; userName: string } | null | undefined> {
+    await this.handovers.get(channelId);
+    const channel = this.validChannel(channelId);
+    if (!channel) return undefined;
+
+    const current = this.activeGrant(channel, Date.now());
+    return current ? { userId: current.userId, userName: current.userName } : null;
+  }
+
+  private validChannel(channelId: string): OwnedChannel | undefined {
+    const channel = this.owned.get(channelId);
+    return channel && Date.now() < channel.validUntil ? channel : undefined;
+  }
+
+  private activeGrant(channel: OwnedChannel, now: number): Grant | null {
+    if (channel.speaker && channel.speaker.expiresAt <= now) channel.speaker = null;
+    return channel.speaker;
+  }
+
+  private renewAll(): void {
+    for (const channelId of this.members.keys()) {
+      this.claim(channelId);
+    }
+  }
+
+  /**
+   * Claim on first join; when another node owns the channel, wait (at most one lease) until its
+   * lease is gone, i.e. it handed over or crashed and the lease lapsed
+   */
+  private async join(channelId: string): Promise<void> {
+    if ((await this.claim(channelId)) !== CLAIM_HANDOVER_REQUESTED) return;
+
+    const deadline = Date.now() + this.options.leaseMs;
+    try {
+      while (Date.now() < deadline) {
+        if (!(await this.client.exists(getOwnerKey(channelId)))) return;
+        await new Promise((resolve) => setTimeout(resolve, HANDOVER_POLL_MS));
+      }
+      logger.warn(`Owner of channel ${channelId} did not hand over within ${this.options.leaseMs}ms`);
+    } catch (err) {
+      logger.error(`Error waiting for hand-over of channel ${channelId}: ${err instanceof Error ? err.message : String(err)}`);
+    }
+  }
+
+  private async claim(channelId: string): Promise<number | undefined> {
+    if (this.handovers.has(channelId)) return undefined;
+    const { nodeId, leaseMs } = this.options;
+    const sentAt = Date.now();
+
+    try {
+      const reply = (await runScript(
+        this.client,
+        CLAIM_SCRIPT,
+        [getOwnerKey(channelId), getNodesKey(channelId), getEpochKey(channelId), getLockKey(channelId)],
+        [nodeId, String(leaseMs), String(leaseMs), channelId]
+      )) as [number, number?, string?, number?];
+      this.applyClaim(channelId, reply, sentAt);
+      return reply[0];
+    } catch (err) {
+      // Unconfirmed leases lapse on their own (validUntil), grants then go through Redis
+      logger.error(`Error renewing ownership of channel ${channelId}: ${err instanceof Error ? err.message : String(err)}`);
+      return undefined;
+    }
+  }
+
+  private applyClaim(channelId: string, reply: [number, number?, string?, number?], sentAt: number): void {
+    const [code, epoch, speakerValue, speakerTtlMs] = reply;
+    const existing = this.owned.get(channelId);
+
+    // The lease TTL started no earlier than sentAt; keep a margin for clock drift
+    const validUntil = sentAt + Math.floor(this.options.leaseMs * 0.8);
+
+    if (code === 1 && existing && existing.epoch === epoch) {
+      existing.validUntil = validUntil;
+    } else if (code === 2 && epoch !== undefined) {
+      // Claimed a new epoch. A grant we still hold wins over one adopted from Redis
+      // (the lease was lost under us, e.g. by a Redis failover), since nobody else could grant meanwhile.
+      const speaker = existing?.speaker ?? this.adoptGrant(epoch, speakerValue, speakerTtlMs);
+      this.owned.set(channelId, { epoch, seq: speaker ? 1 : 0, validUntil, speaker });
+      logger.info(`Node ${this.options.nodeId} owns channel ${channelId} (epoch ${epoch})`);
+    } else if ((code === 1 || code === -1) && epoch !== undefined) {
+      // Must hand over, or Redis lists us under an epoch we no longer track: step down
+      // (a later claim starts a new epoch, so fencing tokens are never reused)
+      if (!existing || existing.epoch !== epoch) {
+        this.owned.set(channelId, { epoch, seq: 0, validUntil: 0, speaker: null });
+      }
+      this.handOver(channelId);
+      return;
+    } else if (existing) {
+      // Lease expired or claimed by another node: our grants are fenced off
+      this.owned.delete(channelId);
+      logger.warn(`Node ${this.options.nodeId} lost ownership of channel ${channelId} (epoch ${existing.epoch})`);
+    }
+
+    if (!this.members.has(channelId) && this.owned.has(channelId)) {
+      this.handOver(channelId); // Left while the claim was in flight
+    }
+  }
+
+  private adoptGrant(epoch: number, value?: string, ttlMs?: number): Grant | null {
+    if (!value || !ttlMs || ttlMs <= 0) return null;
+    try {
+      const lock = JSON.parse(value) as { userId: string; userName: string; timestamp: number };
+      return {
+        userId: lock.userId,
+        userName: lock.userName,
+        timestamp: lock.timestamp,
+        fencingToken: epoch * SEQ_SPACE + 1,
+        expiresAt: Date.now() + ttlMs,
+      };
+    } catch (err) {
+      logger.error('Failed to parse adopted speaker lock:', err);
+      return null;
+    }
+  }
+
+  /**
+   * Stop arbitrating a channel locally and move its grant to the Redis speaker lock
+   * Grants, releases and reads for the channel wait until this completes
+   */
+  private handOver(channelId: string): Promise<void> {
+    const pending = this.handovers.get(channelId);
+    if (pending) return pending;
+
+    const channel = this.owned.get(channelId);
+    if (!channel) return Promise.resolve();
+    this.owned.delete(channelId);
+
+    const handover = this.writeHandover(channelId, channel).finally(() => this.handovers.delete(channelId));
+    this.handovers.set(channelId, handover);
+    return handover;
+  }
+
+  private async writeHandover(channelId: string, channel: OwnedChannel): Promise<void> {
+    const now = Date.now();
+    const grant = this.activeGrant(channel, now);
+    const value = grant
+      ? JSON.stringify({ userId: grant.userId, userName: grant.userName, timestamp: grant.timestamp, fencingToken: grant.fencingToken })
+      : '';
+
+    try {
+      const result = await runScript(
+        this.client,
+        HANDOVER_SCRIPT,
+        [getOwnerKey(channelId), getLockKey(channelId)],
+        [`${this.options.nodeId}|${channel.epoch}`, value, String(grant ? grant.expiresAt - now : 0)]
+      );
+      if (result === 1) {
+        logger.info(`Node ${this.options.nodeId} handed over channel ${channelId} (epoch ${channel.epoch})`);
+        this.options.onHandover?.(channelId, grant ? { userId: grant.userId, userName: grant.userName } : null);
+      } else {
+        logger.warn(`Hand-over of channel ${channelId} fenced: epoch ${channel.epoch} is no longer the owner`);
+      }
+    } catch (err) {
+      // The lease expires on its own; until then other nodes are denied rather than double-granted
+      logger.error(`Error handing over channel ${channelId}: ${err instanceof Error ? err.message : String(err)}`);
+    }
+  }
+}
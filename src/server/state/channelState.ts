@@ -1,6 +1,7 @@
 /**
  * Channel state management for PTT operations
  * Manages speaker lock lifecycle and pub/sub notifications
+ * In ownership mode (config.ptt.lockMode) channels served only by this node are arbitrated in memory
  */
 
 import { createClient, RedisClientType } from 'redis';
@@ -8,6 +9,7 @@ import { ChannelState } from '../../shared/types';
 import { config } from '../config';
 import { createLogger } from '../logger';
 import * as speakerLock from './speakerLock';
+import { ChannelOwnership } from './channelOwnership';
 
 const logger = createLogger('ChannelState');
 
@@ -19,6 +21,7 @@ export class ChannelStateManager {
   private pubClient: RedisClientType;
   private subClient: RedisClientType;
   private subscriptions: Map<string, ((state: ChannelState) => void)[]> = new Map();
+  private ownership: ChannelOwnership | null = null;
 
   constructor() {
     // Create dedicated clients for pub/sub (Redis v4 requirement)
@@ -28,6 +31,24 @@ export class ChannelStateManager {
     // Setup error handlers
     this.pubClient.on('error', (err) => logger.error('Pub client error:', err));
     this.subClient.on('error', (err) => logger.error('Sub client error:', err));
+
+    if (config.ptt.lockMode === 'ownership') {
+      this.ownership = new ChannelOwnership(this.pubClient, this.subClient, {
+        nodeId: config.server.nodeId,
+        leaseMs: config.ptt.ownershipLeaseMs,
+        lockTtlMs: config.ptt.lockTtlSeconds * 1000,
+        onHandover: (channelId, speaker) => {
+          // No longer owned, so this goes out on the channel's Redis event channel to every node
+          void this.publishSpeakerChanged(channelId, {
+            channelId,
+            currentSpeaker: speaker?.userId ?? null,
+            speakerName: speaker?.userName ?? null,
+            isBusy: speaker !== null,
+            lockTimestamp: speaker ? Date.now() : null,
+          });
+        },
+      });
+    }
   }
 
   /**
@@ -40,7 +61,8 @@ export class ChannelStateManager {
         this.pubClient.connect(),
         this.subClient.connect(),
       ]);
-      logger.info('Channel state manager initialized');
+      await this.ownership?.start();
+      logger.info(`Channel state manager initialized (speaker lock mode: ${config.ptt.lockMode})`);
     } catch (err) {
       logger.error('Failed to initialize channel state manager:', err);
       throw err;
@@ -52,6 +74,7 @@ export class ChannelStateManager {
    */
   async shutdown(): Promise<void> {
     try {
+      await this.ownership?.stop();
       await Promise.all([
         this.pubClient.disconnect(),
         this.subClient.disconnect(),
@@ -70,6 +93,29 @@ export class ChannelStateManager {
     return `channel:${channelId}:events`;
   }
 
+  /**
+   * A connection on this node joined a channel (ownership mode: this node now serves the channel)
+   * Resolves once a previous owner on another node has handed over, so state reads are current
+   */
+  async addLocalMember(channelId: string, connectionId: string): Promise<void> {
+    await this.ownership?.addMember(channelId, connectionId);
+  }
+
+  /**
+   * A connection on this node left a channel
+   */
+  async removeLocalMember(channelId: string, connectionId: string): Promise<void> {
+    await this.ownership?.removeMember(channelId, connectionId);
+  }
+
+  /**
+   * Current speaker: in memory for owned channels, otherwise from the Redis speaker lock
+   */
+  private async getSpeaker(channelId: string): Promise<{ userId: string; userName: string } | null> {
+    const local = await this.ownership?.currentSpeaker(channelId);
+    return local !== undefined ? local : speakerLock.getCurrentSpeaker(channelId);
+  }
+
   /**
    * Start PTT transmission for a user
    * Attempts to acquire speaker lock and notifies listeners
@@ -85,8 +131,10 @@ export class ChannelStateManager {
     userName: string
   ): Promise<{ success: boolean; state: ChannelState }> {
     try {
-      // Attempt to acquire speaker lock
-      const lockResult = await speakerLock.acquireSpeakerLock(channelId, userId, userName);
+      // Attempt to acquire speaker lock (in memory if this node owns the channel)
+      const lockResult =
+        (await this.ownership?.tryAcquire(channelId, userId, userName)) ??
+        (await speakerLock.acquireSpeakerLock(channelId, userId, userName));
 
       if (lockResult.acquired) {
         // Lock acquired - build success state
@@ -141,7 +189,10 @@ export class ChannelStateManager {
   async stopPtt(channelId: string, userId: string): Promise<ChannelState> {
     try {
       // Release speaker lock
-      await speakerLock.releaseSpeakerLock(channelId, userId);
+      const releasedLocally = await this.ownership?.release(channelId, userId);
+      if (releasedLocally === undefined) {
+        await speakerLock.releaseSpeakerLock(channelId, userId);
+      }
 
       // Build idle state
       const state: ChannelState = {
@@ -164,6 +215,16 @@ export class ChannelStateManager {
     }
   }
 
+  /**
+   * Extend the speaker lock TTL while the holder is still transmitting
+   *
+   * @returns true if userId still holds the lock
+   */
+  async refreshPtt(channelId: string, userId: string): Promise<boolean> {
+    const local = await this.ownership?.refresh(channelId, userId);
+    return local !== undefined ? local : speakerLock.refreshSpeakerLock(channelId, userId);
+  }
+
   /**
    * Get current channel state
    *
@@ -172,7 +233,7 @@ export class ChannelStateManager {
    */
   async getChannelState(channelId: string): Promise<ChannelState> {
     try {
-      const currentSpeaker = await speakerLock.getCurrentSpeaker(channelId);
+      const currentSpeaker = await this.getSpeaker(channelId);
 
       if (currentSpeaker) {
         return {
@@ -272,6 +333,14 @@ export class ChannelStateManager {
   ): Promise<void> {
     try {
       const eventKey = this.getEventKey(channelId);
+
+      // Owned channel: no other node serves it, deliver to local subscribers without a Redis hop
+      if (this.ownership?.owns(channelId)) {
+        const callbacks = this.subscriptions.get(eventKey) || [];
+        setImmediate(() => callbacks.forEach((cb) => cb(state))); // Asynchronous, like pub/sub delivery
+        return;
+      }
+
       await this.pubClient.publish(eventKey, JSON.stringify(state));
     } catch (err) {
       logger.error('Error publishing speaker changed event:', err);
@@ -356,7 +425,7 @@ export class ChannelStateManager {
 
       // Check each channel for active speaker
       for (const channelId of channelIds) {
-        const speaker = await speakerLock.getCurrentSpeaker(channelId);
+        const speaker = await this.getSpeaker(channelId);
         if (speaker) {
           activeSpeakers.set(channelId, speaker.userId);
         }
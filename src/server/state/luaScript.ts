@@ -0,0 +1,38 @@
+/**
+ * Redis Lua scripts run with EVALSHA
+ * SHAs are computed locally; a NOSCRIPT reply (Redis restart, failover, SCRIPT FLUSH) loads the script once and retries
+ */
+
+import { createHash } from 'crypto';
+import { RedisClientType } from 'redis';
+
+/**
+ * Lua script with its SHA1
+ */
+export interface LuaScript {
+  source: string;
+  sha: string;
+}
+
+export function defineScript(source: string): LuaScript {
+  return { source, sha: createHash('sha1').update(source).digest('hex') };
+}
+
+/**
+ * Run a script by SHA, loading it if Redis does not have it cached
+ */
+export async function runScript(
+  client: RedisClientType,
+  script: LuaScript,
+  keys: string[],
+  args: string[]
+): Promise<unknown> {
+  const options = { keys, arguments: args };
+  try {
+    return await client.evalSha(script.sha, options);
+  } catch (err) {
+    if (!(err instanceof Error) || !err.message.startsWith('NOSCRIPT')) throw err;
+    await client.scriptLoad(script.source);
+    return client.evalSha(script.sha, options);
+  }
+}
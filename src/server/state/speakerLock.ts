@@ -1,9 +1,11 @@
 /**
  * Distributed speaker lock using Redis atomic operations
  * Implements PTT exclusive access: only one speaker per channel at a time
+ * Acquire, release and refresh each run as one Lua script (EVALSHA): one atomic round-trip per PTT operation
  */
 
 import { getRedisClient } from './redisClient';
+import { LuaScript, defineScript, runScript } from './luaScript';
 import { SpeakerLockResult } from '../../shared/types';
 import { config } from '../config';
 
@@ -14,18 +16,77 @@ interface LockValue {
   userId: string;
   userName: string;
   timestamp: number;
+  fencingToken?: number; // Set when an ownership handover moved an in-memory grant here
 }
 
 /**
  * Generate Redis key for channel speaker lock
  */
-function getLockKey(channelId: string): string {
+export function getLockKey(channelId: string): string {
   return `channel:${channelId}:speaker`;
 }
 
+/**
+ * Redis key of a channel's ownership lease (see channelOwnership.ts)
+ * While another node holds it, that node arbitrates the channel in memory
+ */
+export function getOwnerKey(channelId: string): string {
+  return `channel:${channelId}:owner`;
+}
+
+/**
+ * Acquire, or return the holder's lock value on denial
+ * KEYS[1] lock key, KEYS[2] ownership lease key, ARGV[1] lock value, ARGV[2] TTL seconds
+ * Returns {1} if acquired, {0, holderValue} if held (holder omitted if it expired in between).
+ * Denied without holder while an owner node arbitrates the channel in memory.
+ */
+const ACQUIRE_SCRIPT = defineScript(`
+if redis.call('EXISTS', KEYS[2]) == 1 then
+  return {0}
+end
+if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'EX', ARGV[2]) then
+  return {1}
+end
+return {0, redis.call('GET', KEYS[1])}
+`);
+
+/**
+ * Delete the lock if ARGV[1] holds it
+ * Returns 1 released (or no lock), 0 held by someone else, -1 unreadable lock value
+ */
+const RELEASE_SCRIPT = defineScript(`
+local current = redis.call('GET', KEYS[1])
+if not current then return 1 end
+local ok, lock = pcall(cjson.decode, current)
+if not ok or type(lock) ~= 'table' then return -1 end
+if lock.userId ~= ARGV[1] then return 0 end
+redis.call('DEL', KEYS[1])
+return 1
+`);
+
+/**
+ * Reset the lock TTL (ARGV[2] seconds) if ARGV[1] holds it
+ * Returns 1 refreshed, 0 no lock or held by someone else, -1 unreadable lock value
+ */
+const REFRESH_SCRIPT = defineScript(`
+local current = redis.call('GET', KEYS[1])
+if not current then return 0 end
+local ok, lock = pcall(cjson.decode, current)
+if not ok or type(lock) ~= 'table' then return -1 end
+if lock.userId ~= ARGV[1] then return 0 end
+return redis.call('EXPIRE', KEYS[1], ARGV[2])
+`);
+
+/**
+ * Run a lock script on the shared client
+ */
+function runLockScript(script: LuaScript, keys: string[], args: string[]): Promise<unknown> {
+  return runScript(getRedisClient(), script, keys, args);
+}
+
 /**
  * Acquire exclusive speaker lock for a channel
- * Uses atomic SET NX EX to prevent race conditions
+ * Atomic SET NX EX; on denial the same script returns the current holder
  *
  * @param channelId - Channel to acquire lock for
  * @param userId - User attempting to acquire lock
@@ -38,28 +99,23 @@ export async function acquireSpeakerLock(
   userName: string
 ): Promise<SpeakerLockResult> {
   try {
-    const client = getRedisClient();
-    const key = getLockKey(channelId);
     const value: LockValue = {
       userId,
       userName,
       timestamp: Date.now(),
     };
 
-    // Atomic SET NX EX: set if not exists with TTL expiration
-    // Returns 'OK' if acquired, null if already held by someone else
-    const result = await client.set(key, JSON.stringify(value), {
-      NX: true, // Only set if key doesn't exist
-      EX: config.ptt.lockTtlSeconds, // Expire after TTL seconds
-    });
+    const [acquired, currentLockData] = (await runLockScript(ACQUIRE_SCRIPT, [getLockKey(channelId), getOwnerKey(channelId)], [
+      JSON.stringify(value),
+      String(config.ptt.lockTtlSeconds),
+    ])) as [number, string | null | undefined];
 
-    if (result === 'OK') {
+    if (acquired === 1) {
       // Lock acquired successfully
       return { acquired: true };
     }
 
-    // Lock already held - get current holder info
-    const currentLockData = await client.get(key);
+    // Lock already held - report current holder
     if (currentLockData) {
       try {
         const currentLock: LockValue = JSON.parse(currentLockData);
@@ -74,7 +130,7 @@ export async function acquireSpeakerLock(
       }
     }
 
-    // Lock exists but couldn't read it
+    // Lock was held but expired before it could be read
     return { acquired: false };
   } catch (err) {
     console.error('Error acquiring speaker lock:', err);
@@ -85,7 +141,7 @@ export async function acquireSpeakerLock(
 
 /**
  * Release speaker lock for a channel
- * Only the current lock holder can release their lock
+ * Only the current lock holder can release their lock (checked and deleted atomically)
  *
  * @param channelId - Channel to release lock for
  * @param userId - User attempting to release lock
@@ -96,33 +152,20 @@ export async function releaseSpeakerLock(
   userId: string
 ): Promise<boolean> {
   try {
-    const client = getRedisClient();
-    const key = getLockKey(channelId);
+    const result = await runLockScript(RELEASE_SCRIPT, [getLockKey(channelId)], [userId]);
 
-    // Get current lock to verify ownership
-    const currentLockData = await client.get(key);
-    if (!currentLockData) {
-      // No lock exists - consider it released
-      return true;
+    if (result === 0) {
+      // Not the lock holder - cannot release
+      console.warn(`User ${userId} attempted to release lock held by another user in channel ${channelId}`);
+      return false;
     }
-
-    // Parse and verify lock holder
-    try {
-      const currentLock: LockValue = JSON.parse(currentLockData);
-
-      if (currentLock.userId !== userId) {
-        // Not the lock holder - cannot release
-        console.warn(`User ${userId} attempted to release lock held by ${currentLock.userId}`);
-        return false;
-      }
-
-      // User owns the lock - delete it
-      await client.del(key);
-      return true;
-    } catch (parseErr) {
-      console.error('Failed to parse lock data during release:', parseErr);
+    if (result === -1) {
+      console.error(`Failed to parse lock data during release for channel ${channelId}`);
       return false;
     }
+
+    // Released, or no lock exists - consider it released
+    return true;
   } catch (err) {
     console.error('Error releasing speaker lock:', err);
     return false;
@@ -142,30 +185,16 @@ export async function refreshSpeakerLock(
   userId: string
 ): Promise<boolean> {
   try {
-    const client = getRedisClient();
-    const key = getLockKey(channelId);
-
-    // Verify lock exists and user owns it
-    const currentLockData = await client.get(key);
-    if (!currentLockData) {
-      return false;
-    }
-
-    try {
-      const currentLock: LockValue = JSON.parse(currentLockData);
-
-      if (currentLock.userId !== userId) {
-        // Not the lock holder
-        return false;
-      }
+    const result = await runLockScript(REFRESH_SCRIPT, [getLockKey(channelId)], [
+      userId,
+      String(config.ptt.lockTtlSeconds),
+    ]);
 
-      // Refresh TTL
-      const result = await client.expire(key, config.ptt.lockTtlSeconds);
-      return result; // Returns true if key exists and TTL was set
-    } catch (parseErr) {
-      console.error('Failed to parse lock data during refresh:', parseErr);
+    if (result === -1) {
+      console.error(`Failed to parse lock data during refresh for channel ${channelId}`);
       return false;
     }
+    return result === 1;
   } catch (err) {
     console.error('Error refreshing speaker lock:', err);
     return false;
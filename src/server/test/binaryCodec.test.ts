@@ -0,0 +1,166 @@
+/**
+ * Round-trip tests for the binary signaling wire format
+ * Every decoded frame must equal what the JSON path would deliver for the same message
+ */
+
+import { describe, it, expect } from 'vitest';
+import { readFileSync } from 'fs';
+import path from 'path';
+import { SignalingMessage, SignalingType, SIGNALING_TYPE_CODES } from '../../shared/protocol';
+import { encodeBinaryMessage, decodeBinaryMessage } from '../../shared/binaryCodec';
+
+/**
+ * Golden frames, also checked by the Android BinarySignalingCodecTest
+ */
+interface GoldenFrames {
+  typeCodes: string[];
+  frames: { name: string; message: SignalingMessage; hex: string }[];
+}
+
+const GOLDEN: GoldenFrames = JSON.parse(
+  readFileSync(path.join(__dirname, 'fixtures/binarySignalingFrames.json'), 'utf8')
+);
+
+const REQUEST_ID = '3f2b8c1e-9a4d-4e7b-8c21-5d6e7f809a1b';
+const PRODUCER_ID = 'a0b1c2d3-e4f5-4a6b-8c7d-9e0f1a2b3c4d';
+
+function viaJson(message: SignalingMessage): SignalingMessage {
+  return JSON.parse(JSON.stringify(message));
+}
+
+function roundTrip(message: SignalingMessage): SignalingMessage {
+  return decodeBinaryMessage(encodeBinaryMessage(message));
+}
+
+/**
+ * Representative request, response and broadcast payloads per type
+ */
+function sampleMessages(type: SignalingType): SignalingMessage[] {
+  return [
+    { type },
+    { type, id: REQUEST_ID },
+    { type, id: 'legacy-id-42', data: { channelId: 'channel-1' } },
+    {
+      type,
+      data: {
+        channelId: 'channel-1',
+        currentSpeaker: 'user-7',
+        speakerName: 'Dispatcher Zoë',
+        producerId: PRODUCER_ID,
+        lockTimestamp: 1760600000000,
+        userCount: 12,
+      },
+    },
+    { type, id: REQUEST_ID, data: { denied: true, currentSpeaker: null }, error: 'Channel busy' },
+    { type, error: 'Unauthorized' },
+  ];
+}
+
+describe('binaryCodec', () => {
+  it('assigns a wire code to every SignalingType', () => {
+    for (const type of Object.values(SignalingType)) {
+      expect(SIGNALING_TYPE_CODES).toContain(type);
+    }
+    expect(new Set(SIGNALING_TYPE_CODES).size).toBe(SIGNALING_TYPE_CODES.length);
+  });
+
+  it('fits every type code in the single header byte', () => {
+    expect(SIGNALING_TYPE_CODES.length).toBeLessThanOrEqual(0x100);
+  });
+
+  for (const type of SIGNALING_TYPE_CODES) {
+    it(`round-trips ${type}`, () => {
+      for (const message of sampleMessages(type)) {
+        expect(roundTrip(message)).toEqual(viaJson(message));
+      }
+    });
+  }
+
+  it('matches the golden type code table', () => {
+    expect(GOLDEN.typeCodes).toEqual(SIGNALING_TYPE_CODES);
+  });
+
+  for (const frame of GOLDEN.frames) {
+    it(`encodes and decodes the golden ${frame.name} frame`, () => {
+      expect(Buffer.from(encodeBinaryMessage(frame.message)).toString('hex')).toBe(frame.hex);
+      expect(decodeBinaryMessage(Buffer.from(frame.hex, 'hex'))).toEqual(frame.message);
+    });
+  }
+
+  it('round-trips every MessagePack width', () => {
+    const message: SignalingMessage = {
+      type: SignalingType.CONSUME,
+      id: REQUEST_ID,
+      data: {
+        ints: [0, 1, 127, 128, 255, 256, 65535, 65536, 4294967295, 4294967296, Number.MAX_SAFE_INTEGER],
+        negatives: [-1, -32, -33, -128, -129, -32768, -32769, -2147483648, -2147483649, Number.MIN_SAFE_INTEGER],
+        floats: [0.5, -1.25, 3.141592653589793, 1e-9, 1.7976931348623157e308],
+        strings: ['', 'a'.repeat(31), 'b'.repeat(32), 'c'.repeat(255), 'd'.repeat(256), 'e'.repeat(70000), '🎙️ channel'],
+        longArray: Array.from({ length: 20 }, (_, i) => i),
+        wideMap: Object.fromEntries(Array.from({ length: 20 }, (_, i) => [`key${i}`, i])),
+        nested: { rtpParameters: { codecs: [{ mimeType: 'audio/opus', clockRate: 48000, channels: 2 }] } },
+        flags: [true, false, null],
+        uppercaseUuid: 'A0B1C2D3-E4F5-4A6B-8C7D-9E0F1A2B3C4D',
+      },
+    };
+
+    expect(roundTrip(message)).toEqual(viaJson(message));
+  });
+
+  it('matches JSON.stringify for values JSON drops or rewrites', () => {
+    const message = {
+      type: SignalingType.CHANNEL_STATE,
+      data: {
+        skipped: undefined,
+        notFinite: [NaN, Infinity],
+        holes: [undefined, 1],
+        when: new Date(0),
+      },
+    } as SignalingMessage;
+
+    expect(roundTrip(message)).toEqual(viaJson(message));
+  });
+
+  it('encodes canonical UUIDs as 16 raw bytes', () => {
+    const withUuid = encodeBinaryMessage({ type: SignalingType.PTT_START, id: REQUEST_ID });
+    // type + flags + fixext16 header (2) + 16 bytes
+    expect(withUuid.length).toBe(20);
+  });
+
+  it('is smaller than JSON for a speaker-changed broadcast', () => {
+    const message: SignalingMessage = {
+      type: SignalingType.SPEAKER_CHANGED,
+      data: {
+        channelId: 'channel-1',
+        currentSpeaker: 'user-7',
+        speakerName: 'Dispatcher',
+        producerId: PRODUCER_ID,
+      },
+    };
+
+    const jsonBytes = Buffer.byteLength(JSON.stringify(message));
+    expect(encodeBinaryMessage(message).length).toBeLessThan(jsonBytes * 0.75);
+  });
+
+  it('rejects unknown type codes', () => {
+    expect(() => decodeBinaryMessage(Uint8Array.of(0xff, 0x00))).toThrow(/Unknown binary type code/);
+  });
+
+  it('rejects truncated frames', () => {
+    const frame = encodeBinaryMessage({ type: SignalingType.JOIN_CHANNEL, id: REQUEST_ID, data: { channelId: 'channel-1' } });
+    for (let len = 1; len < frame.length; len++) {
+      expect(() => decodeBinaryMessage(frame.subarray(0, len))).toThrow();
+    }
+  });
+
+  it('rejects trailing bytes', () => {
+    const frame = encodeBinaryMessage({ type: SignalingType.PING });
+    expect(() => decodeBinaryMessage(Uint8Array.of(...frame, 0xc0))).toThrow(/trailing/);
+  });
+
+  it('rejects oversized length prefixes without allocating', () => {
+    // array32 claiming 2^32-1 elements in a 7-byte frame
+    const frame = Uint8Array.of(0x00, 0x02, 0x81, 0xa1, 0x78, 0xdd, 0xff, 0xff, 0xff, 0xff);
+    expect(() => decodeBinaryMessage(frame)).toThrow(/Truncated/);
+  });
+});
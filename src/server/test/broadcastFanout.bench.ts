@@ -0,0 +1,107 @@
+/**
+ * Channel broadcast fan-out at 10k connected sockets
+ * Compares the old full scan (membership check + serialize per recipient) with the
+ * channel index + serialize-once path used by SignalingServer.broadcastToChannel
+ *
+ * Run: npm run bench
+ */
+
+import { bench, describe } from 'vitest';
+import * as ws from 'ws';
+import { SignalingMessage, SignalingType, SIGNALING_SUBPROTOCOL, BINARY_SIGNALING_SUBPROTOCOL } from '../../shared/protocol';
+import { ClientIndex, IndexedClient } from '../signaling/clientIndex';
+import { SerializedMessage, serializeForSocket } from '../signaling/wireFormat';
+
+const SOCKETS = 10_000;
+const CHANNELS = 200;           // 150 listeners per channel on average (SOCKETS * CHANNELS_PER_CLIENT / CHANNELS)
+const CHANNELS_PER_CLIENT = 3;
+const BINARY_SHARE = 0.5;       // Half the fleet on the binary wire format
+
+interface FakeClient extends IndexedClient {
+  ws: ws.WebSocket;
+}
+
+let bytesSent = 0;
+
+/**
+ * Socket stub: open, fixed subprotocol, send only counts bytes
+ */
+function fakeSocket(protocol: string): ws.WebSocket {
+  return {
+    readyState: ws.OPEN,
+    protocol,
+    send(data: string | Uint8Array) {
+      bytesSent += data.length;
+    },
+  } as unknown as ws.WebSocket;
+}
+
+const legacyClients = new Map<string, FakeClient>();
+const index = new ClientIndex<FakeClient>();
+
+for (let i = 0; i < SOCKETS; i++) {
+  const protocol = i < SOCKETS * BINARY_SHARE ? BINARY_SIGNALING_SUBPROTOCOL : SIGNALING_SUBPROTOCOL;
+  const client = { userId: `user-${i}`, ws: fakeSocket(protocol) } as FakeClient;
+  client.channels = index.trackChannels(client);
+  index.add(client);
+  for (let c = 0; c < CHANNELS_PER_CLIENT; c++) {
+    client.channels.add(`channel-${(i * CHANNELS_PER_CLIENT + c) % CHANNELS}`);
+  }
+  legacyClients.set(`user-${i}:${i}`, client);
+}
+
+const message: SignalingMessage = {
+  type: SignalingType.SPEAKER_CHANGED,
+  data: {
+    channelId: 'channel-7',
+    speakerId: 'user-42',
+    speakerName: 'Dispatch 42',
+    producerId: 'a0b1c2d3-e4f5-4a6b-8c7d-9e0f1a2b3c4d',
+  },
+};
+
+let round = 0;
+function nextChannel(): string {
+  return `channel-${round++ % CHANNELS}`;
+}
+
+describe(`broadcast to one channel (${SOCKETS} sockets, ${CHANNELS} channels)`, () => {
+  bench('full scan, serialize per recipient', () => {
+    const channelId = nextChannel();
+    for (const ctx of legacyClients.values()) {
+      if (ctx.channels.has(channelId) && ctx.userId !== 'user-42' && ctx.ws.readyState === ws.OPEN) {
+        ctx.ws.send(serializeForSocket(ctx.ws, message));
+      }
+    }
+  });
+
+  bench('channel index, pre-encoded once', () => {
+    const channelId = nextChannel();
+    const payload = new SerializedMessage(message);
+    for (const ctx of index.channelMembers(channelId)) {
+      if (ctx.userId !== 'user-42' && ctx.ws.readyState === ws.OPEN) {
+        payload.send(ctx.ws);
+      }
+    }
+  });
+});
+
+describe(`send to one user (${SOCKETS} sockets)`, () => {
+  bench('full scan', () => {
+    const userId = `user-${round++ % SOCKETS}`;
+    for (const ctx of legacyClients.values()) {
+      if (ctx.userId === userId) {
+        ctx.ws.send(serializeForSocket(ctx.ws, message));
+        break;
+      }
+    }
+  });
+
+  bench('user index', () => {
+    const userId = `user-${round++ % SOCKETS}`;
+    for (const ctx of index.userClients(userId)) {
+      ctx.ws.send(serializeForSocket(ctx.ws, message));
+      break;
+    }
+  });
+});
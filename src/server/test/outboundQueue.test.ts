@@ -0,0 +1,133 @@
+/**
+ * Backpressure tests for the per-connection outbound queue
+ * A fake socket reports whatever bufferedAmount the test sets
+ */
+
+import { describe, it, expect, beforeEach, afterEach, vi } from 'vitest';
+import * as ws from 'ws';
+import { SignalingMessage, SignalingType, SIGNALING_SUBPROTOCOL, createMessage } from '../../shared/protocol';
+import { OutboundQueue, coalesceKey } from '../signaling/outboundQueue';
+import { SerializedMessage } from '../signaling/wireFormat';
+
+const LIMITS = { highWaterBytes: 1_000, maxBufferedBytes: 10_000 };
+
+interface FakeSocket {
+  readyState: number;
+  protocol: string;
+  bufferedAmount: number;
+  frames: SignalingMessage[];
+  terminated: boolean;
+  send(data: Uint8Array): void;
+  terminate(): void;
+}
+
+function fakeSocket(): FakeSocket {
+  return {
+    readyState: ws.OPEN,
+    protocol: SIGNALING_SUBPROTOCOL,
+    bufferedAmount: 0,
+    frames: [],
+    terminated: false,
+    send(data: Uint8Array) {
+      this.frames.push(JSON.parse(Buffer.from(data).toString()));
+    },
+    terminate() {
+      this.terminated = true;
+      this.readyState = ws.CLOSED;
+    },
+  };
+}
+
+function channelState(channelId: string, userCount: number): SerializedMessage {
+  return new SerializedMessage(createMessage(SignalingType.CHANNEL_STATE, { channelId, userCount, action: 'user-joined' }));
+}
+
+function speakerChanged(channelId: string, speakerId: string | null): SerializedMessage {
+  return new SerializedMessage(createMessage(SignalingType.SPEAKER_CHANGED, { channelId, currentSpeaker: speakerId }));
+}
+
+describe('OutboundQueue', () => {
+  let socket: FakeSocket;
+  let queue: OutboundQueue;
+
+  beforeEach(() => {
+    vi.useFakeTimers();
+    socket = fakeSocket();
+    queue = new OutboundQueue(socket as unknown as ws.WebSocket, LIMITS);
+  });
+
+  afterEach(() => {
+    queue.close();
+    vi.useRealTimers();
+  });
+
+  it('sends immediately while the socket keeps up', () => {
+    queue.send(channelState('c1', 1));
+    queue.send(speakerChanged('c1', 'u1'));
+
+    expect(socket.frames.map((f) => f.type)).toEqual([SignalingType.CHANNEL_STATE, SignalingType.SPEAKER_CHANGED]);
+    expect(queue.stats()).toMatchObject({ sent: 2, coalesced: 0, dropped: 0, pending: 0 });
+  });
+
+  it('coalesces channel-state per channel while congested and flushes the latest on drain', () => {
+    socket.bufferedAmount = 5_000;
+    queue.send(channelState('c1', 1));
+    queue.send(channelState('c2', 7));
+    queue.send(channelState('c1', 2));
+    queue.send(channelState('c1', 3));
+
+    expect(socket.frames).toHaveLength(0);
+    expect(queue.stats()).toMatchObject({ sent: 0, coalesced: 2, pending: 2 });
+
+    vi.advanceTimersByTime(200);
+    expect(socket.frames).toHaveLength(0);
+
+    socket.bufferedAmount = 0;
+    vi.advanceTimersByTime(200);
+    expect(socket.frames.map((f) => [f.data?.channelId, f.data?.userCount])).toEqual([['c2', 7], ['c1', 3]]);
+    expect(queue.stats()).toMatchObject({ sent: 2, coalesced: 2, pending: 0 });
+  });
+
+  it('always sends speaker-changed, even while congested', () => {
+    socket.bufferedAmount = 5_000;
+    queue.send(channelState('c1', 1));
+    queue.send(speakerChanged('c1', 'u1'));
+    queue.send(speakerChanged('c1', null));
+
+    expect(socket.frames.map((f) => f.type)).toEqual([SignalingType.SPEAKER_CHANGED, SignalingType.SPEAKER_CHANGED]);
+    expect(queue.stats().pending).toBe(1);
+  });
+
+  it('keeps later channel-state behind held ones after the buffer drains', () => {
+    socket.bufferedAmount = 5_000;
+    queue.send(channelState('c1', 1));
+    socket.bufferedAmount = 0;
+    queue.send(channelState('c2', 4));
+
+    expect(socket.frames).toHaveLength(0);
+    vi.advanceTimersByTime(100);
+    expect(socket.frames.map((f) => f.data?.channelId)).toEqual(['c1', 'c2']);
+  });
+
+  it('never coalesces responses', () => {
+    socket.bufferedAmount = 5_000;
+    const response: SignalingMessage = { type: SignalingType.CHANNEL_STATE, id: 'req-1', data: { channelId: 'c1' } };
+    expect(coalesceKey(response)).toBeUndefined();
+
+    queue.send(new SerializedMessage(response));
+    expect(socket.frames).toHaveLength(1);
+  });
+
+  it('drops a connection whose buffer exceeds the hard limit and counts lost frames', () => {
+    socket.bufferedAmount = 5_000;
+    queue.send(channelState('c1', 1));
+    socket.bufferedAmount = 20_000;
+    queue.send(speakerChanged('c1', 'u1'));
+
+    expect(socket.terminated).toBe(true);
+    expect(queue.stats()).toMatchObject({ sent: 0, dropped: 2, pending: 0 });
+
+    queue.send(speakerChanged('c1', null));
+    expect(queue.stats().dropped).toBe(3);
+  });
+});
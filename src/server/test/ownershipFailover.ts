@@ -0,0 +1,308 @@
+/**
+ * Channel ownership failover tests
+ * Runs two simulated nodes (separate Redis clients, one process) against a local Redis and checks
+ * in-memory arbitration, hand-over to the Redis speaker lock, lease expiry and fencing
+ *
+ * Run: npm run test:failover (needs Redis at REDIS_HOST:REDIS_PORT)
+ */
+
+import { createClient, RedisClientType } from 'redis';
+import { config } from '../config';
+import { connectRedis, disconnectRedis, getRedisClient } from '../state/redisClient';
+import { ChannelOwnership } from '../state/channelOwnership';
+import { acquireSpeakerLock, releaseSpeakerLock, getCurrentSpeaker, getLockKey, getOwnerKey } from '../state/speakerLock';
+
+const LEASE_MS = 600; // Short lease so expiry scenarios run in about a second
+const LOCK_TTL_MS = 30_000;
+const FAST_PATH_GRANTS = 1_000;
+
+interface SimulatedNode {
+  nodeId: string;
+  ownership: ChannelOwnership;
+  clients: RedisClientType[];
+  handovers: Array<{ channelId: string; speakerId: string | null }>; // onHandover calls
+}
+
+interface TestResult {
+  name: string;
+  passed: boolean;
+  detail?: string;
+}
+
+const results: TestResult[] = [];
+const nodes: SimulatedNode[] = [];
+let channelCounter = 0;
+
+function sleep(ms: number): Promise<void> {
+  return new Promise((resolve) => setTimeout(resolve, ms));
+}
+
+function newChannel(): string {
+  return `failover-${process.pid}-${++channelCounter}`;
+}
+
+function expect(condition: boolean, message: string): void {
+  if (!condition) throw new Error(message);
+}
+
+async function startNode(nodeId: string): Promise<SimulatedNode> {
+  const client = createClient({ url: config.redis.url }) as RedisClientType;
+  const subClient = createClient({ url: config.redis.url }) as RedisClientType;
+  await Promise.all([client.connect(), subClient.connect()]);
+
+  const handovers: SimulatedNode['handovers'] = [];
+  const ownership = new ChannelOwnership(client, subClient, {
+    nodeId,
+    leaseMs: LEASE_MS,
+    lockTtlMs: LOCK_TTL_MS,
+    onHandover: (channelId, speaker) => handovers.push({ channelId, speakerId: speaker?.userId ?? null }),
+  });
+  await ownership.start();
+
+  const node = { nodeId, ownership, clients: [client, subClient], handovers };
+  nodes.push(node);
+  return node;
+}
+
+/**
+ * Grant through the node's ownership, or the Redis speaker lock when it does not own the channel
+ */
+async function acquire(node: SimulatedNode, channelId: string, userId: string) {
+  return (await node.ownership.tryAcquire(channelId, userId, `User ${userId}`))
+    ?? (await acquireSpeakerLock(channelId, userId, `User ${userId}`));
+}
+
+async function release(node: SimulatedNode, channelId: string, userId: string): Promise<boolean> {
+  return (await node.ownership.release(channelId, userId)) ?? (await releaseSpeakerLock(channelId, userId));
+}
+
+async function commandsProcessed(): Promise<number> {
+  const info = await getRedisClient().info('stats');
+  const match = info.match(/total_commands_processed:(\d+)/);
+  return match ? parseInt(match[1], 10) : 0;
+}
+
+async function waitFor(condition: () => boolean | Promise<boolean>, timeoutMs: number): Promise<boolean> {
+  const deadline = Date.now() + timeoutMs;
+  while (Date.now() < deadline) {
+    if (await condition()) return true;
+    await sleep(20);
+  }
+  return false;
+}
+
+async function runTest(name: string, test: () => Promise<void>): Promise<void> {
+  try {
+    await test();
+    results.push({ name, passed: true });
+    console.log(`  PASS  ${name}`);
+  } catch (err) {
+    const detail = err instanceof Error ? err.message : String(err);
+    results.push({ name, passed: false, detail });
+    console.log(`  FAIL  ${name}: ${detail}`);
+  }
+}
+
+/**
+ * Single node serving a channel: it claims the lease and grants without Redis round-trips
+ */
+async function testSingleNodeFastPath(a: SimulatedNode): Promise<void> {
+  const channelId = newChannel();
+  await a.ownership.addMember(channelId, 'u1');
+  expect(a.ownership.owns(channelId), 'node A did not claim the lease');
+
+  const before = await commandsProcessed();
+  const started = process.hrtime.bigint();
+  for (let i = 0; i < FAST_PATH_GRANTS; i++) {
+    const result = await a.ownership.tryAcquire(channelId, 'u1', 'User u1');
+    expect(result?.acquired === true, `grant ${i} not acquired in memory`);
+    const denied = await a.ownership.tryAcquire(channelId, 'u2', 'User u2');
+    expect(denied?.acquired === false && denied.currentSpeaker === 'u1', `grant ${i} not exclusive`);
+    expect((await a.ownership.release(channelId, 'u1')) === true, `release ${i} failed`);
+  }
+  const elapsedUs = Number(process.hrtime.bigint() - started) / 1000;
+  const commands = (await commandsProcessed()) - before - 1; // Minus the second INFO
+
+  console.log(`        ${FAST_PATH_GRANTS} grant/deny/release cycles in ${Math.round(elapsedUs)} us, ${commands} Redis commands (lease renewals only)`);
+  expect(commands < 50, `fast path issued ${commands} Redis commands`);
+
+  await a.ownership.removeMember(channelId, 'u1');
+}
+
+/**
+ * Fencing tokens increase with every grant and with every new lease epoch
+ */
+async function testFencingTokensIncrease(a: SimulatedNode): Promise<void> {
+  const channelId = newChannel();
+  await a.ownership.addMember(channelId, 'u1');
+
+  const first = await a.ownership.tryAcquire(channelId, 'u1', 'User u1');
+  await a.ownership.release(channelId, 'u1');
+  const second = await a.ownership.tryAcquire(channelId, 'u1', 'User u1');
+  await a.ownership.release(channelId, 'u1');
+  expect((second?.fencingToken ?? 0) > (first?.fencingToken ?? 0), 'token did not grow within an epoch');
+
+  const epoch = a.ownership.epochOf(channelId) ?? 0;
+  await a.ownership.removeMember(channelId, 'u1');
+  await a.ownership.addMember(channelId, 'u1');
+  expect((a.ownership.epochOf(channelId) ?? 0) > epoch, 'reclaiming did not start a new epoch');
+
+  const third = await a.ownership.tryAcquire(channelId, 'u1', 'User u1');
+  expect((third?.fencingToken ?? 0) > (second?.fencingToken ?? 0), 'token did not grow across epochs');
+
+  await a.ownership.release(channelId, 'u1');
+  await a.ownership.removeMember(channelId, 'u1');
+}
+
+/**
+ * A second node joins: the owner hands its live grant to the Redis lock and Redis arbitrates
+ * The join resolves only after the hand-over, so the joiner reads the live speaker right away
+ */
+async function testSecondNodeTriggersHandOver(a: SimulatedNode, b: SimulatedNode): Promise<void> {
+  const channelId = newChannel();
+  await a.ownership.addMember(channelId, 'u1');
+  expect((await acquire(a, channelId, 'u1')).acquired, 'u1 not granted on owner');
+
+  await b.ownership.addMember(channelId, 'u2');
+  expect(!b.ownership.owns(channelId), 'second node claimed a shared channel');
+  expect((await getCurrentSpeaker(channelId))?.userId === 'u1', 'joining node saw the channel idle while u1 speaks');
+  expect(!a.ownership.owns(channelId), 'owner still arbitrates a shared channel');
+  expect(
+    await waitFor(() => a.handovers.some((h) => h.channelId === channelId && h.speakerId === 'u1'), 1_000),
+    'hand-over did not report the current speaker for publishing'
+  );
+
+  const denied = await acquire(b, channelId, 'u2');
+  expect(!denied.acquired && denied.currentSpeaker === 'u1', 'u2 was not denied while u1 speaks');
+
+  expect(await release(a, channelId, 'u1'), 'u1 could not release through Redis');
+  expect((await acquire(b, channelId, 'u2')).acquired, 'u2 not granted after release');
+  expect(await release(b, channelId, 'u2'), 'u2 could not release');
+
+  // Once B leaves, A serves the channel alone again and reclaims it on renewal
+  await b.ownership.removeMember(channelId, 'u2');
+  expect(await waitFor(() => a.ownership.owns(channelId), LEASE_MS * 2), 'owner did not reclaim after the other node left');
+
+  await a.ownership.removeMember(channelId, 'u1');
+}
+
+/**
+ * Membership is counted per connection: a user with two connections in a channel keeps the node
+ * registered as serving it when one connection leaves
+ */
+async function testMembershipPerConnection(a: SimulatedNode): Promise<void> {
+  const channelId = newChannel();
+  await a.ownership.addMember(channelId, 'u1:phone');
+  await a.ownership.addMember(channelId, 'u1:tablet');
+  expect(a.ownership.owns(channelId), 'node A did not claim the lease');
+
+  await a.ownership.removeMember(channelId, 'u1:phone');
+  expect(a.ownership.owns(channelId), 'node stepped down while a connection still serves the channel');
+  const score = await getRedisClient().zScore(`channel:${channelId}:nodes`, a.nodeId);
+  expect(score !== null, 'node left the channel while a connection still serves it');
+
+  await a.ownership.removeMember(channelId, 'u1:tablet');
+  expect(!a.ownership.owns(channelId), 'node kept the lease after the last connection left');
+}
+
+/**
+ * Owner crashes mid-transmission: its lease and membership expire and the surviving node
+ * claims a newer epoch. The crashed node stops granting on its own once its lease lapses.
+ */
+async function testOwnerCrashFailover(b: SimulatedNode): Promise<void> {
+  const channelId = newChannel();
+  const crashed = await startNode('node-crashed');
+
+  await crashed.ownership.addMember(channelId, 'u1');
+  expect((await acquire(crashed, channelId, 'u1')).acquired, 'u1 not granted on owner');
+  const epoch = crashed.ownership.epochOf(channelId) ?? 0;
+
+  await crashed.ownership.stop(false); // Renewals stop, nothing is released, hand-over requests go unheard
+  await b.ownership.addMember(channelId, 'u2');
+
+  expect(await waitFor(() => !crashed.ownership.owns(channelId), LEASE_MS * 2), 'crashed node kept granting after its lease lapsed');
+  expect(await waitFor(() => b.ownership.owns(channelId), LEASE_MS * 4), 'surviving node did not take over');
+  expect((b.ownership.epochOf(channelId) ?? 0) > epoch, 'takeover did not start a newer epoch');
+
+  const granted = await acquire(b, channelId, 'u2');
+  expect(granted.acquired, 'surviving node could not grant after failover');
+
+  // The paused node wakes up and tries to hand over with its stale lease: fenced
+  await crashed.ownership.removeMember(channelId, 'u1');
+  const owner = await getRedisClient().get(getOwnerKey(channelId));
+  expect(owner === `${b.nodeId}|${b.ownership.epochOf(channelId)}`, `lease overwritten by stale owner (${owner})`);
+  expect((await getRedisClient().get(getLockKey(channelId))) === null, 'stale owner wrote the Redis speaker lock');
+
+  const speaker = await b.ownership.currentSpeaker(channelId);
+  expect(speaker?.userId === 'u2', 'grant on surviving node lost');
+
+  await release(b, channelId, 'u2');
+  await b.ownership.removeMember(channelId, 'u2');
+}
+
+/**
+ * Redis loses the lease (failover without persistence): the owner reclaims a new epoch
+ * and keeps the grant it holds instead of letting a second speaker in
+ */
+async function testLeaseLostOnRedisFailover(a: SimulatedNode): Promise<void> {
+  const channelId = newChannel();
+  await a.ownership.addMember(channelId, 'u1');
+  expect((await acquire(a, channelId, 'u1')).acquired, 'u1 not granted');
+  const epoch = a.ownership.epochOf(channelId) ?? 0;
+
+  await getRedisClient().del(getOwnerKey(channelId));
+  expect(await waitFor(() => (a.ownership.epochOf(channelId) ?? 0) > epoch, LEASE_MS * 2), 'owner did not reclaim the lost lease');
+
+  const denied = await acquire(a, channelId, 'u2');
+  expect(!denied.acquired && denied.currentSpeaker === 'u1', 'grant lost with the lease');
+
+  await release(a, channelId, 'u1');
+  await a.ownership.removeMember(channelId, 'u1');
+}
+
+/**
+ * Graceful shutdown hands every owned channel (and its live grant) over to Redis
+ */
+async function testGracefulShutdown(): Promise<void> {
+  const channelId = newChannel();
+  const node = await startNode('node-shutdown');
+  await node.ownership.addMember(channelId, 'u1');
+  expect((await acquire(node, channelId, 'u1')).acquired, 'u1 not granted');
+
+  await node.ownership.stop();
+  expect((await getRedisClient().get(getOwnerKey(channelId))) === null, 'lease left behind on shutdown');
+  expect((await getCurrentSpeaker(channelId))?.userId === 'u1', 'grant not handed to Redis on shutdown');
+
+  await releaseSpeakerLock(channelId, 'u1');
+}
+
+async function runFailoverTests(): Promise<void> {
+  console.log('\n=== CHANNEL OWNERSHIP FAILOVER TESTS ===\n');
+  await connectRedis();
+
+  const a = await startNode('node-a');
+  const b = await startNode('node-b');
+
+  await runTest('single node grants in memory', () => testSingleNodeFastPath(a));
+  await runTest('fencing tokens increase across grants and epochs', () => testFencingTokensIncrease(a));
+  await runTest('membership is counted per connection', () => testMembershipPerConnection(a));
+  await runTest('second node triggers hand-over to Redis', () => testSecondNodeTriggersHandOver(a, b));
+  await runTest('owner crash fails over to a newer epoch', () => testOwnerCrashFailover(b));
+  await runTest('lease lost in Redis is reclaimed without a second speaker', () => testLeaseLostOnRedisFailover(a));
+  await runTest('graceful shutdown hands over live grants', () => testGracefulShutdown());
+
+  for (const node of nodes) {
+    await node.ownership.stop().catch(() => undefined);
+    await Promise.all(node.clients.map((client) => client.quit().catch(() => undefined)));
+  }
+  await disconnectRedis();
+
+  const failed = results.filter((result) => !result.passed);
+  console.log(`\n${results.length - failed.length}/${results.length} passed\n`);
+  process.exit(failed.length > 0 ? 1 : 0);
+}
+
+runFailoverTests().catch((err) => {
+  console.error('Fatal error:', err);
+  process.exit(1);
+});
@@ -0,0 +1,144 @@
+/**
+ * Speaker keepalive tests
+ * A fake producer manager lets the test emit RTP, score and pause events by hand
+ */
+
+import { describe, it, expect, beforeEach, afterEach, vi } from 'vitest';
+import { ProducerActivityListener, ProducerConsumerManager } from '../mediasoup/producerConsumerManager';
+import { ChannelStateManager } from '../state/channelState';
+import { SpeakerKeepalive } from '../signaling/speakerKeepalive';
+import { ClientContext } from '../signaling/websocketServer';
+
+const OPTIONS = { silenceMs: 1_500, startGraceMs: 3_000, refreshIntervalMs: 10_000, checkIntervalMs: 100 };
+
+function fakeProducers() {
+  const listeners = new Map<string, ProducerActivityListener>();
+  const manager = {
+    watchProducerActivity: vi.fn((producerId: string, listener: ProducerActivityListener) => {
+      listeners.set(producerId, listener);
+      return () => listeners.delete(producerId);
+    }),
+  };
+  return { manager, listeners };
+}
+
+describe('SpeakerKeepalive', () => {
+  const ctx = { userId: 'u1' } as ClientContext;
+  let producers: ReturnType<typeof fakeProducers>;
+  let refreshPtt: ReturnType<typeof vi.fn>;
+  let onSilence: ReturnType<typeof vi.fn>;
+  let keepalive: SpeakerKeepalive;
+
+  /** Send one packet every 20 ms (Opus ptime) for ms */
+  function talk(producerId: string, ms: number): void {
+    for (let t = 0; t < ms; t += 20) {
+      producers.listeners.get(producerId)?.onRtp();
+      vi.advanceTimersByTime(20);
+    }
+  }
+
+  beforeEach(() => {
+    vi.useFakeTimers();
+    producers = fakeProducers();
+    refreshPtt = vi.fn().mockResolvedValue(true);
+    onSilence = vi.fn();
+    keepalive = new SpeakerKeepalive(
+      producers.manager as unknown as ProducerConsumerManager,
+      { refreshPtt } as unknown as ChannelStateManager,
+      onSilence,
+      OPTIONS
+    );
+  });
+
+  afterEach(() => {
+    keepalive.stop();
+    vi.useRealTimers();
+  });
+
+  it('refreshes the lock while audio flows', () => {
+    keepalive.watch(ctx, 'c1', 'p1');
+    talk('p1', 25_000);
+
+    expect(refreshPtt).toHaveBeenCalledTimes(2);
+    expect(refreshPtt).toHaveBeenCalledWith('c1', 'u1');
+    expect(onSilence).not.toHaveBeenCalled();
+  });
+
+  it('keeps the floor through speech pauses at DTX packet spacing', () => {
+    keepalive.watch(ctx, 'c1', 'p1');
+    talk('p1', 1_000);
+
+    // DTX comfort-noise frames every 400 ms, delivered with up to 300 ms of cellular jitter
+    const gaps = [400, 700, 100, 400, 650, 150, 400, 400, 700, 100];
+    for (let i = 0; i < 5; i++) {
+      for (const gap of gaps) {
+        vi.advanceTimersByTime(gap);
+        producers.listeners.get('p1')?.onRtp();
+      }
+    }
+    talk('p1', 1_000);
+
+    expect(onSilence).not.toHaveBeenCalled();
+    expect(refreshPtt).toHaveBeenCalled();
+  });
+
+  it('releases shortly after the last packet', () => {
+    keepalive.watch(ctx, 'c1', 'p1');
+    talk('p1', 2_000);
+
+    vi.advanceTimersByTime(OPTIONS.silenceMs - 100);
+    expect(onSilence).not.toHaveBeenCalled();
+
+    vi.advanceTimersByTime(200);
+    expect(onSilence).toHaveBeenCalledWith(ctx, 'c1', 'audio stopped');
+    expect(keepalive.size()).toBe(0);
+    expect(producers.listeners.size).toBe(0);
+  });
+
+  it('releases at once when the producer score drops to zero', () => {
+    keepalive.watch(ctx, 'c1', 'p1');
+    talk('p1', 500);
+    producers.listeners.get('p1')?.onScore(0);
+
+    vi.advanceTimersByTime(OPTIONS.checkIntervalMs);
+    expect(onSilence).toHaveBeenCalledTimes(1);
+  });
+
+  it('waits for a producer created after the grant', () => {
+    keepalive.watch(ctx, 'c1');
+    vi.advanceTimersByTime(1_500);
+    keepalive.attachProducer(ctx, 'c1', 'p1');
+    talk('p1', 3_000);
+
+    expect(onSilence).not.toHaveBeenCalled();
+  });
+
+  it('releases a speaker that never sends audio after the start grace', () => {
+    keepalive.watch(ctx, 'c1', 'p1');
+    vi.advanceTimersByTime(OPTIONS.startGraceMs + OPTIONS.checkIntervalMs);
+
+    expect(onSilence).toHaveBeenCalledWith(ctx, 'c1', 'no audio after grant');
+  });
+
+  it('stops watching on PTT stop and on producer pause', () => {
+    keepalive.watch(ctx, 'c1', 'p1');
+    keepalive.watch({ userId: 'u2' } as ClientContext, 'c2', 'p2');
+
+    keepalive.unwatch('c1', 'u1');
+    producers.listeners.get('p2')?.onEnd();
+    vi.advanceTimersByTime(10_000);
+
+    expect(keepalive.size()).toBe(0);
+    expect(onSilence).not.toHaveBeenCalled();
+  });
+
+  it('drops the watch when the lock was lost', async () => {
+    refreshPtt.mockResolvedValue(false);
+    keepalive.watch(ctx, 'c1', 'p1');
+    talk('p1', OPTIONS.refreshIntervalMs + 200);
+    await vi.runOnlyPendingTimersAsync();
+
+    expect(keepalive.size()).toBe(0);
+    expect(onSilence).not.toHaveBeenCalled();
+  });
+});
@@ -0,0 +1,151 @@
+/**
+ * Speaker lock contention test
+ * Many simulated users hammer one channel's speaker lock against a local Redis and check that
+ * the Lua-scripted acquire/refresh/release never let two users hold it at once
+ *
+ * Run: npm run test:lock (needs Redis at REDIS_HOST:REDIS_PORT)
+ */
+
+import { connectRedis, disconnectRedis, getRedisClient } from '../state/redisClient';
+import {
+  acquireSpeakerLock,
+  refreshSpeakerLock,
+  releaseSpeakerLock,
+  getCurrentSpeaker,
+  forceReleaseLock,
+} from '../state/speakerLock';
+
+const CHANNEL_ID = `lock-contention-${process.pid}`;
+const NUM_USERS = 200;
+const ROUNDS_PER_USER = 50;
+const HOLD_MS = 2; // Time a winner "talks" before releasing
+
+interface Counters {
+  acquired: number;
+  denied: number;
+  deniedWithHolder: number;
+  refreshed: number;
+  released: number;
+  foreignReleasesRejected: number;
+  foreignRefreshesRejected: number;
+  violations: string[];
+}
+
+const counters: Counters = {
+  acquired: 0,
+  denied: 0,
+  deniedWithHolder: 0,
+  refreshed: 0,
+  released: 0,
+  foreignReleasesRejected: 0,
+  foreignRefreshesRejected: 0,
+  violations: [],
+};
+
+// Holder as seen by this process (set after a successful acquire, cleared before release)
+let holder: string | null = null;
+
+function sleep(ms: number): Promise<void> {
+  return new Promise((resolve) => setTimeout(resolve, ms));
+}
+
+async function simulateUser(userId: string): Promise<void> {
+  for (let round = 0; round < ROUNDS_PER_USER; round++) {
+    const result = await acquireSpeakerLock(CHANNEL_ID, userId, `Contender ${userId}`);
+
+    if (!result.acquired) {
+      counters.denied++;
+      if (result.currentSpeaker) {
+        counters.deniedWithHolder++;
+        if (result.currentSpeaker === userId) {
+          counters.violations.push(`${userId} denied by its own lock`);
+        }
+
+        // Non-holders must not be able to release or refresh someone else's lock
+        if (await releaseSpeakerLock(CHANNEL_ID, userId)) {
+          const speaker = await getCurrentSpeaker(CHANNEL_ID);
+          if (speaker === null && holder !== null && holder !== userId) {
+            counters.violations.push(`${userId} released lock held by ${holder}`);
+          }
+        } else {
+          counters.foreignReleasesRejected++;
+        }
+        if (await refreshSpeakerLock(CHANNEL_ID, userId)) {
+          counters.violations.push(`${userId} refreshed lock held by ${result.currentSpeaker}`);
+        } else {
+          counters.foreignRefreshesRejected++;
+        }
+      }
+      await sleep(Math.random() * HOLD_MS);
+      continue;
+    }
+
+    counters.acquired++;
+    if (holder !== null) {
+      counters.violations.push(`${userId} acquired while ${holder} held the lock`);
+    }
+    holder = userId;
+
+    await sleep(HOLD_MS);
+    if (await refreshSpeakerLock(CHANNEL_ID, userId)) {
+      counters.refreshed++;
+    } else {
+      counters.violations.push(`${userId} could not refresh its own lock`);
+    }
+
+    holder = null;
+    if (await releaseSpeakerLock(CHANNEL_ID, userId)) {
+      counters.released++;
+    } else {
+      counters.violations.push(`${userId} could not release its own lock`);
+    }
+  }
+}
+
+async function runContentionTest(): Promise<void> {
+  console.log('\n=== SPEAKER LOCK CONTENTION TEST ===\n');
+  console.log(`Channel: ${CHANNEL_ID}, users: ${NUM_USERS}, rounds per user: ${ROUNDS_PER_USER}`);
+
+  await connectRedis();
+  await forceReleaseLock(CHANNEL_ID);
+
+  // Start from an empty script cache so the NOSCRIPT -> SCRIPT LOAD path is exercised too
+  await getRedisClient().scriptFlush();
+
+  const started = Date.now();
+  await Promise.all(Array.from({ length: NUM_USERS }, (_, i) => simulateUser(`user-${i}`)));
+  const elapsedMs = Date.now() - started;
+
+  const leftover = await getCurrentSpeaker(CHANNEL_ID);
+  await forceReleaseLock(CHANNEL_ID);
+
+  const operations = counters.acquired * 3 + counters.denied + counters.deniedWithHolder * 2;
+  console.log(`Acquired: ${counters.acquired}, denied: ${counters.denied} (${counters.deniedWithHolder} with holder)`);
+  console.log(`Refreshed: ${counters.refreshed}, released: ${counters.released}`);
+  console.log(`Foreign release/refresh rejected: ${counters.foreignReleasesRejected}/${counters.foreignRefreshesRejected}`);
+  console.log(`Lock operations: ${operations} in ${elapsedMs} ms (${Math.round(operations / (elapsedMs / 1000))} ops/s)`);
+
+  if (leftover) {
+    counters.violations.push(`lock still held by ${leftover.userId} after all users released`);
+  }
+  if (counters.acquired === 0) {
+    counters.violations.push('no user ever acquired the lock');
+  }
+
+  if (counters.violations.length > 0) {
+    console.error(`\nFAILED: ${counters.violations.length} violations`);
+    for (const violation of counters.violations.slice(0, 20)) {
+      console.error(`  - ${violation}`);
+    }
+  } else {
+    console.log('\nPASSED: at most one holder at any time');
+  }
+
+  await disconnectRedis();
+  process.exit(counters.violations.length > 0 ? 1 : 0);
+}
+
+runContentionTest().catch((err) => {
+  console.error('Fatal error:', err);
+  process.exit(1);
+});
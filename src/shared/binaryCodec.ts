@@ -0,0 +1,409 @@
+/**
+ * Compact binary signaling wire format
+ * Selected per connection via the BINARY_SIGNALING_SUBPROTOCOL token; JSON text stays the fallback
+ *
+ * Frame layout:
+ *   byte 0  type code (index into SIGNALING_TYPE_CODES)
+ *   byte 1  flags (FLAG_ID | FLAG_DATA | FLAG_ERROR)
+ *   then each present field, in that order, as one MessagePack value:
+ *     id     str, or a binary UUID
+ *     data   map
+ *     error  str
+ *
+ * Values use the MessagePack subset nil/bool/int/float64/str/array/map. Strings that are
+ * canonical lowercase UUIDs (request ids, mediasoup transport/producer/consumer ids) are sent
+ * as fixext16 with ext type UUID_EXT_TYPE: 18 bytes instead of 38, and decoded back to the
+ * identical string, so the round trip is lossless.
+ */
+
+import { SignalingMessage, SignalingType, SIGNALING_TYPE_CODES } from './protocol';
+
+const FLAG_ID = 0x01;
+const FLAG_DATA = 0x02;
+const FLAG_ERROR = 0x04;
+
+export const UUID_EXT_TYPE = 0x01;
+
+const UUID_PATTERN = /^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$/;
+const TWO_POW_32 = 0x100000000;
+
+const textEncoder = new TextEncoder();
+const textDecoder = new TextDecoder();
+
+const typeCodes = new Map<SignalingType, number>(
+  SIGNALING_TYPE_CODES.map((type, code) => [type, code])
+);
+
+/**
+ * Growable byte buffer with big-endian writers
+ */
+class ByteWriter {
+  private buf = new Uint8Array(256);
+  private view = new DataView(this.buf.buffer);
+  private pos = 0;
+
+  private ensure(size: number): void {
+    if (this.pos + size <= this.buf.length) return;
+    let capacity = this.buf.length * 2;
+    while (capacity < this.pos + size) capacity *= 2;
+    const next = new Uint8Array(capacity);
+    next.set(this.buf.subarray(0, this.pos));
+    this.buf = next;
+    this.view = new DataView(next.buffer);
+  }
+
+  u8(value: number): void {
+    this.ensure(1);
+    this.view.setUint8(this.pos, value);
+    this.pos += 1;
+  }
+
+  u16(value: number): void {
+    this.ensure(2);
+    this.view.setUint16(this.pos, value);
+    this.pos += 2;
+  }
+
+  u32(value: number): void {
+    this.ensure(4);
+    this.view.setUint32(this.pos, value);
+    this.pos += 4;
+  }
+
+  i8(value: number): void {
+    this.ensure(1);
+    this.view.setInt8(this.pos, value);
+    this.pos += 1;
+  }
+
+  i16(value: number): void {
+    this.ensure(2);
+    this.view.setInt16(this.pos, value);
+    this.pos += 2;
+  }
+
+  i32(value: number): void {
+    this.ensure(4);
+    this.view.setInt32(this.pos, value);
+    this.pos += 4;
+  }
+
+  f64(value: number): void {
+    this.ensure(8);
+    this.view.setFloat64(this.pos, value);
+    this.pos += 8;
+  }
+
+  bytes(value: Uint8Array): void {
+    this.ensure(value.length);
+    this.buf.set(value, this.pos);
+    this.pos += value.length;
+  }
+
+  finish(): Uint8Array {
+    return this.buf.slice(0, this.pos);
+  }
+}
+
+/**
+ * Bounds-checked big-endian reader
+ */
+class ByteReader {
+  private readonly view: DataView;
+  private pos = 0;
+
+  constructor(private readonly buf: Uint8Array) {
+    this.view = new DataView(buf.buffer, buf.byteOffset, buf.byteLength);
+  }
+
+  private take(size: number): number {
+    if (this.pos + size > this.buf.length) {
+      throw new Error('Truncated binary frame');
+    }
+    const at = this.pos;
+    this.pos += size;
+    return at;
+  }
+
+  get remaining(): number {
+    return this.buf.length - this.pos;
+  }
+
+  u8(): number { return this.view.getUint8(this.take(1)); }
+  u16(): number { return this.view.getUint16(this.take(2)); }
+  u32(): number { return this.view.getUint32(this.take(4)); }
+  i8(): number { return this.view.getInt8(this.take(1)); }
+  i16(): number { return this.view.getInt16(this.take(2)); }
+  i32(): number { return this.view.getInt32(this.take(4)); }
+  f32(): number { return this.view.getFloat32(this.take(4)); }
+  f64(): number { return this.view.getFloat64(this.take(8)); }
+
+  bytes(size: number): Uint8Array {
+    const at = this.take(size);
+    return this.buf.subarray(at, at + size);
+  }
+}
+
+function writeInt(w: ByteWriter, n: number): void {
+  if (n >= 0) {
+    if (n <= 0x7f) {
+      w.u8(n);
+    } else if (n <= 0xff) {
+      w.u8(0xcc); w.u8(n);
+    } else if (n <= 0xffff) {
+      w.u8(0xcd); w.u16(n);
+    } else if (n <= 0xffffffff) {
+      w.u8(0xce); w.u32(n);
+    } else {
+      // uint64 as two 32-bit halves (safe integers only, no BigInt needed)
+      w.u8(0xcf); w.u32(Math.floor(n / TWO_POW_32)); w.u32(n % TWO_POW_32);
+    }
+  } else if (n >= -32) {
+    w.i8(n);
+  } else if (n >= -0x80) {
+    w.u8(0xd0); w.i8(n);
+  } else if (n >= -0x8000) {
+    w.u8(0xd1); w.i16(n);
+  } else if (n >= -0x80000000) {
+    w.u8(0xd2); w.i32(n);
+  } else {
+    const high = Math.floor(n / TWO_POW_32);
+    w.u8(0xd3); w.i32(high); w.u32(n - high * TWO_POW_32);
+  }
+}
+
+function writeString(w: ByteWriter, value: string): void {
+  if (UUID_PATTERN.test(value)) {
+    w.u8(0xd8);
+    w.u8(UUID_EXT_TYPE);
+    const hex = value.replace(/-/g, '');
+    for (let i = 0; i < 32; i += 2) {
+      w.u8(parseInt(hex.substring(i, i + 2), 16));
+    }
+    return;
+  }
+
+  const encoded = textEncoder.encode(value);
+  const len = encoded.length;
+  if (len < 32) {
+    w.u8(0xa0 | len);
+  } else if (len <= 0xff) {
+    w.u8(0xd9); w.u8(len);
+  } else if (len <= 0xffff) {
+    w.u8(0xda); w.u16(len);
+  } else {
+    w.u8(0xdb); w.u32(len);
+  }
+  w.bytes(encoded);
+}
+
+/** Mirrors JSON.stringify: undefined and functions are dropped from maps, null in arrays */
+function isOmitted(value: unknown): boolean {
+  return value === undefined || typeof value === 'function' || typeof value === 'symbol';
+}
+
+function writeValue(w: ByteWriter, value: unknown): void {
+  if (value === null || isOmitted(value)) {
+    w.u8(0xc0);
+    return;
+  }
+
+  switch (typeof value) {
+    case 'boolean':
+      w.u8(value ? 0xc3 : 0xc2);
+      return;
+    case 'number':
+      if (Number.isSafeInteger(value)) {
+        writeInt(w, value);
+      } else if (Number.isFinite(value)) {
+        w.u8(0xcb); w.f64(value);
+      } else {
+        w.u8(0xc0); // JSON.stringify turns NaN/Infinity into null
+      }
+      return;
+    case 'string':
+      writeString(w, value);
+      return;
+    case 'bigint':
+      writeInt(w, Number(value));
+      return;
+  }
+
+  const withToJson = value as { toJSON?: () => unknown };
+  if (typeof withToJson.toJSON === 'function') {
+    writeValue(w, withToJson.toJSON());
+    return;
+  }
+
+  if (Array.isArray(value)) {
+    const len = value.length;
+    if (len < 16) {
+      w.u8(0x90 | len);
+    } else if (len <= 0xffff) {
+      w.u8(0xdc); w.u16(len);
+    } else {
+      w.u8(0xdd); w.u32(len);
+    }
+    for (const item of value) {
+      writeValue(w, item);
+    }
+    return;
+  }
+
+  writeMap(w, value as Record<string, unknown>);
+}
+
+function writeMap(w: ByteWriter, map: Record<string, unknown>): void {
+  const keys = Object.keys(map).filter((key) => !isOmitted(map[key]));
+  const len = keys.length;
+  if (len < 16) {
+    w.u8(0x80 | len);
+  } else if (len <= 0xffff) {
+    w.u8(0xde); w.u16(len);
+  } else {
+    w.u8(0xdf); w.u32(len);
+  }
+  for (const key of keys) {
+    writeString(w, key);
+    writeValue(w, map[key]);
+  }
+}
+
+function readString(r: ByteReader, len: number): string {
+  return textDecoder.decode(r.bytes(len));
+}
+
+function readUuid(r: ByteReader): string {
+  const raw = r.bytes(16);
+  let hex = '';
+  for (let i = 0; i < 16; i++) {
+    hex += raw[i].toString(16).padStart(2, '0');
+  }
+  return `${hex.substring(0, 8)}-${hex.substring(8, 12)}-${hex.substring(12, 16)}-${hex.substring(16, 20)}-${hex.substring(20)}`;
+}
+
+function readArray(r: ByteReader, len: number): unknown[] {
+  // Every element takes at least one byte; reject lengths the frame cannot hold
+  if (len > r.remaining) throw new Error('Truncated binary frame');
+  const result = new Array<unknown>(len);
+  for (let i = 0; i < len; i++) {
+    result[i] = readValue(r);
+  }
+  return result;
+}
+
+function readMap(r: ByteReader, len: number): Record<string, unknown> {
+  if (len * 2 > r.remaining) throw new Error('Truncated binary frame');
+  const result: Record<string, unknown> = {};
+  for (let i = 0; i < len; i++) {
+    const key = readValue(r);
+    if (typeof key !== 'string') {
+      throw new Error('Binary frame map key is not a string');
+    }
+    result[key] = readValue(r);
+  }
+  return result;
+}
+
+function readValue(r: ByteReader): unknown {
+  const b = r.u8();
+
+  if (b <= 0x7f) return b;
+  if (b <= 0x8f) return readMap(r, b & 0x0f);
+  if (b <= 0x9f) return readArray(r, b & 0x0f);
+  if (b <= 0xbf) return readString(r, b & 0x1f);
+  if (b >= 0xe0) return b - 0x100;
+
+  switch (b) {
+    case 0xc0: return null;
+    case 0xc2: return false;
+    case 0xc3: return true;
+    case 0xca: return r.f32();
+    case 0xcb: return r.f64();
+    case 0xcc: return r.u8();
+    case 0xcd: return r.u16();
+    case 0xce: return r.u32();
+    case 0xcf: return r.u32() * TWO_POW_32 + r.u32();
+    case 0xd0: return r.i8();
+    case 0xd1: return r.i16();
+    case 0xd2: return r.i32();
+    case 0xd3: return r.i32() * TWO_POW_32 + r.u32();
+    case 0xd8: {
+      const extType = r.u8();
+      if (extType !== UUID_EXT_TYPE) {
+        throw new Error(`Unsupported ext type ${extType} in binary frame`);
+      }
+      return readUuid(r);
+    }
+    case 0xd9: return readString(r, r.u8());
+    case 0xda: return readString(r, r.u16());
+    case 0xdb: return readString(r, r.u32());
+    case 0xdc: return readArray(r, r.u16());
+    case 0xdd: return readArray(r, r.u32());
+    case 0xde: return readMap(r, r.u16());
+    case 0xdf: return readMap(r, r.u32());
+    default:
+      throw new Error(`Unsupported MessagePack byte 0x${b.toString(16)} in binary frame`);
+  }
+}
+
+/**
+ * Encode a signaling message into a binary frame
+ */
+export function encodeBinaryMessage(message: SignalingMessage): Uint8Array {
+  const code = typeCodes.get(message.type);
+  if (code === undefined) {
+    throw new Error(`No binary type code for ${message.type}`);
+  }
+
+  const hasId = message.id !== undefined && message.id !== null;
+  const hasData = message.data !== undefined && message.data !== null;
+  const hasError = message.error !== undefined && message.error !== null;
+
+  const w = new ByteWriter();
+  w.u8(code);
+  w.u8((hasId ? FLAG_ID : 0) | (hasData ? FLAG_DATA : 0) | (hasError ? FLAG_ERROR : 0));
+  if (hasId) writeString(w, message.id as string);
+  if (hasData) writeMap(w, message.data as Record<string, unknown>);
+  if (hasError) writeString(w, message.error as string);
+  return w.finish();
+}
+
+/**
+ * Decode a binary frame into a signaling message
+ * Throws on unknown type codes, malformed values or trailing bytes
+ */
+export function decodeBinaryMessage(frame: Uint8Array): SignalingMessage {
+  const r = new ByteReader(frame);
+  const code = r.u8();
+  const type = SIGNALING_TYPE_CODES[code];
+  if (type === undefined) {
+    throw new Error(`Unknown binary type code ${code}`);
+  }
+
+  const flags = r.u8();
+  const message: SignalingMessage = { type };
+
+  if (flags & FLAG_ID) {
+    const id = readValue(r);
+    if (typeof id !== 'string') throw new Error('Binary frame id is not a string');
+    message.id = id;
+  }
+  if (flags & FLAG_DATA) {
+    const data = readValue(r);
+    if (data === null || typeof data !== 'object' || Array.isArray(data)) {
+      throw new Error('Binary frame data is not a map');
+    }
+    message.data = data as Record<string, unknown>;
+  }
+  if (flags & FLAG_ERROR) {
+    const error = readValue(r);
+    if (typeof error !== 'string') throw new Error('Binary frame error is not a string');
+    message.error = error;
+  }
+
+  if (r.remaining !== 0) {
+    throw new Error(`Binary frame has ${r.remaining} trailing bytes`);
+  }
+  return message;
+}
@@ -10,6 +10,7 @@ export enum SignalingType {
   // Channel management
   JOIN_CHANNEL = 'join-channel',
   LEAVE_CHANNEL = 'leave-channel',
+  REJOIN = 'rejoin', // Batched rejoin after reconnect (join + recv transport per channel)
 
   // WebRTC negotiation
   GET_ROUTER_CAPABILITIES = 'get-router-capabilities',
@@ -48,6 +49,55 @@ export enum SignalingType {
   UNBAN_USER = 'unban-user',
 }
 
+/**
+ * WebSocket subprotocol tokens
+ * Clients always offer SIGNALING_SUBPROTOCOL; clients that also offer BINARY_SIGNALING_SUBPROTOCOL
+ * get the compact binary wire format (see binaryCodec.ts) when the server supports it.
+ */
+export const SIGNALING_SUBPROTOCOL = 'voiceping';
+export const BINARY_SIGNALING_SUBPROTOCOL = 'voiceping.bin';
+
+/**
+ * Session resumption: clients present the resumeToken from their last CHANNEL_LIST as an
+ * extra subprotocol entry `voiceping.resume.<token>` (offered after the JWT). Within the
+ * server's grace window the previous session (channels, transports, producers) is reattached.
+ */
+export const RESUME_SUBPROTOCOL_PREFIX = 'voiceping.resume.';
+
+/**
+ * Integer wire codes for the binary format (index = code)
+ * Append-only: never reorder or remove entries, older peers decode by position
+ */
+export const SIGNALING_TYPE_CODES: readonly SignalingType[] = [
+  SignalingType.JOIN_CHANNEL,
+  SignalingType.LEAVE_CHANNEL,
+  SignalingType.GET_ROUTER_CAPABILITIES,
+  SignalingType.CREATE_TRANSPORT,
+  SignalingType.CONNECT_TRANSPORT,
+  SignalingType.PRODUCE,
+  SignalingType.CONSUME,
+  SignalingType.PTT_START,
+  SignalingType.PTT_STOP,
+  SignalingType.PTT_DENIED,
+  SignalingType.SPEAKER_CHANGED,
+  SignalingType.CHANNEL_STATE,
+  SignalingType.ERROR,
+  SignalingType.PING,
+  SignalingType.PONG,
+  SignalingType.PERMISSION_UPDATE,
+  SignalingType.CHANNEL_LIST,
+  SignalingType.FORCE_DISCONNECT,
+  SignalingType.PRIORITY_PTT_START,
+  SignalingType.PRIORITY_PTT_STOP,
+  SignalingType.EMERGENCY_BROADCAST_START,
+  SignalingType.EMERGENCY_BROADCAST_STOP,
+  SignalingType.PTT_INTERRUPTED,
+  SignalingType.ROLE_INFO,
+  SignalingType.BAN_USER,
+  SignalingType.UNBAN_USER,
+  SignalingType.REJOIN,
+];
+
 /**
  * Base signaling message structure
  */